@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.knx.handler.GroupAddressListener;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.IndividualAddress;
+
+/**
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class BusMessageDispatcherTest {
+
+    private static final GroupAddress GA1 = new GroupAddress(1, 2, 3);
+    private static final GroupAddress GA2 = new GroupAddress(1, 2, 4);
+    private static final IndividualAddress SOURCE = new IndividualAddress(1, 1, 1);
+
+    private ScheduledExecutorService scheduler;
+    private List<Runnable> scheduled;
+    private List<byte[]> received;
+    private BusMessageDispatcher dispatcher;
+
+    @Before
+    public void setup() {
+        scheduler = mock(ScheduledExecutorService.class);
+        scheduled = new ArrayList<>();
+        received = new ArrayList<>();
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            return null;
+        });
+        dispatcher = new BusMessageDispatcher(scheduler, 2);
+    }
+
+    private GroupAddressListener indexedListener(GroupAddress... addresses) {
+        GroupAddressListener listener = mock(GroupAddressListener.class);
+        Set<GroupAddress> set = new HashSet<>();
+        Collections.addAll(set, addresses);
+        when(listener.getGroupAddresses()).thenReturn(set);
+        return listener;
+    }
+
+    private GroupAddressListener stateListener(GroupAddress... addresses) {
+        GroupAddressListener listener = indexedListener(addresses);
+        when(listener.carriesState(any())).thenReturn(true);
+        return listener;
+    }
+
+    private void dispatch(GroupAddress destination, byte value) {
+        dispatcher.dispatch("Group Write", SOURCE, destination, new byte[] { value },
+                (listener, source, dest, asdu) -> received.add(asdu));
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testIndexedLookup() {
+        GroupAddressListener listener1 = indexedListener(GA1);
+        GroupAddressListener listener2 = indexedListener(GA2);
+        dispatcher.registerListener(listener1);
+        dispatcher.registerListener(listener2);
+
+        assertEquals(Collections.singleton(listener1), dispatcher.getListeners(GA1));
+        assertEquals(Collections.singleton(listener2), dispatcher.getListeners(GA2));
+        verify(listener1, never()).listensTo(any());
+    }
+
+    @Test
+    public void testReregisterRefreshesIndex() {
+        Set<GroupAddress> addresses = new HashSet<>(Collections.singleton(GA1));
+        GroupAddressListener listener = mock(GroupAddressListener.class);
+        when(listener.getGroupAddresses()).thenReturn(addresses);
+        assertTrue(dispatcher.registerListener(listener));
+
+        addresses.clear();
+        addresses.add(GA2);
+        assertFalse(dispatcher.registerListener(listener));
+
+        assertTrue(dispatcher.getListeners(GA1).isEmpty());
+        assertEquals(Collections.singleton(listener), dispatcher.getListeners(GA2));
+
+        assertTrue(dispatcher.unregisterListener(listener));
+        assertTrue(dispatcher.getListeners(GA2).isEmpty());
+    }
+
+    @Test
+    public void testUnindexedListenerIsAsked() {
+        GroupAddressListener listener = mock(GroupAddressListener.class);
+        when(listener.getGroupAddresses()).thenReturn(null);
+        when(listener.listensTo(GA1)).thenReturn(true);
+        dispatcher.registerListener(listener);
+
+        assertEquals(Collections.singleton(listener), dispatcher.getListeners(GA1));
+        assertTrue(dispatcher.getListeners(GA2).isEmpty());
+    }
+
+    @Test
+    public void testBurstIsCoalesced() {
+        dispatcher.registerListener(stateListener(GA1));
+        dispatch(GA1, (byte) 1);
+        dispatch(GA1, (byte) 2);
+        dispatch(GA1, (byte) 3);
+        assertEquals(1, scheduled.size());
+
+        runScheduled();
+        assertEquals(1, received.size());
+        assertEquals(3, received.get(0)[0]);
+        assertEquals(0, dispatcher.getPendingCount());
+
+        dispatch(GA1, (byte) 4);
+        runScheduled();
+        assertEquals(2, received.size());
+        assertEquals(4, received.get(1)[0]);
+    }
+
+    @Test
+    public void testRelativeDimmingBurstIsDeliveredInFull() {
+        GroupAddressListener listener = indexedListener(GA1);
+        // DPT 3.007 (relative dimming)
+        when(listener.carriesState(GA1)).thenReturn(BusMessageDispatcher.isStateDPT("3.007"));
+        dispatcher.registerListener(listener);
+        dispatch(GA1, (byte) 0x09); // increase 1/2
+        dispatch(GA1, (byte) 0x09); // increase 1/2
+        dispatch(GA1, (byte) 0x00); // stop
+        assertEquals(3, scheduled.size());
+        assertEquals(0, dispatcher.getPendingCount());
+
+        runScheduled();
+        assertEquals(3, received.size());
+        assertEquals(0x09, received.get(0)[0]);
+        assertEquals(0x09, received.get(1)[0]);
+        assertEquals(0x00, received.get(2)[0]);
+    }
+
+    @Test
+    public void testStateDPTs() {
+        assertTrue(BusMessageDispatcher.isStateDPT("5.001"));
+        assertTrue(BusMessageDispatcher.isStateDPT("9.001"));
+        assertTrue(BusMessageDispatcher.isStateDPT("14.019"));
+        assertTrue(BusMessageDispatcher.isStateDPT("232.600"));
+        assertFalse(BusMessageDispatcher.isStateDPT("1.001"));
+        assertFalse(BusMessageDispatcher.isStateDPT("1.017"));
+        assertFalse(BusMessageDispatcher.isStateDPT("3.007"));
+        assertFalse(BusMessageDispatcher.isStateDPT("3.008"));
+        assertFalse(BusMessageDispatcher.isStateDPT("17.001"));
+        assertFalse(BusMessageDispatcher.isStateDPT("18.001"));
+        assertFalse(BusMessageDispatcher.isStateDPT(null));
+    }
+
+    @Test
+    public void testPendingIsBounded() {
+        GroupAddress ga3 = new GroupAddress(1, 2, 5);
+        dispatcher.registerListener(stateListener(GA1, GA2, ga3));
+        dispatch(GA1, (byte) 1);
+        dispatch(GA2, (byte) 2);
+        dispatch(ga3, (byte) 3);
+        dispatch(ga3, (byte) 4);
+
+        // the third address exceeds the limit of two pending telegrams, and is not coalesced
+        assertEquals(2, dispatcher.getPendingCount());
+        assertEquals(4, scheduled.size());
+        runScheduled();
+        assertEquals(4, received.size());
+    }
+}
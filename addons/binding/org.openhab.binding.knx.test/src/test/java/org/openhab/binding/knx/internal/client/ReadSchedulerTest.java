@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
+/**
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class ReadSchedulerTest {
+
+    private static final GroupAddress GA1 = new GroupAddress(1, 2, 3);
+    private static final GroupAddress GA2 = new GroupAddress(1, 2, 4);
+    private static final GroupAddress GA3 = new GroupAddress(1, 2, 5);
+
+    private long now;
+    private ReadScheduler scheduler;
+
+    @Before
+    public void setup() {
+        now = 10000;
+        scheduler = new ReadScheduler(50, 3, () -> now);
+    }
+
+    private Datapoint datapoint(GroupAddress groupAddress, String dpt) {
+        return new CommandDP(groupAddress, "test", 0, dpt);
+    }
+
+    @Test
+    public void testDeduplicatesPerGroupAddress() {
+        assertTrue(scheduler.add(datapoint(GA1, "1.001"), false));
+        assertFalse(scheduler.add(datapoint(GA1, "5.001"), false));
+        assertTrue(scheduler.add(datapoint(GA2, "1.001"), false));
+        assertEquals(2, scheduler.size());
+
+        assertEquals(GA1, scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(GA2, scheduler.poll().getDatapoint().getMainAddress());
+        assertNull(scheduler.poll());
+
+        // can be scheduled again once taken
+        assertTrue(scheduler.add(datapoint(GA1, "1.001"), false));
+    }
+
+    @Test
+    public void testPrioritizedFirst() {
+        scheduler.add(datapoint(GA1, "1.001"), false);
+        scheduler.add(datapoint(GA2, "1.001"), false);
+        scheduler.add(datapoint(GA3, "1.001"), true);
+
+        assertEquals(GA3, scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(GA1, scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(GA2, scheduler.poll().getDatapoint().getMainAddress());
+    }
+
+    @Test
+    public void testPendingReadGetsPrioritized() {
+        scheduler.add(datapoint(GA1, "1.001"), false);
+        scheduler.add(datapoint(GA2, "1.001"), false);
+        assertFalse(scheduler.add(datapoint(GA2, "1.001"), true));
+
+        assertEquals(GA2, scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(GA1, scheduler.poll().getDatapoint().getMainAddress());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testRetryLimit() {
+        scheduler.add(datapoint(GA1, "1.001"), false);
+        for (int i = 0; i < 3; i++) {
+            ReadDatapoint readDatapoint = scheduler.poll();
+            assertNotNull(readDatapoint);
+            readDatapoint.incrementRetries();
+            assertEquals(i < 2, scheduler.retry(readDatapoint));
+        }
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testRetryNotDuplicated() {
+        scheduler.add(datapoint(GA1, "1.001"), false);
+        ReadDatapoint readDatapoint = scheduler.poll();
+        readDatapoint.incrementRetries();
+        scheduler.add(datapoint(GA1, "1.001"), false);
+
+        assertTrue(scheduler.retry(readDatapoint));
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    public void testClear() {
+        scheduler.add(datapoint(GA1, "1.001"), false);
+        scheduler.add(datapoint(GA2, "1.001"), true);
+        scheduler.clear();
+        assertEquals(0, scheduler.size());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testPauseAdaptsToConfirmations() {
+        assertEquals(50, scheduler.getPause());
+
+        scheduler.onReadFailed();
+        assertEquals(100, scheduler.getPause());
+        for (int i = 0; i < 10; i++) {
+            scheduler.onReadFailed();
+        }
+        assertEquals(50 * ReadScheduler.MAX_PAUSE_FACTOR, scheduler.getPause());
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.onReadConfirmed();
+        }
+        assertEquals(50, scheduler.getPause());
+    }
+
+    @Test
+    public void testPauseAdaptsToBusLoad() {
+        for (int i = 0; i < 4 * ReadScheduler.HIGH_BUS_LOAD; i++) {
+            scheduler.onTelegram();
+        }
+        // the window is not complete yet
+        assertEquals(50, scheduler.getPause());
+
+        now += 1000;
+        assertEquals(4 * ReadScheduler.HIGH_BUS_LOAD, scheduler.getBusLoad());
+        assertEquals(200, scheduler.getPause());
+
+        now += 2000;
+        assertEquals(0, scheduler.getBusLoad());
+        assertEquals(50, scheduler.getPause());
+    }
+
+    @Test
+    public void testZeroReadingPause() {
+        scheduler = new ReadScheduler(0, 3, () -> now);
+        assertEquals(0, scheduler.getPause());
+        scheduler.onReadFailed();
+        assertEquals(0, scheduler.getPause());
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.dpt;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.IncreaseDecreaseType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.UpDownType;
+import org.eclipse.smarthome.core.types.Type;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.junit.Test;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+
+/**
+ * Verifies that the cached decoders convert the same way as the translators' textual values
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class DPTDecoderTest {
+
+    private final KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+
+    private static final float[] FLOAT_SAMPLES = new float[] { 0f, -1.5f, 3.14159f, 230.4f, 99999.9f, 1.23e20f,
+            -4.5e-7f };
+
+    private static byte[] floatToBytes(float value) {
+        int bits = Float.floatToIntBits(value);
+        return new byte[] { (byte) (bits >> 24), (byte) (bits >> 16), (byte) (bits >> 8), (byte) bits };
+    }
+
+    private static CommandDP datapoint(String dpt) {
+        return new CommandDP(new GroupAddress(1, 2, 3), "test", 0, dpt);
+    }
+
+    private Type toType(String dpt, byte[] data) {
+        return mapper.toType(datapoint(dpt), data);
+    }
+
+    private void assertSameAsViaValue(String dpt, byte[] data) {
+        assertEquals("DPT " + dpt, mapper.toTypeViaValue(datapoint(dpt), data), toType(dpt, data));
+    }
+
+    private void assertSameAsViaValueForAllBytes(String dpt) {
+        for (int i = 0; i < 256; i++) {
+            assertSameAsViaValue(dpt, new byte[] { (byte) i });
+        }
+    }
+
+    private void assertSameAsViaValueForSamples(String dpt) {
+        for (int i = 0; i < 256; i++) {
+            assertSameAsViaValue(dpt, new byte[] { (byte) i, (byte) (i * 31 + 17) });
+        }
+    }
+
+    @Test
+    public void testBoolean() {
+        for (String dpt : new String[] { "1.001", "1.002", "1.008", "1.009", "1.010", "1.019", "1.022" }) {
+            assertSameAsViaValue(dpt, new byte[] { 0 });
+            assertSameAsViaValue(dpt, new byte[] { 1 });
+        }
+        assertEquals(OnOffType.ON, toType("1.001", new byte[] { 1 }));
+        assertEquals(UpDownType.UP, toType("1.008", new byte[] { 0 }));
+    }
+
+    @Test
+    public void testControlled() {
+        assertSameAsViaValueForAllBytes("2.001");
+        assertSameAsViaValueForAllBytes("3.007");
+        assertSameAsViaValueForAllBytes("3.008");
+        assertEquals(IncreaseDecreaseType.INCREASE, toType("3.007", new byte[] { 0x09 }));
+        assertEquals(UnDefType.UNDEF, toType("3.007", new byte[] { 0x08 }));
+    }
+
+    @Test
+    public void test8BitUnsigned() {
+        assertSameAsViaValueForAllBytes("5.001");
+        assertSameAsViaValueForAllBytes("5.003");
+        assertSameAsViaValueForAllBytes("5.004");
+        assertSameAsViaValueForAllBytes("5.010");
+        assertEquals(new PercentType(100), toType("5.001", new byte[] { (byte) 0xFF }));
+    }
+
+    @Test
+    public void test2ByteFloat() {
+        assertSameAsViaValueForSamples("9.001");
+        assertSameAsViaValueForSamples("9.007");
+        assertTrue(toType("9.001", new byte[] { 0x0C, 0x20 }) instanceof DecimalType);
+    }
+
+    @Test
+    public void test4ByteFloat() {
+        for (float value : FLOAT_SAMPLES) {
+            byte[] data = floatToBytes(value);
+            assertSameAsViaValue("14.019", data);
+            assertSameAsViaValue("14.056", data);
+        }
+    }
+
+    @Test
+    public void testAllSupported() {
+        for (String dpt : DPTDecoder.SUPPORTED_DPTS) {
+            switch (dpt.substring(0, dpt.indexOf('.'))) {
+                case "9":
+                    assertSameAsViaValueForSamples(dpt);
+                    break;
+                case "14":
+                    for (float value : FLOAT_SAMPLES) {
+                        assertSameAsViaValue(dpt, floatToBytes(value));
+                    }
+                    break;
+                default:
+                    assertSameAsViaValueForAllBytes(dpt);
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentDecoding() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        int value = (i + offset * 64) % 256;
+                        assertEquals(new DecimalType(value), toType("5.010", new byte[] { (byte) value }));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUnsupportedFallsBack() {
+        assertSameAsViaValue("16.000", "hello".getBytes());
+    }
+}
@@ -59,6 +59,8 @@ public interface KNXClient {
     /**
      * Register the given listener to be informed on KNX bus traffic.
      *
+     * Registering an already registered listener refreshes the Group Addresses it is interested in.
+     *
      * @param listener the listener
      * @return {@code true} if it wasn't registered before
      */
@@ -79,6 +81,18 @@ public interface KNXClient {
      */
     void readDatapoint(Datapoint datapoint);
 
+    /**
+     * Schedule the given data point for asynchronous reading.
+     *
+     * Only one read request is scheduled per group address, the response is received by all listeners of the group
+     * address.
+     *
+     * @param datapoint the datapoint
+     * @param prioritize {@code true} if the data point should be read before the non-prioritized ones, e.g. on an
+     *            explicit refresh
+     */
+    void readDatapoint(Datapoint datapoint, boolean prioritize);
+
     /**
      * Write a command to the KNX bus.
      *
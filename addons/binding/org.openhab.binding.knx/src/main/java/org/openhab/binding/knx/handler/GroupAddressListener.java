@@ -8,7 +8,10 @@
  */
 package org.openhab.binding.knx.handler;
 
+import java.util.Set;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.knx.internal.client.BusMessageListener;
 
 import tuwien.auto.calimero.GroupAddress;
@@ -30,4 +33,30 @@ public interface GroupAddressListener extends BusMessageListener {
      */
     public boolean listensTo(GroupAddress destination);
 
+    /**
+     * Get the Group Addresses the GroupAddressListener has an interest in
+     *
+     * Listeners returning the addresses are looked up by Group Address when telegrams are received. The addresses are
+     * queried when the listener is registered, re-register the listener when the addresses change.
+     *
+     * @return the Group Addresses, or null if {@link #listensTo(GroupAddress)} should be asked for every telegram
+     */
+    public default @Nullable Set<GroupAddress> getGroupAddresses() {
+        return null;
+    }
+
+    /**
+     * Called to verify if the telegrams to the given GroupAddress carry absolute state
+     *
+     * Telegrams carrying absolute state may be coalesced when they arrive faster than processed: only the latest one
+     * is passed to the listener. Other telegrams, e.g. relative dimming steps, scenes or triggers, are all passed to
+     * the listener.
+     *
+     * @param destination
+     * @return true if only the latest telegram to the given GroupAddress is of interest
+     */
+    public default boolean carriesState(GroupAddress destination) {
+        return false;
+    }
+
 }
@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.knx.handler.GroupAddressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.IndividualAddress;
+
+/**
+ * Dispatches telegrams received from the KNX bus to the interested {@link GroupAddressListener}s.
+ *
+ * Listeners announcing their group addresses are indexed by group address, so that only the interested listeners are
+ * looked up for each telegram. Listeners not announcing their group addresses are asked for every telegram.
+ *
+ * Telegrams of the same kind to the same group address are coalesced while the previous one is still waiting to be
+ * processed by the listener, only the latest one is passed to the listener. Only telegrams carrying absolute state
+ * (see {@link GroupAddressListener#carriesState(GroupAddress)}) are coalesced, other telegrams such as relative
+ * dimming steps, scenes and triggers are all passed to the listener. The number of telegrams waiting to be
+ * processed is bounded: telegrams exceeding the limit are dispatched without coalescing.
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class BusMessageDispatcher {
+
+    /**
+     * Default maximum number of telegrams waiting to be processed by the listeners
+     */
+    public static final int DEFAULT_MAX_PENDING = 1000;
+
+    /**
+     * Main numbers of the datapoint types carrying absolute state, i.e. the latest value supersedes the previous
+     * ones. Not included are e.g. 1.x (triggers and pulses), 2.x (priority control), 3.x (relative dimming and blind
+     * steps), 17.x/18.x (scenes) and 26.x (scene info).
+     */
+    private static final Set<String> STATE_DPT_MAIN_NUMBERS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "16", "19", "29", "232")));
+
+    @FunctionalInterface
+    public interface ListenerNotification {
+        void apply(BusMessageListener listener, IndividualAddress source, GroupAddress destination, byte[] asdu);
+    }
+
+    private static class PendingKey {
+        private final GroupAddressListener listener;
+        private final GroupAddress destination;
+        private final String kind;
+
+        public PendingKey(GroupAddressListener listener, GroupAddress destination, String kind) {
+            this.listener = listener;
+            this.destination = destination;
+            this.kind = kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(listener), destination, kind);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PendingKey)) {
+                return false;
+            }
+            PendingKey other = (PendingKey) obj;
+            return listener == other.listener && destination.equals(other.destination) && kind.equals(other.kind);
+        }
+    }
+
+    private static class PendingTelegram {
+        private final IndividualAddress source;
+        private final byte[] asdu;
+        private final ListenerNotification action;
+
+        public PendingTelegram(IndividualAddress source, byte[] asdu, ListenerNotification action) {
+            this.source = source;
+            this.asdu = asdu;
+            this.action = action;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(BusMessageDispatcher.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final int maxPending;
+
+    private final Set<GroupAddressListener> listeners = new CopyOnWriteArraySet<>();
+    private final Set<GroupAddressListener> unindexedListeners = new CopyOnWriteArraySet<>();
+    private final Map<GroupAddress, Set<GroupAddressListener>> listenersByAddress = new ConcurrentHashMap<>();
+    private final Map<GroupAddressListener, Set<GroupAddress>> indexedAddresses = new ConcurrentHashMap<>();
+    private final Map<PendingKey, PendingTelegram> pending = new ConcurrentHashMap<>();
+
+    public BusMessageDispatcher(ScheduledExecutorService scheduler) {
+        this(scheduler, DEFAULT_MAX_PENDING);
+    }
+
+    public BusMessageDispatcher(ScheduledExecutorService scheduler, int maxPending) {
+        this.scheduler = scheduler;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Register listener, or refresh the group addresses of already registered listener
+     *
+     * @param listener listener to register
+     * @return true if the listener was not registered before
+     */
+    public synchronized boolean registerListener(GroupAddressListener listener) {
+        boolean added = listeners.add(listener);
+        unindex(listener);
+        Set<GroupAddress> groupAddresses = listener.getGroupAddresses();
+        if (groupAddresses == null) {
+            unindexedListeners.add(listener);
+        } else {
+            Set<GroupAddress> addresses = new HashSet<>(groupAddresses);
+            for (GroupAddress groupAddress : addresses) {
+                listenersByAddress.computeIfAbsent(groupAddress, ga -> new CopyOnWriteArraySet<>()).add(listener);
+            }
+            indexedAddresses.put(listener, addresses);
+        }
+        return added;
+    }
+
+    /**
+     * Unregister listener
+     *
+     * @param listener listener to unregister
+     * @return true if the listener was registered
+     */
+    public synchronized boolean unregisterListener(GroupAddressListener listener) {
+        unindex(listener);
+        pending.keySet().removeIf(key -> key.listener == listener);
+        return listeners.remove(listener);
+    }
+
+    private void unindex(GroupAddressListener listener) {
+        unindexedListeners.remove(listener);
+        Set<GroupAddress> addresses = indexedAddresses.remove(listener);
+        if (addresses == null) {
+            return;
+        }
+        for (GroupAddress groupAddress : addresses) {
+            Set<GroupAddressListener> addressListeners = listenersByAddress.get(groupAddress);
+            if (addressListeners != null) {
+                addressListeners.remove(listener);
+                if (addressListeners.isEmpty()) {
+                    listenersByAddress.remove(groupAddress);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get listeners interested in the given group address
+     *
+     * @param destination group address of the telegram
+     * @return interested listeners
+     */
+    public Set<GroupAddressListener> getListeners(GroupAddress destination) {
+        Set<GroupAddressListener> indexed = listenersByAddress.getOrDefault(destination, Collections.emptySet());
+        if (unindexedListeners.isEmpty()) {
+            return indexed;
+        }
+        Set<GroupAddressListener> result = new HashSet<>(indexed);
+        for (GroupAddressListener listener : unindexedListeners) {
+            if (listener.listensTo(destination)) {
+                result.add(listener);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Dispatch telegram to the interested listeners
+     *
+     * @param kind kind of the telegram, e.g. "Group Write". Only telegrams of the same kind are coalesced
+     * @param source source of the telegram
+     * @param destination destination of the telegram
+     * @param asdu data of the telegram
+     * @param action notification of the listener
+     */
+    public void dispatch(String kind, IndividualAddress source, GroupAddress destination, byte[] asdu,
+            ListenerNotification action) {
+        for (GroupAddressListener listener : getListeners(destination)) {
+            if (!listener.carriesState(destination)) {
+                scheduler.schedule(() -> action.apply(listener, source, destination, asdu), 0, TimeUnit.SECONDS);
+                continue;
+            }
+            PendingKey key = new PendingKey(listener, destination, kind);
+            PendingTelegram telegram = new PendingTelegram(source, asdu, action);
+            if (pending.size() >= maxPending && !pending.containsKey(key)) {
+                logger.debug("Too many ({}) telegrams waiting to be processed, not coalescing {} telegram to '{}'",
+                        pending.size(), kind, destination);
+                scheduler.schedule(() -> action.apply(listener, source, destination, asdu), 0, TimeUnit.SECONDS);
+                continue;
+            }
+            if (pending.put(key, telegram) == null) {
+                scheduler.schedule(() -> processPending(key), 0, TimeUnit.SECONDS);
+            } else {
+                logger.trace("Coalesced {} telegram to '{}' with the previous one still waiting", kind, destination);
+            }
+        }
+    }
+
+    private void processPending(PendingKey key) {
+        PendingTelegram telegram = pending.remove(key);
+        if (telegram != null) {
+            telegram.action.apply(key.listener, telegram.source, key.destination, telegram.asdu);
+        }
+    }
+
+    /**
+     * Check whether the datapoint type carries absolute state, so that only the latest telegram is of interest
+     *
+     * @param dpt datapoint type, e.g. "9.001"
+     * @return true if telegrams of the datapoint type can be coalesced
+     */
+    public static boolean isStateDPT(@Nullable String dpt) {
+        if (dpt == null) {
+            return false;
+        }
+        int separator = dpt.indexOf('.');
+        return STATE_DPT_MAIN_NUMBERS.contains(separator < 0 ? dpt : dpt.substring(0, separator));
+    }
+
+    /**
+     * Get number of telegrams waiting to be processed by the listeners
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -18,6 +18,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.thing.ThingUID;
+import org.openhab.binding.knx.KNXTypeMapper;
 import org.openhab.binding.knx.client.StatusUpdateCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,9 +60,9 @@ public class IPClient extends AbstractKNXClient {
     public IPClient(int ipConnectionType, String ip, String localSource, int port,
             @Nullable InetSocketAddress localEndPoint, boolean useNAT, int autoReconnectPeriod, ThingUID thingUID,
             int responseTimeout, int readingPause, int readRetriesLimit, ScheduledExecutorService knxScheduler,
-            StatusUpdateCallback statusUpdateCallback) {
+            StatusUpdateCallback statusUpdateCallback, KNXTypeMapper typeHelper) {
         super(autoReconnectPeriod, thingUID, responseTimeout, readingPause, readRetriesLimit, knxScheduler,
-                statusUpdateCallback);
+                statusUpdateCallback, typeHelper);
         this.ipConnectionType = ipConnectionType;
         this.ip = ip;
         this.localSource = localSource;
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
+/**
+ * Schedules the read requests sent to the KNX bus.
+ *
+ * Only one read request is pending per group address: the response is received by all listeners of the group
+ * address anyway. Prioritized reads (e.g. explicit refreshes by the user) are sent before the other ones, and a pending
+ * read is moved ahead when it gets prioritized.
+ *
+ * The pause between two read requests is never below the configured reading pause. It grows when read requests are
+ * not confirmed by a response and shrinks back with every confirmed read request. While the bus is busy, i.e. more
+ * than {@link #HIGH_BUS_LOAD} telegrams per second are observed, the pause is stretched proportionally.
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class ReadScheduler {
+
+    /**
+     * Number of telegrams per second above which the bus is considered busy
+     */
+    static final int HIGH_BUS_LOAD = 20;
+
+    /**
+     * Upper limit of the pause as multiple of the configured reading pause
+     */
+    static final int MAX_PAUSE_FACTOR = 20;
+
+    private static final long MAX_PAUSE_MILLIS = 5000;
+    private static final long BUS_LOAD_WINDOW_MILLIS = 1000;
+
+    private final int readRetriesLimit;
+    private final long minPause;
+    private final long maxPause;
+    private final LongSupplier clock;
+
+    private final Map<GroupAddress, ReadDatapoint> pending = new HashMap<>();
+    private final Deque<ReadDatapoint> prioritized = new ArrayDeque<>();
+    private final Deque<ReadDatapoint> regular = new ArrayDeque<>();
+
+    private long pause;
+    private long windowStart;
+    private int windowTelegrams;
+    private int busLoad;
+
+    public ReadScheduler(int readingPause, int readRetriesLimit) {
+        this(readingPause, readRetriesLimit, System::currentTimeMillis);
+    }
+
+    ReadScheduler(int readingPause, int readRetriesLimit, LongSupplier clock) {
+        this.readRetriesLimit = readRetriesLimit;
+        this.minPause = Math.max(0, readingPause);
+        this.maxPause = Math.max(minPause, Math.min(MAX_PAUSE_MILLIS, minPause * MAX_PAUSE_FACTOR));
+        this.clock = clock;
+        this.pause = minPause;
+        this.windowStart = clock.getAsLong();
+    }
+
+    /**
+     * Schedule reading the datapoint
+     *
+     * @param datapoint datapoint to read
+     * @param prioritize whether the datapoint should be read before the non-prioritized ones
+     * @return true if no read request for the group address was pending before
+     */
+    public synchronized boolean add(Datapoint datapoint, boolean prioritize) {
+        GroupAddress groupAddress = datapoint.getMainAddress();
+        ReadDatapoint existing = pending.get(groupAddress);
+        if (existing != null) {
+            if (prioritize && regular.remove(existing)) {
+                prioritized.add(existing);
+            }
+            return false;
+        }
+        ReadDatapoint readDatapoint = new ReadDatapoint(datapoint, readRetriesLimit);
+        pending.put(groupAddress, readDatapoint);
+        (prioritize ? prioritized : regular).add(readDatapoint);
+        return true;
+    }
+
+    /**
+     * Take the next datapoint to read
+     *
+     * @return next datapoint, or null if there is nothing to read
+     */
+    public synchronized @Nullable ReadDatapoint poll() {
+        ReadDatapoint next = prioritized.poll();
+        if (next == null) {
+            next = regular.poll();
+        }
+        if (next != null) {
+            pending.remove(next.getDatapoint().getMainAddress());
+        }
+        return next;
+    }
+
+    /**
+     * Schedule reading the datapoint again after a failed attempt
+     *
+     * The datapoint is queued behind the already scheduled ones, unless a read request for the same group address has
+     * been scheduled in the meantime.
+     *
+     * @param readDatapoint datapoint to retry
+     * @return true if the datapoint has been scheduled again, false if the retries limit has been reached
+     */
+    public synchronized boolean retry(ReadDatapoint readDatapoint) {
+        if (readDatapoint.getRetries() >= readDatapoint.getLimit()) {
+            return false;
+        }
+        GroupAddress groupAddress = readDatapoint.getDatapoint().getMainAddress();
+        if (pending.putIfAbsent(groupAddress, readDatapoint) == null) {
+            regular.add(readDatapoint);
+        }
+        return true;
+    }
+
+    /**
+     * Discard all scheduled read requests
+     */
+    public synchronized void clear() {
+        pending.clear();
+        prioritized.clear();
+        regular.clear();
+    }
+
+    /**
+     * Number of group addresses with pending read requests
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Register that the read request has been confirmed by a response
+     */
+    public synchronized void onReadConfirmed() {
+        pause = Math.max(minPause, pause * 9 / 10);
+    }
+
+    /**
+     * Register that the read request has not been confirmed, e.g. because of a timeout
+     */
+    public synchronized void onReadFailed() {
+        pause = Math.min(maxPause, Math.max(pause * 2, minPause + 10));
+    }
+
+    /**
+     * Register a telegram observed on the bus
+     */
+    public synchronized void onTelegram() {
+        updateBusLoad();
+        windowTelegrams++;
+    }
+
+    /**
+     * Number of telegrams observed during the last complete second
+     */
+    public synchronized int getBusLoad() {
+        updateBusLoad();
+        return busLoad;
+    }
+
+    /**
+     * Get the pause to wait before sending the next read request
+     *
+     * @return pause in milliseconds
+     */
+    public synchronized long getPause() {
+        int load = getBusLoad();
+        if (load > HIGH_BUS_LOAD) {
+            return Math.min(maxPause, Math.max(pause * load / HIGH_BUS_LOAD, minPause + 10));
+        }
+        return pause;
+    }
+
+    private void updateBusLoad() {
+        long now = clock.getAsLong();
+        long elapsed = now - windowStart;
+        if (elapsed >= BUS_LOAD_WINDOW_MILLIS) {
+            // a window without any telegrams resets the load
+            busLoad = elapsed >= 2 * BUS_LOAD_WINDOW_MILLIS ? 0 : windowTelegrams;
+            windowTelegrams = 0;
+            windowStart = now;
+        }
+    }
+}
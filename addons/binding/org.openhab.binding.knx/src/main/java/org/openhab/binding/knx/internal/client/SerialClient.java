@@ -13,6 +13,7 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.smarthome.core.thing.ThingUID;
+import org.openhab.binding.knx.KNXTypeMapper;
 import org.openhab.binding.knx.client.StatusUpdateCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,9 +39,9 @@ public class SerialClient extends AbstractKNXClient {
 
     public SerialClient(int autoReconnectPeriod, ThingUID thingUID, int responseTimeout, int readingPause,
             int readRetriesLimit, ScheduledExecutorService knxScheduler, String serialPort,
-            StatusUpdateCallback statusUpdateCallback) {
+            StatusUpdateCallback statusUpdateCallback, KNXTypeMapper typeHelper) {
         super(autoReconnectPeriod, thingUID, responseTimeout, readingPause, readRetriesLimit, knxScheduler,
-                statusUpdateCallback);
+                statusUpdateCallback, typeHelper);
         this.serialPort = serialPort;
     }
 
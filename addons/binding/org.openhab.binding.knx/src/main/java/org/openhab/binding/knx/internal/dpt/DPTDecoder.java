@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.dpt;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.IncreaseDecreaseType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.StopMoveType;
+import org.eclipse.smarthome.core.library.types.UpDownType;
+import org.eclipse.smarthome.core.types.Type;
+import org.eclipse.smarthome.core.types.UnDefType;
+
+import tuwien.auto.calimero.KNXException;
+import tuwien.auto.calimero.KNXFormatException;
+import tuwien.auto.calimero.dptxlator.DPTXlator;
+import tuwien.auto.calimero.dptxlator.DPTXlator1BitControlled;
+import tuwien.auto.calimero.dptxlator.DPTXlator3BitControlled;
+import tuwien.auto.calimero.dptxlator.DPTXlatorBoolean;
+import tuwien.auto.calimero.dptxlator.TranslatorTypes;
+
+/**
+ * Decoder converting the data of a single datapoint type directly into an openHAB type.
+ *
+ * The main and sub number as well as the openHAB type class are resolved once when the decoder is created. Each thread
+ * decoding telegrams gets its own translator, which is reused for every telegram, so that telegrams received by
+ * different bridges are decoded in parallel. Only datapoint types whose value can be converted without the textual
+ * representation of the translator are supported, see {@link #isSupported(String)}.
+ *
+ * Instances are thread-safe.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+class DPTDecoder {
+
+    /**
+     * Datapoint types decoded without the textual representation. DPTDecoderTest verifies for each of them that the
+     * result is the same as with the textual representation, extend the test when adding datapoint types.
+     */
+    static final Set<String> SUPPORTED_DPTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            // boolean
+            "1.001", "1.002", "1.008", "1.009", "1.010", "1.019", "1.022",
+            // 1-bit controlled
+            "2.001",
+            // relative dimming and blinds
+            "3.007", "3.008",
+            // 8-bit unsigned
+            "5.001", "5.003", "5.004", "5.010",
+            // 2-byte float
+            "9.001", "9.004", "9.005", "9.006", "9.007", "9.008",
+            // 4-byte float
+            "14.019", "14.027", "14.056", "14.068")));
+
+    private final int mainNumber;
+    private final int subNumber;
+    private final Class<? extends Type> typeClass;
+    private final ThreadLocal<DPTXlator> translators;
+
+    /**
+     * @throws KNXException when no translator is available for the datapoint type
+     */
+    DPTDecoder(int mainNumber, int subNumber, String dptId, Class<? extends Type> typeClass) throws KNXException {
+        this.mainNumber = mainNumber;
+        this.subNumber = subNumber;
+        this.typeClass = typeClass;
+        DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptId);
+        translators = ThreadLocal.withInitial(() -> {
+            try {
+                return TranslatorTypes.createTranslator(mainNumber, dptId);
+            } catch (KNXException e) {
+                // creating the first translator succeeded already
+                throw new IllegalStateException(e);
+            }
+        });
+        translators.set(translator);
+    }
+
+    /**
+     * Whether values of the datapoint type can be decoded without the textual representation
+     *
+     * @param dptId datapoint type id, e.g. "9.001"
+     * @return true if supported
+     */
+    static boolean isSupported(String dptId) {
+        return SUPPORTED_DPTS.contains(dptId);
+    }
+
+    /**
+     * Decode the data
+     *
+     * @param data ASDU of the telegram
+     * @return the decoded type
+     * @throws KNXFormatException when the data cannot be decoded
+     */
+    @Nullable
+    Type decode(byte[] data) throws KNXFormatException {
+        DPTXlator translator = translators.get();
+        translator.setData(data);
+        switch (mainNumber) {
+            case 1:
+                return decodeBoolean(((DPTXlatorBoolean) translator).getValueBoolean());
+            case 2:
+                DPTXlator1BitControlled translator1BitControlled = (DPTXlator1BitControlled) translator;
+                return new DecimalType((translator1BitControlled.getControlBit() ? 2 : 0)
+                        + (translator1BitControlled.getValueBit() ? 1 : 0));
+            case 3:
+                DPTXlator3BitControlled translator3BitControlled = (DPTXlator3BitControlled) translator;
+                if (translator3BitControlled.getStepCode() == 0) {
+                    return UnDefType.UNDEF;
+                }
+                if (subNumber == 7) {
+                    return translator3BitControlled.getControlBit() ? IncreaseDecreaseType.INCREASE
+                            : IncreaseDecreaseType.DECREASE;
+                }
+                return translator3BitControlled.getControlBit() ? UpDownType.DOWN : UpDownType.UP;
+            default:
+                if (typeClass.equals(PercentType.class)) {
+                    return new PercentType(BigDecimal.valueOf(Math.round(translator.getNumericValue())));
+                }
+                return new DecimalType(translator.getNumericValue());
+        }
+    }
+
+    private Type decodeBoolean(boolean value) {
+        switch (subNumber) {
+            case 8:
+                return value ? UpDownType.DOWN : UpDownType.UP;
+            case 9:
+            case 19:
+                return value ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            case 10:
+                return value ? StopMoveType.MOVE : StopMoveType.STOP;
+            case 22:
+                return value ? DecimalType.valueOf("1") : DecimalType.valueOf("0");
+            default:
+                return value ? OnOffType.ON : OnOffType.OFF;
+        }
+    }
+}
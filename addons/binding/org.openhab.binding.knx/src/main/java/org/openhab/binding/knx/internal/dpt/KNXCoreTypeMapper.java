@@ -20,6 +20,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
 import org.eclipse.smarthome.core.library.types.DecimalType;
@@ -78,6 +80,9 @@ import tuwien.auto.calimero.dptxlator.TranslatorTypes;
  * If for a 'MainType' there is currently no specific mapping registered,
  * you can find a commented example line, with it's correct 'DPTXlator' class.
  *
+ * The mapper is thread-safe and shared as a service. Telegrams of common datapoint types are decoded using cached
+ * {@link DPTDecoder}s, without creating a translator for each telegram.
+ *
  * @author Kai Kreuzer
  * @author Volker Daube
  * @author Jan N. Klug
@@ -103,6 +108,9 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     /** stores the default KNX DPT to use for each openHAB type */
     private final Map<Class<? extends Type>, String> defaultDptMap;
 
+    /** stores the decoders by datapoint type id, empty if the datapoint type is decoded via its textual value */
+    private final Map<String, Optional<DPTDecoder>> decoders = new ConcurrentHashMap<>();
+
     public KNXCoreTypeMapper() {
 
         @SuppressWarnings("unused")
@@ -615,6 +623,46 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
 
     @Override
     public Type toType(Datapoint datapoint, byte[] data) {
+        String dptId = datapoint.getDPT();
+        Optional<DPTDecoder> decoder = decoders.computeIfAbsent(dptId, this::createDecoder);
+        return decoder.isPresent() ? decode(decoder.get(), dptId, data) : toTypeViaValue(datapoint, data);
+    }
+
+    private Type decode(DPTDecoder decoder, String dptId, byte[] data) {
+        try {
+            return decoder.decode(data);
+        } catch (KNXFormatException kfe) {
+            logger.info("Translator couldn't parse data for datapoint type '{}' (KNXFormatException).", dptId);
+        } catch (KNXIllegalArgumentException kiae) {
+            logger.info("Translator couldn't parse data for datapoint type '{}' (KNXIllegalArgumentException).",
+                    dptId);
+        }
+        return null;
+    }
+
+    private Optional<DPTDecoder> createDecoder(String dptId) {
+        int mainNumber = getMainNumber(dptId);
+        int subNumber = getSubNumber(dptId);
+        Class<? extends Type> typeClass = toTypeClass(dptId);
+        if (!DPTDecoder.isSupported(dptId) || mainNumber == -1 || subNumber == -1 || typeClass == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new DPTDecoder(mainNumber, subNumber, dptId, typeClass));
+        } catch (KNXException e) {
+            // the textual conversion reports the error
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Converts the data of a telegram into an openHAB type using the textual value of a new translator
+     *
+     * @param datapoint the datapoint
+     * @param data the ASDU of the telegram
+     * @return the openHAB type, or {@code null} if the data cannot be converted
+     */
+    Type toTypeViaValue(Datapoint datapoint, byte[] data) {
         try {
             DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(), datapoint.getDPT());
             translator.setData(data);
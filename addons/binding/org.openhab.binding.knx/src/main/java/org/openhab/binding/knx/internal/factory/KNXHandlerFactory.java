@@ -22,6 +22,7 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerFactory;
+import org.openhab.binding.knx.KNXTypeMapper;
 import org.openhab.binding.knx.internal.handler.DeviceThingHandler;
 import org.openhab.binding.knx.internal.handler.IPBridgeThingHandler;
 import org.openhab.binding.knx.internal.handler.SerialBridgeThingHandler;
@@ -41,6 +42,7 @@ public class KNXHandlerFactory extends BaseThingHandlerFactory {
             THING_TYPE_IP_BRIDGE, THING_TYPE_SERIAL_BRIDGE);
 
     private NetworkAddressService networkAddressService;
+    private KNXTypeMapper typeHelper;
 
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
@@ -67,11 +69,11 @@ public class KNXHandlerFactory extends BaseThingHandlerFactory {
     @Override
     protected ThingHandler createHandler(Thing thing) {
         if (thing.getThingTypeUID().equals(THING_TYPE_IP_BRIDGE)) {
-            return new IPBridgeThingHandler((Bridge) thing, networkAddressService);
+            return new IPBridgeThingHandler((Bridge) thing, networkAddressService, typeHelper);
         } else if (thing.getThingTypeUID().equals(THING_TYPE_SERIAL_BRIDGE)) {
-            return new SerialBridgeThingHandler((Bridge) thing);
+            return new SerialBridgeThingHandler((Bridge) thing, typeHelper);
         } else if (thing.getThingTypeUID().equals(THING_TYPE_DEVICE)) {
-            return new DeviceThingHandler(thing);
+            return new DeviceThingHandler(thing, typeHelper);
         }
         return null;
     }
@@ -102,4 +104,13 @@ public class KNXHandlerFactory extends BaseThingHandlerFactory {
         this.networkAddressService = null;
     }
 
+    @Reference
+    protected void setKNXTypeMapper(KNXTypeMapper typeHelper) {
+        this.typeHelper = typeHelper;
+    }
+
+    protected void unsetKNXTypeMapper(KNXTypeMapper typeHelper) {
+        this.typeHelper = null;
+    }
+
 }
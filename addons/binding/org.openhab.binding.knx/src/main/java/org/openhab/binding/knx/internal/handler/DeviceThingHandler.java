@@ -11,6 +11,7 @@ package org.openhab.binding.knx.internal.handler;
 import static org.openhab.binding.knx.KNXBindingConstants.*;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -41,8 +42,8 @@ import org.openhab.binding.knx.handler.AbstractKNXThingHandler;
 import org.openhab.binding.knx.internal.channel.KNXChannelType;
 import org.openhab.binding.knx.internal.channel.KNXChannelTypes;
 import org.openhab.binding.knx.internal.client.AbstractKNXClient;
+import org.openhab.binding.knx.internal.client.BusMessageDispatcher;
 import org.openhab.binding.knx.internal.config.DeviceConfig;
-import org.openhab.binding.knx.internal.dpt.KNXCoreTypeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,31 +65,54 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
 
     private final Logger logger = LoggerFactory.getLogger(DeviceThingHandler.class);
 
-    private final KNXTypeMapper typeHelper = new KNXCoreTypeMapper();
+    private final KNXTypeMapper typeHelper;
     private final Set<GroupAddress> groupAddresses = new HashSet<>();
+    private final Set<GroupAddress> stateGroupAddresses = new HashSet<>();
     private final Map<GroupAddress, @Nullable ScheduledFuture<?>> readFutures = new HashMap<>();
     private final Map<ChannelUID, @Nullable ScheduledFuture<?>> channelFutures = new HashMap<>();
     private @Nullable IndividualAddress address;
     private int readInterval;
 
-    public DeviceThingHandler(Thing thing) {
+    public DeviceThingHandler(Thing thing, KNXTypeMapper typeHelper) {
         super(thing);
+        this.typeHelper = typeHelper;
     }
 
     @Override
     public void initialize() {
+        // group addresses are indexed by the client when attaching to it
+        initializeGroupAddresses();
         super.initialize();
         DeviceConfig config = getConfigAs(DeviceConfig.class);
         readInterval = config.getReadInterval().intValue();
-        initializeGroupAddresses();
     }
 
     private void initializeGroupAddresses() {
-        forAllChannels((selector, channelConfiguration) -> {
-            groupAddresses.addAll(selector.getReadAddresses(channelConfiguration));
-            groupAddresses.addAll(selector.getWriteAddresses(channelConfiguration));
-            groupAddresses.addAll(selector.getListenAddresses(channelConfiguration));
-        });
+        groupAddresses.clear();
+        stateGroupAddresses.clear();
+        Set<GroupAddress> eventGroupAddresses = new HashSet<>();
+        for (Channel channel : getThing().getChannels()) {
+            withKNXType(channel, (selector, channelConfiguration) -> {
+                Set<GroupAddress> channelGroupAddresses = new HashSet<>();
+                channelGroupAddresses.addAll(selector.getReadAddresses(channelConfiguration));
+                channelGroupAddresses.addAll(selector.getWriteAddresses(channelConfiguration));
+                channelGroupAddresses.addAll(selector.getListenAddresses(channelConfiguration));
+                groupAddresses.addAll(channelGroupAddresses);
+
+                // Commands of control channels are all posted, even if they carry absolute state
+                boolean control = isControl(channel.getUID());
+                for (GroupAddress groupAddress : channelGroupAddresses) {
+                    InboundSpec listenSpec = selector.getListenSpec(channelConfiguration, groupAddress);
+                    if (!control && listenSpec != null && BusMessageDispatcher.isStateDPT(listenSpec.getDPT())) {
+                        stateGroupAddresses.add(groupAddress);
+                    } else {
+                        eventGroupAddresses.add(groupAddress);
+                    }
+                }
+            });
+        }
+        // Group address shared with a channel interested in every telegram
+        stateGroupAddresses.removeAll(eventGroupAddresses);
     }
 
     @Override
@@ -124,12 +148,6 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         }
     }
 
-    private void forAllChannels(ChannelFunction function) {
-        for (Channel channel : getThing().getChannels()) {
-            withKNXType(channel, function);
-        }
-    }
-
     @Override
     public void channelLinked(ChannelUID channelUID) {
         if (!isControl(channelUID)) {
@@ -164,23 +182,23 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         if (readInterval > 0) {
             ScheduledFuture<?> future = readFutures.get(groupAddress);
             if (future == null || future.isDone() || future.isCancelled()) {
-                future = getScheduler().scheduleWithFixedDelay(() -> readDatapoint(groupAddress, dpt), 0, readInterval,
-                        TimeUnit.SECONDS);
+                future = getScheduler().scheduleWithFixedDelay(() -> readDatapoint(groupAddress, dpt, false), 0,
+                        readInterval, TimeUnit.SECONDS);
                 readFutures.put(groupAddress, future);
             }
         } else {
-            getScheduler().submit(() -> readDatapoint(groupAddress, dpt));
+            getScheduler().submit(() -> readDatapoint(groupAddress, dpt, false));
         }
     }
 
-    private void readDatapoint(GroupAddress groupAddress, String dpt) {
+    private void readDatapoint(GroupAddress groupAddress, String dpt, boolean prioritize) {
         if (getClient().isConnected()) {
             if (!isDPTSupported(dpt)) {
                 logger.warn("DPT '{}' is not supported by the KNX binding", dpt);
                 return;
             }
             Datapoint datapoint = new CommandDP(groupAddress, getThing().getUID().toString(), 0, dpt);
-            getClient().readDatapoint(datapoint);
+            getClient().readDatapoint(datapoint, prioritize);
         }
     }
 
@@ -189,13 +207,27 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         return groupAddresses.contains(destination);
     }
 
+    @Override
+    public Set<GroupAddress> getGroupAddresses() {
+        return Collections.unmodifiableSet(groupAddresses);
+    }
+
+    @Override
+    public boolean carriesState(GroupAddress destination) {
+        return stateGroupAddresses.contains(destination);
+    }
+
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
         logger.trace("Handling command '{}' for channel '{}'", command, channelUID);
         if (command instanceof RefreshType && !isControl(channelUID)) {
             logger.debug("Refreshing channel '{}'", channelUID);
             withKNXType(channelUID, (selector, configuration) -> {
-                scheduleRead(selector, configuration);
+                for (InboundSpec readSpec : selector.getReadSpec(configuration)) {
+                    for (GroupAddress groupAddress : readSpec.getGroupAddresses()) {
+                        getScheduler().submit(() -> readDatapoint(groupAddress, readSpec.getDPT(), true));
+                    }
+                }
             });
         } else {
             switch (channelUID.getId()) {
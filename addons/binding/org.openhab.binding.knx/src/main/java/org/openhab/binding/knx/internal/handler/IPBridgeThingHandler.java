@@ -18,6 +18,7 @@ import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.openhab.binding.knx.KNXBindingConstants;
+import org.openhab.binding.knx.KNXTypeMapper;
 import org.openhab.binding.knx.client.KNXClient;
 import org.openhab.binding.knx.handler.KNXBridgeBaseThingHandler;
 import org.openhab.binding.knx.internal.client.CustomKNXNetworkLinkIP;
@@ -44,10 +45,13 @@ public class IPBridgeThingHandler extends KNXBridgeBaseThingHandler {
     private IPClient client;
 
     private final NetworkAddressService networkAddressService;
+    private final KNXTypeMapper typeHelper;
 
-    public IPBridgeThingHandler(Bridge bridge, NetworkAddressService networkAddressService) {
+    public IPBridgeThingHandler(Bridge bridge, NetworkAddressService networkAddressService,
+            KNXTypeMapper typeHelper) {
         super(bridge);
         this.networkAddressService = networkAddressService;
+        this.typeHelper = typeHelper;
     }
 
     @Override
@@ -90,7 +94,8 @@ public class IPBridgeThingHandler extends KNXBridgeBaseThingHandler {
         updateStatus(ThingStatus.UNKNOWN);
         client = new IPClient(ipConnectionType, ip, localSource, port, localEndPoint, useNAT,
                 config.getAutoReconnectPeriod().intValue(), thing.getUID(), config.getResponseTimeout().intValue(),
-                config.getReadingPause().intValue(), config.getReadRetriesLimit().intValue(), getScheduler(), this);
+                config.getReadingPause().intValue(), config.getReadRetriesLimit().intValue(), getScheduler(), this,
+                typeHelper);
 
         client.initialize();
     }
@@ -11,6 +11,7 @@ package org.openhab.binding.knx.internal.handler;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.openhab.binding.knx.KNXTypeMapper;
 import org.openhab.binding.knx.handler.KNXBridgeBaseThingHandler;
 import org.openhab.binding.knx.internal.client.AbstractKNXClient;
 import org.openhab.binding.knx.internal.client.SerialClient;
@@ -30,12 +31,13 @@ public class SerialBridgeThingHandler extends KNXBridgeBaseThingHandler {
 
     private final SerialClient client;
 
-    public SerialBridgeThingHandler(Bridge bridge) {
+    public SerialBridgeThingHandler(Bridge bridge, KNXTypeMapper typeHelper) {
         super(bridge);
         SerialBridgeConfiguration config = getConfigAs(SerialBridgeConfiguration.class);
         client = new SerialClient(config.getAutoReconnectPeriod().intValue(), thing.getUID(),
                 config.getResponseTimeout().intValue(), config.getReadingPause().intValue(),
-                config.getReadRetriesLimit().intValue(), getScheduler(), config.getSerialPort(), this);
+                config.getReadRetriesLimit().intValue(), getScheduler(), config.getSerialPort(), this,
+                typeHelper);
     }
 
     @Override
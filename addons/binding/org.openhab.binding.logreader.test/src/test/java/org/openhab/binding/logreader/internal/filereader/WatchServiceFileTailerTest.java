@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.filereader;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.logreader.internal.filereader.api.FileReaderException;
+import org.openhab.binding.logreader.internal.filereader.api.FileReaderListener;
+
+/**
+ * Tests for {@link WatchServiceFileTailer} with a real file, which is appended, truncated and rotated
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class WatchServiceFileTailerTest {
+
+    private static final long REFRESH_RATE = 100;
+    private static final long EVENT_TIMEOUT = 5000;
+    private static final String ROTATED = "rotated";
+    private static final String SYNC = "sync";
+
+    private Path directory;
+    private Path file;
+    private ScheduledExecutorService scheduler;
+    private WatchServiceFileTailer tailer;
+
+    /**
+     * Events in the order of their delivery, lines are prefixed with "line:"
+     */
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private final BlockingQueue<List<String>> batches = new LinkedBlockingQueue<>();
+
+    private final FileReaderListener listener = new FileReaderListener() {
+        @Override
+        public void fileNotFound() {
+            // the file is missing for a moment while it is rotated
+        }
+
+        @Override
+        public void fileRotated() {
+            events.add(ROTATED);
+        }
+
+        @Override
+        public void handle(String line) {
+            events.add("line:" + line);
+        }
+
+        @Override
+        public void handle(List<String> lines) {
+            batches.add(new ArrayList<>(lines));
+            for (String line : lines) {
+                handle(line);
+            }
+        }
+
+        @Override
+        public void handle(Exception ex) {
+            events.add("error:" + ex);
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException, FileReaderException, InterruptedException {
+        directory = Files.createTempDirectory("logreader");
+        file = directory.resolve("test.log");
+        Files.write(file, "written before the start\n".getBytes(Charset.defaultCharset()));
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        tailer = new WatchServiceFileTailer();
+        tailer.registerListener(listener);
+        tailer.start(file.toString(), REFRESH_RATE, scheduler);
+        awaitStarted();
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        tailer.stop();
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(EVENT_TIMEOUT, TimeUnit.MILLISECONDS);
+        for (Path path : Files.list(directory).toArray(Path[]::new)) {
+            Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * The tailer skips the content of the file it finds at the start. Appends lines until one is delivered, so that
+     * the tests do not depend on when the file is opened.
+     */
+    private void awaitStarted() throws IOException, InterruptedException {
+        long timeout = System.currentTimeMillis() + EVENT_TIMEOUT;
+        String event = null;
+        while (event == null && System.currentTimeMillis() < timeout) {
+            append(SYNC + "\n");
+            event = events.poll(REFRESH_RATE * 2, TimeUnit.MILLISECONDS);
+        }
+        assertEquals("line:" + SYNC, event);
+        // lines appended while the first one was delivered
+        Thread.sleep(REFRESH_RATE * 3);
+        for (String line = events.poll(); line != null; line = events.poll()) {
+            assertEquals("line:" + SYNC, line);
+        }
+        batches.clear();
+    }
+
+    private void append(String data) throws IOException {
+        Files.write(file, data.getBytes(Charset.defaultCharset()), StandardOpenOption.APPEND);
+    }
+
+    private void assertEvents(String... expected) throws InterruptedException {
+        for (String expectedEvent : expected) {
+            assertEquals(expectedEvent, events.poll(EVENT_TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void assertNoEvent() throws InterruptedException {
+        assertNull(events.poll(REFRESH_RATE * 3, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testLinesAreDeliveredInBatches() throws IOException, InterruptedException {
+        append("first\nsecond\nthird\n");
+
+        assertEvents("line:first", "line:second", "line:third");
+        assertEquals(Arrays.asList("first", "second", "third"), batches.poll(EVENT_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertNoEvent();
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void testManyLinesAreDeliveredCompletelyAndInOrder() throws IOException, InterruptedException {
+        int count = 5000;
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            data.append("line ").append(i).append('\n');
+        }
+        append(data.toString());
+
+        for (int i = 0; i < count; i++) {
+            assertEvents("line:line " + i);
+        }
+        assertNoEvent();
+        assertTrue("fewer batches than lines", batches.size() < count);
+    }
+
+    @Test
+    public void testPartialLastLineIsDeliveredWhenCompleted() throws IOException, InterruptedException {
+        append("complete\npart");
+        assertEvents("line:complete");
+        assertNoEvent();
+
+        append("ial\r\n");
+        assertEvents("line:partial");
+    }
+
+    @Test
+    public void testTruncation() throws IOException, InterruptedException {
+        append("before\n");
+        assertEvents("line:before");
+
+        Files.write(file, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+        assertEvents(ROTATED);
+
+        append("after\n");
+        assertEvents("line:after");
+    }
+
+    @Test
+    public void testRotation() throws IOException, InterruptedException {
+        append("last line of the old file\n");
+        Files.move(file, directory.resolve("test.log.1"));
+        Files.write(file, "first line of the new file\n".getBytes(Charset.defaultCharset()));
+
+        assertEvents("line:last line of the old file", ROTATED, "line:first line of the new file");
+
+        append("appended to the new file\n");
+        assertEvents("line:appended to the new file");
+        assertNoEvent();
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.searchengine;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link CombinedSearchEngine}, which has to find the same matches as the single {@link SearchEngine}s
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class CombinedSearchEngineTest {
+
+    private static final int RANDOM_RUNS = 200;
+    private static final int LINES_PER_RUN = 200;
+
+    /**
+     * Pieces of patterns: plain literals, literals with an optional or repeated last character, quantifiers, classes,
+     * anchors, back references and characters outside of the dense transition table.
+     */
+    private static final String[] PATTERN_PIECES = { "ERROR", "WARN", "ab", "ba", "b", "a?", "b*", "ab?", "ab*", "b+",
+            "a{2}", "ab{2}", "b{0,2}", ".", "[ab]", "[^a]", "\\d", "\\.", "x\\.y", "(a)\\1", "(?<g>b)\\k<g>",
+            "(?:ab)+", "^a", "b$", "€", "ä?", "(?i)error" };
+
+    private static final String[] LINE_PIECES = { "ERROR", "WARN", "error", "ab", "ba", "aa", "bb", "abb", "x.y", "1",
+            "€", "ä", " ", "a", "b", "c" };
+
+    /**
+     * Engines created twice from the same patterns, because matching increments the match count.
+     */
+    private static class Engines {
+        final SearchEngine[] single;
+        final SearchEngine[] combined;
+
+        Engines(String[] patterns, String[] blacklistingPatterns) {
+            single = new SearchEngine[patterns.length];
+            combined = new SearchEngine[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                single[i] = new SearchEngine(patterns[i], blacklistingPatterns[i]);
+                combined[i] = new SearchEngine(patterns[i], blacklistingPatterns[i]);
+            }
+        }
+    }
+
+    private void assertSameMatches(Engines engines, String... lines) {
+        CombinedSearchEngine combinedEngine = new CombinedSearchEngine(engines.combined);
+        for (String line : lines) {
+            int matches = combinedEngine.match(line);
+            for (int i = 0; i < engines.single.length; i++) {
+                assertEquals("Engine " + i + " with line '" + line + "'", engines.single[i].isMatching(line),
+                        CombinedSearchEngine.isMatching(matches, i));
+            }
+            assertEquals("Only bits of existing engines are set", 0, matches >>> engines.single.length);
+        }
+        for (int i = 0; i < engines.single.length; i++) {
+            assertEquals(engines.single[i].getMatchCount(), engines.combined[i].getMatchCount());
+        }
+    }
+
+    private static String randomPatterns(Random random, int maxPatterns) {
+        StringBuilder patterns = new StringBuilder();
+        int count = random.nextInt(maxPatterns + 1);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                patterns.append('|');
+            }
+            // distinct pieces per alternative, a named group must not be defined twice
+            int first = random.nextInt(PATTERN_PIECES.length);
+            int pieces = 1 + random.nextInt(3);
+            for (int j = 0; j < pieces; j++) {
+                patterns.append(PATTERN_PIECES[(first + j) % PATTERN_PIECES.length]);
+            }
+        }
+        return patterns.toString();
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        int pieces = random.nextInt(8);
+        for (int i = 0; i < pieces; i++) {
+            line.append(LINE_PIECES[random.nextInt(LINE_PIECES.length)]);
+        }
+        return line.toString();
+    }
+
+    @Test
+    public void testRandomPatternsMatchLikeSingleEngines() {
+        Random random = new Random(4711);
+        for (int run = 0; run < RANDOM_RUNS; run++) {
+            int engineCount = 1 + random.nextInt(5);
+            String[] patterns = new String[engineCount];
+            String[] blacklistingPatterns = new String[engineCount];
+            for (int i = 0; i < engineCount; i++) {
+                patterns[i] = randomPatterns(random, 4);
+                blacklistingPatterns[i] = randomPatterns(random, 2);
+            }
+            String[] lines = new String[LINES_PER_RUN];
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = randomLine(random);
+            }
+            try {
+                assertSameMatches(new Engines(patterns, blacklistingPatterns), lines);
+            } catch (AssertionError e) {
+                throw new AssertionError("Patterns " + String.join(", ", patterns) + " blacklisted by "
+                        + String.join(", ", blacklistingPatterns) + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Test
+    public void testLiteralPatterns() {
+        assertSameMatches(new Engines(new String[] { "ERROR|Exception", "WARN", "ERR" }, new String[] { "", "", "" }),
+                "", "ERROR", "an Exception", "WARN and ERROR", "ERR", "EXCEPTION", "WAR");
+    }
+
+    @Test
+    public void testOptionalLastCharacter() {
+        assertSameMatches(
+                new Engines(new String[] { "ERRORS?", "WARNS*", "ab{2}c", "x+" }, new String[] { "", "", "", "" }),
+                "ERROR", "ERRORS", "ERRO", "WARN", "WARNSSS", "WAR", "abbc", "abc", "ac", "x", "");
+    }
+
+    @Test
+    public void testBackReferences() {
+        assertSameMatches(new Engines(new String[] { "(a)\\1", "(?<c>b)\\k<c>", "x(y)\\1" }, new String[] { "", "", "" }),
+                "aa", "ab", "bb", "xyy", "xy", "");
+    }
+
+    @Test
+    public void testBlacklistingPatterns() {
+        assertSameMatches(
+                new Engines(new String[] { "ERROR", "ERROR", "WARN.*" },
+                        new String[] { "ignored", "", "(a)\\1|^WARN$" }),
+                "ERROR", "ERROR ignored", "WARN", "WARN aa", "WARN ab", "ignored");
+    }
+
+    @Test
+    public void testEmptyPatternMatchesEverything() {
+        assertSameMatches(new Engines(new String[] { "a||b", "c" }, new String[] { "", "" }), "", "x", "c");
+    }
+
+    @Test
+    public void testRequiredLiteral() {
+        assertEquals("ERROR", CombinedSearchEngine.requiredLiteral("ERROR"));
+        assertEquals("ERROR", CombinedSearchEngine.requiredLiteral("ERROR.*"));
+        assertEquals("ERROR", CombinedSearchEngine.requiredLiteral("ERRORS?"));
+        assertEquals("ERROR", CombinedSearchEngine.requiredLiteral("ERRORS*"));
+        assertEquals("ERROR", CombinedSearchEngine.requiredLiteral("ERRORS{0,2}"));
+        assertEquals("ERRORS", CombinedSearchEngine.requiredLiteral("ERRORS+"));
+        assertEquals("", CombinedSearchEngine.requiredLiteral("E?"));
+        assertEquals("", CombinedSearchEngine.requiredLiteral("^ERROR"));
+        assertEquals("", CombinedSearchEngine.requiredLiteral("(ERROR)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyEngines() {
+        new CombinedSearchEngine(new SearchEngine[Integer.SIZE + 1]);
+    }
+}
@@ -11,6 +11,8 @@ package org.openhab.binding.logreader.handler;
 import static org.openhab.binding.logreader.LogReaderBindingConstants.*;
 
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.PatternSyntaxException;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -27,6 +29,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.logreader.internal.config.LogReaderConfiguration;
 import org.openhab.binding.logreader.internal.filereader.api.FileReaderListener;
 import org.openhab.binding.logreader.internal.filereader.api.LogFileReader;
+import org.openhab.binding.logreader.internal.searchengine.CombinedSearchEngine;
 import org.openhab.binding.logreader.internal.searchengine.SearchEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +51,12 @@ public class LogHandler extends BaseThingHandler implements FileReaderListener {
     private SearchEngine errorEngine;
     private SearchEngine warningEngine;
     private SearchEngine customEngine;
+    private CombinedSearchEngine combinedEngine;
+
+    // Indexes of the search engines in the combined search engine
+    private static final int ERROR_ENGINE = 0;
+    private static final int WARNING_ENGINE = 1;
+    private static final int CUSTOM_ENGINE = 2;
 
     public LogHandler(Thing thing, LogFileReader fileReader) {
         super(thing);
@@ -89,6 +98,7 @@ public class LogHandler extends BaseThingHandler implements FileReaderListener {
             warningEngine = new SearchEngine(configuration.warningPatterns, configuration.warningBlacklistingPatterns);
             errorEngine = new SearchEngine(configuration.errorPatterns, configuration.errorBlacklistingPatterns);
             customEngine = new SearchEngine(configuration.customPatterns, configuration.customBlacklistingPatterns);
+            combinedEngine = new CombinedSearchEngine(errorEngine, warningEngine, customEngine);
 
         } catch (PatternSyntaxException e) {
             logger.debug("Illegal search pattern syntax '{}'. ", e.getMessage(), e);
@@ -167,25 +177,53 @@ public class LogHandler extends BaseThingHandler implements FileReaderListener {
         if (line == null) {
             return;
         }
+        handle(Collections.singletonList(line));
+    }
 
+    @Override
+    public void handle(List<String> lines) {
         if (!(thing.getStatus() == ThingStatus.ONLINE)) {
             updateStatus(ThingStatus.ONLINE);
         }
 
-        if (errorEngine.isMatching(line)) {
+        String lastError = null;
+        String lastWarning = null;
+        String lastCustomEvent = null;
+
+        for (String line : lines) {
+            if (line == null) {
+                continue;
+            }
+
+            // All patterns are searched in one pass
+            int matches = combinedEngine.match(line);
+
+            if (CombinedSearchEngine.isMatching(matches, ERROR_ENGINE)) {
+                lastError = line;
+                triggerChannel(CHANNEL_NEWERROR, line);
+            }
+            if (CombinedSearchEngine.isMatching(matches, WARNING_ENGINE)) {
+                lastWarning = line;
+                triggerChannel(CHANNEL_NEWWARNING, line);
+            }
+            if (CombinedSearchEngine.isMatching(matches, CUSTOM_ENGINE)) {
+                lastCustomEvent = line;
+                triggerChannel(CHANNEL_NEWCUSTOM, line);
+            }
+        }
+
+        // Counters and last lines are updated once per batch
+        if (lastError != null) {
             updateChannelIfLinked(CHANNEL_ERRORS, new DecimalType(errorEngine.getMatchCount()));
-            updateChannelIfLinked(CHANNEL_LASTERROR, new StringType(line));
-            triggerChannel(CHANNEL_NEWERROR, line);
+            updateChannelIfLinked(CHANNEL_LASTERROR, new StringType(lastError));
         }
-        if (warningEngine.isMatching(line)) {
+        if (lastWarning != null) {
             updateChannelIfLinked(CHANNEL_WARNINGS, new DecimalType(warningEngine.getMatchCount()));
-            updateChannelIfLinked(CHANNEL_LASTWARNING, new StringType(line));
-            triggerChannel(CHANNEL_NEWWARNING, line);
+            updateChannelIfLinked(CHANNEL_LASTWARNING, new StringType(lastWarning));
         }
-        if (customEngine.isMatching(line)) {
+        if (lastCustomEvent != null) {
             updateChannelIfLinked(CHANNEL_CUSTOMEVENTS, new DecimalType(customEngine.getMatchCount()));
-            updateChannelIfLinked(CHANNEL_LASTCUSTOMEVENT, new StringType(line));
-            triggerChannel(CHANNEL_NEWCUSTOM, line);
+            updateChannelIfLinked(CHANNEL_LASTCUSTOMEVENT, new StringType(lastCustomEvent));
         }
     }
 
@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.filereader;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.logreader.internal.filereader.api.FileReaderException;
+import org.openhab.binding.logreader.internal.filereader.api.LogFileReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log file reader implementation, which waits for change notifications of the {@link WatchService} instead of
+ * polling the file.
+ *
+ * New data is read through a {@link FileChannel} into a reusable buffer and all complete lines read at once are
+ * delivered to the listeners as one batch. The refresh rate is only used as timeout while waiting for notifications,
+ * so changes are still detected on file systems without notification support. File rotation is detected by a changed
+ * file key (the inode on Unix systems) or by a file size smaller than the read position.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class WatchServiceFileTailer extends AbstractLogFileReader implements LogFileReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(WatchServiceFileTailer.class);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private final Charset charset = Charset.defaultCharset();
+
+    private Path path;
+    private long refreshRate;
+    private volatile WatchService watchService;
+    private Future<?> job;
+    private volatile boolean running;
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+
+    @Override
+    public void start(String filePath, long refreshRate, ScheduledExecutorService scheduler)
+            throws FileReaderException {
+        try {
+            path = Paths.get(filePath).toAbsolutePath();
+        } catch (Exception e) {
+            throw new FileReaderException(e);
+        }
+        this.refreshRate = refreshRate;
+
+        try {
+            watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Unable to watch directory of '{}', polling the file instead: {}", path, e.getMessage());
+            closeWatchService();
+        }
+
+        try {
+            logger.debug("Start executor");
+            running = true;
+            job = scheduler.submit(this::run);
+        } catch (Exception e) {
+            running = false;
+            closeWatchService();
+            throw new FileReaderException(e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        logger.debug("Shutdown");
+
+        running = false;
+        closeWatchService();
+        if (job != null) {
+            job.cancel(true);
+            job = null;
+        }
+    }
+
+    private void run() {
+        // Only the lines written after the start are of interest
+        boolean fromEnd = true;
+        boolean fileNotFoundReported = false;
+
+        try {
+            while (running) {
+                try {
+                    if (channel == null) {
+                        if (open(fromEnd)) {
+                            fromEnd = false;
+                            fileNotFoundReported = false;
+                        } else if (!fileNotFoundReported) {
+                            fileNotFoundReported = true;
+                            sendFileNotFoundToListeners();
+                        }
+                    }
+
+                    if (channel != null) {
+                        readLines();
+                        if (isRotated()) {
+                            logger.debug("File '{}' rotated", path);
+                            close();
+                            sendFileRotationToListeners();
+                            // read the new file from the beginning without waiting
+                            fromEnd = false;
+                            continue;
+                        }
+                    }
+                } catch (IOException e) {
+                    close();
+                    sendExceptionToListeners(e);
+                }
+
+                awaitChange();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("File reader of '{}' stopped", path);
+        } finally {
+            close();
+        }
+    }
+
+    private boolean open(boolean fromEnd) throws IOException {
+        try {
+            Object key = readFileKey();
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileKey = key;
+            position = fromEnd ? channel.size() : 0;
+            partialLine.reset();
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Closing file '{}' failed: {}", path, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Closing watch service failed: {}", e.getMessage());
+            }
+            watchService = null;
+        }
+    }
+
+    private Object readFileKey() throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Check if the file has been replaced by another file or truncated. The data appended to the old file before the
+     * rotation has already been read at this point.
+     */
+    private boolean isRotated() throws IOException {
+        try {
+            if (!Objects.equals(fileKey, readFileKey())) {
+                return true;
+            }
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        return channel.size() < position;
+    }
+
+    /**
+     * Read all data appended since the last read and deliver the complete lines in batches.
+     */
+    private void readLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        int read;
+        while (running && (read = channel.read(buffer, position)) > 0) {
+            position += read;
+            buffer.flip();
+            byte[] data = buffer.array();
+            int start = 0;
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (data[i] == '\n') {
+                    partialLine.write(data, start, i - start);
+                    lines.add(decodeLine());
+                    start = i + 1;
+                }
+            }
+            partialLine.write(data, start, buffer.limit() - start);
+            buffer.clear();
+
+            if (lines.size() >= MAX_BATCH_SIZE) {
+                sendLinesToListeners(lines);
+                lines = new ArrayList<>();
+            }
+        }
+        if (!lines.isEmpty()) {
+            sendLinesToListeners(lines);
+        }
+    }
+
+    private String decodeLine() {
+        byte[] line = partialLine.toByteArray();
+        partialLine.reset();
+        int length = line.length;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, charset);
+    }
+
+    /**
+     * Wait until the directory of the file has changed, at most the refresh rate.
+     */
+    private void awaitChange() throws InterruptedException {
+        WatchService service = watchService;
+        if (service == null) {
+            Thread.sleep(refreshRate);
+            return;
+        }
+
+        WatchKey key = service.poll(refreshRate, TimeUnit.MILLISECONDS);
+        if (key != null) {
+            // the events are not evaluated, the file is checked anyway
+            key.pollEvents();
+            key.reset();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.logreader.internal.searchengine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * This class combines the patterns of several {@link SearchEngine}s, to search all of them in one pass per line.
+ *
+ * Literal patterns (without any regular expression meta characters) are searched with an Aho-Corasick automaton. The
+ * same automaton searches the literal each regular expression starts with, and a regular expression is only evaluated
+ * if its literal has been found. The other regular expressions are joined into one alternation, which is used as a
+ * prefilter: only if the alternation matches, the single patterns are checked to find out which search engine they
+ * belong to. Patterns with back references cannot be joined and are always checked separately. Blacklisting patterns
+ * are only checked for search engines with a match.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class CombinedSearchEngine {
+
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    private final SearchEngine[] engines;
+    private final int allEngines;
+    private final PatternSet patterns = new PatternSet();
+    private final PatternSet blacklistingPatterns = new PatternSet();
+
+    /**
+     * Combine the patterns of the given search engines. The engines must not be changed afterwards.
+     *
+     * @param engines search engines, at most 32.
+     */
+    public CombinedSearchEngine(SearchEngine... engines) {
+        if (engines.length > Integer.SIZE) {
+            throw new IllegalArgumentException("At most " + Integer.SIZE + " search engines can be combined");
+        }
+        this.engines = engines;
+        this.allEngines = engines.length == Integer.SIZE ? -1 : (1 << engines.length) - 1;
+        for (int i = 0; i < engines.length; i++) {
+            for (Pattern pattern : engines[i].getPatterns()) {
+                patterns.add(pattern, 1 << i);
+            }
+            for (Pattern pattern : engines[i].getBlacklistingPatterns()) {
+                blacklistingPatterns.add(pattern, 1 << i);
+            }
+        }
+        patterns.build();
+        blacklistingPatterns.build();
+    }
+
+    /**
+     * Check which search engines are matching to the data. The match count of those search engines is incremented.
+     *
+     * @param data data against search will be done.
+     * @return bit mask of the matching search engines, the bit index is the index of the engine in the constructor.
+     */
+    public int match(String data) {
+        int matches = patterns.match(data, allEngines);
+        if (matches != 0) {
+            matches &= ~blacklistingPatterns.match(data, matches);
+        }
+        for (int i = 0; i < engines.length; i++) {
+            if (isMatching(matches, i)) {
+                engines[i].incrementMatchCount();
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Check the result of {@link #match(String)} for a single search engine.
+     *
+     * @param matches bit mask returned by {@link #match(String)}.
+     * @param engineIndex index of the engine in the constructor.
+     * @return true if the search engine is matching.
+     */
+    public static boolean isMatching(int matches, int engineIndex) {
+        return (matches & (1 << engineIndex)) != 0;
+    }
+
+    /**
+     * Extract a literal which is contained in every match of the regular expression: the literal characters at the
+     * beginning of the expression, up to the first meta character.
+     *
+     * @param regex regular expression without top level alternation.
+     * @return required literal, empty if there is none.
+     */
+    static String requiredLiteral(String regex) {
+        int i = 0;
+        while (i < regex.length() && META_CHARACTERS.indexOf(regex.charAt(i)) < 0) {
+            i++;
+        }
+        if (i < regex.length() && i > 0 && "?*{".indexOf(regex.charAt(i)) >= 0) {
+            // the last character is optional
+            i--;
+        }
+        return regex.substring(0, i);
+    }
+
+    /**
+     * Patterns of all search engines of one kind, the engines of each pattern are kept as bit mask.
+     *
+     * Literal patterns and the required literals of regular expressions are searched by one automaton. A regular
+     * expression is only evaluated, if its required literal has been found. Regular expressions without a required
+     * literal are prefiltered by their alternation instead.
+     */
+    private static class PatternSet {
+        private static final int DENSE_CHARACTERS = 128;
+
+        private final List<Node> nodes = new ArrayList<>();
+        private final Node root = newNode();
+        // regular expressions with a required literal
+        private final List<Pattern> literalPatterns = new ArrayList<>();
+        private final List<Integer> literalMasks = new ArrayList<>();
+        // regular expressions without a required literal
+        private final List<Pattern> joinablePatterns = new ArrayList<>();
+        private final List<Integer> joinableMasks = new ArrayList<>();
+        private final List<Pattern> separatePatterns = new ArrayList<>();
+        private final List<Integer> separateMasks = new ArrayList<>();
+        // engines with an empty literal pattern, which matches everything
+        private int alwaysMatching;
+        private Pattern joinedPattern;
+        // transitions of the automaton for characters below DENSE_CHARACTERS
+        private int[] transitions;
+
+        private Node newNode() {
+            Node node = new Node(nodes.size());
+            nodes.add(node);
+            return node;
+        }
+
+        void add(Pattern pattern, int mask) {
+            String regex = pattern.pattern();
+            String literal = requiredLiteral(regex);
+            if (literal.length() == regex.length()) {
+                if (literal.isEmpty()) {
+                    alwaysMatching |= mask;
+                } else {
+                    addLiteral(literal).output |= mask;
+                }
+            } else if (!literal.isEmpty()) {
+                addLiteral(literal).candidates.add(literalPatterns.size());
+                literalPatterns.add(pattern);
+                literalMasks.add(mask);
+            } else if (BACK_REFERENCE.matcher(regex).find()) {
+                separatePatterns.add(pattern);
+                separateMasks.add(mask);
+            } else {
+                joinablePatterns.add(pattern);
+                joinableMasks.add(mask);
+            }
+        }
+
+        private Node addLiteral(String literal) {
+            Node node = root;
+            for (int i = 0; i < literal.length(); i++) {
+                Node child = node.children.get(literal.charAt(i));
+                if (child == null) {
+                    child = newNode();
+                    node.children.put(literal.charAt(i), child);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        /**
+         * Create the failure links and the transitions of the automaton and join the regular expressions.
+         */
+        void build() {
+            root.fail = root;
+            Deque<Node> queue = new ArrayDeque<>();
+            for (Node child : root.children.values()) {
+                child.fail = root;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                    Node child = entry.getValue();
+                    child.fail = step(node.fail, entry.getKey());
+                    child.output |= child.fail.output;
+                    child.candidates.addAll(child.fail.candidates);
+                    queue.add(child);
+                }
+            }
+
+            transitions = new int[nodes.size() * DENSE_CHARACTERS];
+            for (Node node : nodes) {
+                node.candidateIndexes = node.candidates.stream().mapToInt(Integer::intValue).toArray();
+                for (char c = 0; c < DENSE_CHARACTERS; c++) {
+                    transitions[node.index * DENSE_CHARACTERS + c] = step(node, c).index;
+                }
+            }
+
+            if (!joinablePatterns.isEmpty()) {
+                StringBuilder joined = new StringBuilder();
+                for (Pattern pattern : joinablePatterns) {
+                    if (joined.length() > 0) {
+                        joined.append('|');
+                    }
+                    joined.append("(?:").append(pattern.pattern()).append(')');
+                }
+                joinedPattern = Pattern.compile(joined.toString());
+            }
+        }
+
+        private Node step(Node node, char c) {
+            Node next = node.children.get(c);
+            while (next == null && node != root) {
+                node = node.fail;
+                next = node.children.get(c);
+            }
+            return next != null ? next : root;
+        }
+
+        /**
+         * Find the engines with a matching pattern.
+         *
+         * @param data data against search will be done.
+         * @param relevant bit mask of the engines of interest.
+         * @return bit mask of the engines with a matching pattern, limited to the relevant ones.
+         */
+        int match(String data, int relevant) {
+            int matches = alwaysMatching & relevant;
+            BitSet candidates = null;
+            if (nodes.size() > 1) {
+                Node node = root;
+                for (int i = 0; i < data.length() && matches != relevant; i++) {
+                    char c = data.charAt(i);
+                    node = nodes.get(c < DENSE_CHARACTERS ? transitions[node.index * DENSE_CHARACTERS + c]
+                            : step(node, c).index);
+                    matches |= node.output & relevant;
+                    if (node.candidateIndexes.length > 0) {
+                        if (candidates == null) {
+                            candidates = new BitSet(literalPatterns.size());
+                        }
+                        for (int candidate : node.candidateIndexes) {
+                            candidates.set(candidate);
+                        }
+                    }
+                }
+            }
+            if (candidates != null) {
+                for (int i = candidates.nextSetBit(0); i >= 0 && matches != relevant; i = candidates
+                        .nextSetBit(i + 1)) {
+                    int mask = literalMasks.get(i) & relevant & ~matches;
+                    if (mask != 0 && literalPatterns.get(i).matcher(data).find()) {
+                        matches |= mask;
+                    }
+                }
+            }
+            if (matches != relevant && joinedPattern != null && joinedPattern.matcher(data).find()) {
+                matches |= matchEach(joinablePatterns, joinableMasks, data, relevant & ~matches);
+            }
+            if (matches != relevant) {
+                matches |= matchEach(separatePatterns, separateMasks, data, relevant & ~matches);
+            }
+            return matches;
+        }
+
+        private int matchEach(List<Pattern> patterns, List<Integer> masks, String data, int relevant) {
+            int matches = 0;
+            for (int i = 0; i < patterns.size(); i++) {
+                int mask = masks.get(i) & relevant & ~matches;
+                if (mask != 0 && patterns.get(i).matcher(data).find()) {
+                    matches |= mask;
+                }
+            }
+            return matches;
+        }
+    }
+
+    private static class Node {
+        final int index;
+        final Map<Character, Node> children = new HashMap<>();
+        final Set<Integer> candidates = new TreeSet<>();
+        int[] candidateIndexes;
+        Node fail;
+        int output;
+
+        Node(int index) {
+            this.index = index;
+        }
+    }
+}
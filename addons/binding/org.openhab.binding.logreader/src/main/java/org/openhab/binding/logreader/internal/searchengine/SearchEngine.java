@@ -56,6 +56,27 @@ public class SearchEngine {
         return false;
     }
 
+    /**
+     * Count a match found by a {@link CombinedSearchEngine}.
+     */
+    void incrementMatchCount() {
+        matchCount++;
+    }
+
+    /**
+     * @return precompiled search patterns.
+     */
+    List<Pattern> getPatterns() {
+        return matchers;
+    }
+
+    /**
+     * @return precompiled blacklisting patterns.
+     */
+    List<Pattern> getBlacklistingPatterns() {
+        return blacklistingMatchers;
+    }
+
     public long getMatchCount() {
         return matchCount;
     }
@@ -323,15 +323,39 @@ public class LoxoneMiniserverHandler extends BaseThingHandler implements LxServe
     }
 
     @Override
-    public void onControlStateUpdate(LxControl control, String stateName) {
+    public void onControlStateUpdate(LxControl control, Set<String> stateNames) {
         ChannelUID channelId = getChannelIdForControl(control, 0);
+        boolean regularUpdate = false;
+        for (String stateName : stateNames) {
+            if (!updateControlStructure(control, channelId, stateName)) {
+                regularUpdate = true;
+            }
+        }
+        // for all state updates not handled above just update the channel state the regular way, once per control
+        if (regularUpdate) {
+            updateChannelStates(channelId, control);
+        }
+    }
 
+    /**
+     * Handle state updates that change the structure of the control, like list of scenes or moods
+     *
+     * @param control
+     *            control, which state changed
+     * @param channelId
+     *            channel of the control
+     * @param stateName
+     *            name of the state that was updated
+     * @return
+     *         true if the state update was handled
+     */
+    private boolean updateControlStructure(LxControl control, ChannelUID channelId, String stateName) {
         if (control instanceof LxControlLightController
                 && LxControlLightController.STATE_SCENE_LIST.equals(stateName)) {
             LxControlLightController controller = (LxControlLightController) control;
             setStateDescription(channelId, null, false, controller.getSceneNames(), BigDecimal.ZERO,
                     new BigDecimal((LxControlLightController.NUM_OF_SCENES - 1)));
-            return;
+            return true;
         } else if (control instanceof LxControlLightControllerV2) {
             LxControlLightControllerV2 controller = (LxControlLightControllerV2) control;
 
@@ -342,7 +366,7 @@ public class LoxoneMiniserverHandler extends BaseThingHandler implements LxServe
                 Map<LxUuid, LxControlMood> moods = controller.getMoods();
                 if (moods == null) {
                     logger.debug("Moods list state was received, but mood list is null.");
-                    return;
+                    return true;
                 }
 
                 // convert all moods to options list for state description
@@ -383,11 +407,10 @@ public class LoxoneMiniserverHandler extends BaseThingHandler implements LxServe
                 });
 
                 updateThing(builder.build());
-                return;
+                return true;
             }
         }
-        // for all state updates not handled above just update the channel state the regular way
-        updateChannelStates(channelId, control);
+        return false;
     }
 
     @Override
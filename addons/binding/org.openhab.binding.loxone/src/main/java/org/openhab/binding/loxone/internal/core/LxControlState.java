@@ -58,6 +58,25 @@ class LxControlState {
      *            current state's text value to set
      */
     void setValue(Double value, String textValue) {
+        if (updateValue(value, textValue)) {
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Sets current value of the control's state without notifying the listeners of state changes.
+     * <p>
+     * Used when a number of states is updated at once, listeners are notified with {@link #notifyListeners()} after
+     * all states have been updated.
+     *
+     * @param value
+     *            current state's value to set
+     * @param textValue
+     *            current state's text value to set
+     * @return
+     *         true if value or text value changed
+     */
+    boolean updateValue(Double value, String textValue) {
         boolean changed = false;
 
         uuid.setUpdate(true);
@@ -71,11 +90,15 @@ class LxControlState {
             this.textValue = textValue;
             changed = true;
         }
+        return changed;
+    }
 
-        if (changed) {
-            for (LxControlStateListener listener : listeners) {
-                listener.onStateChange(this);
-            }
+    /**
+     * Notifies listeners of state changes, that the state has changed
+     */
+    void notifyListeners() {
+        for (LxControlStateListener listener : listeners) {
+            listener.onStateChange(this);
         }
     }
 
@@ -12,8 +12,11 @@ import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -96,6 +99,8 @@ public class LxServer {
     // the state. It must be ensured that updates received for this state UUID are passed to all controls that have this
     // state UUID configured.
     private final Map<LxUuid, Map<LxUuid, LxControlState>> states = new HashMap<>();
+    // Index of the states above by the binary form of state UUID, as received in state update events
+    private final Map<LxWsStateUpdateBatch.Key, LxControlState[]> stateIndex = new HashMap<>();
     private final List<LxServerListener> listeners = new ArrayList<>();
 
     // Services
@@ -444,25 +449,7 @@ public class LxServer {
                     }
                     break;
                 case STATE_UPDATE:
-                    LxWsStateUpdateEvent update = (LxWsStateUpdateEvent) wsMsg.getObject();
-                    Map<LxUuid, LxControlState> perStateUuid = findState(update.getUuid());
-                    if (perStateUuid != null) {
-                        perStateUuid.forEach((controlUuid, state) -> {
-                            state.setValue(update.getValue(), update.getText());
-                            LxControl control = state.getControl();
-                            if (control != null) {
-                                logger.debug("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId,
-                                        update.getUuid(), control.getName(), state.getName(), update.getValue(),
-                                        update.getText());
-                                for (LxServerListener listener : listeners) {
-                                    listener.onControlStateUpdate(control, state.getName().toLowerCase());
-                                }
-                            } else {
-                                logger.debug("[{}] State update {} ({}) of unknown control", debugId, update.getUuid(),
-                                        state.getName());
-                            }
-                        });
-                    }
+                    processStateUpdates((LxWsStateUpdateBatch) wsMsg.getObject());
                     break;
                 case SERVER_ONLINE:
                     for (LxServerListener listener : listeners) {
@@ -508,6 +495,69 @@ public class LxServer {
 
     }
 
+    /**
+     * Applies a table of state updates received from the Miniserver.
+     * <p>
+     * All updates are applied to the states first. Then listeners of changed states are notified once per state, and
+     * server listeners are notified once per control, even if more states of the control or the same state were
+     * updated many times.
+     *
+     * @param batch
+     *            decoded table of state updates
+     */
+    private void processStateUpdates(LxWsStateUpdateBatch batch) {
+        Set<LxControlState> changedStates = new LinkedHashSet<>();
+        Map<LxControl, Set<String>> updatedControls = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            LxControlState[] perStateUuid = stateIndex.get(batch.getKey(i));
+            if (perStateUuid == null) {
+                continue;
+            }
+            Double value = batch.getValue(i);
+            String text = batch.getText(i);
+            for (LxControlState state : perStateUuid) {
+                if (state.updateValue(value, text)) {
+                    changedStates.add(state);
+                }
+                LxControl control = state.getControl();
+                if (control != null) {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId,
+                                batch.getUuid(i), control.getName(), state.getName(), value, text);
+                    }
+                    updatedControls.computeIfAbsent(control, c -> new LinkedHashSet<>())
+                            .add(state.getName().toLowerCase());
+                } else {
+                    logger.debug("[{}] State update {} ({}) of unknown control", debugId, batch.getUuid(i),
+                            state.getName());
+                }
+            }
+        }
+        logger.debug("[{}] Applied {}: {} states changed, {} controls updated", debugId, batch, changedStates.size(),
+                updatedControls.size());
+        changedStates.forEach(LxControlState::notifyListeners);
+        updatedControls.forEach((control, stateNames) -> {
+            for (LxServerListener listener : listeners) {
+                listener.onControlStateUpdate(control, stateNames);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds index of states by the binary form of their UUID
+     */
+    private void rebuildStateIndex() {
+        stateIndex.clear();
+        states.forEach((uuid, perStateUuid) -> {
+            LxWsStateUpdateBatch.Key key = LxWsStateUpdateBatch.Key.of(uuid);
+            if (key != null) {
+                stateIndex.put(key, perStateUuid.values().toArray(new LxControlState[perStateUuid.size()]));
+            } else {
+                logger.debug("[{}] State UUID {} can't be matched with state updates", debugId, uuid);
+            }
+        });
+    }
+
     /**
      * Updates runtime configuration from parsed JSON configuration file of Loxone Miniserver (LoxApp3.json)
      *
@@ -565,6 +615,7 @@ public class LxServer {
         removeUnusedFromMap(categories);
         removeUnusedFromMap(controls);
         removeUnusedFromMap(states);
+        rebuildStateIndex();
     }
 
     /**
@@ -642,24 +693,6 @@ public class LxServer {
         return nr;
     }
 
-    /**
-     * Search for a state with given UUID
-     *
-     * @param id
-     *            UUID of state to locate
-     * @return
-     *         map of all state objects with control UUID as key
-     */
-    private Map<LxUuid, LxControlState> findState(LxUuid id) {
-        if (states == null || id == null) {
-            return null;
-        }
-        if (states.containsKey(id)) {
-            return states.get(id);
-        }
-        return null;
-    }
-
     /**
      * Search for a category on the server
      *
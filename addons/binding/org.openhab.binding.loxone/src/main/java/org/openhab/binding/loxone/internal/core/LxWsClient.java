@@ -651,20 +651,10 @@ class LxWsClient {
                     switch (header.type) {
                         case EVENT_TABLE_OF_VALUE_STATES:
                             stopResponseTimeout();
-                            while (length > 0) {
-                                LxWsStateUpdateEvent event = new LxWsStateUpdateEvent(true, data, offset);
-                                offset += event.getSize();
-                                length -= event.getSize();
-                                notifyMaster(EventType.STATE_UPDATE, null, event);
-                            }
+                            notifyStateUpdates(new LxWsStateUpdateBatch(true, data, offset, length));
                             break;
                         case EVENT_TABLE_OF_TEXT_STATES:
-                            while (length > 0) {
-                                LxWsStateUpdateEvent event = new LxWsStateUpdateEvent(false, data, offset);
-                                offset += event.getSize();
-                                length -= event.getSize();
-                                notifyMaster(EventType.STATE_UPDATE, null, event);
-                            }
+                            notifyStateUpdates(new LxWsStateUpdateBatch(false, data, offset, length));
                             break;
                         case KEEPALIVE_RESPONSE:
                         case TEXT_MESSAGE:
@@ -681,6 +671,15 @@ class LxWsClient {
             }
         }
 
+        private void notifyStateUpdates(LxWsStateUpdateBatch batch) {
+            if (batch.isTruncated()) {
+                logger.debug("[{}] malformed binary message received, last state update discarded", debugId);
+            }
+            if (batch.size() > 0) {
+                notifyMaster(EventType.STATE_UPDATE, null, batch);
+            }
+        }
+
         @OnWebSocketMessage
         public void onMessage(String msg) {
             stateMachineLock.lock();
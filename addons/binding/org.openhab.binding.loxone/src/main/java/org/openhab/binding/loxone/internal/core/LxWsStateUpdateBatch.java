@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A table of state update events received from the Miniserver in one binary message.
+ * <p>
+ * The whole table is decoded in one pass over the buffer. UUIDs of the states are kept in their binary form as two
+ * long values (see {@link Key}), so they can be matched against the states of the controls without creating
+ * {@link LxUuid} objects. Value events are kept in a primitive array, text events in an array of strings.
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+class LxWsStateUpdateBatch {
+    private static final int VALUE_EVENT_SIZE = 24;
+    private static final int TEXT_EVENT_HEADER_SIZE = 36;
+
+    /**
+     * Binary form of a state UUID, used as a key of the index of states
+     *
+     * @author agent (agent@local) - Initial contribution
+     *
+     */
+    static final class Key {
+        private final long high;
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        /**
+         * Create a key from UUID parsed from the configuration
+         *
+         * @param uuid
+         *            UUID of the state
+         * @return
+         *         key corresponding to the UUID received in binary messages, or null if UUID is not in standard format
+         */
+        static Key of(LxUuid uuid) {
+            String hex = uuid.toString().replace("-", "");
+            if (hex.length() != 32) {
+                return null;
+            }
+            try {
+                return new Key(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                        Long.parseUnsignedLong(hex.substring(16), 16));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high) * 31 + Long.hashCode(low);
+        }
+    }
+
+    private final boolean valueEvents;
+    private long[] high;
+    private long[] low;
+    private double[] values;
+    private String[] texts;
+    private int size = 0;
+    private boolean truncated = false;
+
+    /**
+     * Decode a table of state update events from binary message
+     *
+     * @param isValueEvent
+     *            true if events of the table update double values, false if they update text messages
+     * @param data
+     *            buffer with binary message received from Miniserver
+     * @param offset
+     *            offset in buffer where the table starts
+     * @param length
+     *            length of the table in bytes
+     */
+    LxWsStateUpdateBatch(boolean isValueEvent, byte data[], int offset, int length) {
+        valueEvents = isValueEvent;
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        int capacity = isValueEvent ? length / VALUE_EVENT_SIZE : length / TEXT_EVENT_HEADER_SIZE;
+        high = new long[capacity];
+        low = new long[capacity];
+        if (isValueEvent) {
+            values = new double[capacity];
+        } else {
+            texts = new String[capacity];
+        }
+
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            if (buffer.remaining() < (isValueEvent ? VALUE_EVENT_SIZE : TEXT_EVENT_HEADER_SIZE)) {
+                truncated = true;
+                break;
+            }
+            readUuid(buffer);
+            if (isValueEvent) {
+                values[size] = buffer.getDouble();
+            } else {
+                // icon UUID is not used
+                buffer.position(buffer.position() + 16);
+                int textLen = buffer.getInt();
+                int paddedLen = textLen % 4 > 0 ? textLen + 4 - (textLen % 4) : textLen;
+                if (textLen < 0 || textLen > buffer.remaining()) {
+                    buffer.position(start);
+                    truncated = true;
+                    break;
+                }
+                texts[size] = new String(data, buffer.position(), textLen);
+                buffer.position(Math.min(buffer.limit(), buffer.position() + paddedLen));
+            }
+            size++;
+        }
+    }
+
+    private void readUuid(ByteBuffer buffer) {
+        // first three fields are little endian, the remaining 8 bytes are taken as they are
+        long first = buffer.getInt() & 0xFFFFFFFFL;
+        long second = buffer.getShort() & 0xFFFFL;
+        long third = buffer.getShort() & 0xFFFFL;
+        high[size] = (first << 32) | (second << 16) | third;
+        low[size] = Long.reverseBytes(buffer.getLong());
+    }
+
+    /**
+     * Get number of decoded events
+     *
+     * @return
+     *         number of events
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check if the binary message ended in the middle of an event
+     *
+     * @return
+     *         true if last event could not be decoded
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Check type of the events
+     *
+     * @return
+     *         true if events update double values, false if they update text messages
+     */
+    boolean isValueEvents() {
+        return valueEvents;
+    }
+
+    /**
+     * Get key of the state updated by an event
+     *
+     * @param index
+     *            index of the event
+     * @return
+     *         key of the state UUID
+     */
+    Key getKey(int index) {
+        checkIndex(index);
+        return new Key(high[index], low[index]);
+    }
+
+    /**
+     * Get UUID of the state updated by an event. It is created on demand, for logging purposes.
+     *
+     * @param index
+     *            index of the event
+     * @return
+     *         UUID of the state
+     */
+    LxUuid getUuid(int index) {
+        checkIndex(index);
+        return new LxUuid(String.format("%08x-%04x-%04x-%016x", high[index] >>> 32, (high[index] >>> 16) & 0xFFFF,
+                high[index] & 0xFFFF, low[index]));
+    }
+
+    /**
+     * Get value of a value event
+     *
+     * @param index
+     *            index of the event
+     * @return
+     *         value of the state or null if this is a table of text events
+     */
+    Double getValue(int index) {
+        checkIndex(index);
+        return valueEvents ? values[index] : null;
+    }
+
+    /**
+     * Get text of a text event
+     *
+     * @param index
+     *            index of the event
+     * @return
+     *         text of the state or null if this is a table of value events
+     */
+    String getText(int index) {
+        checkIndex(index);
+        return valueEvents ? null : texts[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size + " events");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (valueEvents ? "value" : "text") + " events: " + size;
+    }
+}
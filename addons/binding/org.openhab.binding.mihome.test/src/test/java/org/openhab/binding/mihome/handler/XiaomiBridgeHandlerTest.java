@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.mihome.handler;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.binding.ThingHandlerCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.mihome.internal.XiaomiItemUpdateListener;
+import org.openhab.binding.mihome.internal.socket.XiaomiMessage;
+
+/**
+ * Tests for dispatching the messages of a gateway by sid and suppressing repeated heartbeats in
+ * {@link XiaomiBridgeHandler}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class XiaomiBridgeHandlerTest {
+
+    private static final String SID = "158d0001234567";
+
+    private XiaomiBridgeHandler handler;
+
+    @Before
+    public void setUp() {
+        handler = new XiaomiBridgeHandler(mock(Bridge.class));
+        handler.setCallback(mock(ThingHandlerCallback.class));
+    }
+
+    private static XiaomiMessage message(String command, String sid, String data) throws UnknownHostException {
+        return XiaomiMessage.decode("{\"cmd\":\"" + command + "\",\"model\":\"sensor_ht\",\"sid\":\"" + sid
+                + "\",\"data\":\"" + data.replace("\"", "\\\"") + "\"}", InetAddress.getLoopbackAddress());
+    }
+
+    private static XiaomiItemUpdateListener listener(String sid) {
+        XiaomiItemUpdateListener listener = mock(XiaomiItemUpdateListener.class);
+        doReturn(sid).when(listener).getItemId();
+        return listener;
+    }
+
+    @Test
+    public void testRepeatedHeartbeatIsSuppressed() throws UnknownHostException {
+        XiaomiItemUpdateListener listener = listener(SID);
+        handler.registerItemListener(listener);
+
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3005}"));
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3005}"));
+        verify(listener, times(1)).onItemUpdate(any());
+
+        // changed data is passed on
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3000}"));
+        verify(listener, times(2)).onItemUpdate(any());
+
+        // a report resets the comparison, so the next heartbeat resynchronises the state
+        handler.onDataReceived(message("report", SID, "{\"temperature\":\"2134\"}"));
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3000}"));
+        verify(listener, times(4)).onItemUpdate(any());
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3000}"));
+        verify(listener, times(4)).onItemUpdate(any());
+
+        // the device is still seen by the suppressed heartbeat
+        assertTrue(handler.hasItemActivity(SID, 60000));
+    }
+
+    @Test
+    public void testHeartbeatIsPassedOnToReinitializedListener() throws UnknownHostException {
+        XiaomiItemUpdateListener listener = listener(SID);
+        handler.registerItemListener(listener);
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3005}"));
+        verify(listener, times(1)).onItemUpdate(any());
+
+        // the thing handler is disposed and initialized again, it gets its state from the next heartbeat
+        handler.unregisterItemListener(listener);
+        XiaomiItemUpdateListener reinitialized = listener(SID);
+        handler.registerItemListener(reinitialized);
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3005}"));
+        verify(reinitialized, times(1)).onItemUpdate(any());
+
+        // repetitions of that heartbeat are suppressed again
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3005}"));
+        verify(reinitialized, times(1)).onItemUpdate(any());
+    }
+
+    @Test
+    public void testHeartbeatsAreComparedPerDevice() throws UnknownHostException {
+        XiaomiItemUpdateListener first = listener(SID);
+        XiaomiItemUpdateListener second = listener("158d0007654321");
+        handler.registerItemListener(first);
+        handler.registerItemListener(second);
+
+        handler.onDataReceived(message("heartbeat", SID, "{\"voltage\":3005}"));
+        handler.onDataReceived(message("heartbeat", "158d0007654321", "{\"voltage\":3005}"));
+
+        verify(first, times(1)).onItemUpdate(any());
+        verify(second, times(1)).onItemUpdate(any());
+    }
+
+    @Test
+    public void testMessageIsDispatchedBySid() throws UnknownHostException {
+        XiaomiItemUpdateListener listener = listener(SID);
+        XiaomiItemUpdateListener other = listener("158d0007654321");
+        handler.registerItemListener(listener);
+        handler.registerItemListener(other);
+
+        handler.onDataReceived(message("report", SID, "{\"temperature\":\"2134\"}"));
+
+        verify(listener, times(1)).onItemUpdate(any());
+        verify(other, never()).onItemUpdate(any());
+    }
+
+    @Test
+    public void testAllListenersOfSidReceiveMessages() throws UnknownHostException {
+        XiaomiItemUpdateListener first = listener(SID);
+        XiaomiItemUpdateListener second = listener(SID);
+        assertTrue(handler.registerItemListener(first));
+        assertTrue(handler.registerItemListener(second));
+        assertFalse(handler.registerItemListener(second));
+
+        handler.onDataReceived(message("report", SID, "{\"temperature\":\"2134\"}"));
+        verify(first, times(1)).onItemUpdate(any());
+        verify(second, times(1)).onItemUpdate(any());
+
+        assertTrue(handler.unregisterItemListener(first));
+        assertFalse(handler.unregisterItemListener(first));
+        handler.onDataReceived(message("report", SID, "{\"temperature\":\"2135\"}"));
+        verify(first, times(1)).onItemUpdate(any());
+        verify(second, times(2)).onItemUpdate(any());
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.mihome.internal.socket;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * Tests for decoding the datagrams of a gateway with {@link XiaomiMessage}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class XiaomiMessageTest {
+
+    private static final String REPORT = "{\"cmd\":\"report\",\"model\":\"sensor_ht\",\"sid\":\"158d0001234567\","
+            + "\"short_id\":12345,\"data\":\"{\\\"temperature\\\":\\\"2134\\\"}\"}";
+    private static final String HEARTBEAT = "{\"cmd\":\"heartbeat\",\"model\":\"gateway\",\"sid\":\"7811dcb00001\","
+            + "\"short_id\":\"0\",\"token\":\"1234567890abcdef\",\"data\":\"{\\\"ip\\\":\\\"192.168.1.2\\\"}\"}";
+
+    private static InetAddress address() throws UnknownHostException {
+        return InetAddress.getByName("192.168.1.2");
+    }
+
+    @Test
+    public void testDecodeReport() throws UnknownHostException {
+        XiaomiMessage message = XiaomiMessage.decode(REPORT, address());
+
+        assertEquals("report", message.getCommand());
+        assertEquals("158d0001234567", message.getSid());
+        assertEquals("sensor_ht", message.getModel());
+        assertEquals("{\"temperature\":\"2134\"}", message.getDataString());
+        assertEquals("2134", message.getData().get("temperature").getAsString());
+        assertEquals(12345, message.getMessage().get("short_id").getAsInt());
+        assertEquals(address(), message.getAddress());
+    }
+
+    @Test
+    public void testDecodeHeartbeat() throws UnknownHostException {
+        XiaomiMessage message = XiaomiMessage.decode(HEARTBEAT, address());
+
+        assertEquals("heartbeat", message.getCommand());
+        assertEquals("7811dcb00001", message.getSid());
+        assertEquals("gateway", message.getModel());
+        assertEquals("192.168.1.2", message.getData().get("ip").getAsString());
+        assertEquals("1234567890abcdef", message.getMessage().get("token").getAsString());
+    }
+
+    @Test
+    public void testDecodeMessageWithoutDeviceAndData() throws UnknownHostException {
+        XiaomiMessage message = XiaomiMessage.decode("{\"cmd\":\"iam\",\"port\":\"9898\",\"ip\":\"192.168.1.2\"}",
+                address());
+
+        assertEquals("iam", message.getCommand());
+        assertNull(message.getSid());
+        assertNull(message.getModel());
+        assertNull(message.getDataString());
+        assertNull(message.getData());
+    }
+
+    @Test
+    public void testDataWhichIsNotAnObject() throws UnknownHostException {
+        XiaomiMessage message = XiaomiMessage.decode(
+                "{\"cmd\":\"get_id_list_ack\",\"sid\":\"7811dcb00001\",\"data\":\"[\\\"158d0001234567\\\"]\"}",
+                address());
+
+        assertEquals("[\"158d0001234567\"]", message.getDataString());
+        assertNull(message.getData());
+    }
+
+    @Test
+    public void testInvalidData() throws UnknownHostException {
+        XiaomiMessage message = XiaomiMessage.decode("{\"cmd\":\"report\",\"sid\":\"158d0001234567\",\"data\":\"{\"}",
+                address());
+
+        assertEquals("{", message.getDataString());
+        assertNull(message.getData());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testInvalidJson() throws UnknownHostException {
+        XiaomiMessage.decode("{\"cmd\":", address());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testNoObject() throws UnknownHostException {
+        XiaomiMessage.decode("[\"report\"]", address());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testNoCommand() throws UnknownHostException {
+        XiaomiMessage.decode("{\"sid\":\"158d0001234567\"}", address());
+    }
+}
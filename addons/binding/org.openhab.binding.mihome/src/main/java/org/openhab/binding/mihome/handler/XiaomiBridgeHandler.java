@@ -13,13 +13,13 @@ import static org.openhab.binding.mihome.XiaomiGatewayBindingConstants.*;
 import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.Configuration;
@@ -35,19 +35,23 @@ import org.openhab.binding.mihome.internal.EncryptionHelper;
 import org.openhab.binding.mihome.internal.XiaomiItemUpdateListener;
 import org.openhab.binding.mihome.internal.discovery.XiaomiItemDiscoveryService;
 import org.openhab.binding.mihome.internal.socket.XiaomiBridgeSocket;
+import org.openhab.binding.mihome.internal.socket.XiaomiMessage;
 import org.openhab.binding.mihome.internal.socket.XiaomiSocketListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 
 /**
  * The {@link XiaomiBridgeHandler} is responsible for handling commands, which are
  * sent to one of the channels for the bridge.
  *
+ * Messages are dispatched by the sid of the device to its item listeners only. Heartbeats repeating the data of the
+ * previous heartbeat of a device, without any other message in between, are not passed to the listeners.
+ *
  * @author Patrick Boos - Initial contribution
  * @author Dieter Schmidt - added device update from heartbeat
  */
@@ -58,12 +62,13 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
     public static final Set<ThingTypeUID> SUPPORTED_THING_TYPES = Collections.singleton(THING_TYPE_BRIDGE);
     private static final JsonParser PARSER = new JsonParser();
     private static final EncryptionHelper CRYPTER = new EncryptionHelper();
-    private static Map<String, JsonObject> retentionInbox = new ConcurrentHashMap<>();
+    private static Map<String, XiaomiMessage> retentionInbox = new ConcurrentHashMap<>();
 
     private final Logger logger = LoggerFactory.getLogger(XiaomiBridgeHandler.class);
 
-    private List<XiaomiItemUpdateListener> itemListeners = new ArrayList<>();
-    private List<XiaomiItemUpdateListener> itemDiscoveryListeners = new ArrayList<>();
+    private Map<String, List<XiaomiItemUpdateListener>> itemListeners = new ConcurrentHashMap<>();
+    private List<XiaomiItemUpdateListener> itemDiscoveryListeners = new CopyOnWriteArrayList<>();
+    private Map<String, String> lastHeartbeatData = new ConcurrentHashMap<>();
 
     private String gatewayToken;
     private long lastDiscoveryTime;
@@ -118,10 +123,10 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
     }
 
     @Override
-    public void onDataReceived(JsonObject message) {
+    public void onDataReceived(XiaomiMessage message) {
         logger.trace("Received message {}", message);
-        String sid = message.has("sid") ? message.get("sid").getAsString() : null;
-        String command = message.get("cmd").getAsString();
+        String sid = message.getSid();
+        String command = message.getCommand();
 
         updateDeviceStatus(sid);
         updateStatus(ThingStatus.ONLINE);
@@ -129,12 +134,22 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
             case "iam":
                 return;
             case "heartbeat":
-                if (message.has("token")) {
-                    this.gatewayToken = message.get("token").getAsString();
+                if (message.getMessage().has("token")) {
+                    this.gatewayToken = message.getMessage().get("token").getAsString();
+                }
+                if (isRepeatedHeartbeat(sid, message.getDataString())) {
+                    logger.trace("Suppressed repeated heartbeat of device {}", sid);
+                    return;
                 }
                 break;
             case "get_id_list_ack":
-                JsonArray devices = PARSER.parse(message.get("data").getAsString()).getAsJsonArray();
+                JsonArray devices;
+                try {
+                    devices = PARSER.parse(message.getDataString()).getAsJsonArray();
+                } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                    logger.debug("Invalid device list received: {}", message);
+                    return;
+                }
                 for (JsonElement deviceId : devices) {
                     String device = deviceId.getAsString();
                     sendCommandToBridge("read", device);
@@ -145,15 +160,37 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
             case "read_ack":
                 logger.debug("Device {} honored read request", sid);
                 defer(sid, message);
+                forgetHeartbeat(sid);
                 break;
             case "write_ack":
                 logger.debug("Device {} honored write request", sid);
+                forgetHeartbeat(sid);
                 break;
+            default:
+                forgetHeartbeat(sid);
+                break;
+        }
+        notifyListeners(message);
+    }
+
+    /**
+     * Checks whether the heartbeat carries the same data as the previous heartbeat of the device. Any other message
+     * of the device resets the check, so a heartbeat following a report is always passed on.
+     */
+    private boolean isRepeatedHeartbeat(String sid, String data) {
+        if (sid == null || data == null) {
+            return false;
+        }
+        return data.equals(lastHeartbeatData.put(sid, data));
+    }
+
+    private void forgetHeartbeat(String sid) {
+        if (sid != null) {
+            lastHeartbeatData.remove(sid);
         }
-        notifyListeners(command, message);
     }
 
-    private synchronized void defer(String sid, JsonObject message) {
+    private synchronized void defer(String sid, XiaomiMessage message) {
         synchronized (retentionInbox) {
             retentionInbox.remove(sid);
             retentionInbox.put(sid, message);
@@ -176,9 +213,9 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
         }
     }
 
-    public synchronized JsonObject getDeferredMessage(String sid) {
+    public synchronized XiaomiMessage getDeferredMessage(String sid) {
         synchronized (retentionInbox) {
-            JsonObject ret = retentionInbox.get(sid);
+            XiaomiMessage ret = retentionInbox.get(sid);
             if (ret != null) {
                 retentionInbox.remove(sid);
             }
@@ -186,23 +223,21 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
         }
     }
 
-    private synchronized void notifyListeners(String command, JsonObject message) {
-        boolean knownDevice = false;
-        String sid = message.get("sid").getAsString();
+    private void notifyListeners(XiaomiMessage message) {
+        String sid = message.getSid();
 
         // Not a message to pass to any itemListener
         if (sid == null) {
             return;
         }
-        for (XiaomiItemUpdateListener itemListener : itemListeners) {
-            if (sid.equals(itemListener.getItemId())) {
-                itemListener.onItemUpdate(sid, command, message);
-                knownDevice = true;
+        List<XiaomiItemUpdateListener> listeners = itemListeners.get(sid);
+        if (listeners != null) {
+            for (XiaomiItemUpdateListener itemListener : listeners) {
+                itemListener.onItemUpdate(message);
             }
-        }
-        if (!knownDevice) {
-            for (XiaomiItemUpdateListener itemListener : itemDiscoveryListeners) {
-                itemListener.onItemUpdate(sid, command, message);
+        } else {
+            for (XiaomiItemUpdateListener discoveryListener : itemDiscoveryListeners) {
+                discoveryListener.onItemUpdate(message);
             }
         }
     }
@@ -214,16 +249,39 @@ public class XiaomiBridgeHandler extends ConfigStatusBridgeHandler implements Xi
         } else if (listener instanceof XiaomiItemDiscoveryService) {
             result = !(itemDiscoveryListeners.contains(listener)) ? itemDiscoveryListeners.add(listener) : false;
             logger.debug("Having {} Item Discovery listeners", itemDiscoveryListeners.size());
+        } else if (listener.getItemId() == null) {
+            logger.warn("It's not allowed to register a XiaomiItemUpdateListener without item id");
         } else {
             logger.debug("Adding item listener for device {}", listener.getItemId());
-            result = !(itemListeners.contains(listener)) ? itemListeners.add(listener) : false;
+            List<XiaomiItemUpdateListener> listeners = itemListeners.computeIfAbsent(listener.getItemId(),
+                    itemId -> new CopyOnWriteArrayList<>());
+            if (!listeners.contains(listener)) {
+                if (!listeners.isEmpty()) {
+                    logger.warn("Device {} is used by more than one thing, all of them receive its updates",
+                            listener.getItemId());
+                }
+                result = listeners.add(listener);
+            }
+            // a new or re-initialized handler has no state yet, the next heartbeat of the device must reach it
+            forgetHeartbeat(listener.getItemId());
             logger.debug("Having {} Item listeners", itemListeners.size());
         }
         return result;
     }
 
     public synchronized boolean unregisterItemListener(XiaomiItemUpdateListener listener) {
-        return itemListeners.remove(listener);
+        if (listener instanceof XiaomiItemDiscoveryService) {
+            return itemDiscoveryListeners.remove(listener);
+        }
+        String itemId = listener.getItemId();
+        List<XiaomiItemUpdateListener> listeners = itemId != null ? itemListeners.get(itemId) : null;
+        if (listeners == null || !listeners.remove(listener)) {
+            return false;
+        }
+        if (listeners.isEmpty()) {
+            itemListeners.remove(itemId);
+        }
+        return true;
     }
 
     private void sendMessageToBridge(String message) {
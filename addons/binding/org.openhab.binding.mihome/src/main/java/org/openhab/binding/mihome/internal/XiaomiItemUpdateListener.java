@@ -8,7 +8,7 @@
  */
 package org.openhab.binding.mihome.internal;
 
-import com.google.gson.JsonObject;
+import org.openhab.binding.mihome.internal.socket.XiaomiMessage;
 
 /**
  * Listener for item/sensor updates.
@@ -19,14 +19,12 @@ public interface XiaomiItemUpdateListener {
     /**
      * Callback method to notify the listener about a device state update
      *
-     * @param sid the itemID of the device
-     * @param command the command type of the received message
-     * @param message the received message
+     * @param message the received message, with sid, command and parsed data
      *
      * @author Patrick Boos - Initial contribution
      */
 
-    void onItemUpdate(String sid, String command, JsonObject message);
+    void onItemUpdate(XiaomiMessage message);
 
     /**
      * Returns the itemID, to which the listener listens
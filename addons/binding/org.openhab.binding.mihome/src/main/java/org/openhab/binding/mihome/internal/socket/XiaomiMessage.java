@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.mihome.internal.socket;
+
+import java.net.InetAddress;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * A message received from a MiHome gateway, decoded once by the {@link XiaomiSocket}.
+ *
+ * The fields used for dispatching (command, sid and model) are extracted and the data field, which the gateway
+ * sends as JSON string inside the message, is parsed to a {@link JsonObject}.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class XiaomiMessage {
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private final JsonObject message;
+    private final InetAddress address;
+    private final String command;
+    private final String sid;
+    private final String model;
+    private final String dataString;
+    private final JsonObject data;
+
+    private XiaomiMessage(JsonObject message, InetAddress address) {
+        this.message = message;
+        this.address = address;
+        command = getString(message, "cmd");
+        sid = getString(message, "sid");
+        model = getString(message, "model");
+        dataString = getString(message, "data");
+        data = parseData(dataString);
+    }
+
+    /**
+     * Decodes a received datagram
+     *
+     * @param sentence - the content of the datagram
+     * @param address - the address of the sender
+     * @return the decoded message
+     * @throws JsonParseException if the datagram is not a valid message
+     */
+    public static XiaomiMessage decode(String sentence, InetAddress address) throws JsonParseException {
+        JsonElement element = PARSER.parse(sentence);
+        if (!element.isJsonObject()) {
+            throw new JsonParseException("Message is not a JSON object: " + sentence);
+        }
+        XiaomiMessage message = new XiaomiMessage(element.getAsJsonObject(), address);
+        if (message.command == null) {
+            throw new JsonParseException("Message without command: " + sentence);
+        }
+        return message;
+    }
+
+    private static String getString(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private static JsonObject parseData(String dataString) {
+        if (dataString == null) {
+            return null;
+        }
+        try {
+            JsonElement element = PARSER.parse(dataString);
+            return element.isJsonObject() ? element.getAsJsonObject() : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return - the complete message
+     */
+    public JsonObject getMessage() {
+        return message;
+    }
+
+    /**
+     * @return - the address of the sender
+     */
+    public InetAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * @return - the command of the message, e.g. "report" or "heartbeat"
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * @return - the sid of the device or null, if the message is not related to a device
+     */
+    public String getSid() {
+        return sid;
+    }
+
+    /**
+     * @return - the model of the device or null, if not contained in the message
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * @return - the data field as received or null, if the message has no data
+     */
+    public String getDataString() {
+        return dataString;
+    }
+
+    /**
+     * @return - the parsed data field or null, if the message has no data or the data is not a JSON object
+     */
+    public JsonObject getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return message.toString();
+    }
+}
@@ -21,8 +21,7 @@ import org.openhab.binding.mihome.internal.discovery.XiaomiBridgeDiscoveryServic
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonParseException;
 
 /**
  * Takes care of the communication with MiHome devices.
@@ -40,8 +39,6 @@ public abstract class XiaomiSocket {
 
     private List<XiaomiSocketListener> listeners = new CopyOnWriteArrayList<>();
 
-    private static final JsonParser PARSER = new JsonParser();
-
     private final Logger logger = LoggerFactory.getLogger(XiaomiSocket.class);
 
     private static ConcurrentHashMap<Integer, DatagramSocket> openSockets = new ConcurrentHashMap<Integer, DatagramSocket>();
@@ -191,8 +188,8 @@ public abstract class XiaomiSocket {
 
         /**
          * This method is the main method of the {@link ReceiverThread} for the {@link XiaomiBridgeSocket}.
-         * If the socket has data, it parses the data to a json object and calls all
-         * {@link XiaomiSocketListener} and passes the data to them.
+         * If the socket has data, it decodes the data to a {@link XiaomiMessage} once and calls all
+         * {@link XiaomiSocketListener} and passes the message to them.
          *
          * @param socket - The multicast socket to listen to
          * @param dgram - The datagram to receive
@@ -206,8 +203,14 @@ public abstract class XiaomiSocket {
                     logger.debug("Received Datagram from {}:{} on Port {}", address.getHostAddress(), dgram.getPort(),
                             socket.getLocalPort());
                     String sentence = new String(dgram.getData(), 0, dgram.getLength());
-                    JsonObject message = PARSER.parse(sentence).getAsJsonObject();
-                    notifyAll(getListeners(), message, address);
+                    XiaomiMessage message;
+                    try {
+                        message = XiaomiMessage.decode(sentence, address);
+                    } catch (JsonParseException e) {
+                        logger.debug("Ignoring invalid message from {}: {}", address.getHostAddress(), sentence);
+                        continue;
+                    }
+                    notifyAll(getListeners(), message);
                     logger.trace("Data received and notified {} listeners", getListeners().size());
                 }
             } catch (IOException e) {
@@ -225,12 +228,12 @@ public abstract class XiaomiSocket {
          * {@link XiaomiBridgeHandler}, before passing to any {@link XiaomiBridgeDiscoveryService}.
          *
          * @param listeners - a list of all {@link XiaomiSocketListener} to notify
-         * @param message - the data message as {@link JsonObject}
+         * @param message - the decoded data message
          */
-        synchronized void notifyAll(List<XiaomiSocketListener> listeners, JsonObject message, InetAddress address) {
+        synchronized void notifyAll(List<XiaomiSocketListener> listeners, XiaomiMessage message) {
             for (XiaomiSocketListener listener : listeners) {
                 if (listener instanceof XiaomiBridgeHandler) {
-                    if (((XiaomiBridgeHandler) listener).getHost().equals(address)) {
+                    if (((XiaomiBridgeHandler) listener).getHost().equals(message.getAddress())) {
                         listener.onDataReceived(message);
                     }
                 } else if (listener instanceof XiaomiBridgeDiscoveryService) {
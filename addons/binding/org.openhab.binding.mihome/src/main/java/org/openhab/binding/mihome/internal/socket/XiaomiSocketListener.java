@@ -8,8 +8,6 @@
  */
 package org.openhab.binding.mihome.internal.socket;
 
-import com.google.gson.JsonObject;
-
 /**
  * Interface for a listener on the {@link XiaomiSocket}.
  * When it is registered on the socket, it gets called back each time, the {@link XiaomiSocket} receives data.
@@ -20,7 +18,7 @@ public interface XiaomiSocketListener {
     /**
      * Callback method for the {@link XiaomiSocketListener}
      *
-     * @param message - The received message in JSON format
+     * @param message - The received message, decoded once for all listeners
      */
-    void onDataReceived(JsonObject message);
+    void onDataReceived(XiaomiMessage message);
 }
@@ -15,6 +15,10 @@ import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -24,6 +28,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -87,6 +92,7 @@ import org.openhab.binding.modbus.handler.ModbusDataThingHandler;
 import org.openhab.binding.modbus.handler.ModbusPollerThingHandler;
 import org.openhab.binding.modbus.handler.ModbusPollerThingHandlerImpl;
 import org.openhab.binding.modbus.handler.ModbusTcpThingHandler;
+import org.openhab.binding.modbus.internal.TransformationServiceCache;
 import org.openhab.io.transport.modbus.BitArray;
 import org.openhab.io.transport.modbus.ModbusConstants;
 import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
@@ -131,6 +137,37 @@ public class ModbusDataHandlerTest extends JavaTest {
         }
     };
 
+    /**
+     * Clock that is advanced manually by the tests
+     */
+    private static class TestClock extends Clock {
+        private volatile long millis;
+
+        public void advance(long deltaMillis) {
+            millis += deltaMillis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     private class ItemRegisteryTestImpl extends AbstractRegistry<Item, String, ItemProvider> implements ItemRegistry {
 
         private Map<String, Item> items = new ConcurrentHashMap<>();
@@ -254,6 +291,8 @@ public class ModbusDataHandlerTest extends JavaTest {
 
     Map<ChannelUID, List<State>> stateUpdates = new HashMap<>();
 
+    private TestClock clock = new TestClock();
+
     private Map<String, String> channelToAcceptedType = ImmutableMap.<String, String> builder()
             .put(ModbusBindingConstants.CHANNEL_SWITCH, "Switch").put(ModbusBindingConstants.CHANNEL_CONTACT, "Contact")
             .put(ModbusBindingConstants.CHANNEL_DATETIME, "DateTime")
@@ -404,7 +443,8 @@ public class ModbusDataHandlerTest extends JavaTest {
         hookStatusUpdates(dataThing);
         hookStateUpdates(dataThing);
 
-        ModbusDataThingHandler dataThingHandler = new ModbusDataThingHandler(dataThing);
+        ModbusDataThingHandler dataThingHandler = new ModbusDataThingHandler(dataThing,
+                new TransformationServiceCache(context != null ? context : mock(BundleContext.class)), clock);
         hookThingRegistry(dataThingHandler);
         hookLinkRegistry(dataThingHandler);
         dataThing.setHandler(dataThingHandler);
@@ -1046,6 +1086,102 @@ public class ModbusDataHandlerTest extends JavaTest {
         waitForAssert(() -> verify((ModbusPollerThingHandler) poller.getHandler()).refresh(), 2500, 50);
     }
 
+    private ModbusDataThingHandler createRegisterReadHandler(ModbusReadRequestBlueprint request, String transform,
+            long updateUnchangedValuesEveryMillis) {
+        ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("thisishost", 502);
+        doReturn(3).when(request).getDataLength();
+        doReturn(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS).when(request).getFunctionCode();
+
+        PollTask task = Mockito.mock(PollTask.class);
+        doReturn(endpoint).when(task).getEndpoint();
+        doReturn(request).when(task).getRequest();
+
+        Bridge poller = createPollerMock("poller1", task);
+
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("readStart", "0");
+        dataConfig.put("readTransform", transform);
+        dataConfig.put("readValueType", "int16");
+        dataConfig.put("updateUnchangedValuesEveryMillis", updateUnchangedValuesEveryMillis);
+
+        ModbusDataThingHandler dataHandler = createDataHandler("read1", poller,
+                builder -> builder.withConfiguration(dataConfig), bundleContext);
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.ONLINE)));
+        return dataHandler;
+    }
+
+    private List<State> getStateUpdates(ModbusDataThingHandler handler, String channel) {
+        List<State> updates = stateUpdates.get(new ChannelUID(handler.getThing().getUID(), channel));
+        return updates == null ? new ArrayList<>() : updates;
+    }
+
+    @Test
+    public void testOnRegistersUnchangedValuesUpdatedEveryPollByDefault() {
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createRegisterReadHandler(request, "default", 0);
+
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(5), new DecimalType(5)))));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_LAST_READ_SUCCESS).size(),
+                is(equalTo(2)));
+    }
+
+    @Test
+    public void testOnRegistersUnchangedValuesNotUpdated() throws InvalidSyntaxException {
+        AtomicInteger transformations = new AtomicInteger();
+        mockTransformation("MULTIPLY", new TransformationService() {
+
+            @Override
+            public String transform(String function, String source) throws TransformationException {
+                transformations.incrementAndGet();
+                return String.valueOf(Integer.parseInt(function) * Integer.parseInt(source));
+            }
+        });
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createRegisterReadHandler(request, "MULTIPLY(10)", 60_000L);
+
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        int transformationsAfterFirstPoll = transformations.get();
+        assertThat(transformationsAfterFirstPoll, is(not(equalTo(0))));
+
+        // Unchanged value is not transformed nor updated
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        assertThat(transformations.get(), is(equalTo(transformationsAfterFirstPoll)));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(50)))));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_LAST_READ_SUCCESS).size(),
+                is(equalTo(1)));
+
+        // Changed value is updated
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(6));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(50), new DecimalType(60)))));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_LAST_READ_SUCCESS).size(),
+                is(equalTo(2)));
+    }
+
+    @Test
+    public void testOnRegistersUnchangedValuesUpdatedAfterInterval() {
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createRegisterReadHandler(request, "default", 100L);
+
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_NUMBER).size(), is(equalTo(1)));
+
+        clock.advance(99);
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_NUMBER).size(), is(equalTo(1)));
+
+        clock.advance(1);
+        dataHandler.onRegisters(request, new BasicModbusRegisterArray(5));
+        assertThat(getStateUpdates(dataHandler, ModbusBindingConstants.CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(5), new DecimalType(5)))));
+    }
+
     /**
      *
      * @param pollerFunctionCode poller function code. Use null if you want to have data thing direct child of endpoint
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.eclipse.smarthome.core.transform.TransformationException;
+import org.eclipse.smarthome.core.transform.TransformationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.binding.modbus.internal.Transformation;
+import org.openhab.binding.modbus.internal.TransformationServiceCache;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+
+/**
+ * Tests for caching of the transformation service in {@link TransformationServiceCache}, as used by
+ * {@link Transformation}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class TransformationTest {
+
+    private static final String SERVICE_FILTER = "(smarthome.transform=MULTIPLY)";
+
+    private BundleContext context;
+    private TransformationServiceCache services;
+
+    private final TransformationService multiply = new TransformationService() {
+        @Override
+        public String transform(String function, String source) throws TransformationException {
+            return String.valueOf(Integer.parseInt(function) * Integer.parseInt(source));
+        }
+    };
+
+    @Before
+    public void setUp() throws InvalidSyntaxException {
+        context = mock(BundleContext.class);
+        doReturn(Arrays.asList(new Object[] { null })).when(context).getServiceReferences(TransformationService.class,
+                SERVICE_FILTER);
+        doReturn(multiply).when(context).getService(any());
+        services = new TransformationServiceCache(context);
+    }
+
+    @Test
+    public void testServiceIsResolvedOnce() throws InvalidSyntaxException {
+        Transformation transformation = new Transformation("MULTIPLY(10)");
+
+        assertThat(transformation.transform(services, "3"), is(equalTo("30")));
+        assertThat(transformation.transform(services, "4"), is(equalTo("40")));
+
+        verify(context, times(1)).getServiceReferences(TransformationService.class, SERVICE_FILTER);
+        verify(context, times(1)).addServiceListener(any(), contains(TransformationService.class.getName()));
+    }
+
+    @Test
+    public void testServiceIsResolvedAgainAfterServiceChange() throws InvalidSyntaxException {
+        ArgumentCaptor<ServiceListener> listener = ArgumentCaptor.forClass(ServiceListener.class);
+        Transformation transformation = new Transformation("MULTIPLY(10)");
+        transformation.transform(services, "3");
+        verify(context).addServiceListener(listener.capture(), contains(TransformationService.class.getName()));
+
+        TransformationService replaced = (function, source) -> "replaced";
+        doReturn(replaced).when(context).getService(any());
+        listener.getValue().serviceChanged(mock(ServiceEvent.class));
+
+        assertThat(transformation.transform(services, "3"), is(equalTo("replaced")));
+        verify(context, times(2)).getServiceReferences(TransformationService.class, SERVICE_FILTER);
+    }
+
+    @Test
+    public void testUnavailableServiceIsNotCached() throws InvalidSyntaxException {
+        doReturn(null).when(context).getServiceReferences(TransformationService.class, SERVICE_FILTER);
+        Transformation transformation = new Transformation("MULTIPLY(10)");
+
+        assertThat(transformation.transform(services, "3"), is(equalTo("3")));
+
+        doReturn(Arrays.asList(new Object[] { null })).when(context).getServiceReferences(TransformationService.class,
+                SERVICE_FILTER);
+        assertThat(transformation.transform(services, "3"), is(equalTo("30")));
+    }
+
+    @Test
+    public void testServiceIsResolvedAgainAfterTransformationException() throws InvalidSyntaxException {
+        TransformationService failing = (function, source) -> {
+            throw new TransformationException("failed");
+        };
+        doReturn(failing).when(context).getService(any());
+        Transformation transformation = new Transformation("MULTIPLY(10)");
+
+        assertThat(transformation.transform(services, "3"), is(equalTo("3")));
+
+        doReturn(multiply).when(context).getService(any());
+        assertThat(transformation.transform(services, "3"), is(equalTo("30")));
+        verify(context, times(2)).getServiceReferences(TransformationService.class, SERVICE_FILTER);
+    }
+
+    @Test
+    public void testDisposeRemovesListener() {
+        ArgumentCaptor<ServiceListener> listener = ArgumentCaptor.forClass(ServiceListener.class);
+        verify(context).addServiceListener(listener.capture(), anyString());
+
+        services.dispose();
+
+        verify(context).removeServiceListener(listener.getValue());
+    }
+}
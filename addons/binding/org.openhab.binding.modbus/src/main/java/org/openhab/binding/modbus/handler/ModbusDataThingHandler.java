@@ -11,12 +11,14 @@ package org.openhab.binding.modbus.handler;
 import static org.openhab.binding.modbus.ModbusBindingConstants.*;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.NotImplementedException;
@@ -49,6 +51,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.modbus.ModbusBindingConstants;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
 import org.openhab.binding.modbus.internal.Transformation;
+import org.openhab.binding.modbus.internal.TransformationServiceCache;
 import org.openhab.binding.modbus.internal.config.ModbusDataConfiguration;
 import org.openhab.io.transport.modbus.BitArray;
 import org.openhab.io.transport.modbus.ModbusBitUtilities;
@@ -129,9 +132,50 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
     private volatile boolean transformationOnlyInWrite;
     private volatile boolean childOfEndpoint;
     private volatile @Nullable ModbusPollerThingHandler pollerHandler;
+    /**
+     * Raw bits of the last value received with onRegisters or onBits, and the corresponding numeric state.
+     * Used to avoid decoding the value again in case it has not changed.
+     */
+    private volatile @Nullable PolledValue lastPolledValue;
+    /**
+     * With positive value, channels are updated only when their state changes, or when the given time has passed
+     * since the last update. Zero or negative value updates the channels on every poll.
+     */
+    private volatile long updateUnchangedValuesEveryMillis;
+    private volatile long lastValueUpdateMillis;
+    private final Map<ChannelUID, State> channelLastState = new ConcurrentHashMap<>();
+    private final Map<ChannelUID, Long> channelLastUpdated = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final TransformationServiceCache transformationServices;
+
+    /**
+     * Raw bits of polled value together with the decoded numeric state
+     */
+    private static class PolledValue {
+        private final long rawBits;
+        private final DecimalType numericState;
+
+        public PolledValue(long rawBits, DecimalType numericState) {
+            this.rawBits = rawBits;
+            this.numericState = numericState;
+        }
+    }
 
-    public ModbusDataThingHandler(Thing thing) {
+    public ModbusDataThingHandler(Thing thing, TransformationServiceCache transformationServices) {
+        this(thing, transformationServices, Clock.systemUTC());
+    }
+
+    /**
+     * For testing
+     *
+     * @param thing thing of the handler
+     * @param transformationServices transformation services used by the read and write transformations
+     * @param clock clock used to decide when unchanged values are updated again
+     */
+    public ModbusDataThingHandler(Thing thing, TransformationServiceCache transformationServices, Clock clock) {
         super(thing);
+        this.transformationServices = transformationServices;
+        this.clock = clock;
     }
 
     @Override
@@ -222,7 +266,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         if (writeTransformation == null || writeTransformation.isIdentityTransform()) {
             transformedCommand = Optional.of(command);
         } else {
-            transformOutput = writeTransformation.transform(bundleContext, command.toString());
+            transformOutput = writeTransformation.transform(transformationServices, command.toString());
             if (transformOutput.contains("[")) {
                 processJsonTransform(command, transformOutput);
                 return null;
@@ -315,6 +359,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         try {
             logger.trace("initialize() of thing {} '{}' starting", thing.getUID(), thing.getLabel());
             config = getConfigAs(ModbusDataConfiguration.class);
+            updateUnchangedValuesEveryMillis = config.getUpdateUnchangedValuesEveryMillis();
             Bridge bridge = getBridge();
             if (bridge == null) {
                 logger.debug("Thing {} '{}' has no bridge", getThing().getUID(), getThing().getLabel());
@@ -387,6 +432,11 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         transformationOnlyInWrite = false;
         childOfEndpoint = false;
         pollerHandler = null;
+        lastPolledValue = null;
+        updateUnchangedValuesEveryMillis = 0;
+        lastValueUpdateMillis = 0;
+        channelLastState.clear();
+        channelLastUpdated.clear();
     }
 
     @Override
@@ -648,7 +698,20 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             int itemsPerRegister = 16 / readValueType.getBits();
             extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
         }
-        numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType);
+        long rawBits = ModbusBitUtilities.extractRawBitsFromRegisters(registers, extractIndex, readValueType);
+        PolledValue lastPolledValue = this.lastPolledValue;
+        boolean valueChanged;
+        if (lastPolledValue != null && lastPolledValue.rawBits == rawBits) {
+            numericState = lastPolledValue.numericState;
+            valueChanged = false;
+        } else {
+            numericState = ModbusBitUtilities.rawBitsToState(rawBits, readValueType);
+            this.lastPolledValue = new PolledValue(rawBits, numericState);
+            valueChanged = true;
+        }
+        if (skipUnchangedValue(valueChanged)) {
+            return;
+        }
         boolean boolValue = !numericState.equals(DecimalType.ZERO);
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
         logger.debug(
@@ -665,7 +728,21 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             return;
         }
         boolean boolValue = bits.getBit(readIndex.get() - pollStart);
-        DecimalType numericState = boolValue ? new DecimalType(BigDecimal.ONE) : DecimalType.ZERO;
+        long rawBits = boolValue ? 1 : 0;
+        PolledValue lastPolledValue = this.lastPolledValue;
+        DecimalType numericState;
+        boolean valueChanged;
+        if (lastPolledValue != null && lastPolledValue.rawBits == rawBits) {
+            numericState = lastPolledValue.numericState;
+            valueChanged = false;
+        } else {
+            numericState = boolValue ? new DecimalType(BigDecimal.ONE) : DecimalType.ZERO;
+            this.lastPolledValue = new PolledValue(rawBits, numericState);
+            valueChanged = true;
+        }
+        if (skipUnchangedValue(valueChanged)) {
+            return;
+        }
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={} -> numeric value {} and boolValue={}. Bits {} for request {}",
@@ -755,6 +832,26 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         updateState(ModbusBindingConstants.CHANNEL_LAST_WRITE_SUCCESS, now);
     }
 
+    /**
+     * Check whether processing of polled value can be skipped altogether, that is, the value has not changed and the
+     * channels have been updated recently enough. See updateUnchangedValuesEveryMillis.
+     *
+     * @param valueChanged whether the polled value changed since the last poll
+     * @return true if the value should not be processed further
+     */
+    private boolean skipUnchangedValue(boolean valueChanged) {
+        long updateUnchangedValuesEveryMillis = this.updateUnchangedValuesEveryMillis;
+        if (valueChanged || updateUnchangedValuesEveryMillis <= 0
+                || clock.millis() - lastValueUpdateMillis >= updateUnchangedValuesEveryMillis) {
+            return false;
+        }
+        if (getThing().getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
+        logger.trace("Thing {} polled value unchanged, not updating channels", thing.getUID());
+        return true;
+    }
+
     /**
      * Update linked channels
      *
@@ -789,11 +886,12 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
                     // Numeric states always go through transformation. This allows value of 17.5 to be
                     // converted to
                     // 17.5% with percent types (instead of raising error)
-                    transformedState = readTransformation.transformState(bundleContext, acceptedDataTypes,
+                    transformedState = readTransformation.transformState(transformationServices, acceptedDataTypes,
                             numericState);
                 }
             } else {
-                transformedState = readTransformation.transformState(bundleContext, acceptedDataTypes, numericState);
+                transformedState = readTransformation.transformState(transformationServices, acceptedDataTypes,
+                        numericState);
             }
 
             if (transformedState != null) {
@@ -816,16 +914,33 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         states.put(new ChannelUID(getThing().getUID(), ModbusBindingConstants.CHANNEL_LAST_READ_SUCCESS),
                 new DateTimeType());
 
+        long now = clock.millis();
         synchronized (this) {
             updateStatus(ThingStatus.ONLINE);
             // Update channels
             states.forEach((uid, state) -> {
-                tryUpdateState(uid, state);
+                updateStateIfChangedOrExpired(now, uid, state);
             });
+            lastValueUpdateMillis = now;
         }
         return states;
     }
 
+    private void updateStateIfChangedOrExpired(long now, ChannelUID uid, State state) {
+        long updateUnchangedValuesEveryMillis = this.updateUnchangedValuesEveryMillis;
+        if (updateUnchangedValuesEveryMillis > 0) {
+            State lastState = channelLastState.get(uid);
+            Long lastUpdated = channelLastUpdated.get(uid);
+            if (state.equals(lastState) && lastUpdated != null
+                    && now - lastUpdated < updateUnchangedValuesEveryMillis) {
+                return;
+            }
+            channelLastState.put(uid, state);
+            channelLastUpdated.put(uid, now);
+        }
+        tryUpdateState(uid, state);
+    }
+
     private void tryUpdateState(@NonNull ChannelUID uid, @NonNull State state) {
         try {
             updateState(uid, state);
@@ -56,6 +56,8 @@ public class ModbusSerialThingHandler
         poolConfiguration.setConnectMaxTries(config.getConnectMaxTries());
         poolConfiguration.setConnectTimeoutMillis(config.getConnectTimeoutMillis());
         poolConfiguration.setInterTransactionDelayMillis(config.getTimeBetweenTransactionsMillis());
+        poolConfiguration.setReadCoalescingMaxGap(config.getReadCoalescingMaxGap());
+        poolConfiguration.setAdaptiveInterTransactionDelay(config.isAdaptiveTimeBetweenTransactions());
 
         // Never reconnect serial connections "automatically"
         poolConfiguration.setInterConnectDelayMillis(1000);
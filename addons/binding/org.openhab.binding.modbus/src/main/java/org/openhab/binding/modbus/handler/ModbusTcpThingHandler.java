@@ -51,6 +51,9 @@ public class ModbusTcpThingHandler
         poolConfiguration.setConnectTimeoutMillis(config.getConnectTimeoutMillis());
         poolConfiguration.setInterConnectDelayMillis(config.getTimeBetweenReconnectMillis());
         poolConfiguration.setInterTransactionDelayMillis(config.getTimeBetweenTransactionsMillis());
+        poolConfiguration.setReadCoalescingMaxGap(config.getReadCoalescingMaxGap());
+        poolConfiguration.setAdaptiveInterTransactionDelay(config.isAdaptiveTimeBetweenTransactions());
+        poolConfiguration.setMaxInFlightTransactions(config.getMaxInFlightTransactions());
         poolConfiguration.setReconnectAfterMillis(config.getReconnectAfterMillis());
     }
 
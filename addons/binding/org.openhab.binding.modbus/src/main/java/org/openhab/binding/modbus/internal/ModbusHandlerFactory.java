@@ -26,6 +26,7 @@ import org.openhab.binding.modbus.handler.ModbusPollerThingHandlerImpl;
 import org.openhab.binding.modbus.handler.ModbusSerialThingHandler;
 import org.openhab.binding.modbus.handler.ModbusTcpThingHandler;
 import org.openhab.io.transport.modbus.ModbusManager;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Reference;
@@ -47,6 +48,12 @@ public class ModbusHandlerFactory extends BaseThingHandlerFactory {
     @NonNullByDefault({})
     private ModbusManager manager;
 
+    /**
+     * Transformation services shared by the data things, disposed when this factory is deactivated
+     */
+    @Nullable
+    private TransformationServiceCache transformationServices;
+
     private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = new HashSet<>();
     static {
         SUPPORTED_THING_TYPES_UIDS.add(THING_TYPE_MODBUS_TCP);
@@ -60,6 +67,22 @@ public class ModbusHandlerFactory extends BaseThingHandlerFactory {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
     }
 
+    @Override
+    protected void activate(ComponentContext componentContext) {
+        super.activate(componentContext);
+        transformationServices = new TransformationServiceCache(componentContext.getBundleContext());
+    }
+
+    @Override
+    protected void deactivate(ComponentContext componentContext) {
+        TransformationServiceCache transformationServices = this.transformationServices;
+        if (transformationServices != null) {
+            transformationServices.dispose();
+            this.transformationServices = null;
+        }
+        super.deactivate(componentContext);
+    }
+
     @Override
     protected @Nullable ThingHandler createHandler(Thing thing) {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
@@ -74,7 +97,12 @@ public class ModbusHandlerFactory extends BaseThingHandlerFactory {
             return new ModbusPollerThingHandlerImpl((Bridge) thing, () -> manager);
         } else if (thingTypeUID.equals(THING_TYPE_MODBUS_DATA)) {
             logger.debug("createHandler data");
-            return new ModbusDataThingHandler(thing);
+            TransformationServiceCache transformationServices = this.transformationServices;
+            if (transformationServices == null) {
+                logger.warn("createHandler data called while the handler factory is not active");
+                return null;
+            }
+            return new ModbusDataThingHandler(thing, transformationServices);
         }
         logger.error("createHandler for unknown thing type uid {}. Thing label was: {}", thing.getThingTypeUID(),
                 thing.getLabel());
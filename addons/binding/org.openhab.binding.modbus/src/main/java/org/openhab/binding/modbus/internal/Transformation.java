@@ -25,12 +25,10 @@ import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.library.types.OpenClosedType;
 import org.eclipse.smarthome.core.transform.TransformationException;
-import org.eclipse.smarthome.core.transform.TransformationHelper;
 import org.eclipse.smarthome.core.transform.TransformationService;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
-import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -122,7 +120,7 @@ public class Transformation {
         this.transformationServiceParam = transformationServiceParam;
     }
 
-    public String transform(BundleContext context, String value) {
+    public String transform(TransformationServiceCache transformationServices, String value) {
         String transformedResponse;
         String transformationServiceName = this.transformationServiceName;
         String transformationServiceParam = this.transformationServiceParam;
@@ -134,8 +132,8 @@ public class Transformation {
                             "transformation service parameter is missing! Invalid transform?");
                 }
                 @Nullable
-                TransformationService transformationService = TransformationHelper.getTransformationService(context,
-                        transformationServiceName);
+                TransformationService transformationService = transformationServices
+                        .getTransformationService(transformationServiceName);
                 if (transformationService != null) {
                     transformedResponse = transformationService.transform(transformationServiceParam, value);
                 } else {
@@ -144,6 +142,8 @@ public class Transformation {
                             transformationServiceName);
                 }
             } catch (TransformationException te) {
+                // Resolve the service again next time, in case the service has been replaced
+                transformationServices.invalidate(transformationServiceName);
                 logger.error("transformation throws exception [transformation={}, response={}]", transformation, value,
                         te);
 
@@ -174,16 +174,17 @@ public class Transformation {
     /**
      * Transform state to another state using this transformation
      *
-     * @param context
+     * @param transformationServices transformation services available
      * @param types types to used to parse the transformation result
      * @param command
      * @return Transformed command, or null if no transformation was possible
      */
-    public @Nullable State transformState(BundleContext context, List<Class<? extends State>> types, State state) {
+    public @Nullable State transformState(TransformationServiceCache transformationServices,
+            List<Class<? extends State>> types, State state) {
         // Note that even identity transformations go through the State -> String -> State steps. This does add some
         // overhead but takes care of DecimalType -> PercentType conversions, for example.
         final String stateAsString = state.toString();
-        final String transformed = transform(context, stateAsString);
+        final String transformed = transform(transformationServices, stateAsString);
         return TypeParser.parseState(types, transformed);
     }
 
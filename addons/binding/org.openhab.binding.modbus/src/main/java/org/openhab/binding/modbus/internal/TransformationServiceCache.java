@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.transform.TransformationHelper;
+import org.eclipse.smarthome.core.transform.TransformationService;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the TransformationServices by name, to avoid service registry lookups with every transformation
+ *
+ * The cache is cleared whenever a TransformationService is registered, modified or unregistered. The owner of the
+ * cache must call {@link #dispose()} once the bundle context is not used anymore.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class TransformationServiceCache {
+
+    private static final String TRANSFORMATION_SERVICE_FILTER = "(" + Constants.OBJECTCLASS + "="
+            + TransformationService.class.getName() + ")";
+
+    private final Logger logger = LoggerFactory.getLogger(TransformationServiceCache.class);
+
+    private final BundleContext context;
+    private final Map<String, TransformationService> services = new ConcurrentHashMap<>();
+    private final ServiceListener serviceListener = event -> clear();
+    private volatile boolean listening;
+    /**
+     * Incremented whenever the cache is cleared, so that services resolved before are not cached anymore. Guarded by
+     * this.
+     */
+    private int generation;
+
+    public TransformationServiceCache(BundleContext context) {
+        this.context = context;
+        boolean listening;
+        try {
+            context.addServiceListener(serviceListener, TRANSFORMATION_SERVICE_FILTER);
+            listening = true;
+        } catch (InvalidSyntaxException | IllegalStateException e) {
+            logger.warn("Could not listen to transformation service changes, services are not cached: {}",
+                    e.getMessage());
+            listening = false;
+        }
+        this.listening = listening;
+    }
+
+    /**
+     * Get the transformation service with the given name
+     *
+     * @param transformationServiceName name of the service
+     * @return service, or null when not available
+     */
+    public @Nullable TransformationService getTransformationService(String transformationServiceName) {
+        TransformationService service = services.get(transformationServiceName);
+        if (service != null) {
+            return service;
+        }
+        int generation;
+        synchronized (this) {
+            generation = this.generation;
+        }
+        service = TransformationHelper.getTransformationService(context, transformationServiceName);
+        if (service != null && listening) {
+            synchronized (this) {
+                // service resolved before the latest change is not cached
+                if (generation == this.generation) {
+                    services.put(transformationServiceName, service);
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Resolve the service again on next use, for example after the service failed
+     *
+     * @param transformationServiceName name of the service
+     */
+    public synchronized void invalidate(String transformationServiceName) {
+        generation++;
+        services.remove(transformationServiceName);
+    }
+
+    private synchronized void clear() {
+        generation++;
+        services.clear();
+    }
+
+    /**
+     * Stop listening to service changes and clear the cache
+     */
+    public void dispose() {
+        if (listening) {
+            listening = false;
+            try {
+                context.removeServiceListener(serviceListener);
+            } catch (IllegalStateException e) {
+                // bundle context is not valid anymore, listener is removed with it
+            }
+        }
+        clear();
+    }
+}
@@ -39,6 +39,8 @@ public class ModbusSerialConfiguration {
     private int timeBetweenTransactionsMillis;
     private int connectMaxTries;
     private int connectTimeoutMillis;
+    private int readCoalescingMaxGap = -1;
+    private boolean adaptiveTimeBetweenTransactions;
 
     public @Nullable String getPort() {
         return port;
@@ -152,4 +154,20 @@ public class ModbusSerialConfiguration {
         this.connectTimeoutMillis = connectTimeoutMillis;
     }
 
+    public int getReadCoalescingMaxGap() {
+        return readCoalescingMaxGap;
+    }
+
+    public void setReadCoalescingMaxGap(int readCoalescingMaxGap) {
+        this.readCoalescingMaxGap = readCoalescingMaxGap;
+    }
+
+    public boolean isAdaptiveTimeBetweenTransactions() {
+        return adaptiveTimeBetweenTransactions;
+    }
+
+    public void setAdaptiveTimeBetweenTransactions(boolean adaptiveTimeBetweenTransactions) {
+        this.adaptiveTimeBetweenTransactions = adaptiveTimeBetweenTransactions;
+    }
+
 }
@@ -28,6 +28,9 @@ public class ModbusTcpConfiguration {
     private int connectMaxTries;
     private int reconnectAfterMillis;
     private int connectTimeoutMillis;
+    private int readCoalescingMaxGap = -1;
+    private int maxInFlightTransactions = 1;
+    private boolean adaptiveTimeBetweenTransactions;
 
     public @Nullable String getHost() {
         return host;
@@ -93,4 +96,28 @@ public class ModbusTcpConfiguration {
         this.connectTimeoutMillis = connectTimeoutMillis;
     }
 
+    public int getReadCoalescingMaxGap() {
+        return readCoalescingMaxGap;
+    }
+
+    public void setReadCoalescingMaxGap(int readCoalescingMaxGap) {
+        this.readCoalescingMaxGap = readCoalescingMaxGap;
+    }
+
+    public int getMaxInFlightTransactions() {
+        return maxInFlightTransactions;
+    }
+
+    public void setMaxInFlightTransactions(int maxInFlightTransactions) {
+        this.maxInFlightTransactions = maxInFlightTransactions;
+    }
+
+    public boolean isAdaptiveTimeBetweenTransactions() {
+        return adaptiveTimeBetweenTransactions;
+    }
+
+    public void setAdaptiveTimeBetweenTransactions(boolean adaptiveTimeBetweenTransactions) {
+        this.adaptiveTimeBetweenTransactions = adaptiveTimeBetweenTransactions;
+    }
+
 }
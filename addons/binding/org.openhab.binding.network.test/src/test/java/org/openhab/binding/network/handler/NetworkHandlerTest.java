@@ -32,7 +32,9 @@ import org.mockito.Mock;
 import org.openhab.binding.network.NetworkBindingConstants;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.PresenceDetectionRegistry;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
 
 /**
  * Tests cases for {@link NetworkHandler}.
@@ -47,6 +49,12 @@ public class NetworkHandlerTest {
     @Mock
     private Thing thing;
 
+    @Mock
+    private PresenceProbeEngine probeEngine;
+
+    @Mock
+    private PresenceDetectionRegistry presenceDetectionRegistry;
+
     @Before
     public void setUp() {
         initMocks(this);
@@ -56,7 +64,7 @@ public class NetworkHandlerTest {
     @Test
     public void checkAllConfigurations() {
         NetworkBindingConfiguration config = new NetworkBindingConfiguration();
-        NetworkHandler handler = spy(new NetworkHandler(thing, true, config));
+        NetworkHandler handler = spy(new NetworkHandler(thing, true, config, probeEngine, presenceDetectionRegistry));
         handler.setCallback(callback);
         // Provide all possible configuration
         when(thing.getConfiguration()).thenAnswer(a -> {
@@ -68,7 +76,7 @@ public class NetworkHandlerTest {
             conf.put(NetworkBindingConstants.PARAMETER_TIMEOUT, 1234);
             return conf;
         });
-        PresenceDetection presenceDetection = spy(new PresenceDetection(handler, 2000));
+        PresenceDetection presenceDetection = spy(new PresenceDetection(handler, 2000, probeEngine));
         // Mock start/stop automatic refresh
         doNothing().when(presenceDetection).startAutomaticRefresh(anyObject());
         doNothing().when(presenceDetection).stopAutomaticRefresh();
@@ -79,12 +87,16 @@ public class NetworkHandlerTest {
         assertThat(presenceDetection.getServicePorts().iterator().next(), is(8080));
         assertThat(presenceDetection.getRefreshInterval(), is(101010L));
         assertThat(presenceDetection.getTimeout(), is(1234));
+        verify(presenceDetectionRegistry).register(presenceDetection);
+
+        handler.dispose();
+        verify(presenceDetectionRegistry).unregister(presenceDetection);
     }
 
     @Test
     public void tcpDeviceInitTests() {
         NetworkBindingConfiguration config = new NetworkBindingConfiguration();
-        NetworkHandler handler = spy(new NetworkHandler(thing, true, config));
+        NetworkHandler handler = spy(new NetworkHandler(thing, true, config, probeEngine, presenceDetectionRegistry));
         Assert.assertThat(handler.isTCPServiceDevice(), is(true));
         handler.setCallback(callback);
         // Port is missing, should make the device OFFLINE
@@ -93,7 +105,7 @@ public class NetworkHandlerTest {
             conf.put(NetworkBindingConstants.PARAMETER_HOSTNAME, "127.0.0.1");
             return conf;
         });
-        handler.initialize(new PresenceDetection(handler, 2000));
+        handler.initialize(new PresenceDetection(handler, 2000, probeEngine));
         // Check that we are offline
         ArgumentCaptor<ThingStatusInfo> statusInfoCaptor = ArgumentCaptor.forClass(ThingStatusInfo.class);
         verify(callback).statusUpdated(eq(thing), statusInfoCaptor.capture());
@@ -105,7 +117,7 @@ public class NetworkHandlerTest {
     @Test
     public void pingDeviceInitTests() {
         NetworkBindingConfiguration config = new NetworkBindingConfiguration();
-        NetworkHandler handler = spy(new NetworkHandler(thing, false, config));
+        NetworkHandler handler = spy(new NetworkHandler(thing, false, config, probeEngine, presenceDetectionRegistry));
         handler.setCallback(callback);
         // Provide minimal configuration
         when(thing.getConfiguration()).thenAnswer(a -> {
@@ -113,7 +125,7 @@ public class NetworkHandlerTest {
             conf.put(NetworkBindingConstants.PARAMETER_HOSTNAME, "127.0.0.1");
             return conf;
         });
-        PresenceDetection presenceDetection = spy(new PresenceDetection(handler, 2000));
+        PresenceDetection presenceDetection = spy(new PresenceDetection(handler, 2000, probeEngine));
         // Mock start/stop automatic refresh
         doNothing().when(presenceDetection).startAutomaticRefresh(anyObject());
         doNothing().when(presenceDetection).stopAutomaticRefresh();
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link PresenceDetectionRegistry}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class PresenceDetectionRegistryTest {
+    private final PresenceDetectionRegistry registry = new PresenceDetectionRegistry();
+
+    private PresenceDetection detection(String hostAddress, boolean reachable) {
+        PresenceDetection presenceDetection = mock(PresenceDetection.class);
+        when(presenceDetection.getHostAddress()).thenReturn(hostAddress);
+        when(presenceDetection.isLastValueReachable()).thenReturn(reachable);
+        return presenceDetection;
+    }
+
+    @Test
+    public void onlyReachableHostsAreKnown() {
+        registry.register(detection("192.168.0.1", true));
+        registry.register(detection("192.168.0.2", false));
+
+        assertTrue(registry.isKnownHost("192.168.0.1"));
+        assertFalse(registry.isKnownHost("192.168.0.2"));
+        assertFalse(registry.isKnownHost("192.168.0.3"));
+    }
+
+    @Test
+    public void hostIsKnownUntilAllDetectionsAreUnregistered() {
+        PresenceDetection first = detection("192.168.0.1", true);
+        PresenceDetection second = detection("192.168.0.1", true);
+        registry.register(first);
+        registry.register(second);
+
+        registry.unregister(first);
+        assertTrue(registry.isKnownHost("192.168.0.1"));
+
+        registry.unregister(second);
+        assertFalse(registry.isKnownHost("192.168.0.1"));
+    }
+
+    @Test
+    public void detectionWithoutHostAddressIsIgnored() {
+        PresenceDetection presenceDetection = detection(null, true);
+        registry.register(presenceDetection);
+        registry.unregister(presenceDetection);
+    }
+}
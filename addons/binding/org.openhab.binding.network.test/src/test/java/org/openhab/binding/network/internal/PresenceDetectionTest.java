@@ -16,7 +16,6 @@ import static org.mockito.Mockito.*;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -31,6 +30,8 @@ import org.openhab.binding.network.internal.toberemoved.cache.ExpiringCacheHelpe
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.openhab.binding.network.internal.utils.NetworkUtils.ArpPingUtilEnum;
 import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine.ProbeCallback;
 
 /**
  * Tests cases for {@see PresenceDetectionValue}
@@ -46,7 +47,7 @@ public class PresenceDetectionTest {
     PresenceDetectionListener listener;
 
     @Mock
-    ExecutorService executorService;
+    PresenceProbeEngine probeEngine;
 
     @Mock
     Consumer<PresenceDetectionValue> callback;
@@ -62,7 +63,7 @@ public class PresenceDetectionTest {
         doReturn(ArpPingUtilEnum.IPUTILS_ARPING).when(networkUtils).determineNativeARPpingMethod(anyString());
         doReturn(IpPingMethodEnum.WINDOWS_PING).when(networkUtils).determinePingMethod();
 
-        subject = spy(new PresenceDetection(listener, (int) CACHETIME));
+        subject = spy(new PresenceDetection(listener, (int) CACHETIME, probeEngine));
         subject.networkUtils = networkUtils;
         subject.cache = spy(new ExpiringCacheAsync<PresenceDetectionValue>(CACHETIME, () -> {
             subject.performPresenceDetection(false);
@@ -82,29 +83,55 @@ public class PresenceDetectionTest {
 
     @After
     public void shutDown() {
-        subject.waitForPresenceDetection();
+        // Abandon a detection whose probes have not been performed by the mocked engine
+        subject.stopAutomaticRefresh();
     }
 
-    // Depending on the amount of test methods an according amount of threads is spawned.
-    // We will check if they spawn and return in time.
-    @Test
-    public void threadCountTest() {
-        assertNull(subject.executorService);
+    /**
+     * Let the mocked probe engine perform all probes immediately. TCP connection attempts succeed.
+     */
+    private void performProbesImmediately() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            ((Runnable) invocation.getArgument(2)).run();
+            return null;
+        }).when(probeEngine).execute(any(), anyInt(), any());
+        doAnswer(invocation -> {
+            ((ProbeCallback) invocation.getArgument(3)).probeFinished(true, 1);
+            return null;
+        }).when(probeEngine).connect(any(), anyInt(), anyInt(), any());
+    }
 
-        doNothing().when(subject).performARPping(anyObject());
-        doNothing().when(subject).performJavaPing();
-        doNothing().when(subject).performSystemPing();
-        doNothing().when(subject).performServicePing(anyInt());
+    // Depending on the amount of test methods an according amount of probes is submitted to the engine.
+    // We will check if they are counted and the detection finishes after the last one.
+    @Test
+    public void probeCountTest() {
+        assertNull(subject.ongoingDetection);
 
         subject.performPresenceDetection(false);
 
-        // Thread count: ARP + ICMP + 1*TCP
+        // Probe count: ARP + ICMP + 1*TCP
         assertThat(subject.detectionChecks, is(3));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.ongoingDetection);
+
+        ArgumentCaptor<Runnable> finished = ArgumentCaptor.forClass(Runnable.class);
+        verify(probeEngine, times(2)).execute(any(), anyInt(), finished.capture());
+        ArgumentCaptor<ProbeCallback> tcpCallback = ArgumentCaptor.forClass(ProbeCallback.class);
+        verify(probeEngine).connect(any(), eq(1010), anyInt(), tcpCallback.capture());
+
+        // Finish all probes without a response
+        for (Runnable r : finished.getAllValues()) {
+            r.run();
+        }
+        assertNotNull(subject.ongoingDetection);
+        tcpCallback.getValue().probeFinished(false, 0);
 
-        subject.waitForPresenceDetection();
         assertThat(subject.detectionChecks, is(0));
-        assertNull(subject.executorService);
+        assertNull(subject.ongoingDetection);
+        verify(listener, times(0)).partialDetectionResult(anyObject());
+        ArgumentCaptor<PresenceDetectionValue> capture = ArgumentCaptor.forClass(PresenceDetectionValue.class);
+        verify(listener).finalDetectionResult(capture.capture());
+        assertFalse(capture.getValue().isReachable());
     }
 
     @Test
@@ -112,7 +139,7 @@ public class PresenceDetectionTest {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 anyObject(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
+        performProbesImmediately();
 
         assertTrue(subject.performPresenceDetection(false));
         subject.waitForPresenceDetection();
@@ -120,7 +147,7 @@ public class PresenceDetectionTest {
         verify(subject, times(0)).performJavaPing();
         verify(subject).performSystemPing();
         verify(subject).performARPping(anyObject());
-        verify(subject).performServicePing(anyInt());
+        verify(subject).performServicePing(eq(1010), any());
 
         verify(listener, times(3)).partialDetectionResult(anyObject());
         ArgumentCaptor<PresenceDetectionValue> capture = ArgumentCaptor.forClass(PresenceDetectionValue.class);
@@ -129,30 +156,53 @@ public class PresenceDetectionTest {
         assertThat(capture.getValue().getSuccessfulDetectionTypes(), is("ARP_PING, ICMP_PING, TCP_CONNECTION"));
     }
 
+    @Test
+    public void abandonedDetectionTest() {
+        subject.performPresenceDetection(false);
+        assertNotNull(subject.ongoingDetection);
+
+        ArgumentCaptor<Runnable> finished = ArgumentCaptor.forClass(Runnable.class);
+        verify(probeEngine, times(2)).execute(any(), anyInt(), finished.capture());
+        ArgumentCaptor<ProbeCallback> tcpCallback = ArgumentCaptor.forClass(ProbeCallback.class);
+        verify(probeEngine).connect(any(), anyInt(), anyInt(), tcpCallback.capture());
+
+        // Stopping abandons the detection, late probe results must not produce a final result
+        subject.stopAutomaticRefresh();
+        assertNull(subject.ongoingDetection);
+        for (Runnable r : finished.getAllValues()) {
+            r.run();
+        }
+        tcpCallback.getValue().probeFinished(false, 0);
+        verify(listener, times(0)).finalDetectionResult(anyObject());
+    }
+
     @Test
     public void cacheTest() throws InterruptedException, IOException {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 anyObject(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
-
-        doReturn(executorService).when(subject).getThreadsFor(anyInt());
 
         // We expect no valid value
         assertTrue(subject.cache.isExpired());
         // Get value will issue a PresenceDetection internally.
         subject.getValue(callback);
         verify(subject).performPresenceDetection(eq(false));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.ongoingDetection);
         // There should be no straight callback yet
         verify(callback, times(0)).accept(anyObject());
 
-        // Perform the different presence detection threads now
-        ArgumentCaptor<Runnable> capture = ArgumentCaptor.forClass(Runnable.class);
-        verify(executorService, times(3)).execute(capture.capture());
-        for (Runnable r : capture.getAllValues()) {
-            r.run();
+        // Perform the different presence detection probes now
+        ArgumentCaptor<Runnable> probes = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Runnable> finished = ArgumentCaptor.forClass(Runnable.class);
+        verify(probeEngine, times(2)).execute(probes.capture(), anyInt(), finished.capture());
+        for (int i = 0; i < probes.getAllValues().size(); ++i) {
+            probes.getAllValues().get(i).run();
+            finished.getAllValues().get(i).run();
         }
+        ArgumentCaptor<ProbeCallback> tcpCallback = ArgumentCaptor.forClass(ProbeCallback.class);
+        verify(probeEngine).connect(any(), anyInt(), anyInt(), tcpCallback.capture());
+        tcpCallback.getValue().probeFinished(true, 1);
+
         // "Wait" for the presence detection to finish
         subject.waitForPresenceDetection();
 
@@ -13,7 +13,11 @@ import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.net.InetAddress;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 
 import org.eclipse.smarthome.config.discovery.DiscoveryListener;
 import org.eclipse.smarthome.config.discovery.DiscoveryResult;
@@ -23,7 +27,11 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.openhab.binding.network.NetworkBindingConstants;
+import org.openhab.binding.network.internal.PresenceDetectionRegistry;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine.ProbeCallback;
 
 /**
  * Tests cases for {@see PresenceDetectionValue}
@@ -83,4 +91,46 @@ public class DiscoveryTest {
         Assert.assertThat(dresult.getProperties().get(NetworkBindingConstants.PARAMETER_HOSTNAME), is(ip));
         Assert.assertThat(dresult.getProperties().get(NetworkBindingConstants.PARAMETER_PORT), is(1010));
     }
+
+    @Test
+    public void silentIPsCheckedWhenLastKnockAnswers() throws Exception {
+        NetworkDiscoveryService d = new NetworkDiscoveryService();
+        PresenceProbeEngine probeEngine = mock(PresenceProbeEngine.class);
+        PresenceDetectionRegistry registry = mock(PresenceDetectionRegistry.class);
+        d.setPresenceProbeEngine(probeEngine);
+        d.setPresenceDetectionRegistry(registry);
+        d.networkUtils = mock(NetworkUtils.class);
+        InetAddress silent = InetAddress.getByName("192.168.0.2");
+        InetAddress answering = InetAddress.getByName("192.168.0.3");
+        when(d.networkUtils.getNetworkIPs(anyInt()))
+                .thenReturn(new HashSet<>(Arrays.asList("192.168.0.2", "192.168.0.3")));
+        // The silent host appears in the ARP table after the knocks
+        when(d.networkUtils.getArpTableIPs()).thenReturn(Collections.emptySet(),
+                Collections.singleton("192.168.0.2"));
+
+        d.startScan();
+        ArgumentCaptor<ProbeCallback> silentKnocks = ArgumentCaptor.forClass(ProbeCallback.class);
+        verify(probeEngine, timeout(5000).times(4)).knock(eq(silent), anyInt(), anyInt(), silentKnocks.capture());
+        ArgumentCaptor<ProbeCallback> answeringKnocks = ArgumentCaptor.forClass(ProbeCallback.class);
+        verify(probeEngine, timeout(5000).times(4)).knock(eq(answering), anyInt(), anyInt(),
+                answeringKnocks.capture());
+
+        for (ProbeCallback knock : silentKnocks.getAllValues()) {
+            knock.probeFinished(false, 0);
+        }
+        // The final knock of the first phase is an answer
+        List<ProbeCallback> knocks = answeringKnocks.getAllValues();
+        for (int i = 0; i < knocks.size() - 1; i++) {
+            knocks.get(i).probeFinished(false, 0);
+        }
+        knocks.get(knocks.size() - 1).probeFinished(true, 1);
+
+        // Both hosts are probed in the second phase, by the scheduler and not by the thread of the callback
+        verify(probeEngine, timeout(5000).times(4)).connect(eq(answering), anyInt(), anyInt(), any());
+        verify(probeEngine, timeout(5000).times(4)).connect(eq(silent), anyInt(), anyInt(), any());
+        // The ping methods are determined once per scan and not for every host
+        verify(d.networkUtils, times(1)).determinePingMethod();
+        verify(d.networkUtils, times(1)).determineNativeARPpingMethod(any());
+        d.stopScan();
+    }
 }
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link NetworkUtils}.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class NetworkUtilsTest {
+    @Test
+    public void parseArpTable() throws IOException {
+        String table = "IP address       HW type     Flags       HW address            Mask     Device\n"
+                + "192.168.1.1      0x1         0x2         00:11:22:33:44:55     *        eth0\n"
+                + "192.168.1.20     0x1         0x0         00:00:00:00:00:00     *        eth0\n"
+                + "192.168.1.21     0x1         0x6         00:11:22:33:44:66     *        eth0\n"
+                + "192.168.1.22     0x1         0x2         00:00:00:00:00:00     *        eth0\n"
+                + "malformed line\n";
+
+        NetworkUtils networkUtils = new NetworkUtils();
+        assertThat(networkUtils.parseArpTable(new BufferedReader(new StringReader(table))),
+                is(new LinkedHashSet<>(Arrays.asList("192.168.1.1", "192.168.1.21"))));
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link PresenceProbeEngine}.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class PresenceProbeEngineTest {
+    PresenceProbeEngine subject;
+
+    @Before
+    public void setUp() throws IOException {
+        subject = new PresenceProbeEngine(1, 1);
+        subject.start();
+    }
+
+    @After
+    public void shutDown() {
+        subject.stop();
+    }
+
+    private boolean connect(int port, int timeoutInMS) throws Exception {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        subject.connect(InetAddress.getLoopbackAddress(), port, timeoutInMS,
+                (reachable, latency) -> result.complete(reachable));
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void tcpServiceReachable() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            assertTrue(connect(serverSocket.getLocalPort(), 1000));
+        }
+    }
+
+    @Test
+    public void tcpServiceRefused() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = serverSocket.getLocalPort();
+        }
+        assertFalse(connect(port, 1000));
+    }
+
+    @Test
+    public void tcpKnockRefused() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = serverSocket.getLocalPort();
+        }
+        // A refused connection is an answer of the host
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        subject.knock(InetAddress.getLoopbackAddress(), port, 1000,
+                (reachable, latency) -> result.complete(reachable));
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void blockingProbeAbortedAtDeadline() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+        subject.execute(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        }, 100, finished::countDown);
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        // The deadline frees the slot for the next probe
+        CountDownLatch next = new CountDownLatch(1);
+        subject.execute(() -> {
+        }, 100, next::countDown);
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    public void concurrentProbesLimited() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        subject.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, 5000, finished::countDown);
+        subject.execute(() -> {
+        }, 5000, finished::countDown);
+
+        assertThat(subject.getRunningProbes(), is(1));
+        assertThat(subject.getQueuedProbes(), is(1));
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertThat(subject.getQueuedProbes(), is(0));
+    }
+
+    @Test
+    public void stopReportsQueuedProbes() throws Exception {
+        CountDownLatch finished = new CountDownLatch(2);
+        subject.execute(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ignored) {
+            }
+        }, 5000, finished::countDown);
+        subject.connect(InetAddress.getLoopbackAddress(), 1, 5000, (reachable, latency) -> {
+            assertFalse(reachable);
+            finished.countDown();
+        });
+
+        subject.stop();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stopReportsBlockingProbesNotStartedByWorker() throws Exception {
+        // Two slots but only one worker, so the second probe waits in the queue of the workers
+        PresenceProbeEngine engine = new PresenceProbeEngine(2, 1);
+        engine.start();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        AtomicBoolean secondProbeRun = new AtomicBoolean();
+        engine.execute(() -> {
+            running.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ignored) {
+            }
+        }, 5000, finished::countDown);
+        engine.execute(() -> secondProbeRun.set(true), 5000, finished::countDown);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertThat(engine.getRunningProbes(), is(2));
+
+        engine.stop();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(secondProbeRun.get());
+    }
+}
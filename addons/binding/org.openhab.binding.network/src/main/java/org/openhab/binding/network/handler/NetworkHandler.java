@@ -30,9 +30,11 @@ import org.openhab.binding.network.NetworkBindingConstants;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.NetworkHandlerConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.PresenceDetectionRegistry;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +52,8 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
 
     private boolean isTCPServiceDevice;
     private NetworkBindingConfiguration configuration;
+    private PresenceProbeEngine probeEngine;
+    private PresenceDetectionRegistry presenceDetectionRegistry;
 
     // How many retries before a device is deemed offline
     int retries;
@@ -61,10 +65,13 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
      * Do not call this directly, but use the {@see NetworkHandlerBuilder} instead.
      */
     public NetworkHandler(@NonNull Thing thing, boolean isTCPServiceDevice,
-            @NonNull NetworkBindingConfiguration configuration) {
+            @NonNull NetworkBindingConfiguration configuration, @NonNull PresenceProbeEngine probeEngine,
+            @NonNull PresenceDetectionRegistry presenceDetectionRegistry) {
         super(thing);
         this.isTCPServiceDevice = isTCPServiceDevice;
         this.configuration = configuration;
+        this.probeEngine = probeEngine;
+        this.presenceDetectionRegistry = presenceDetectionRegistry;
     }
 
     private void refreshValue(ChannelUID channelUID) {
@@ -140,6 +147,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
 
     @Override
     public void dispose() {
+        presenceDetectionRegistry.unregister(presenceDetection);
         presenceDetection.stopAutomaticRefresh();
         presenceDetection = null;
     }
@@ -185,6 +193,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
 
         updateStatus(ThingStatus.ONLINE);
         presenceDetection.startAutomaticRefresh(scheduler);
+        presenceDetectionRegistry.register(presenceDetection);
 
         // Update properties (after startAutomaticRefresh, to get the correct dhcp state)
         updateProperty(NetworkBindingConstants.PROPERTY_ARP_STATE,
@@ -199,7 +208,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
     // Create a new network service and apply all configurations.
     @Override
     public void initialize() {
-        initialize(new PresenceDetection(this, configuration.cacheDeviceStateTimeInMS.intValue()));
+        initialize(new PresenceDetection(this, configuration.cacheDeviceStateTimeInMS.intValue(), probeEngine));
     }
 
     /**
@@ -20,11 +20,13 @@ import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerFactory;
 import org.openhab.binding.network.handler.NetworkHandler;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
 
 /**
  * The handler factory retrieves the binding configuration and is responsible for creating
@@ -36,6 +38,10 @@ import org.osgi.service.component.annotations.Modified;
 public class NetworkHandlerFactory extends BaseThingHandlerFactory {
     @NonNull
     final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
+    // Shared by all handlers, to limit the amount of probes on the network
+    private PresenceProbeEngine probeEngine;
+    // Shared with the discovery, to skip hosts of existing things
+    private PresenceDetectionRegistry presenceDetectionRegistry;
 
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
@@ -63,14 +69,32 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
         configuration.update(new Configuration(config).as(NetworkBindingConfiguration.class));
     }
 
+    @Reference
+    protected void setPresenceProbeEngine(PresenceProbeEngine probeEngine) {
+        this.probeEngine = probeEngine;
+    }
+
+    protected void unsetPresenceProbeEngine(PresenceProbeEngine probeEngine) {
+        this.probeEngine = null;
+    }
+
+    @Reference
+    protected void setPresenceDetectionRegistry(PresenceDetectionRegistry presenceDetectionRegistry) {
+        this.presenceDetectionRegistry = presenceDetectionRegistry;
+    }
+
+    protected void unsetPresenceDetectionRegistry(PresenceDetectionRegistry presenceDetectionRegistry) {
+        this.presenceDetectionRegistry = null;
+    }
+
     @Override
     protected ThingHandler createHandler(Thing thing) {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (thingTypeUID.equals(PING_DEVICE) || thingTypeUID.equals(BACKWARDS_COMPATIBLE_DEVICE)) {
-            return new NetworkHandler(thing, false, configuration);
+            return new NetworkHandler(thing, false, configuration, probeEngine, presenceDetectionRegistry);
         } else if (thingTypeUID.equals(SERVICE_DEVICE)) {
-            return new NetworkHandler(thing, true, configuration);
+            return new NetworkHandler(thing, true, configuration, probeEngine, presenceDetectionRegistry);
         }
         return null;
     }
@@ -15,11 +15,13 @@ import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 import org.apache.commons.lang.StringUtils;
@@ -29,6 +31,7 @@ import org.openhab.binding.network.internal.toberemoved.cache.ExpiringCacheAsync
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.openhab.binding.network.internal.utils.NetworkUtils.ArpPingUtilEnum;
 import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +43,8 @@ import org.slf4j.LoggerFactory;
  */
 public class PresenceDetection implements IPRequestReceivedCallback {
     public static final double NOT_REACHABLE = -1;
+    // Checks may wait for a free slot of the probe engine before their deadline starts
+    private static final int QUEUED_CHECKS_GRACE_IN_MS = 5000;
     NetworkUtils networkUtils = new NetworkUtils();
     private Logger logger = LoggerFactory.getLogger(PresenceDetection.class);
 
@@ -60,16 +65,26 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /// State variables (cannot be final because of test dependency injections)
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
+    private final PresenceProbeEngine probeEngine;
     private ScheduledFuture<?> refreshJob;
     private InetAddress destination;
-    ExecutorService executorService;
+    // Completed when the ongoing presence detection is finished, null if there is none
+    CompletableFuture<PresenceDetectionValue> ongoingDetection;
     private String dhcpState = "off";
     Integer currentCheck = 0;
     int detectionChecks;
 
-    public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS)
-            throws IllegalArgumentException {
+    /**
+     * Create a new presence detection.
+     *
+     * @param updateListener Receives the partial and final detection results
+     * @param cacheDeviceStateTimeInMS The time a detection result is reused
+     * @param probeEngine The probe engine, shared by all presence detections, to perform the checks with
+     */
+    public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS,
+            PresenceProbeEngine probeEngine) throws IllegalArgumentException {
         this.updateListener = updateListener;
+        this.probeEngine = probeEngine;
         cache = new ExpiringCacheAsync<PresenceDetectionValue>(cacheDeviceStateTimeInMS, () -> {
             performPresenceDetection(false);
         });
@@ -91,6 +106,13 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return timeoutInMS;
     }
 
+    /**
+     * Return the IP address of the destination, or null if no hostname has been set.
+     */
+    public String getHostAddress() {
+        return destination != null ? destination.getHostAddress() : null;
+    }
+
     public void setHostname(String hostname) throws UnknownHostException {
         this.hostname = hostname;
         this.destination = InetAddress.getByName(hostname);
@@ -156,6 +178,33 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         arpPingMethod = networkUtils.determineNativeARPpingMethod(arpPingUtilPath);
     }
 
+    /**
+     * Sets a ping method, which was determined before by {@link NetworkUtils#determinePingMethod()}. No feature test
+     * is performed.
+     *
+     * @param pingMethod The ping method or null to disable ICMP pings
+     */
+    public void setPingMethod(IpPingMethodEnum pingMethod) {
+        this.pingMethod = pingMethod;
+    }
+
+    /**
+     * Sets an arping method, which was determined before by
+     * {@link NetworkUtils#determineNativeARPpingMethod(String)}. No feature test is performed. Will be disabled if
+     * the destination is not an IPv4 address.
+     *
+     * @param arpPingMethod The arping method or null to disable ARP pings
+     * @param arpPingUtilPath The file path to the utility
+     */
+    public void setArpPingMethod(ArpPingUtilEnum arpPingMethod, String arpPingUtilPath) {
+        this.arpPingUtilPath = arpPingUtilPath;
+        if (destination == null || !(destination instanceof Inet4Address)) {
+            this.arpPingMethod = null;
+            return;
+        }
+        this.arpPingMethod = arpPingMethod;
+    }
+
     public ArpPingUtilEnum arpPingMethod() {
         return arpPingMethod;
     }
@@ -202,14 +251,20 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
+    /**
+     * Return true if the device was reachable in the last presence detection, no matter
+     * if the cached value is already expired.
+     */
+    public boolean isLastValueReachable() {
+        PresenceDetectionValue value = cache.getExpiredValue();
+        return value != null && value.isReachable();
     }
 
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. The checks are submitted to the shared {@link PresenceProbeEngine},
+     * which performs TCP connection attempts without blocking and all other checks on a bounded set of worker
+     * threads. Each check is aborted by the engine after "timeoutInMS".
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -223,65 +278,61 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
-            logger.debug(
-                    "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
-                    hostname, tcpPorts);
-            return false;
-        }
+        final CompletableFuture<PresenceDetectionValue> detection;
+        Set<String> interfaceNames = null;
 
-        if (!cache.isExpired()) {
-            return false;
-        }
+        synchronized (this) {
+            if (ongoingDetection != null) {
+                logger.debug(
+                        "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
+                        hostname, tcpPorts);
+                return false;
+            }
 
-        Set<String> interfaceNames = null;
+            if (!cache.isExpired()) {
+                return false;
+            }
 
-        currentCheck = 0;
-        detectionChecks = tcpPorts.size();
-        if (pingMethod != null) {
-            detectionChecks += 1;
-        }
-        if (arpPingMethod != null) {
-            interfaceNames = networkUtils.getInterfaceNames();
-            detectionChecks += interfaceNames.size();
-        }
+            currentCheck = 0;
+            detectionChecks = tcpPorts.size();
+            if (pingMethod != null) {
+                detectionChecks += 1;
+            }
+            if (arpPingMethod != null) {
+                interfaceNames = networkUtils.getInterfaceNames();
+                detectionChecks += interfaceNames.size();
+            }
+
+            if (detectionChecks == 0) {
+                return false;
+            }
 
-        if (detectionChecks == 0) {
-            return false;
+            detection = new CompletableFuture<>();
+            ongoingDetection = detection;
         }
 
-        executorService = getThreadsFor(detectionChecks);
+        final Runnable checkFinished = () -> checkIfFinished(detection);
 
         for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
+            performServicePing(tcpPort, checkFinished);
         }
 
-        // ARP ping for IPv4 addresses. Use an own executor for each network interface
+        // ARP ping for IPv4 addresses. One check for each network interface
         if (interfaceNames != null) {
             for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                    performARPping(interfaceName);
-                    checkIfFinished();
-                });
+                probeEngine.execute(() -> performARPping(interfaceName), timeoutInMS + 100, checkFinished);
             }
         }
 
         // ICMP ping
         if (pingMethod != null) {
-            executorService.execute(() -> {
+            probeEngine.execute(() -> {
                 if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
                     performSystemPing();
                 } else {
                     performJavaPing();
                 }
-                checkIfFinished();
-            });
+            }, timeoutInMS + 100, checkFinished);
         }
 
         if (waitForDetectionToFinish) {
@@ -294,17 +345,16 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished.
      */
     private synchronized void submitFinalResult() {
         // Do nothing if we are not in a detection process
-        if (executorService == null) {
+        if (ongoingDetection == null) {
             return;
         }
         // Finish the detection process
-        executorService.shutdownNow();
-        executorService = null;
+        CompletableFuture<PresenceDetectionValue> detection = ongoingDetection;
+        ongoingDetection = null;
         detectionChecks = 0;
 
         PresenceDetectionValue v;
@@ -320,15 +370,22 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
         cache.setValue(v);
         updateListener.finalDetectionResult(v);
+        detection.complete(v);
     }
 
     /**
      * This method is called after each individual check and increases a check counter.
      * If the counter equals the total checks,the final result is submitted. This will
      * happen way before the "timeoutInMS", if all checks were successful.
+     * Results of an abandoned detection are ignored.
      * Thread safe.
+     *
+     * @param detection The detection the check belongs to
      */
-    private synchronized void checkIfFinished() {
+    private synchronized void checkIfFinished(CompletableFuture<PresenceDetectionValue> detection) {
+        if (detection != ongoingDetection) {
+            return;
+        }
         currentCheck += 1;
         if (currentCheck < detectionChecks) {
             return;
@@ -337,21 +394,50 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
-     * if no presence detection is performed right now.
+     * Abandons the ongoing presence detection without a final result.
+     * The checks which are still performed by the probe engine will be ignored.
+     */
+    private synchronized void abandonPresenceDetection() {
+        if (ongoingDetection != null) {
+            ongoingDetection.cancel(false);
+            ongoingDetection = null;
+            detectionChecks = 0;
+        }
+    }
+
+    /**
+     * Abandons the given presence detection, if it is still the ongoing one.
+     */
+    private synchronized void abandonPresenceDetection(CompletableFuture<PresenceDetectionValue> detection) {
+        if (detection == ongoingDetection) {
+            abandonPresenceDetection();
+        }
+    }
+
+    /**
+     * Waits for the presence detection to finish. Returns immediately
+     * if no presence detection is performed right now. The probe engine finishes
+     * every check within its deadline. If the checks waited too long for the engine
+     * nevertheless, the detection is abandoned without a final result.
      */
     public void waitForPresenceDetection() {
-        if (executorService == null) {
+        CompletableFuture<PresenceDetectionValue> detection = ongoingDetection;
+        if (detection == null) {
             return;
         }
+        int waitTimeoutInMS = timeoutInMS + 100 + QUEUED_CHECKS_GRACE_IN_MS;
         try {
             // We may get interrupted here by cancelRefreshJob().
-            executorService.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
-            submitFinalResult();
+            detection.get(waitTimeoutInMS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            executorService.shutdownNow();
-            executorService = null;
+            abandonPresenceDetection();
+        } catch (TimeoutException e) {
+            logger.debug("Presence detection for {} did not finish within {} ms and is abandoned", hostname,
+                    waitTimeoutInMS);
+            abandonPresenceDetection(detection);
+        } catch (ExecutionException | CancellationException ignored) {
+            // The detection has been abandoned
         }
     }
 
@@ -380,20 +466,23 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return v;
     }
 
-    protected void performServicePing(int tcpPort) {
+    /**
+     * Starts a TCP connection attempt to the given port with the probe engine.
+     * The result is reported asynchronously.
+     *
+     * @param tcpPort The TCP port
+     * @param finished Called after the connection attempt finished
+     */
+    protected void performServicePing(int tcpPort, Runnable finished) {
         logger.trace("Perform TCP presence detection for {} on port: {}", hostname, tcpPort);
-        try {
-            double pingTime = System.nanoTime();
-            if (networkUtils.servicePing(destination.getHostAddress(), tcpPort, timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+        probeEngine.connect(destination, tcpPort, timeoutInMS, (reachable, latency) -> {
+            if (reachable) {
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
                 v.addReachableTcpService(tcpPort);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            // This should not happen and might be a user configuration issue, we log a warning message therefore.
-            logger.warn("Could not create a socket connection", e);
-        }
+            finished.run();
+        });
     }
 
     /**
@@ -476,7 +565,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (refreshJob != null && !refreshJob.isDone()) {
             refreshJob.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
+        // The detection is performed by the probe engine, the scheduler thread is not blocked
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(false), 0,
                 refreshIntervalInMS, TimeUnit.MILLISECONDS);
 
         enableDHCPListen(useDHCPsniffing);
@@ -497,6 +587,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             refreshJob.cancel(true);
             refreshJob = null;
         }
+        abandonPresenceDetection();
         enableDHCPListen(false);
     }
 
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * A registry of the automatically refreshing presence detections of all network things, by host address.
+ * The network handlers register and unregister their presence detection when they start and stop refreshing.
+ * The discovery uses this registry to skip hosts, which are already known.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@Component(service = PresenceDetectionRegistry.class)
+public class PresenceDetectionRegistry {
+    private final Map<String, Set<PresenceDetection>> registeredDetections = new HashMap<>();
+
+    /**
+     * Register a presence detection. Presence detections without host address are ignored.
+     */
+    public synchronized void register(PresenceDetection presenceDetection) {
+        String hostAddress = presenceDetection.getHostAddress();
+        if (hostAddress != null) {
+            registeredDetections.computeIfAbsent(hostAddress, k -> new HashSet<>()).add(presenceDetection);
+        }
+    }
+
+    public synchronized void unregister(PresenceDetection presenceDetection) {
+        String hostAddress = presenceDetection.getHostAddress();
+        Set<PresenceDetection> detections = hostAddress != null ? registeredDetections.get(hostAddress) : null;
+        if (detections != null && detections.remove(presenceDetection) && detections.isEmpty()) {
+            registeredDetections.remove(hostAddress);
+        }
+    }
+
+    /**
+     * Return true if there is a network thing for the given host address, which found the device
+     * reachable in its last presence detection.
+     *
+     * @param hostAddress The IP address
+     */
+    public synchronized boolean isKnownHost(String hostAddress) {
+        Set<PresenceDetection> detections = registeredDetections.get(hostAddress);
+        if (detections == null) {
+            return false;
+        }
+        for (PresenceDetection presenceDetection : detections) {
+            if (presenceDetection.isLastValueReachable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -10,13 +10,19 @@ package org.openhab.binding.network.internal.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
+import java.math.BigDecimal;
+import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.Configuration;
@@ -26,13 +32,18 @@ import org.eclipse.smarthome.config.discovery.DiscoveryService;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.PresenceDetectionRegistry;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.ArpPingUtilEnum;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.openhab.binding.network.internal.utils.PresenceProbeEngine;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,7 +52,15 @@ import com.google.common.collect.Sets;
 /**
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
- * It tries common TCP ports to connect to, ICMP pings and ARP pings.
+ * It tries common TCP ports to connect to, ICMP pings and ARP pings. The probes are performed
+ * by the {@link PresenceProbeEngine} which is shared with the network things.
+ *
+ * The network is scanned in two phases. The first, cheap phase takes the hosts of the ARP table of the
+ * operating system and knocks on a few TCP ports of all other IPs, limited to a configurable amount of
+ * packets per second. Only hosts which answered are probed with all methods in the second phase. The knocks
+ * make the operating system resolve the hardware addresses of the IPs, so after the knocks the ARP table is read
+ * again: hosts which appeared in it are probed in the second phase too, even if they did not answer on any TCP port.
+ * Hosts of existing network things which have been found reachable are skipped.
  *
  * @author David Graeff - Rewritten
  * @author Marc Mettke - Initial contribution
@@ -50,6 +69,9 @@ import com.google.common.collect.Sets;
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
     static final int PING_TIMEOUT_IN_MS = 500;
     static final int MAXIMUM_IPS_PER_INTERFACE = 255;
+    static final int SWEEP_INTERVAL_IN_MS = 100;
+    static final int DEFAULT_PACKETS_PER_SECOND = 100;
+    static final String PARAMETER_PACKETS_PER_SECOND = "packetsPerSecond";
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
@@ -57,9 +79,25 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     // TCP port 554 (Windows share / Linux samba)
     // TCP port 1025 (Xbox / MS-RPC)
     private Set<Integer> tcp_service_ports = Sets.newHashSet(80, 548, 554, 1025);
-    private Integer scannedIPcount;
-    private ExecutorService executorService = null;
+    private int scannedIPcount;
+    private int totalIPcount;
+    private boolean scanning = false;
+    private int packetsPerSecond = DEFAULT_PACKETS_PER_SECOND;
+    // IPs waiting for the first phase
+    private final Deque<String> sweepQueue = new ArrayDeque<>();
+    // IPs of the first phase and their amount of TCP knocks without an answer yet
+    private final Map<String, Integer> pendingKnocks = new HashMap<>();
+    // IPs which did not answer any knock, checked against the ARP table after the first phase
+    private final Set<String> silentIPs = new HashSet<>();
+    // Packets which may be sent in the first phase, unused packets are carried over to the next sweep interval
+    private double sweepBudget;
+    private ScheduledFuture<?> sweepJob;
+    // Ping and arping methods of the second phase, determined once per scan
+    private IpPingMethodEnum pingMethod;
+    private ArpPingUtilEnum arpPingMethod;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
+    private PresenceProbeEngine probeEngine;
+    private PresenceDetectionRegistry presenceDetectionRegistry;
     NetworkUtils networkUtils = new NetworkUtils();
 
     public NetworkDiscoveryService() {
@@ -83,6 +121,15 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         // configuration, the values are automatically available in all handlers. Because they all
         // share the same instance.
         configuration.update(new Configuration(config).as(NetworkBindingConfiguration.class));
+
+        Object value = config != null ? config.get(PARAMETER_PACKETS_PER_SECOND) : null;
+        if (value != null) {
+            try {
+                packetsPerSecond = Math.max(1, new BigDecimal(value.toString()).intValue());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid discovery configuration {}: {}", PARAMETER_PACKETS_PER_SECOND, value);
+            }
+        }
     }
 
     @Override
@@ -91,6 +138,24 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         super.deactivate();
     }
 
+    @Reference
+    protected void setPresenceProbeEngine(PresenceProbeEngine probeEngine) {
+        this.probeEngine = probeEngine;
+    }
+
+    protected void unsetPresenceProbeEngine(PresenceProbeEngine probeEngine) {
+        this.probeEngine = null;
+    }
+
+    @Reference
+    protected void setPresenceDetectionRegistry(PresenceDetectionRegistry presenceDetectionRegistry) {
+        this.presenceDetectionRegistry = presenceDetectionRegistry;
+    }
+
+    protected void unsetPresenceDetectionRegistry(PresenceDetectionRegistry presenceDetectionRegistry) {
+        this.presenceDetectionRegistry = null;
+    }
+
     @Override
     public void partialDetectionResult(PresenceDetectionValue value) {
         final String ip = value.getHostAddress();
@@ -106,68 +171,224 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
 
     @Override
     public void finalDetectionResult(PresenceDetectionValue value) {
+        ipScanned();
+    }
+
+    private synchronized void ipScanned() {
+        if (!scanning) {
+            return;
+        }
+        scannedIPcount += 1;
+        if (scannedIPcount == totalIPcount) {
+            logger.trace("Scan of {} IPs successful", scannedIPcount);
+            stopScan();
+        }
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Starts the two phase scan of each IP on each interface on the network. Hosts of the ARP table
+     * are probed right away, all other IPs are handed over to the rate limited sweep.
      */
     @Override
     protected void startScan() {
-        if (executorService != null) {
-            return;
+        final List<String> arpTableIPs = new ArrayList<>();
+        // The feature tests start external processes, they are performed once per scan and not for every host.
+        // They are not performed while holding the lock, which is also taken by callbacks of the probe engine.
+        final IpPingMethodEnum scanPingMethod = networkUtils.determinePingMethod();
+        final ArpPingUtilEnum scanArpPingMethod = networkUtils
+                .determineNativeARPpingMethod(configuration.arpPingToolPath);
+        synchronized (this) {
+            if (scanning) {
+                return;
+            }
+            pingMethod = scanPingMethod;
+            arpPingMethod = scanArpPingMethod;
+            removeOlderResults(getTimestampOfLastScan(), null);
+            logger.trace("Starting Network Device Discovery");
+
+            final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
+            final Set<String> arpTable = networkUtils.getArpTableIPs();
+            scannedIPcount = 0;
+            totalIPcount = networkIPs.size();
+            sweepBudget = 0;
+            scanning = true;
+
+            for (String ip : networkIPs) {
+                if (presenceDetectionRegistry.isKnownHost(ip)) {
+                    scannedIPcount += 1;
+                } else if (arpTable.contains(ip)) {
+                    arpTableIPs.add(ip);
+                } else {
+                    sweepQueue.add(ip);
+                }
+            }
+            logger.trace("Scanning {} IPs, {} of them from the ARP table, {} known hosts skipped", totalIPcount,
+                    arpTableIPs.size(), scannedIPcount);
+            if (scannedIPcount == totalIPcount) {
+                stopScan();
+                return;
+            }
+            if (!sweepQueue.isEmpty()) {
+                sweepJob = scheduler.scheduleWithFixedDelay(this::sweep, 0, SWEEP_INTERVAL_IN_MS,
+                        TimeUnit.MILLISECONDS);
+            }
         }
-        removeOlderResults(getTimestampOfLastScan(), null);
-        logger.trace("Starting Network Device Discovery");
 
-        final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        scannedIPcount = 0;
+        if (!arpTableIPs.isEmpty()) {
+            scheduler.execute(() -> {
+                for (String ip : arpTableIPs) {
+                    performFullProbe(ip);
+                }
+            });
+        }
+    }
+
+    /**
+     * The first phase: Knock on the TCP service ports of as many IPs as the packets per second budget allows
+     * within one sweep interval. The budget not used in this interval, because it is not enough for knocking on all
+     * ports of another IP, is carried over to the next interval.
+     */
+    void sweep() {
+        final List<String> ips = new ArrayList<>();
+        synchronized (this) {
+            int packetsPerIP = tcp_service_ports.size();
+            sweepBudget += packetsPerSecond * SWEEP_INTERVAL_IN_MS / 1000.0;
+            while (sweepBudget >= packetsPerIP && !sweepQueue.isEmpty()) {
+                String ip = sweepQueue.poll();
+                pendingKnocks.put(ip, packetsPerIP);
+                ips.add(ip);
+                sweepBudget -= packetsPerIP;
+            }
+            if (sweepQueue.isEmpty() && sweepJob != null) {
+                sweepJob.cancel(false);
+                sweepJob = null;
+            }
+        }
 
-        for (String ip : networkIPs) {
-            final PresenceDetection s = new PresenceDetection(this, 2000);
+        for (String ip : ips) {
+            final InetAddress address;
             try {
-                s.setHostname(ip);
+                address = InetAddress.getByName(ip);
             } catch (UnknownHostException unknownHostException) {
                 logger.trace("Skip IP that cannot be converted to a InetAddress", unknownHostException);
+                knockFinished(ip, false, tcp_service_ports.size());
                 continue;
             }
-            s.setIOSDevice(true);
-            s.setUseDhcpSniffing(false);
-            s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath);
-            // TCP devices
-            s.setServicePorts(tcp_service_ports);
-
-            executorService.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                synchronized (scannedIPcount) {
-                    scannedIPcount += 1;
-                    if (scannedIPcount == networkIPs.size()) {
-                        logger.trace("Scan of {} IPs successful", scannedIPcount);
-                        stopScan();
-                    }
+            for (int port : tcp_service_ports) {
+                probeEngine.knock(address, port, PING_TIMEOUT_IN_MS,
+                        (reachable, latency) -> knockFinished(ip, reachable, 1));
+            }
+        }
+    }
+
+    /**
+     * Called for each finished knock of the first phase. The first answer of a host starts the
+     * second phase for it, further answers are ignored.
+     */
+    private void knockFinished(String ip, boolean answered, int knocks) {
+        synchronized (this) {
+            Integer pending = pendingKnocks.get(ip);
+            if (!scanning || pending == null) {
+                return;
+            }
+            if (!answered) {
+                if (pending > knocks) {
+                    pendingKnocks.put(ip, pending - knocks);
+                    return;
                 }
-            });
+                pendingKnocks.remove(ip);
+                silentIPs.add(ip);
+            } else {
+                pendingKnocks.remove(ip);
+                logger.trace("Host {} answered, performing a full presence detection", ip);
+            }
         }
+        // Knocks finish on the selector thread of the probe engine, which must not block. Reading the ARP table and
+        // starting the presence detection is done by the scheduler.
+        scheduler.execute(() -> {
+            // The last knock of the first phase may be an answer, while other IPs stayed silent
+            final List<String> ips = new ArrayList<>(checkSilentIPs());
+            if (answered) {
+                ips.add(ip);
+            }
+            for (String fullProbeIP : ips) {
+                performFullProbe(fullProbeIP);
+            }
+        });
     }
 
-    @Override
-    protected synchronized void stopScan() {
-        super.stopScan();
-        if (executorService == null) {
-            return;
+    /**
+     * When all knocks of the first phase are finished, read the ARP table again. The silent IPs which appeared in
+     * it are returned for the second phase, the others are done.
+     *
+     * @return IPs to perform a full presence detection for
+     */
+    private List<String> checkSilentIPs() {
+        final List<String> silent;
+        synchronized (this) {
+            if (!sweepQueue.isEmpty() || !pendingKnocks.isEmpty() || silentIPs.isEmpty()) {
+                return Collections.emptyList();
+            }
+            silent = new ArrayList<>(silentIPs);
+            silentIPs.clear();
+        }
+        final Set<String> arpTable = networkUtils.getArpTableIPs();
+        final List<String> arpTableIPs = new ArrayList<>();
+        for (String ip : silent) {
+            if (arpTable.contains(ip)) {
+                arpTableIPs.add(ip);
+            } else {
+                ipScanned();
+            }
         }
+        logger.trace("First phase finished, {} silent IPs found in the ARP table", arpTableIPs.size());
+        return arpTableIPs;
+    }
 
+    /**
+     * The second phase: Perform a presence detection with all methods. The results are submitted as they arrive.
+     */
+    private void performFullProbe(String ip) {
+        final PresenceDetection s = new PresenceDetection(this, 2000, probeEngine);
         try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
+            s.setHostname(ip);
+        } catch (UnknownHostException unknownHostException) {
+            logger.trace("Skip IP that cannot be converted to a InetAddress", unknownHostException);
+            ipScanned();
+            return;
+        }
+        s.setIOSDevice(true);
+        s.setUseDhcpSniffing(false);
+        s.setTimeout(PING_TIMEOUT_IN_MS);
+        // Ping devices
+        final IpPingMethodEnum pingMethod;
+        final ArpPingUtilEnum arpPingMethod;
+        synchronized (this) {
+            pingMethod = this.pingMethod;
+            arpPingMethod = this.arpPingMethod;
+        }
+        s.setPingMethod(pingMethod);
+        s.setArpPingMethod(arpPingMethod, configuration.arpPingToolPath);
+        // TCP devices
+        s.setServicePorts(tcp_service_ports);
+
+        if (!s.performPresenceDetection(false)) {
+            ipScanned();
+        }
+    }
+
+    @Override
+    protected synchronized void stopScan() {
+        super.stopScan();
+        // Detections still performed by the probe engine are not counted anymore
+        scanning = false;
+        if (sweepJob != null) {
+            sweepJob.cancel(false);
+            sweepJob = null;
         }
-        executorService.shutdown();
-        executorService = null;
+        sweepQueue.clear();
+        pendingKnocks.clear();
+        silentIPs.clear();
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
@@ -11,19 +11,16 @@ package org.openhab.binding.network.internal.utils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.ConnectException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
-import java.net.NoRouteToHostException;
 import java.net.PortUnreachableException;
-import java.net.Socket;
-import java.net.SocketAddress;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -41,6 +38,8 @@ import org.eclipse.smarthome.io.net.exec.ExecUtil;
  * @author David Graeff <david.graeff@web.de>
  */
 public class NetworkUtils {
+    private static final String ARP_TABLE_PATH = "/proc/net/arp";
+
     /**
      * Gets every IPv4 Address on each Interface except the loopback
      * The Address format is ip/subnet
@@ -105,6 +104,58 @@ public class NetworkUtils {
         return result;
     }
 
+    /**
+     * Get the IPv4 addresses of all complete entries of the ARP table of the operating system.
+     * Those devices have been seen on the network recently, without sending a single packet.
+     * Only supported on Linux, an empty set is returned on other operating systems.
+     *
+     * @return Set of IPv4 addresses
+     */
+    public Set<String> getArpTableIPs() {
+        if (!SystemUtils.IS_OS_LINUX) {
+            return new HashSet<>();
+        }
+        try (BufferedReader r = Files.newBufferedReader(Paths.get(ARP_TABLE_PATH), StandardCharsets.US_ASCII)) {
+            return parseArpTable(r);
+        } catch (IOException | RuntimeException ignored) {
+            // If we are not allowed to read the table, we return an empty result set.
+            return new HashSet<>();
+        }
+    }
+
+    /**
+     * Parses the ARP table in the format of /proc/net/arp:
+     *
+     * <pre>
+     * IP address       HW type     Flags       HW address            Mask     Device
+     * 192.168.1.1      0x1         0x2         00:11:22:33:44:55     *        eth0
+     * </pre>
+     *
+     * @param reader A reader of the table, including the header line
+     * @return The IP addresses of all entries with a resolved hardware address
+     * @throws IOException If the table cannot be read
+     */
+    Set<String> parseArpTable(BufferedReader reader) throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+        // Skip the header
+        reader.readLine();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length < 4) {
+                continue;
+            }
+            try {
+                // The ATF_COM flag is set for complete entries
+                if ((Integer.decode(columns[2]) & 0x2) != 0 && !"00:00:00:00:00:00".equals(columns[3])) {
+                    result.add(columns[0]);
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return result;
+    }
+
     /**
      * Determines every IP which can be assigned on all available interfaces
      *
@@ -145,27 +196,6 @@ public class NetworkUtils {
         return networkIPs;
     }
 
-    /**
-     * Try to establish a tcp connection to the given port. Returns false if a timeout occurred
-     * or the connection was denied.
-     *
-     * @param host The IP or hostname
-     * @param port The tcp port. Must be not 0.
-     * @param timeout Timeout in ms
-     * @param logger A slf4j logger instance to log IOException
-     * @return
-     * @throws IOException
-     */
-    public boolean servicePing(String host, int port, int timeout) throws IOException {
-        SocketAddress socketAddress = new InetSocketAddress(host, port);
-        try (Socket socket = new Socket()) {
-            socket.connect(socketAddress, timeout);
-            return true;
-        } catch (ConnectException | SocketTimeoutException | NoRouteToHostException ignored) {
-            return false;
-        }
-    }
-
     /**
      * Return the working method for the native system ping. If no native ping
      * works JavaPing is returned.
@@ -257,10 +287,10 @@ public class NetworkUtils {
         // Exception: return code is also 0 in Windows for all requests on the local subnet.
         // see https://superuser.com/questions/403905/ping-from-windows-7-get-no-reply-but-sets-errorlevel-to-0
         if (method != IpPingMethodEnum.WINDOWS_PING) {
-            return proc.waitFor() == 0;
+            return waitFor(proc) == 0;
         }
 
-        int result = proc.waitFor();
+        int result = waitFor(proc);
         if (result != 0) {
             return false;
         }
@@ -321,7 +351,22 @@ public class NetworkUtils {
 
         // The return code is 0 for a successful ping. 1 if device didn't respond and 2 if there is another error like
         // network interface not ready.
-        return proc.waitFor() == 0;
+        return waitFor(proc) == 0;
+    }
+
+    /**
+     * Waits for the process to terminate. If the waiting thread is interrupted, for example because
+     * the deadline of the probe is reached, the process is killed.
+     *
+     * @return The exit code of the process
+     */
+    private int waitFor(Process proc) throws InterruptedException {
+        try {
+            return proc.waitFor();
+        } catch (InterruptedException e) {
+            proc.destroyForcibly();
+            throw e;
+        }
     }
 
     /**
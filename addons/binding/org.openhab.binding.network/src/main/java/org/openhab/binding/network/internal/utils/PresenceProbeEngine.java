@@ -0,0 +1,494 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PresenceProbeEngine} performs the presence probes of all network things and of the discovery.
+ *
+ * TCP connection attempts are non-blocking and handled by a single selector thread. Probes which need a blocking call,
+ * like the native ping and arping utilities, are executed by a small, bounded set of worker threads. The number of
+ * probes in flight is limited globally, further probes are queued until a running probe finished.
+ *
+ * Each probe has a deadline, starting when the probe is executed. A probe which did not finish in time is aborted
+ * (the socket is closed or the worker thread is interrupted) and reported as not reachable. The callback of a probe
+ * is called exactly once, on the selector thread or on a worker thread, and must not block.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@Component(service = PresenceProbeEngine.class)
+public class PresenceProbeEngine {
+    public static final int DEFAULT_MAX_CONCURRENT_PROBES = 128;
+    public static final int DEFAULT_WORKER_THREADS = 8;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceProbeEngine.class);
+
+    /**
+     * Called as soon as a probe finished.
+     */
+    @FunctionalInterface
+    public static interface ProbeCallback {
+        /**
+         * @param reachable True if the device responded within the deadline
+         * @param latencyInMS The time between the start of the probe and its end in milliseconds
+         */
+        void probeFinished(boolean reachable, double latencyInMS);
+    }
+
+    private final int maxConcurrentProbes;
+    private final int workerThreads;
+
+    // Probes waiting for a free slot and the amount of probes in flight. Guarded by queuedProbes.
+    private final Deque<Probe> queuedProbes = new ArrayDeque<>();
+    private int runningProbes;
+    private volatile boolean running;
+
+    // Hand over of started probes to the selector thread
+    private final Queue<TcpProbe> pendingConnects = new ConcurrentLinkedQueue<>();
+    private final Queue<Probe> pendingDeadlines = new ConcurrentLinkedQueue<>();
+    // Blocking probes submitted to the workers and not finished yet
+    private final Set<BlockingProbe> submittedBlockingProbes = ConcurrentHashMap.newKeySet();
+    // Only accessed by the selector thread
+    private final PriorityQueue<Probe> deadlines = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.deadlineInNS, b.deadlineInNS));
+
+    private Selector selector;
+    private Thread selectorThread;
+    private ExecutorService workers;
+
+    public PresenceProbeEngine() {
+        this(DEFAULT_MAX_CONCURRENT_PROBES, DEFAULT_WORKER_THREADS);
+    }
+
+    /**
+     * Create a new instance. Call {@link #start()} before submitting probes.
+     *
+     * @param maxConcurrentProbes The maximum amount of probes in flight, TCP probes and blocking probes together
+     * @param workerThreads The amount of threads executing blocking probes
+     */
+    public PresenceProbeEngine(int maxConcurrentProbes, int workerThreads) {
+        this.maxConcurrentProbes = maxConcurrentProbes;
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Opens the selector and starts the selector thread. The worker threads are created on demand.
+     *
+     * @throws IOException If the selector cannot be opened
+     */
+    @Activate
+    public void start() throws IOException {
+        synchronized (queuedProbes) {
+            if (running) {
+                return;
+            }
+            selector = Selector.open();
+            AtomicInteger threadCounter = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(workerThreads, r -> {
+                Thread thread = new Thread(r, "networkProbeWorker-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            selectorThread = new Thread(this::selectLoop, "networkProbeSelector");
+            selectorThread.setDaemon(true);
+            running = true;
+            selectorThread.start();
+        }
+    }
+
+    /**
+     * Stops the selector thread and the worker threads. All queued probes, TCP probes in flight and blocking probes
+     * not started by a worker yet are reported as not reachable. Running blocking probes are interrupted.
+     */
+    @Deactivate
+    public void stop() {
+        List<Probe> abandoned;
+        synchronized (queuedProbes) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            abandoned = new ArrayList<>(queuedProbes);
+            queuedProbes.clear();
+        }
+        workers.shutdownNow();
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Reset interrupt flag
+        }
+        for (Probe probe : abandoned) {
+            probe.finish(false);
+        }
+        // The workers drop the probes which they have not started yet. Running probes are interrupted and finish by
+        // themselves.
+        for (BlockingProbe probe : submittedBlockingProbes) {
+            probe.dropIfNotStarted();
+        }
+    }
+
+    /**
+     * Return the amount of probes in flight.
+     */
+    public int getRunningProbes() {
+        synchronized (queuedProbes) {
+            return runningProbes;
+        }
+    }
+
+    /**
+     * Return the amount of probes waiting for a free slot.
+     */
+    public int getQueuedProbes() {
+        synchronized (queuedProbes) {
+            return queuedProbes.size();
+        }
+    }
+
+    /**
+     * Try to establish a TCP connection to the given port without blocking. A refused connection
+     * is reported as not reachable.
+     *
+     * @param address The destination address
+     * @param port The TCP port. Must be not 0.
+     * @param timeoutInMS Deadline of the connection attempt in milliseconds
+     * @param callback Called with the result of the connection attempt
+     */
+    public void connect(InetAddress address, int port, int timeoutInMS, ProbeCallback callback) {
+        submit(new TcpProbe(new InetSocketAddress(address, port), timeoutInMS, false, callback));
+    }
+
+    /**
+     * Knock on the given TCP port without blocking, to find out if there is a host at the address at all.
+     * In contrast to {@link #connect(InetAddress, int, int, ProbeCallback)} a refused connection is reported
+     * as reachable, because the host answered.
+     *
+     * @param address The destination address
+     * @param port The TCP port. Must be not 0.
+     * @param timeoutInMS Deadline of the connection attempt in milliseconds
+     * @param callback Called with the result of the connection attempt
+     */
+    public void knock(InetAddress address, int port, int timeoutInMS, ProbeCallback callback) {
+        submit(new TcpProbe(new InetSocketAddress(address, port), timeoutInMS, true, callback));
+    }
+
+    /**
+     * Execute a blocking probe on one of the worker threads. The probe is interrupted if it is still
+     * running when the deadline is reached.
+     *
+     * @param probe The probe. It is responsible for reporting its own results.
+     * @param timeoutInMS Deadline of the probe in milliseconds
+     * @param finished Called after the probe returned or has been aborted
+     */
+    public void execute(Runnable probe, int timeoutInMS, Runnable finished) {
+        submit(new BlockingProbe(probe, timeoutInMS, (reachable, latencyInMS) -> finished.run()));
+    }
+
+    private void submit(Probe probe) {
+        boolean accepted;
+        synchronized (queuedProbes) {
+            accepted = running;
+            if (accepted) {
+                if (runningProbes >= maxConcurrentProbes) {
+                    queuedProbes.add(probe);
+                    return;
+                }
+                runningProbes++;
+            }
+        }
+        if (accepted) {
+            probe.start();
+        } else {
+            logger.debug("Presence probe engine is not running, probe reported as not reachable");
+            probe.finish(false);
+        }
+    }
+
+    private void release() {
+        Probe next;
+        synchronized (queuedProbes) {
+            next = queuedProbes.poll();
+            if (next == null) {
+                runningProbes--;
+                return;
+            }
+        }
+        // The slot is handed over to the next probe
+        next.start();
+    }
+
+    private void selectLoop() {
+        while (running) {
+            try {
+                registerPendingConnects();
+                long timeoutInMS = expireDeadlines();
+                selector.select(timeoutInMS);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    ((TcpProbe) key.attachment()).connectable();
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Unexpected error in the presence probe selector", e);
+            }
+        }
+
+        // Shut down: report everything still in flight as not reachable
+        TcpProbe probe;
+        while ((probe = pendingConnects.poll()) != null) {
+            probe.finish(false);
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((TcpProbe) key.attachment()).abort();
+        }
+        pendingDeadlines.clear();
+        deadlines.clear();
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void registerPendingConnects() {
+        TcpProbe probe;
+        while ((probe = pendingConnects.poll()) != null) {
+            probe.register();
+        }
+    }
+
+    /**
+     * Aborts all probes which passed their deadline.
+     *
+     * @return The time until the next deadline in milliseconds, or 0 if there is none
+     */
+    private long expireDeadlines() {
+        Probe probe;
+        while ((probe = pendingDeadlines.poll()) != null) {
+            deadlines.add(probe);
+        }
+        long now = System.nanoTime();
+        while ((probe = deadlines.peek()) != null) {
+            if (probe.isFinished()) {
+                deadlines.poll();
+            } else if (probe.deadlineInNS - now <= 0) {
+                deadlines.poll();
+                probe.abort();
+            } else {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(probe.deadlineInNS - now));
+            }
+        }
+        return 0;
+    }
+
+    private void armDeadline(Probe probe) {
+        probe.startedInNS = System.nanoTime();
+        probe.deadlineInNS = probe.startedInNS + TimeUnit.MILLISECONDS.toNanos(probe.timeoutInMS);
+        pendingDeadlines.add(probe);
+        selector.wakeup();
+    }
+
+    private abstract class Probe {
+        final int timeoutInMS;
+        final ProbeCallback callback;
+        final AtomicBoolean finished = new AtomicBoolean();
+        long startedInNS;
+        long deadlineInNS;
+
+        Probe(int timeoutInMS, ProbeCallback callback) {
+            this.timeoutInMS = timeoutInMS;
+            this.callback = callback;
+        }
+
+        abstract void start();
+
+        abstract void abort();
+
+        boolean isFinished() {
+            return finished.get();
+        }
+
+        /**
+         * Frees the slot of the probe and reports the result. Only the first call has an effect.
+         */
+        void finish(boolean reachable) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            double latencyInMS = startedInNS == 0 ? 0
+                    : Math.round((System.nanoTime() - startedInNS) / 1000000.0f);
+            if (running) {
+                release();
+            }
+            try {
+                callback.probeFinished(reachable, latencyInMS);
+            } catch (RuntimeException e) {
+                logger.warn("Presence probe callback failed", e);
+            }
+        }
+    }
+
+    private class TcpProbe extends Probe {
+        private final InetSocketAddress address;
+        private final boolean refusedIsAnswer;
+        private SocketChannel channel;
+
+        TcpProbe(InetSocketAddress address, int timeoutInMS, boolean refusedIsAnswer, ProbeCallback callback) {
+            super(timeoutInMS, callback);
+            this.address = address;
+            this.refusedIsAnswer = refusedIsAnswer;
+        }
+
+        @Override
+        void start() {
+            pendingConnects.add(this);
+            selector.wakeup();
+        }
+
+        // Called by the selector thread
+        void register() {
+            armDeadline(this);
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (channel.connect(address)) {
+                    close();
+                    finish(true);
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (ConnectException e) {
+                close();
+                finish(refusedIsAnswer);
+            } catch (IOException | RuntimeException e) {
+                logger.trace("Could not connect to {}", address, e);
+                close();
+                finish(false);
+            }
+        }
+
+        // Called by the selector thread
+        void connectable() {
+            boolean connected;
+            try {
+                connected = channel.finishConnect();
+            } catch (ConnectException e) {
+                // Connection refused
+                connected = refusedIsAnswer;
+            } catch (IOException e) {
+                // No route to host, network unreachable, ...
+                connected = false;
+            }
+            close();
+            finish(connected);
+        }
+
+        @Override
+        void abort() {
+            close();
+            finish(false);
+        }
+
+        private void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private class BlockingProbe extends Probe {
+        private final Runnable probe;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private Future<?> future;
+
+        BlockingProbe(Runnable probe, int timeoutInMS, ProbeCallback callback) {
+            super(timeoutInMS, callback);
+            this.probe = probe;
+        }
+
+        @Override
+        synchronized void start() {
+            submittedBlockingProbes.add(this);
+            try {
+                future = workers.submit(this::run);
+            } catch (RuntimeException e) {
+                // Rejected, because the engine has been stopped in the meantime
+                finish(false);
+            }
+        }
+
+        private void run() {
+            if (!started.compareAndSet(false, true) || isFinished()) {
+                return;
+            }
+            armDeadline(this);
+            try {
+                probe.run();
+            } finally {
+                finish(true);
+            }
+        }
+
+        @Override
+        synchronized void abort() {
+            if (future != null) {
+                future.cancel(true);
+            }
+            finish(false);
+        }
+
+        /**
+         * Reports the probe as not reachable, if no worker has started it yet. It will not be started afterwards.
+         */
+        void dropIfNotStarted() {
+            if (started.compareAndSet(false, true)) {
+                finish(false);
+            }
+        }
+
+        @Override
+        void finish(boolean reachable) {
+            submittedBlockingProbes.remove(this);
+            super.finish(reachable);
+        }
+    }
+}
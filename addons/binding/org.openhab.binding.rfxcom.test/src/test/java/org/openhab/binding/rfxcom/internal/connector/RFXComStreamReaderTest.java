@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import org.eclipse.smarthome.core.util.HexUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class RFXComStreamReaderTest {
+    private static final String WIND = "105601122F000087000000140000000079";
+    private static final String TEMPERATURE = "08500110000180BC69";
+
+    private final List<String> packets = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private RFXComBaseConnector connector;
+
+    /**
+     * Stream returning the given chunks, one per read, and then nothing like a stream with read timeout
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final Queue<byte[]> chunks = new LinkedList<>();
+
+        ChunkedInputStream(String... hexChunks) {
+            Arrays.stream(hexChunks).map(HexUtils::hexToBytes).forEach(chunks::add);
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            byte[] chunk = chunks.poll();
+            if (chunk == null) {
+                return 0;
+            }
+            assertTrue("Buffer too small for chunk", chunk.length <= length);
+            System.arraycopy(chunk, 0, buffer, offset, chunk.length);
+            return chunk.length;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        connector = new RFXComBaseConnector() {
+            @Override
+            public void connect(RFXComBridgeConfiguration device) {
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public void sendMessage(byte[] data) {
+            }
+        };
+        connector.addEventListener(new RFXComEventListener() {
+            @Override
+            public void packetReceived(byte[] data) {
+                packets.add(HexUtils.bytesToHex(data));
+            }
+
+            @Override
+            public void errorOccurred(String error) {
+                errors.add(error);
+            }
+        });
+    }
+
+    private void read(String... hexChunks) {
+        connector.in = new ChunkedInputStream(hexChunks);
+        // the reader stops with a timeout after the last chunk as the packet 01 is never completed
+        new RFXComStreamReader(connector).run();
+    }
+
+    @Test
+    public void testPacketsInOneRead() {
+        read(WIND + TEMPERATURE + "01");
+
+        assertEquals(Arrays.asList(WIND, TEMPERATURE), packets);
+        assertEquals(Arrays.asList("Timeout during packet read"), errors);
+    }
+
+    @Test
+    public void testPacketsSplitOverReads() {
+        read(WIND.substring(0, 2), WIND.substring(2, 10), WIND.substring(10) + TEMPERATURE.substring(0, 6),
+                TEMPERATURE.substring(6), "01");
+
+        assertEquals(Arrays.asList(WIND, TEMPERATURE), packets);
+    }
+
+    @Test
+    public void testEmptyLengthSkipped() {
+        read("00" + TEMPERATURE + "00", "01");
+
+        assertEquals(Arrays.asList(TEMPERATURE), packets);
+    }
+
+    @Test
+    public void testManyPackets() {
+        StringBuilder chunk = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            chunk.append(TEMPERATURE);
+        }
+        // chunks end in the middle of packets
+        read(chunk.substring(0, 1000), chunk.substring(1000), "01");
+
+        assertEquals(100, packets.size());
+    }
+}
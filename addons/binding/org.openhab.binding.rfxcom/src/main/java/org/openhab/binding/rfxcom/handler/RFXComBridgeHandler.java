@@ -10,7 +10,9 @@ package org.openhab.binding.rfxcom.handler;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
@@ -61,7 +63,10 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     private RFXComConnectorInterface connector = null;
     private MessageListener eventListener = new MessageListener();
 
+    // listeners interested in messages of all devices, e.g. discovery
     private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    // listeners interested in messages of a single device, by device id
+    private Map<String, List<DeviceMessageListener>> deviceStatusListenersById = new ConcurrentHashMap<>();
 
     private RFXComBridgeConfiguration configuration = null;
     private ScheduledFuture<?> connectorTask;
@@ -120,6 +125,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
             unregisterDeviceStatusListener(deviceStatusListener);
         }
+        deviceStatusListenersById.clear();
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -286,14 +292,12 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                     transmitQueue.sendNext();
                 } else if (message instanceof RFXComDeviceMessage) {
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(),
-                                    (RFXComDeviceMessage) message);
-                        } catch (Exception e) {
-                            // catch all exceptions give all handlers a fair chance of handling the messages
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
+                    RFXComDeviceMessage deviceMessage = (RFXComDeviceMessage) message;
+                    notifyDeviceStatusListeners(deviceStatusListeners, deviceMessage);
+                    List<DeviceMessageListener> deviceListeners = deviceStatusListenersById
+                            .get(deviceMessage.getDeviceId());
+                    if (deviceListeners != null) {
+                        notifyDeviceStatusListeners(deviceListeners, deviceMessage);
                     }
                 } else {
                     logger.warn("The received message cannot be processed, please create an "
@@ -308,6 +312,18 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
             }
         }
 
+        private void notifyDeviceStatusListeners(List<DeviceMessageListener> listeners,
+                RFXComDeviceMessage message) {
+            for (DeviceMessageListener deviceStatusListener : listeners) {
+                try {
+                    deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
+                } catch (Exception e) {
+                    // catch all exceptions give all handlers a fair chance of handling the messages
+                    logger.error("An exception occurred while calling the DeviceStatusListener", e);
+                }
+            }
+        }
+
         @Override
         public void errorOccurred(String error) {
             logger.error("Error occurred: {}", error);
@@ -323,11 +339,44 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                 : deviceStatusListeners.add(deviceStatusListener);
     }
 
+    /**
+     * Register a listener for the messages of a single device only.
+     *
+     * A listener registered before for another device id is moved to the given device id.
+     *
+     * @param deviceId the device id of the messages
+     * @param deviceStatusListener the listener
+     * @return true if the listener was not registered for the device id before
+     */
+    public boolean registerDeviceStatusListener(String deviceId, DeviceMessageListener deviceStatusListener) {
+        if (deviceStatusListener == null || deviceId == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceId or deviceStatusListener.");
+        }
+        synchronized (deviceStatusListenersById) {
+            deviceStatusListenersById.forEach((id, listeners) -> {
+                if (!id.equals(deviceId)) {
+                    listeners.remove(deviceStatusListener);
+                }
+            });
+            deviceStatusListenersById.values().removeIf(List::isEmpty);
+            List<DeviceMessageListener> listeners = deviceStatusListenersById.computeIfAbsent(deviceId,
+                    id -> new CopyOnWriteArrayList<>());
+            return listeners.contains(deviceStatusListener) ? false : listeners.add(deviceStatusListener);
+        }
+    }
+
     public boolean unregisterDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.remove(deviceStatusListener);
+        boolean removed = deviceStatusListeners.remove(deviceStatusListener);
+        synchronized (deviceStatusListenersById) {
+            for (List<DeviceMessageListener> listeners : deviceStatusListenersById.values()) {
+                removed |= listeners.remove(deviceStatusListener);
+            }
+            deviceStatusListenersById.values().removeIf(List::isEmpty);
+        }
+        return removed;
     }
 
     public RFXComBridgeConfiguration getConfiguration() {
@@ -9,7 +9,7 @@
 package org.openhab.binding.rfxcom.internal.connector;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComTimeoutException;
 import org.slf4j.Logger;
@@ -26,6 +26,8 @@ import org.slf4j.LoggerFactory;
 public class RFXComStreamReader extends Thread {
     private final Logger logger = LoggerFactory.getLogger(RFXComStreamReader.class);
     private static final int MAX_READ_TIMEOUTS = 4;
+    // Packets are at most Byte.MAX_VALUE + 1 bytes long, so the buffer can hold a few of them
+    private static final int BUFFER_SIZE = 1024;
 
     private RFXComBaseConnector connector;
 
@@ -44,7 +46,8 @@ public class RFXComStreamReader extends Thread {
     @Override
     public void run() {
         logger.debug("Data listener started");
-        byte[] buf = new byte[Byte.MAX_VALUE];
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int readTimeoutCount = 0;
 
         // The stream has (or SHOULD have) a read timeout set. Taking a
         // read timeout (read returns 0) between packets gives us a chance
@@ -53,14 +56,19 @@ public class RFXComStreamReader extends Thread {
         // meaning the RFXCOM has become missing presumed dead.
         try {
             while (!Thread.interrupted()) {
-                // First byte tells us how long the packet is
-                int bytesRead = connector.read(buf, 0, 1);
-                int packetLength = buf[0];
+                // Read as much as is available, the buffer always has room for at least one complete packet
+                int bytesRead = connector.read(buffer.array(), buffer.position(), buffer.remaining());
 
-                if (bytesRead > 0 && packetLength > 0) {
-                    processMessage(buf, packetLength);
-                    connector.sendMsgToListeners(Arrays.copyOfRange(buf, 0, packetLength + 1));
+                if (bytesRead > 0) {
+                    buffer.position(buffer.position() + bytesRead);
+                    readTimeoutCount = 0;
+                } else if (buffer.position() > 0 && ++readTimeoutCount >= MAX_READ_TIMEOUTS) {
+                    throw new RFXComTimeoutException("Timeout during packet read");
                 }
+
+                buffer.flip();
+                processPackets(buffer);
+                buffer.compact();
             }
         } catch (IOException | RFXComTimeoutException e) {
             logger.debug("Received exception, will report it to listeners", e);
@@ -70,22 +78,25 @@ public class RFXComStreamReader extends Thread {
         logger.debug("Data listener stopped");
     }
 
-    private void processMessage(byte[] buf, int packetLength) throws IOException, RFXComTimeoutException {
-        // Now read the rest of the packet
-        int bufferIndex = 1;
-        int readTimeoutCount = 1;
-        int bytesRead;
-        while (bufferIndex <= packetLength) {
-            int bytesRemaining = packetLength - bufferIndex + 1;
-
-            bytesRead = connector.read(buf, bufferIndex, bytesRemaining);
-
-            if (bytesRead > 0) {
-                bufferIndex += bytesRead;
-                readTimeoutCount = 1;
-            } else if (readTimeoutCount++ == MAX_READ_TIMEOUTS) {
-                throw new RFXComTimeoutException("Timeout during packet read");
+    /**
+     * Pass all complete packets in the buffer to the listeners. An incomplete packet is left in the buffer.
+     *
+     * @param buffer buffer ready to be read
+     */
+    private void processPackets(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            // First byte tells us how long the packet is
+            int packetLength = buffer.get(buffer.position());
+            if (packetLength <= 0) {
+                buffer.get();
+                continue;
+            }
+            if (buffer.remaining() < packetLength + 1) {
+                return;
             }
+            byte[] packet = new byte[packetLength + 1];
+            buffer.get(packet);
+            connector.sendMsgToListeners(packet);
         }
     }
 }
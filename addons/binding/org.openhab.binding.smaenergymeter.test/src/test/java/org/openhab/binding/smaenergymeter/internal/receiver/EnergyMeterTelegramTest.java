@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.internal.receiver;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for parsing a multicast telegram of a SMA Energy Meter with {@link EnergyMeterTelegram}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class EnergyMeterTelegramTest {
+
+    private static final double DELTA = 0.0001;
+
+    /**
+     * A complete telegram of 600 bytes: the header with serial number 1900123456, the totals, the values of the three
+     * phases, the software version and the end marker
+     */
+    private static final String TELEGRAM = ""
+            + "534d4100000402a000000001024400106069015d71419540ba49f2af0001040000003039000108000000000108e8d5b0"
+            + "0002040000000000000208000000000079db21200003040000000000000308000000000032bcce600004040000000a97"
+            + "000408000000000046ca2dd00009040000003162000908000000000131672dc0000a040000000000000a080000000000"
+            + "8f4024c0000d0400000003d0001504000000140000150800000000006610531800160400000000000016080000000000"
+            + "289e60600017040000000000001708000000000010e99a20001804000000038800180800000000001798b9f0001d0400"
+            + "0000144f001d08000000000065cd0f40001e040000000000001e0800000000002fc00c40001f0400000008fd00200400"
+            + "0023489900210400000003d90029040000000bbc00290800000000004d699658002a040000000000002a080000000000"
+            + "289e6060002b040000000000002b08000000000010e99a20002c040000000388002c0800000000001798b9f000310400"
+            + "0000144f003108000000000065cd0f40003204000000000000320800000000002fc00c40003304000000057a00340400"
+            + "0023138800350400000003d9003d04000000107d003d080000000000556eec40003e040000000000003e080000000000"
+            + "289e6060003f040000000000003f08000000000010e99a20004004000000038800400800000000001798b9f000450400"
+            + "0000144f004508000000000065cd0f40004604000000000000460800000000002fc00c40004704000000073a00480400"
+            + "00232ddc00490400000003d9900000000102085200000000";
+
+    private static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static void assertTelegram(EnergyMeterTelegram telegram) {
+        assertEquals("1900123456", telegram.getSerialNumber());
+        assertEquals(1234.5, telegram.getPowerIn(), DELTA);
+        assertEquals(1234.5678, telegram.getEnergyIn(), DELTA);
+        assertEquals(0, telegram.getPowerOut(), DELTA);
+        assertEquals(567.89, telegram.getEnergyOut(), DELTA);
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        byte[] bytes = bytes(TELEGRAM);
+        assertEquals(600, bytes.length);
+
+        assertTelegram(EnergyMeterTelegram.parse(bytes, bytes.length));
+    }
+
+    @Test
+    public void testParseFromLargerBuffer() throws IOException {
+        // the receiver reuses a buffer which is larger than the telegram and holds bytes of an earlier datagram
+        byte[] buffer = new byte[1024];
+        Arrays.fill(buffer, (byte) 0xff);
+        byte[] telegram = bytes(TELEGRAM);
+        System.arraycopy(telegram, 0, buffer, 0, telegram.length);
+
+        assertTelegram(EnergyMeterTelegram.parse(buffer, telegram.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherDatagramIsRejected() throws IOException {
+        byte[] bytes = bytes(TELEGRAM);
+        bytes[0] = 'X';
+        EnergyMeterTelegram.parse(bytes, bytes.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedTelegramIsRejected() throws IOException {
+        // ends within the grid feed-in energy
+        byte[] bytes = bytes(TELEGRAM);
+        EnergyMeterTelegram.parse(bytes, 0x40);
+    }
+
+    @Test(expected = IOException.class)
+    public void testEmptyDatagramIsRejected() throws IOException {
+        EnergyMeterTelegram.parse(new byte[0], 0);
+    }
+}
@@ -36,4 +36,8 @@ public class SMAEnergyMeterBindingConstants {
     public static final String CHANNEL_ENERGY_IN = "energyIn";
     public static final String CHANNEL_ENERGY_OUT = "energyOut";
 
+    // Default multicast group of the energy meters
+    public static final String DEFAULT_MCAST_GRP = "239.12.255.254";
+    public static final int DEFAULT_MCAST_PORT = 9522;
+
 }
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
@@ -22,6 +23,9 @@ import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.openhab.binding.smaenergymeter.internal.configuration.EnergyMeterConfig;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterListener;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterReceiverService;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterTelegram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,23 +33,48 @@ import org.slf4j.LoggerFactory;
  * The {@link SMAEnergyMeterHandler} is responsible for handling commands, which are
  * sent to one of the channels.
  *
+ * The telegrams of the energy meter are pushed by the shared {@link EnergyMeterReceiverService}. The channels are
+ * updated with every telegram, or once per polling period with the latest or the averaged power values.
+ *
  * @author Osman Basha - Initial contribution
  */
-public class SMAEnergyMeterHandler extends BaseThingHandler {
+public class SMAEnergyMeterHandler extends BaseThingHandler implements EnergyMeterListener {
 
-    private final Logger logger = LoggerFactory.getLogger(SMAEnergyMeterHandler.class);
-    private EnergyMeter energyMeter;
-    private ScheduledFuture<?> pollingJob;
+    private static final int RECEIVE_TIMEOUT_SECONDS = 5;
 
-    public SMAEnergyMeterHandler(Thing thing) {
+    private final Logger logger = LoggerFactory.getLogger(SMAEnergyMeterHandler.class);
+    private final EnergyMeterReceiverService receiverService;
+    private ScheduledFuture<?> watchdogJob;
+
+    private volatile String serialNumber;
+    private volatile boolean propertiesUpdated;
+    private volatile long lastTelegramTime;
+    private int pollingPeriod;
+    private boolean averagePower;
+
+    // Telegrams received within the current polling period, guarded by this
+    private EnergyMeterTelegram lastTelegram;
+    private double powerInSum;
+    private double powerOutSum;
+    private int telegramCount;
+    private long nextUpdateTime;
+
+    public SMAEnergyMeterHandler(Thing thing, EnergyMeterReceiverService receiverService) {
         super(thing);
+        this.receiverService = receiverService;
     }
 
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (command == RefreshType.REFRESH) {
             logger.debug("Refreshing {}", channelUID);
-            updateData();
+            EnergyMeterTelegram telegram;
+            synchronized (this) {
+                telegram = lastTelegram;
+            }
+            if (telegram != null) {
+                updateData(telegram.getPowerIn(), telegram.getPowerOut(), telegram);
+            }
         } else {
             logger.warn("This binding is a read-only binding and cannot handle commands");
         }
@@ -57,53 +86,109 @@ public class SMAEnergyMeterHandler extends BaseThingHandler {
 
         EnergyMeterConfig config = getConfigAs(EnergyMeterConfig.class);
 
-        int port = (config.getPort() == null) ? EnergyMeter.DEFAULT_MCAST_PORT : config.getPort();
-        energyMeter = new EnergyMeter(config.getMcastGroup(), port);
-        try {
-            energyMeter.update();
+        String multicastGroup = (config.getMcastGroup() == null) ? DEFAULT_MCAST_GRP : config.getMcastGroup();
+        int port = (config.getPort() == null) ? DEFAULT_MCAST_PORT : config.getPort();
+        pollingPeriod = (config.getPollingPeriod() == null) ? 30 : config.getPollingPeriod();
+        averagePower = Boolean.TRUE.equals(config.getAveragePower());
+        serialNumber = getThing().getProperties().get(Thing.PROPERTY_SERIAL_NUMBER);
+        propertiesUpdated = false;
+        synchronized (this) {
+            lastTelegram = null;
+            resetPeriod(0);
+        }
 
-            updateProperty(Thing.PROPERTY_VENDOR, "SMA");
-            updateProperty(Thing.PROPERTY_SERIAL_NUMBER, energyMeter.getSerialNumber());
-            logger.debug("Found a SMA Energy Meter with S/N '{}'", energyMeter.getSerialNumber());
+        // set before registering, so it does not replace the status set by the first telegram
+        updateStatus(ThingStatus.UNKNOWN);
+        try {
+            receiverService.register(multicastGroup, port, serialNumber, this);
         } catch (IOException e) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.CONFIGURATION_ERROR, e.getMessage());
             return;
         }
 
-        int pollingPeriod = (config.getPollingPeriod() == null) ? 30 : config.getPollingPeriod();
-        pollingJob = scheduler.scheduleWithFixedDelay(this::updateData, 0, pollingPeriod, TimeUnit.SECONDS);
-        logger.debug("Polling job scheduled to run every {} sec. for '{}'", pollingPeriod, getThing().getUID());
-
-        updateStatus(ThingStatus.ONLINE);
+        lastTelegramTime = System.currentTimeMillis();
+        watchdogJob = scheduler.scheduleWithFixedDelay(this::checkTelegrams, RECEIVE_TIMEOUT_SECONDS,
+                RECEIVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        logger.debug("Channels of '{}' are updated every {} sec.", getThing().getUID(), pollingPeriod);
     }
 
     @Override
     public void dispose() {
         logger.debug("Disposing SMAEnergyMeter handler '{}'", getThing().getUID());
 
-        if (pollingJob != null) {
-            pollingJob.cancel(true);
-            pollingJob = null;
+        receiverService.unregister(this);
+        if (watchdogJob != null) {
+            watchdogJob.cancel(true);
+            watchdogJob = null;
         }
-        energyMeter = null;
     }
 
-    private synchronized void updateData() {
-        logger.debug("Update SMAEnergyMeter data '{}'", getThing().getUID());
+    @Override
+    public void telegramReceived(EnergyMeterTelegram telegram) {
+        if (serialNumber == null) {
+            // Without a configured serial number the first energy meter found is used
+            serialNumber = telegram.getSerialNumber();
+        } else if (!serialNumber.equals(telegram.getSerialNumber())) {
+            return;
+        }
 
-        try {
-            energyMeter.update();
+        long now = System.currentTimeMillis();
+        lastTelegramTime = now;
 
-            updateState(CHANNEL_POWER_IN, energyMeter.getPowerIn());
-            updateState(CHANNEL_POWER_OUT, energyMeter.getPowerOut());
-            updateState(CHANNEL_ENERGY_IN, energyMeter.getEnergyIn());
-            updateState(CHANNEL_ENERGY_OUT, energyMeter.getEnergyOut());
+        if (!propertiesUpdated) {
+            propertiesUpdated = true;
+            updateProperty(Thing.PROPERTY_VENDOR, "SMA");
+            updateProperty(Thing.PROPERTY_SERIAL_NUMBER, serialNumber);
+            logger.debug("Found a SMA Energy Meter with S/N '{}'", serialNumber);
+        }
+        if (getThing().getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
 
-            if (getThing().getStatus().equals(ThingStatus.OFFLINE)) {
-                updateStatus(ThingStatus.ONLINE);
+        double powerIn;
+        double powerOut;
+        synchronized (this) {
+            lastTelegram = telegram;
+            powerInSum += telegram.getPowerIn();
+            powerOutSum += telegram.getPowerOut();
+            telegramCount++;
+            if (now < nextUpdateTime) {
+                return;
             }
-        } catch (IOException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, e.getMessage());
+
+            powerIn = averagePower ? powerInSum / telegramCount : telegram.getPowerIn();
+            powerOut = averagePower ? powerOutSum / telegramCount : telegram.getPowerOut();
+            // The next period starts at the deadline of this one, not at the arrival of the telegram. Otherwise the
+            // telegram arriving slightly before the deadline is missed, and the periods drift by a telegram interval.
+            long periodMillis = TimeUnit.SECONDS.toMillis(pollingPeriod);
+            long next = nextUpdateTime + periodMillis;
+            resetPeriod(next > now ? next : now + periodMillis);
+        }
+        updateData(powerIn, powerOut, telegram);
+    }
+
+    private void resetPeriod(long nextUpdateTime) {
+        this.nextUpdateTime = nextUpdateTime;
+        powerInSum = 0;
+        powerOutSum = 0;
+        telegramCount = 0;
+    }
+
+    private void updateData(double powerIn, double powerOut, EnergyMeterTelegram telegram) {
+        logger.debug("Update SMAEnergyMeter data '{}'", getThing().getUID());
+
+        updateState(CHANNEL_POWER_IN, new DecimalType(powerIn));
+        updateState(CHANNEL_POWER_OUT, new DecimalType(powerOut));
+        updateState(CHANNEL_ENERGY_IN, new DecimalType(telegram.getEnergyIn()));
+        updateState(CHANNEL_ENERGY_OUT, new DecimalType(telegram.getEnergyOut()));
+    }
+
+    private void checkTelegrams() {
+        long silence = System.currentTimeMillis() - lastTelegramTime;
+        if (silence > TimeUnit.SECONDS.toMillis(RECEIVE_TIMEOUT_SECONDS)
+                && getThing().getStatus() != ThingStatus.OFFLINE) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR,
+                    "No telegram received for " + TimeUnit.MILLISECONDS.toSeconds(silence) + " sec.");
         }
     }
 
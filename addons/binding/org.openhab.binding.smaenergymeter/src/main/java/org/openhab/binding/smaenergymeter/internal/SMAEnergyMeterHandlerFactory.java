@@ -16,7 +16,9 @@ import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerFactory;
 import org.openhab.binding.smaenergymeter.handler.SMAEnergyMeterHandler;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterReceiverService;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 /**
  * The {@link SMAEnergyMeterHandlerFactory} is responsible for creating things and thing
@@ -27,17 +29,28 @@ import org.osgi.service.component.annotations.Component;
 @Component(service = ThingHandlerFactory.class, configurationPid = "binding.smaenergymeter")
 public class SMAEnergyMeterHandlerFactory extends BaseThingHandlerFactory {
 
+    private EnergyMeterReceiverService receiverService;
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
     }
 
+    @Reference
+    protected void setEnergyMeterReceiverService(EnergyMeterReceiverService receiverService) {
+        this.receiverService = receiverService;
+    }
+
+    protected void unsetEnergyMeterReceiverService(EnergyMeterReceiverService receiverService) {
+        this.receiverService = null;
+    }
+
     @Override
     protected ThingHandler createHandler(Thing thing) {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (thingTypeUID.equals(THING_TYPE_ENERGY_METER)) {
-            return new SMAEnergyMeterHandler(thing);
+            return new SMAEnergyMeterHandler(thing, receiverService);
         }
 
         return null;
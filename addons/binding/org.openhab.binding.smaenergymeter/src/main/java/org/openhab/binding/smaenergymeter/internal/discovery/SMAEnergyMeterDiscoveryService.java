@@ -14,6 +14,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
@@ -23,8 +25,11 @@ import org.eclipse.smarthome.config.discovery.DiscoveryService;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
-import org.openhab.binding.smaenergymeter.handler.EnergyMeter;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterListener;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterReceiverService;
+import org.openhab.binding.smaenergymeter.internal.receiver.EnergyMeterTelegram;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,17 +37,37 @@ import org.slf4j.LoggerFactory;
  * The {@link SMAEnergyMeterDiscoveryService} class implements a service
  * for discovering the SMA Energy Meter.
  *
+ * The telegrams are received by the shared {@link EnergyMeterReceiverService} for a few seconds, every energy meter
+ * sending on the default multicast group is reported once per discovery.
+ *
  * @author Osman Basha - Initial contribution
  */
 @Component(service = DiscoveryService.class, immediate = true, configurationPid = "discovery.smaenergymeter")
 public class SMAEnergyMeterDiscoveryService extends AbstractDiscoveryService {
 
+    private static final int LISTEN_SECONDS = 5;
+
     private final Logger logger = LoggerFactory.getLogger(SMAEnergyMeterDiscoveryService.class);
 
+    private final EnergyMeterListener listener = this::telegramReceived;
+    private final Set<String> discoveredSerialNumbers = ConcurrentHashMap.newKeySet();
+    private EnergyMeterReceiverService receiverService;
+    private ScheduledFuture<?> stopListeningJob;
+
     public SMAEnergyMeterDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, 15, true);
     }
 
+    @Reference
+    protected void setEnergyMeterReceiverService(EnergyMeterReceiverService receiverService) {
+        this.receiverService = receiverService;
+    }
+
+    protected void unsetEnergyMeterReceiverService(EnergyMeterReceiverService receiverService) {
+        stopListening();
+        this.receiverService = null;
+    }
+
     @Override
     public Set<ThingTypeUID> getSupportedThingTypes() {
         return SUPPORTED_THING_TYPES_UIDS;
@@ -63,20 +88,49 @@ public class SMAEnergyMeterDiscoveryService extends AbstractDiscoveryService {
     private synchronized void discover() {
         logger.debug("Try to discover a SMA Energy Meter device");
 
-        EnergyMeter energyMeter = new EnergyMeter(EnergyMeter.DEFAULT_MCAST_GRP, EnergyMeter.DEFAULT_MCAST_PORT);
+        EnergyMeterReceiverService receiverService = this.receiverService;
+        if (receiverService == null) {
+            return;
+        }
         try {
-            energyMeter.update();
+            receiverService.register(DEFAULT_MCAST_GRP, DEFAULT_MCAST_PORT, null, listener);
         } catch (IOException e) {
             logger.debug("No SMA Energy Meter found.");
             logger.debug("Diagnostic: ", e);
             return;
         }
 
-        logger.debug("Adding a new SMA Engergy Meter with S/N '{}' to inbox", energyMeter.getSerialNumber());
+        if (stopListeningJob != null) {
+            stopListeningJob.cancel(false);
+        }
+        stopListeningJob = scheduler.schedule(this::stopListening, LISTEN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private synchronized void stopListening() {
+        if (stopListeningJob != null) {
+            stopListeningJob.cancel(false);
+            stopListeningJob = null;
+        }
+        if (receiverService != null) {
+            receiverService.unregister(listener);
+        }
+        if (discoveredSerialNumbers.isEmpty()) {
+            logger.debug("No SMA Energy Meter found.");
+        }
+        discoveredSerialNumbers.clear();
+    }
+
+    private void telegramReceived(EnergyMeterTelegram telegram) {
+        String serialNumber = telegram.getSerialNumber();
+        if (!discoveredSerialNumbers.add(serialNumber)) {
+            return;
+        }
+
+        logger.debug("Adding a new SMA Engergy Meter with S/N '{}' to inbox", serialNumber);
         Map<String, Object> properties = new HashMap<>();
         properties.put(Thing.PROPERTY_VENDOR, "SMA");
-        properties.put(Thing.PROPERTY_SERIAL_NUMBER, energyMeter.getSerialNumber());
-        ThingUID uid = new ThingUID(THING_TYPE_ENERGY_METER, energyMeter.getSerialNumber());
+        properties.put(Thing.PROPERTY_SERIAL_NUMBER, serialNumber);
+        ThingUID uid = new ThingUID(THING_TYPE_ENERGY_METER, serialNumber);
         DiscoveryResult result = DiscoveryResultBuilder.create(uid).withProperties(properties)
                 .withLabel("SMA Energy Meter").build();
         thingDiscovered(result);
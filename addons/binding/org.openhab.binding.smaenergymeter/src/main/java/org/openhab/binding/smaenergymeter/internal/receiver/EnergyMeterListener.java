@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.internal.receiver;
+
+/**
+ * The {@link EnergyMeterListener} is notified about the telegrams received from SMA Energy Meters.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@FunctionalInterface
+public interface EnergyMeterListener {
+
+    /**
+     * Called for each telegram of the energy meter, on the thread of the receiver. Must not block.
+     *
+     * @param telegram the received telegram
+     */
+    void telegramReceived(EnergyMeterTelegram telegram);
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.internal.receiver;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link EnergyMeterReceiver} keeps a multicast socket joined to one multicast group and port. Each received
+ * telegram is passed to the listeners registered for the serial number of the energy meter and to the listeners
+ * registered for all energy meters.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+class EnergyMeterReceiver implements Runnable {
+
+    private static final int BUFFER_SIZE = 600;
+    private static final int RETRY_DELAY_MS = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(EnergyMeterReceiver.class);
+
+    private final String multicastGroup;
+    private final int port;
+
+    private final Map<String, List<EnergyMeterListener>> listenersBySerialNumber = new ConcurrentHashMap<>();
+    private final List<EnergyMeterListener> listenersForAll = new CopyOnWriteArrayList<>();
+
+    private @Nullable MulticastSocket socket;
+    private volatile boolean running;
+
+    EnergyMeterReceiver(String multicastGroup, int port) {
+        this.multicastGroup = multicastGroup;
+        this.port = port;
+    }
+
+    void start() throws IOException {
+        MulticastSocket socket = new MulticastSocket(port);
+        try {
+            socket.joinGroup(InetAddress.getByName(multicastGroup));
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+        this.socket = socket;
+        running = true;
+
+        Thread thread = new Thread(this, "SMAEnergyMeter receiver " + multicastGroup + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+        logger.debug("Receiving telegrams of multicast group {}:{}", multicastGroup, port);
+    }
+
+    void stop() {
+        running = false;
+        MulticastSocket socket = this.socket;
+        if (socket != null) {
+            // unblocks the receiving thread
+            socket.close();
+        }
+        logger.debug("Stopped receiving telegrams of multicast group {}:{}", multicastGroup, port);
+    }
+
+    void addListener(@Nullable String serialNumber, EnergyMeterListener listener) {
+        List<EnergyMeterListener> listeners = serialNumber == null ? listenersForAll
+                : listenersBySerialNumber.computeIfAbsent(serialNumber, s -> new CopyOnWriteArrayList<>());
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    void removeListener(EnergyMeterListener listener) {
+        listenersForAll.remove(listener);
+        listenersBySerialNumber.values().forEach(listeners -> listeners.remove(listener));
+        listenersBySerialNumber.values().removeIf(List::isEmpty);
+    }
+
+    boolean hasListeners() {
+        return !listenersForAll.isEmpty() || !listenersBySerialNumber.isEmpty();
+    }
+
+    @Override
+    public void run() {
+        MulticastSocket socket = this.socket;
+        if (socket == null) {
+            return;
+        }
+
+        byte[] bytes = new byte[BUFFER_SIZE];
+        DatagramPacket packet = new DatagramPacket(bytes, bytes.length);
+        while (running) {
+            try {
+                packet.setLength(bytes.length);
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (running) {
+                    logger.debug("Receiving from multicast group {}:{} failed: {}", multicastGroup, port,
+                            e.getMessage());
+                    pause();
+                }
+                continue;
+            }
+
+            EnergyMeterTelegram telegram;
+            try {
+                telegram = EnergyMeterTelegram.parse(bytes, packet.getLength());
+            } catch (IOException e) {
+                logger.trace("Ignoring datagram from {}: {}", packet.getAddress(), e.getMessage());
+                continue;
+            }
+
+            List<EnergyMeterListener> listeners = listenersBySerialNumber.get(telegram.getSerialNumber());
+            if (listeners != null) {
+                notifyListeners(listeners, telegram);
+            }
+            notifyListeners(listenersForAll, telegram);
+        }
+    }
+
+    private void notifyListeners(List<EnergyMeterListener> listeners, EnergyMeterTelegram telegram) {
+        for (EnergyMeterListener listener : listeners) {
+            try {
+                listener.telegramReceived(telegram);
+            } catch (RuntimeException e) {
+                logger.warn("Listener failed to handle telegram {}", telegram, e);
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RETRY_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+}
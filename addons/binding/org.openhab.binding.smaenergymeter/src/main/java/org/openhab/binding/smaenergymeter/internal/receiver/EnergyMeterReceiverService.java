@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.internal.receiver;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * The {@link EnergyMeterReceiverService} shares one long-lived receiver per multicast group and port between all
+ * energy meter things and the discovery. The energy meters send a telegram about every second, which is pushed to
+ * the registered listeners instead of opening a socket for each poll.
+ *
+ * A receiver is started with the first listener of its multicast group and port and stopped when the last listener
+ * has been removed.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@Component(service = EnergyMeterReceiverService.class)
+public class EnergyMeterReceiverService {
+
+    private final Map<String, EnergyMeterReceiver> receivers = new HashMap<>();
+
+    /**
+     * Register a listener for the telegrams of an energy meter.
+     *
+     * @param multicastGroup IP address of the multicast group
+     * @param port port of the multicast group
+     * @param serialNumber serial number of the energy meter, or null for the telegrams of all energy meters
+     * @param listener the listener
+     * @throws IOException if the multicast group could not be joined
+     */
+    public synchronized void register(String multicastGroup, int port, @Nullable String serialNumber,
+            EnergyMeterListener listener) throws IOException {
+        String key = multicastGroup + ":" + port;
+        EnergyMeterReceiver receiver = receivers.get(key);
+        if (receiver == null) {
+            receiver = new EnergyMeterReceiver(multicastGroup, port);
+            receiver.start();
+            receivers.put(key, receiver);
+        }
+        receiver.addListener(serialNumber, listener);
+    }
+
+    /**
+     * Remove a listener from all receivers it has been registered to.
+     *
+     * @param listener the listener
+     */
+    public synchronized void unregister(EnergyMeterListener listener) {
+        for (Iterator<EnergyMeterReceiver> iterator = receivers.values().iterator(); iterator.hasNext();) {
+            EnergyMeterReceiver receiver = iterator.next();
+            receiver.removeListener(listener);
+            if (!receiver.hasListeners()) {
+                receiver.stop();
+                iterator.remove();
+            }
+        }
+    }
+
+    @Deactivate
+    public synchronized void deactivate() {
+        receivers.values().forEach(EnergyMeterReceiver::stop);
+        receivers.clear();
+    }
+
+}
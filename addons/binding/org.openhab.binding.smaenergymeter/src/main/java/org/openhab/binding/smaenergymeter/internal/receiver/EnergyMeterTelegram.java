@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.internal.receiver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@link EnergyMeterTelegram} class holds the data fields of a single telegram of a SMA Energy Meter.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class EnergyMeterTelegram {
+
+    private static final int SERIAL_NUMBER_ADDRESS = 0x14;
+    private static final int POWER_IN_ADDRESS = 0x20;
+    private static final int ENERGY_IN_ADDRESS = 0x28;
+    private static final int POWER_OUT_ADDRESS = 0x34;
+    private static final int ENERGY_OUT_ADDRESS = 0x3C;
+    private static final int MIN_LENGTH = ENERGY_OUT_ADDRESS + 8;
+
+    private static final double POWER_DIVISOR = 10;
+    private static final double ENERGY_DIVISOR = 3600000;
+
+    private final String serialNumber;
+    private final double powerIn;
+    private final double energyIn;
+    private final double powerOut;
+    private final double energyOut;
+
+    public EnergyMeterTelegram(String serialNumber, double powerIn, double energyIn, double powerOut,
+            double energyOut) {
+        this.serialNumber = serialNumber;
+        this.powerIn = powerIn;
+        this.energyIn = energyIn;
+        this.powerOut = powerOut;
+        this.energyOut = energyOut;
+    }
+
+    /**
+     * Extract the data fields out of a received datagram.
+     *
+     * @param bytes buffer holding the datagram
+     * @param length length of the datagram
+     * @return the telegram
+     * @throws IOException if the datagram is not a telegram of an energy meter
+     */
+    public static EnergyMeterTelegram parse(byte[] bytes, int length) throws IOException {
+        if (length < 3 || bytes[0] != 'S' || bytes[1] != 'M' || bytes[2] != 'A') {
+            throw new IOException("Not a SMA telegram.");
+        }
+        if (length < MIN_LENGTH) {
+            throw new IOException("SMA telegram too short: " + length + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        return new EnergyMeterTelegram(String.valueOf(buffer.getInt(SERIAL_NUMBER_ADDRESS)),
+                buffer.getInt(POWER_IN_ADDRESS) / POWER_DIVISOR, buffer.getLong(ENERGY_IN_ADDRESS) / ENERGY_DIVISOR,
+                buffer.getInt(POWER_OUT_ADDRESS) / POWER_DIVISOR, buffer.getLong(ENERGY_OUT_ADDRESS) / ENERGY_DIVISOR);
+    }
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    /**
+     * @return purchased power in W
+     */
+    public double getPowerIn() {
+        return powerIn;
+    }
+
+    /**
+     * @return purchased energy in kWh
+     */
+    public double getEnergyIn() {
+        return energyIn;
+    }
+
+    /**
+     * @return grid feed-in power in W
+     */
+    public double getPowerOut() {
+        return powerOut;
+    }
+
+    /**
+     * @return grid feed-in energy in kWh
+     */
+    public double getEnergyOut() {
+        return energyOut;
+    }
+
+    @Override
+    public String toString() {
+        return "EnergyMeterTelegram [serialNumber=" + serialNumber + ", powerIn=" + powerIn + ", energyIn="
+                + energyIn + ", powerOut=" + powerOut + ", energyOut=" + energyOut + "]";
+    }
+
+}
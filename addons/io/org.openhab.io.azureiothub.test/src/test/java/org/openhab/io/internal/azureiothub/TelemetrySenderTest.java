@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.internal.azureiothub;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
+import com.microsoft.azure.sdk.iot.service.Device;
+
+/**
+ * Tests for {@link TelemetrySender} with mocked devices, whose messages are acknowledged by the tests
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class TelemetrySenderTest {
+
+    private static final long TIMEOUT = 5000;
+    private static final long NOTHING_SENT_TIMEOUT = 300;
+    private static final long SHORT_ACK_TIMEOUT = 500;
+
+    /**
+     * A message sent with the mocked device
+     */
+    private static class SentMessage {
+        private final AzureEventCallback callback;
+        private final Object context;
+
+        SentMessage(AzureEventCallback callback, Object context) {
+            this.callback = callback;
+            this.context = context;
+        }
+
+        void acknowledge(IotHubStatusCode status) {
+            callback.execute(status, context);
+        }
+
+        TelemetrySender.TelemetryMessage getMessage() {
+            return ((TelemetrySender.Attempt) context).message;
+        }
+    }
+
+    private final BlockingQueue<SentMessage> sentMessages = new LinkedBlockingQueue<>();
+    private AzureDevices devices;
+    private ScheduledExecutorService scheduler;
+    private TelemetrySender sender;
+
+    @Before
+    public void setUp() throws Exception {
+        AzureDevice device = mock(AzureDevice.class);
+        doReturn(mock(Device.class)).when(device).getDevice();
+        doAnswer(invocation -> {
+            sentMessages.add(new SentMessage(invocation.getArgument(1), invocation.getArgument(2)));
+            return null;
+        }).when(device).sendMessage(any(), any(), any());
+        devices = mock(AzureDevices.class);
+        doReturn(device).when(devices).getDevice(anyString());
+
+        // sends and retries without waiting for the send interval and the backoff
+        scheduler = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                return super.schedule(command, 0, unit);
+            }
+        };
+        sender = new TelemetrySender(devices, scheduler, TelemetrySender.ACK_TIMEOUT);
+    }
+
+    @After
+    public void tearDown() {
+        sender.shutdown();
+        scheduler.shutdownNow();
+    }
+
+    private SentMessage nextSentMessage() throws InterruptedException {
+        SentMessage message = sentMessages.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull("message sent", message);
+        return message;
+    }
+
+    private void assertNothingSent() throws InterruptedException {
+        assertNull(sentMessages.poll(NOTHING_SENT_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testMessagesInFlightAreLimited() throws InterruptedException {
+        int states = TelemetrySender.MAX_MESSAGES_IN_FLIGHT + 5;
+        for (int i = 0; i < states; i++) {
+            sender.add("item" + i, "1");
+        }
+
+        SentMessage first = nextSentMessage();
+        for (int i = 1; i < TelemetrySender.MAX_MESSAGES_IN_FLIGHT; i++) {
+            nextSentMessage();
+        }
+        assertNothingSent();
+        assertEquals(TelemetrySender.MAX_MESSAGES_IN_FLIGHT, sender.getMessagesInFlight());
+        assertEquals(5, sender.getQueueDepth());
+
+        // the acknowledgement makes room for one more message
+        first.acknowledge(IotHubStatusCode.OK);
+        nextSentMessage();
+        assertNothingSent();
+        assertEquals(TelemetrySender.MAX_MESSAGES_IN_FLIGHT, sender.getMessagesInFlight());
+        assertEquals(4, sender.getQueueDepth());
+        assertEquals(1, sender.getSentDatapoints());
+        assertTrue(sender.getLastAckLatency() >= 0);
+        assertEquals(sender.getLastAckLatency(), sender.getAverageAckLatency());
+    }
+
+    @Test
+    public void testStateIsSentAgainAfterTransientStatus() throws InterruptedException {
+        sender.add("item", "1");
+        SentMessage first = nextSentMessage();
+        first.acknowledge(IotHubStatusCode.SERVER_BUSY);
+
+        SentMessage second = nextSentMessage();
+        assertSame(first.getMessage(), second.getMessage());
+        second.acknowledge(IotHubStatusCode.OK);
+
+        assertNothingSent();
+        assertEquals(1, sender.getSentDatapoints());
+        assertEquals(0, sender.getFailedDatapoints());
+        assertEquals(0, sender.getMessagesInFlight());
+    }
+
+    @Test
+    public void testSendingGivesUpAfterMaxAttempts() throws InterruptedException {
+        sender.add("item", "1");
+        for (int attempt = 1; attempt <= TelemetrySender.MAX_ATTEMPTS; attempt++) {
+            nextSentMessage().acknowledge(IotHubStatusCode.THROTTLED);
+        }
+
+        assertNothingSent();
+        assertEquals(0, sender.getSentDatapoints());
+        assertEquals(1, sender.getFailedDatapoints());
+        assertEquals(0, sender.getMessagesInFlight());
+
+        // the state has not been sent, so it is sent with the next update even though it has not changed
+        sender.add("item", "1");
+        nextSentMessage().acknowledge(IotHubStatusCode.OK);
+        assertNothingSent();
+        assertEquals(1, sender.getSentDatapoints());
+    }
+
+    @Test
+    public void testRejectedStateIsNotRetried() throws InterruptedException {
+        sender.add("item", "1");
+        nextSentMessage().acknowledge(IotHubStatusCode.BAD_FORMAT);
+
+        assertNothingSent();
+        assertEquals(1, sender.getFailedDatapoints());
+
+        sender.add("item", "1");
+        nextSentMessage();
+    }
+
+    @Test
+    public void testUnchangedStateIsNotSentAgain() throws InterruptedException {
+        sender.add("item", "1");
+        nextSentMessage().acknowledge(IotHubStatusCode.OK);
+
+        sender.add("item", "1");
+        assertNothingSent();
+        assertEquals(0, sender.getQueueDepth());
+    }
+
+    @Test
+    public void testDroppedStateIsQueuedAgain() {
+        // never sends, so the queue fills up
+        ScheduledExecutorService idleScheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(idleScheduler).schedule(any(Runnable.class), anyLong(),
+                any(TimeUnit.class));
+        TelemetrySender idleSender = new TelemetrySender(devices, idleScheduler, TelemetrySender.ACK_TIMEOUT);
+
+        idleSender.add("dropped", "1");
+        for (int i = 0; i < TelemetrySender.QUEUE_SIZE; i++) {
+            idleSender.add("item" + i, "1");
+        }
+        assertEquals(TelemetrySender.QUEUE_SIZE, idleSender.getQueueDepth());
+        assertEquals(1, idleSender.getDroppedDatapoints());
+
+        // the dropped state is queued again, dropping the oldest queued one
+        idleSender.add("dropped", "1");
+        assertEquals(2, idleSender.getDroppedDatapoints());
+
+        // a queued state is not queued twice
+        idleSender.add("item" + (TelemetrySender.QUEUE_SIZE - 1), "1");
+        assertEquals(2, idleSender.getDroppedDatapoints());
+        assertEquals(TelemetrySender.QUEUE_SIZE, idleSender.getQueueDepth());
+    }
+
+    @Test
+    public void testUnacknowledgedMessageIsSentAgainAfterTimeout() throws InterruptedException {
+        sender.shutdown();
+        sender = new TelemetrySender(devices, scheduler, SHORT_ACK_TIMEOUT);
+
+        sender.add("item", "1");
+        SentMessage first = nextSentMessage();
+
+        // the SDK never calls back for the first attempt, so it gives up its place and the message is sent again
+        SentMessage second = nextSentMessage();
+        assertSame(first.getMessage(), second.getMessage());
+        assertEquals(1, sender.getMessagesInFlight());
+
+        // the late acknowledgement of the expired attempt is ignored
+        first.acknowledge(IotHubStatusCode.OK);
+        assertEquals(0, sender.getSentDatapoints());
+        assertEquals(1, sender.getMessagesInFlight());
+
+        second.acknowledge(IotHubStatusCode.OK);
+        assertNothingSent();
+        assertEquals(1, sender.getSentDatapoints());
+        assertEquals(0, sender.getMessagesInFlight());
+    }
+
+    @Test
+    public void testSendingGivesUpWithoutAcknowledgements() throws InterruptedException {
+        sender.shutdown();
+        sender = new TelemetrySender(devices, scheduler, SHORT_ACK_TIMEOUT);
+
+        sender.add("item", "1");
+        for (int attempt = 1; attempt <= TelemetrySender.MAX_ATTEMPTS; attempt++) {
+            nextSentMessage();
+        }
+
+        // the place of the last attempt is freed as well, even though it is not sent again
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (sender.getFailedDatapoints() == 0) {
+            assertTrue("Message did not fail", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(0, sender.getMessagesInFlight());
+        assertNothingSent();
+    }
+}
@@ -44,7 +44,7 @@ public class AzureDevices {
         this.registryManager = RegistryManager.createFromConnectionString(this.connectionstring);
     }
 
-    public AzureDevice getDevice(String deviceId) throws URISyntaxException, IOException, IotHubException,
+    public synchronized AzureDevice getDevice(String deviceId) throws URISyntaxException, IOException, IotHubException,
             JsonSyntaxException, IllegalArgumentException, NoSuchAlgorithmException {
         AzureDevice device = map.get(deviceId);
 
@@ -15,7 +15,8 @@ import com.microsoft.azure.sdk.iot.device.IotHubEventCallback;
 import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
 
 /**
- * This triggered in case of cloud to device communication
+ * This is triggered when the IoT Hub has responded to a telemetry message, it passes the response on to the
+ * {@link TelemetrySender}
  *
  * @author Niko Tanghe - Initial contribution
  * @author Kai Kreuzer - code cleanup
@@ -24,14 +25,18 @@ import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
 public class AzureEventCallback implements IotHubEventCallback {
     private final Logger logger = LoggerFactory.getLogger(AzureEventCallback.class);
 
+    private final TelemetrySender sender;
+
+    public AzureEventCallback(TelemetrySender sender) {
+        this.sender = sender;
+    }
+
     @Override
     public void execute(IotHubStatusCode status, Object context) {
         logger.debug("IoT Hub responded to message with status {}", status.name());
 
-        if (context != null) {
-            synchronized (context) {
-                context.notify();
-            }
+        if (context instanceof TelemetrySender.Attempt) {
+            sender.acknowledged((TelemetrySender.Attempt) context, status);
         }
     }
 }
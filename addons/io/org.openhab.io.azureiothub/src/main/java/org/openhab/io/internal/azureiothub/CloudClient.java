@@ -19,13 +19,9 @@ import org.eclipse.smarthome.core.library.types.StringType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.PartitionReceiver;
-import com.microsoft.azure.sdk.iot.device.Message;
-import com.microsoft.azure.sdk.iot.service.Device;
 import com.microsoft.azure.servicebus.ServiceBusException;
 
 /**
@@ -40,9 +36,6 @@ import com.microsoft.azure.servicebus.ServiceBusException;
 
 public class CloudClient {
 
-    private static final String DATAPOINT_VALUE = "value";
-    private static final String DATAPOINT_DEVICE_ID = "deviceId";
-
     private final Logger logger = LoggerFactory.getLogger(CloudClient.class);
 
     private String connectionstring;
@@ -50,9 +43,8 @@ public class CloudClient {
     private EventPublisher eventPublisher;
 
     private AzureDevices azureDeviceStore;
+    private TelemetrySender telemetrySender;
     private EventHubClient azureClient;
-    private Object lockobj = new Object();
-    private Gson gson = new Gson();
 
     /**
      * Constructor of CloudClient
@@ -70,51 +62,32 @@ public class CloudClient {
         this.eventPublisher = eventPublisher;
 
         azureDeviceStore = new AzureDevices(this.connectionstring);
+        telemetrySender = new TelemetrySender(azureDeviceStore);
 
         if (this.commandEnabled) {
             azureClient = receiveMessages("0");
         }
     }
 
+    /**
+     * Queues an item state to be sent to the IoT Hub, does not block
+     *
+     * @param deviceId the id of the device, which is the name of the item
+     * @param state the new state
+     */
     public void sendItemUpdate(String deviceId, String state) {
-        AzureDevice device;
-        try {
-            device = azureDeviceStore.getDevice(deviceId);
-        } catch (Exception e) {
-            logger.error("Failed to obtain azure device", e);
-            return;
-        }
-
-        setItemState(device, state);
+        telemetrySender.add(deviceId, state);
     }
 
-    private void setItemState(AzureDevice azureDevice, String state) {
-        AzureEventCallback callback = new AzureEventCallback();
-
-        Device device = azureDevice.getDevice();
-        if (device == null) {
-            logger.error("Invalid device connection for device, can not send item state update");
-            return;
-        }
-
-        JsonObject datapoint = new JsonObject();
-        datapoint.addProperty(DATAPOINT_DEVICE_ID, device.getDeviceId());
-        datapoint.addProperty(DATAPOINT_VALUE, state);
-
-        Message msg = new Message(gson.toJson(datapoint));
-
-        azureDevice.sendMessage(msg, callback, lockobj);
-
-        synchronized (lockobj) {
-            try {
-                lockobj.wait();
-            } catch (InterruptedException e) {
-                // done
-            }
-        }
+    /**
+     * @return the sender of the item states, which provides the telemetry statistics
+     */
+    public TelemetrySender getTelemetrySender() {
+        return telemetrySender;
     }
 
     public void shutdown() {
+        telemetrySender.shutdown();
         if (azureClient != null) {
             try {
                 azureClient.closeSync();
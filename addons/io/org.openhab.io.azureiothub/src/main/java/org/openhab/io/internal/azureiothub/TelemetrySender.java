@@ -0,0 +1,501 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.internal.azureiothub;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
+import com.microsoft.azure.sdk.iot.device.Message;
+
+/**
+ * Sends the item states as telemetry to the Azure IoT Hub, without blocking the caller.
+ *
+ * The states are queued in a bounded buffer, which drops the oldest states when it is full. Every
+ * {@link #SEND_INTERVAL} milliseconds the queued states are sent by a thread pool, the states of one device (item) are
+ * sent as one message with up to {@link #MAX_DATAPOINTS_PER_MESSAGE} datapoints. Messages, which are not acknowledged
+ * by the IoT Hub, are sent again with an exponential backoff.
+ *
+ * At most {@link #MAX_MESSAGES_IN_FLIGHT} messages, including the ones sent again, wait for their acknowledgement at
+ * the same time. The states, which do not fit, stay queued until messages are acknowledged. A message, which is not
+ * acknowledged within {@link #ACK_TIMEOUT} milliseconds, gives up its place and is sent again like a message the IoT
+ * Hub has not accepted, its acknowledgement is ignored when it arrives later.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class TelemetrySender {
+
+    private static final String DATAPOINT_VALUE = "value";
+    private static final String DATAPOINT_DEVICE_ID = "deviceId";
+    private static final String DATAPOINT_TIMESTAMP = "timestamp";
+
+    private static final String THREADPOOL_NAME = "azureiothub";
+
+    static final int QUEUE_SIZE = 1000;
+    private static final long SEND_INTERVAL = 1000;
+    private static final int MAX_DATAPOINTS_PER_MESSAGE = 50;
+    static final int MAX_MESSAGES_IN_FLIGHT = 20;
+    static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF = 1000;
+    private static final long MAX_BACKOFF = 60000;
+    private static final long STATISTICS_INTERVAL = 60000;
+    // longer than the SDK waits for the acknowledgement of a message, so normally it reports the expiry itself
+    static final long ACK_TIMEOUT = 300000;
+    private static final long ACK_CHECK_INTERVAL = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(TelemetrySender.class);
+
+    private final AzureDevices azureDeviceStore;
+    private final AzureEventCallback callback = new AzureEventCallback(this);
+    private final ScheduledExecutorService scheduler;
+    private final Gson gson = new Gson();
+
+    private final BlockingQueue<Datapoint> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    // the last state queued for each item, unchanged states are not sent again unless sending has failed
+    private final Map<String, String> lastStates = new ConcurrentHashMap<>();
+    // messages to be sent again, whose backoff has elapsed
+    private final Queue<TelemetryMessage> retries = new ArrayDeque<>();
+    // the attempts to send a message, which wait for their acknowledgement
+    private final Set<Attempt> unacknowledged = ConcurrentHashMap.newKeySet();
+    private final long ackTimeout;
+
+    private ScheduledFuture<?> sendJob;
+    private final ScheduledFuture<?> statisticsJob;
+    private final ScheduledFuture<?> ackTimeoutJob;
+    private boolean waitingForAcknowledgements;
+    private volatile boolean running = true;
+
+    private final AtomicInteger messagesInFlight = new AtomicInteger();
+    private final AtomicLong sentDatapoints = new AtomicLong();
+    private final AtomicLong droppedDatapoints = new AtomicLong();
+    private final AtomicLong failedDatapoints = new AtomicLong();
+    private final AtomicLong acknowledgements = new AtomicLong();
+    private final AtomicLong totalAckLatency = new AtomicLong();
+    private volatile long lastAckLatency;
+
+    private static class Datapoint {
+        final String deviceId;
+        final String state;
+        final Instant timestamp = Instant.now();
+
+        Datapoint(String deviceId, String state) {
+            this.deviceId = deviceId;
+            this.state = state;
+        }
+    }
+
+    /**
+     * The datapoints of one device, sent as one message
+     */
+    static class TelemetryMessage {
+        final String deviceId;
+        final String body;
+        final int datapoints;
+        final String lastState;
+        int attempts;
+
+        TelemetryMessage(String deviceId, String body, int datapoints, String lastState) {
+            this.deviceId = deviceId;
+            this.body = body;
+            this.datapoints = datapoints;
+            this.lastState = lastState;
+        }
+    }
+
+    /**
+     * One attempt to send a message, passed to the SDK as context of its acknowledgement, so that a late
+     * acknowledgement of an expired attempt is not taken for the one of the next attempt
+     */
+    static class Attempt {
+        final TelemetryMessage message;
+        final long sentAt = System.nanoTime();
+
+        Attempt(TelemetryMessage message) {
+            this.message = message;
+        }
+    }
+
+    public TelemetrySender(AzureDevices azureDeviceStore) {
+        this(azureDeviceStore, ThreadPoolManager.getScheduledPool(THREADPOOL_NAME), ACK_TIMEOUT);
+    }
+
+    /**
+     * For testing
+     *
+     * @param azureDeviceStore the devices the telemetry is sent with
+     * @param scheduler scheduler sending the states and the retries
+     * @param ackTimeout milliseconds after which a message without acknowledgement is sent again
+     */
+    TelemetrySender(AzureDevices azureDeviceStore, ScheduledExecutorService scheduler, long ackTimeout) {
+        this.azureDeviceStore = azureDeviceStore;
+        this.scheduler = scheduler;
+        this.ackTimeout = ackTimeout;
+        statisticsJob = scheduler.scheduleWithFixedDelay(this::logStatistics, STATISTICS_INTERVAL, STATISTICS_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        long ackCheckInterval = Math.min(ackTimeout, ACK_CHECK_INTERVAL);
+        ackTimeoutJob = scheduler.scheduleWithFixedDelay(this::expireUnacknowledged, ackCheckInterval,
+                ackCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the state of an item, unless it is the same as the last state of the item
+     *
+     * @param deviceId the id of the device, which is the name of the item
+     * @param state the new state
+     */
+    public void add(String deviceId, String state) {
+        if (!running || state.equals(lastStates.put(deviceId, state))) {
+            return;
+        }
+        Datapoint datapoint = new Datapoint(deviceId, state);
+        synchronized (queue) {
+            while (!queue.offer(datapoint)) {
+                Datapoint dropped = queue.poll();
+                if (dropped != null) {
+                    droppedDatapoints.incrementAndGet();
+                    lastStates.remove(dropped.deviceId, dropped.state);
+                    logger.debug("Telemetry queue is full, dropping state '{}' of device {}", dropped.state,
+                            dropped.deviceId);
+                }
+            }
+        }
+        scheduleSend(queue.size() >= MAX_DATAPOINTS_PER_MESSAGE * MAX_MESSAGES_IN_FLIGHT ? 0 : SEND_INTERVAL);
+    }
+
+    private synchronized void scheduleSend(long delay) {
+        if (!running || waitingForAcknowledgements) {
+            return;
+        }
+        // a job which is already running cannot be cancelled, but sends the new states as well
+        if (sendJob == null || (delay == 0 && sendJob.cancel(false))) {
+            sendJob = scheduler.schedule(this::send, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void send() {
+        List<TelemetryMessage> messages = new ArrayList<>();
+        synchronized (this) {
+            sendJob = null;
+            int capacity = MAX_MESSAGES_IN_FLIGHT - messagesInFlight.get();
+            while (messages.size() < capacity && !retries.isEmpty()) {
+                messages.add(retries.poll());
+            }
+            createMessages(capacity - messages.size(), messages);
+            // the messages count as in flight from now on, so concurrent sends do not exceed the limit
+            messagesInFlight.addAndGet(messages.size());
+            // resumed by the acknowledgements of the messages in flight
+            waitingForAcknowledgements = messagesInFlight.get() >= MAX_MESSAGES_IN_FLIGHT;
+            if (waitingForAcknowledgements) {
+                logger.debug("{} telemetry messages are not acknowledged yet, {} datapoints are queued",
+                        messagesInFlight.get(), queue.size());
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        logger.debug("Sending {} telemetry messages, queue depth {}, messages in flight {}, average ack latency {} ms",
+                messages.size(), queue.size(), messagesInFlight.get(), getAverageAckLatency());
+
+        for (TelemetryMessage message : messages) {
+            submit(message);
+        }
+    }
+
+    /**
+     * Creates up to the given number of messages from the queued datapoints, the datapoints of one device are sent
+     * together. The datapoints, which do not fit, stay queued in their order.
+     */
+    private void createMessages(int count, List<TelemetryMessage> messages) {
+        if (count <= 0) {
+            return;
+        }
+        synchronized (queue) {
+            List<Datapoint> datapoints = new ArrayList<>(queue.size());
+            queue.drainTo(datapoints);
+            Map<String, List<Datapoint>> devices = new LinkedHashMap<>();
+            for (Datapoint datapoint : datapoints) {
+                devices.computeIfAbsent(datapoint.deviceId, id -> new ArrayList<>()).add(datapoint);
+            }
+
+            Set<Datapoint> taken = new HashSet<>();
+            for (List<Datapoint> deviceDatapoints : devices.values()) {
+                for (int from = 0; from < deviceDatapoints.size() && count > 0; from += MAX_DATAPOINTS_PER_MESSAGE) {
+                    List<Datapoint> messageDatapoints = deviceDatapoints.subList(from,
+                            Math.min(from + MAX_DATAPOINTS_PER_MESSAGE, deviceDatapoints.size()));
+                    messages.add(createMessage(messageDatapoints));
+                    taken.addAll(messageDatapoints);
+                    count--;
+                }
+            }
+
+            if (taken.size() < datapoints.size()) {
+                for (Datapoint datapoint : datapoints) {
+                    if (!taken.contains(datapoint)) {
+                        queue.offer(datapoint);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the message of a device, a single datapoint is sent as JSON object, several ones as JSON array
+     */
+    private TelemetryMessage createMessage(List<Datapoint> datapoints) {
+        String deviceId = datapoints.get(0).deviceId;
+        String lastState = datapoints.get(datapoints.size() - 1).state;
+        if (datapoints.size() == 1) {
+            return new TelemetryMessage(deviceId, gson.toJson(toJson(datapoints.get(0))), 1, lastState);
+        }
+        JsonArray array = new JsonArray();
+        for (Datapoint datapoint : datapoints) {
+            array.add(toJson(datapoint));
+        }
+        return new TelemetryMessage(deviceId, gson.toJson(array), datapoints.size(), lastState);
+    }
+
+    private JsonObject toJson(Datapoint datapoint) {
+        JsonObject json = new JsonObject();
+        json.addProperty(DATAPOINT_DEVICE_ID, datapoint.deviceId);
+        json.addProperty(DATAPOINT_VALUE, datapoint.state);
+        json.addProperty(DATAPOINT_TIMESTAMP, datapoint.timestamp.toString());
+        return json;
+    }
+
+    /**
+     * Sends a message, which has already been counted as in flight
+     */
+    private void submit(TelemetryMessage message) {
+        if (!running) {
+            messagesInFlight.decrementAndGet();
+            return;
+        }
+        message.attempts++;
+        AzureDevice device;
+        try {
+            device = azureDeviceStore.getDevice(message.deviceId);
+        } catch (Exception e) {
+            logger.warn("Failed to obtain azure device {}: {}", message.deviceId, e.getMessage());
+            finished();
+            retry(message);
+            return;
+        }
+        if (device.getDevice() == null) {
+            logger.error("Invalid device connection for device {}, can not send item state update",
+                    message.deviceId);
+            finished();
+            failed(message);
+            return;
+        }
+        Message msg = new Message(message.body);
+        Attempt attempt = new Attempt(message);
+        unacknowledged.add(attempt);
+        try {
+            device.sendMessage(msg, callback, attempt);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send telemetry of device {}: {}", message.deviceId, e.getMessage());
+            if (unacknowledged.remove(attempt)) {
+                finished();
+                retry(message);
+            }
+        }
+    }
+
+    /**
+     * Called by the {@link AzureEventCallback}, when the IoT Hub has responded to a message
+     */
+    void acknowledged(Attempt attempt, IotHubStatusCode status) {
+        TelemetryMessage message = attempt.message;
+        // the attempt may have expired already, then it has given up its place and is sent again
+        if (!unacknowledged.remove(attempt)) {
+            logger.debug("Ignoring late acknowledgement of telemetry of device {} with status {}", message.deviceId,
+                    status);
+            return;
+        }
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attempt.sentAt);
+        lastAckLatency = latency;
+        totalAckLatency.addAndGet(latency);
+        acknowledgements.incrementAndGet();
+        finished();
+
+        switch (status) {
+            case OK:
+            case OK_EMPTY:
+                sentDatapoints.addAndGet(message.datapoints);
+                break;
+            case BAD_FORMAT:
+            case UNAUTHORIZED:
+            case TOO_MANY_DEVICES:
+            case HUB_OR_DEVICE_ID_NOT_FOUND:
+            case PRECONDITION_FAILED:
+            case REQUEST_ENTITY_TOO_LARGE:
+                logger.warn("IoT Hub rejected telemetry of device {} with status {}", message.deviceId, status);
+                failed(message);
+                break;
+            default:
+                retry(message);
+                break;
+        }
+    }
+
+    /**
+     * Frees the place of a message in flight and resumes sending, if it has waited for it
+     */
+    private void finished() {
+        // decremented under the lock, so a concurrent send either uses the free place or leaves sending waiting for it
+        synchronized (this) {
+            messagesInFlight.decrementAndGet();
+            if (waitingForAcknowledgements && messagesInFlight.get() < MAX_MESSAGES_IN_FLIGHT) {
+                waitingForAcknowledgements = false;
+                if (!queue.isEmpty() || !retries.isEmpty()) {
+                    scheduleSend(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Frees the places of the messages, which have not been acknowledged within the timeout, and sends them again
+     */
+    private void expireUnacknowledged() {
+        long now = System.nanoTime();
+        for (Attempt attempt : unacknowledged) {
+            if (TimeUnit.NANOSECONDS.toMillis(now - attempt.sentAt) >= ackTimeout && unacknowledged.remove(attempt)) {
+                logger.debug("Telemetry of device {} has not been acknowledged within {} ms",
+                        attempt.message.deviceId, ackTimeout);
+                finished();
+                retry(attempt.message);
+            }
+        }
+    }
+
+    private void failed(TelemetryMessage message) {
+        failedDatapoints.addAndGet(message.datapoints);
+        // the next update of the item is sent, even if its state has not changed
+        lastStates.remove(message.deviceId, message.lastState);
+    }
+
+    private void retry(TelemetryMessage message) {
+        if (!running) {
+            return;
+        }
+        if (message.attempts >= MAX_ATTEMPTS) {
+            logger.warn("Failed to send telemetry of device {} after {} attempts", message.deviceId,
+                    message.attempts);
+            failed(message);
+            return;
+        }
+        long backoff = Math.min(INITIAL_BACKOFF << (message.attempts - 1), MAX_BACKOFF);
+        logger.debug("Sending telemetry of device {} again in {} ms", message.deviceId, backoff);
+        scheduler.schedule(() -> {
+            // sent with the queued states, as soon as there is room for another message in flight
+            synchronized (this) {
+                retries.add(message);
+            }
+            scheduleSend(0);
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
+
+    private void logStatistics() {
+        logger.debug("Telemetry: {} datapoints sent, {} dropped, {} failed, queue depth {}, messages in flight {}, "
+                + "last ack latency {} ms, average ack latency {} ms", sentDatapoints.get(), droppedDatapoints.get(),
+                failedDatapoints.get(), queue.size(), messagesInFlight.get(), lastAckLatency, getAverageAckLatency());
+    }
+
+    /**
+     * Sends the queued states, as far as the limit of messages in flight allows, and stops sending
+     */
+    public void shutdown() {
+        statisticsJob.cancel(false);
+        ackTimeoutJob.cancel(false);
+        synchronized (this) {
+            if (sendJob != null) {
+                sendJob.cancel(false);
+                sendJob = null;
+            }
+            waitingForAcknowledgements = false;
+        }
+        send();
+        running = false;
+        logger.debug("Telemetry stopped, {} datapoints sent, {} dropped, {} failed", sentDatapoints.get(),
+                droppedDatapoints.get(), failedDatapoints.get());
+    }
+
+    /**
+     * @return number of states waiting to be sent
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of messages waiting for their acknowledgement
+     */
+    public int getMessagesInFlight() {
+        return messagesInFlight.get();
+    }
+
+    /**
+     * @return milliseconds from sending the last acknowledged message to its acknowledgement
+     */
+    public long getLastAckLatency() {
+        return lastAckLatency;
+    }
+
+    /**
+     * @return average milliseconds from sending a message to its acknowledgement, 0 if none has been acknowledged
+     */
+    public long getAverageAckLatency() {
+        long count = acknowledgements.get();
+        return count > 0 ? totalAckLatency.get() / count : 0;
+    }
+
+    /**
+     * @return number of states acknowledged by the IoT Hub
+     */
+    public long getSentDatapoints() {
+        return sentDatapoints.get();
+    }
+
+    /**
+     * @return number of states dropped, because the queue was full
+     */
+    public long getDroppedDatapoints() {
+        return droppedDatapoints.get();
+    }
+
+    /**
+     * @return number of states, which have been rejected or could not be sent
+     */
+    public long getFailedDatapoints() {
+        return failedDatapoints.get();
+    }
+}
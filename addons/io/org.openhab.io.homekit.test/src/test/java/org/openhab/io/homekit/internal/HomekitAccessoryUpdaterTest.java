@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.StateChangeListener;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
+
+/**
+ * Tests for {@link HomekitAccessoryUpdater}, the notification jobs are run by the tests
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class HomekitAccessoryUpdaterTest {
+
+    private static final int NOTIFICATION_DELAY = 250;
+
+    private final List<Runnable> notificationJobs = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private HomekitAccessoryUpdater updater;
+
+    @Before
+    public void setUp() {
+        scheduler = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            notificationJobs.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        updater = new HomekitAccessoryUpdater(scheduler);
+        updater.setNotificationDelay(NOTIFICATION_DELAY);
+    }
+
+    /**
+     * Subscribes to the item and returns the listener registered at the item
+     */
+    private StateChangeListener subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
+        ArgumentCaptor<StateChangeListener> listener = ArgumentCaptor.forClass(StateChangeListener.class);
+        updater.subscribe(item, callback);
+        verify(item).addStateChangeListener(listener.capture());
+        return listener.getValue();
+    }
+
+    private void change(StateChangeListener listener, GenericItem item) {
+        listener.stateChanged(item, mock(State.class), mock(State.class));
+    }
+
+    private void runNotificationJobs() {
+        List<Runnable> jobs = new ArrayList<>(notificationJobs);
+        notificationJobs.clear();
+        jobs.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testChangesWithinDelayAreNotifiedOnce() {
+        GenericItem item = mock(GenericItem.class);
+        HomekitCharacteristicChangeCallback callback = mock(HomekitCharacteristicChangeCallback.class);
+        StateChangeListener listener = subscribe(item, callback);
+
+        change(listener, item);
+        change(listener, item);
+        change(listener, item);
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq((long) NOTIFICATION_DELAY),
+                eq(TimeUnit.MILLISECONDS));
+        verify(callback, never()).changed();
+        runNotificationJobs();
+        verify(callback, times(1)).changed();
+
+        // the next change is notified with a new job
+        change(listener, item);
+        assertEquals(1, notificationJobs.size());
+        runNotificationJobs();
+        verify(callback, times(2)).changed();
+    }
+
+    @Test
+    public void testUpdatesAreNotNotified() {
+        GenericItem item = mock(GenericItem.class);
+        HomekitCharacteristicChangeCallback callback = mock(HomekitCharacteristicChangeCallback.class);
+        StateChangeListener listener = subscribe(item, callback);
+
+        listener.stateUpdated(item, mock(State.class));
+
+        assertTrue(notificationJobs.isEmpty());
+        verify(callback, never()).changed();
+    }
+
+    @Test
+    public void testChangesAreNotifiedInOrderOfFirstChange() {
+        GenericItem first = mock(GenericItem.class);
+        GenericItem second = mock(GenericItem.class);
+        HomekitCharacteristicChangeCallback firstCallback = mock(HomekitCharacteristicChangeCallback.class);
+        HomekitCharacteristicChangeCallback secondCallback = mock(HomekitCharacteristicChangeCallback.class);
+        StateChangeListener firstListener = subscribe(first, firstCallback);
+        StateChangeListener secondListener = subscribe(second, secondCallback);
+
+        change(secondListener, second);
+        change(firstListener, first);
+        change(secondListener, second);
+        runNotificationJobs();
+
+        InOrder inOrder = inOrder(firstCallback, secondCallback);
+        inOrder.verify(secondCallback).changed();
+        inOrder.verify(firstCallback).changed();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testChangeIsDroppedAfterUnsubscribe() {
+        GenericItem item = mock(GenericItem.class);
+        HomekitCharacteristicChangeCallback callback = mock(HomekitCharacteristicChangeCallback.class);
+        StateChangeListener listener = subscribe(item, callback);
+
+        change(listener, item);
+        updater.unsubscribe(item);
+        verify(item).removeStateChangeListener(listener);
+        runNotificationJobs();
+
+        verify(callback, never()).changed();
+    }
+
+    @Test
+    public void testChangeOfOldSubscriptionIsNotNotifiedToNewSubscription() {
+        GenericItem item = mock(GenericItem.class);
+        HomekitCharacteristicChangeCallback oldCallback = mock(HomekitCharacteristicChangeCallback.class);
+        StateChangeListener oldListener = subscribe(item, oldCallback);
+        updater.unsubscribe(item);
+
+        HomekitCharacteristicChangeCallback newCallback = mock(HomekitCharacteristicChangeCallback.class);
+        ArgumentCaptor<StateChangeListener> newListener = ArgumentCaptor.forClass(StateChangeListener.class);
+        updater.subscribe(item, newCallback);
+        verify(item, times(2)).addStateChangeListener(newListener.capture());
+
+        // a change delivered late to the removed listener
+        change(oldListener, item);
+        runNotificationJobs();
+        verify(oldCallback, never()).changed();
+        verify(newCallback, never()).changed();
+
+        change(newListener.getValue(), item);
+        runNotificationJobs();
+        verify(newCallback, times(1)).changed();
+    }
+
+    @Test
+    public void testPendingNotificationsAreCleared() {
+        GenericItem item = mock(GenericItem.class);
+        HomekitCharacteristicChangeCallback callback = mock(HomekitCharacteristicChangeCallback.class);
+        StateChangeListener listener = subscribe(item, callback);
+
+        change(listener, item);
+        updater.clearPendingNotifications();
+        runNotificationJobs();
+
+        verify(callback, never()).changed();
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.junit.Assert.*;
+
+import java.net.UnknownHostException;
+import java.util.Hashtable;
+
+import org.junit.Test;
+
+/**
+ * Tests for parsing the notification delay in {@link HomekitSettings}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class HomekitSettingsTest {
+
+    private static HomekitSettings settings(Object notificationDelay) throws UnknownHostException {
+        Hashtable<String, Object> properties = new Hashtable<>();
+        properties.put("networkInterface", "127.0.0.1");
+        if (notificationDelay != null) {
+            properties.put("notificationDelay", notificationDelay);
+        }
+        HomekitSettings settings = new HomekitSettings();
+        settings.fill(properties);
+        return settings;
+    }
+
+    @Test
+    public void testNotificationDelay() throws UnknownHostException {
+        assertEquals(100, settings(null).getNotificationDelay());
+        assertEquals(250, settings(250).getNotificationDelay());
+        assertEquals(250, settings("250").getNotificationDelay());
+    }
+
+    @Test
+    public void testNotificationDelayWithDecimals() throws UnknownHostException {
+        assertEquals(100, settings("100.0").getNotificationDelay());
+        assertEquals(250, settings(" 250.7 ").getNotificationDelay());
+    }
+
+    @Test
+    public void testInvalidNotificationDelayKeepsDefault() throws UnknownHostException {
+        assertEquals(100, settings("soon").getNotificationDelay());
+        assertEquals(100, settings("").getNotificationDelay());
+    }
+
+    @Test
+    public void testEqualsComparesNotificationDelay() throws UnknownHostException {
+        assertEquals(settings(250), settings("250"));
+        assertEquals(settings(250).hashCode(), settings("250").hashCode());
+        assertNotEquals(settings(250), settings(300));
+    }
+}
@@ -8,9 +8,17 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.StateChangeListener;
@@ -26,13 +34,46 @@ import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
  * Homekit library takes care of insuring only a single subscription exists for
  * each accessory.
  *
+ * Changes are not notified on the thread of the item event. The changed characteristics are marked dirty and
+ * notified together after the notification delay, so a characteristic changing several times within the delay
+ * (e.g. while a dimmer is ramping) is notified once, with its latest value. Characteristics, which have been
+ * unsubscribed by the Homekit clients meanwhile, are not notified.
+ *
  * @author Andy Lintner
  */
 public class HomekitAccessoryUpdater {
 
+    private static final String THREADPOOL_NAME = "homekit";
+
     private Logger logger = LoggerFactory.getLogger(HomekitAccessoryUpdater.class);
     private final ConcurrentMap<ItemKey, Subscription> subscriptionsByName = new ConcurrentHashMap<>();
 
+    private final ScheduledExecutorService scheduler;
+    // the dirty characteristics in the order of their first change, guarded by itself
+    private final Map<ItemKey, Subscription> dirtySubscriptions = new LinkedHashMap<>();
+    private ScheduledFuture<?> notificationJob;
+    private volatile int notificationDelay = 100;
+
+    public HomekitAccessoryUpdater() {
+        this(ThreadPoolManager.getScheduledPool(THREADPOOL_NAME));
+    }
+
+    /**
+     * For testing
+     *
+     * @param scheduler scheduler notifying the changes
+     */
+    HomekitAccessoryUpdater(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the time in milliseconds, for which changes are collected before they are notified
+     */
+    public void setNotificationDelay(int notificationDelay) {
+        this.notificationDelay = Math.max(notificationDelay, 0);
+    }
+
     public void subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
         subscribe(item, null, callback);
     }
@@ -50,7 +91,7 @@ public class HomekitAccessoryUpdater {
                 logger.error("Received duplicate subscription on {}", item.getName());
                 unsubscribe(item, key);
             }
-            Subscription subscription = (changedItem, oldState, newState) -> callback.changed();
+            Subscription subscription = new Subscription(itemKey, callback);
             item.addStateChangeListener(subscription);
             return subscription;
         });
@@ -64,20 +105,75 @@ public class HomekitAccessoryUpdater {
         if (item == null) {
             return;
         }
-        subscriptionsByName.computeIfPresent(new ItemKey(item, key), (k, v) -> {
+        ItemKey itemKey = new ItemKey(item, key);
+        subscriptionsByName.computeIfPresent(itemKey, (k, v) -> {
             item.removeStateChangeListener(v);
             return null;
         });
+        synchronized (dirtySubscriptions) {
+            dirtySubscriptions.remove(itemKey);
+        }
+    }
+
+    /**
+     * Drops the changes, which have not been notified yet
+     */
+    public void clearPendingNotifications() {
+        synchronized (dirtySubscriptions) {
+            dirtySubscriptions.clear();
+            if (notificationJob != null) {
+                notificationJob.cancel(false);
+                notificationJob = null;
+            }
+        }
+    }
+
+    private void markDirty(Subscription subscription) {
+        synchronized (dirtySubscriptions) {
+            // re-inserting keeps the position, a dirty characteristic is notified once
+            dirtySubscriptions.put(subscription.itemKey, subscription);
+            if (notificationJob == null) {
+                notificationJob = scheduler.schedule(this::notifyChanges, notificationDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void notifyChanges() {
+        List<Subscription> changed;
+        synchronized (dirtySubscriptions) {
+            notificationJob = null;
+            changed = new ArrayList<>(dirtySubscriptions.values());
+            dirtySubscriptions.clear();
+        }
+        for (Subscription subscription : changed) {
+            // the Homekit library reads the current value of the characteristic when notified
+            if (subscriptionsByName.get(subscription.itemKey) == subscription) {
+                try {
+                    subscription.callback.changed();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not notify change of {}: {}", subscription.itemKey.item.getName(),
+                            e.getMessage());
+                }
+            }
+        }
     }
 
-    @FunctionalInterface
-    private static interface Subscription extends StateChangeListener {
+    private class Subscription implements StateChangeListener {
+        private final ItemKey itemKey;
+        private final HomekitCharacteristicChangeCallback callback;
+
+        Subscription(ItemKey itemKey, HomekitCharacteristicChangeCallback callback) {
+            this.itemKey = itemKey;
+            this.callback = callback;
+        }
 
         @Override
-        void stateChanged(Item item, State oldState, State newState);
+        public void stateChanged(Item item, State oldState, State newState) {
+            markDirty(this);
+        }
 
         @Override
-        default void stateUpdated(Item item, State state) {
+        public void stateUpdated(Item item, State state) {
             // Do nothing on non-change update
         }
     }
@@ -67,6 +67,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public synchronized void clearAccessories() {
         accessoryRegistry.clear();
+        updater.clearPendingNotifications();
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
@@ -85,6 +86,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public void setSettings(HomekitSettings settings) {
         this.settings = settings;
+        updater.setNotificationDelay(settings.getNotificationDelay());
     }
 
     public void stop() {
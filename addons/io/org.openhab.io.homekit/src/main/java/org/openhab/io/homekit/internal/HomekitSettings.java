@@ -8,6 +8,7 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Dictionary;
@@ -38,6 +39,7 @@ public class HomekitSettings {
     private String thermostatCoolMode = "CoolOn";
     private String thermostatAutoMode = "Auto";
     private String thermostatOffMode = "Off";
+    private int notificationDelay = 100;
     private InetAddress networkInterface;
 
     private final Logger logger = LoggerFactory.getLogger(HomekitSettings.class);
@@ -78,6 +80,15 @@ public class HomekitSettings {
         this.thermostatCoolMode = (String) properties.get("thermostatCoolMode");
         this.thermostatAutoMode = (String) properties.get("thermostatAutoMode");
         this.thermostatOffMode = (String) properties.get("thermostatOffMode");
+        Object notificationDelay = properties.get("notificationDelay");
+        if (notificationDelay != null) {
+            try {
+                // a value from a .cfg file may be given with decimals, like "100.0"
+                this.notificationDelay = new BigDecimal(notificationDelay.toString().trim()).intValue();
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid notificationDelay '{}', using {} ms", notificationDelay, this.notificationDelay);
+            }
+        }
 
         String networkInterface = (String) properties.get("networkInterface");
         if (networkInterface == null) {
@@ -148,6 +159,10 @@ public class HomekitSettings {
         return thermostatOffMode;
     }
 
+    public int getNotificationDelay() {
+        return notificationDelay;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -157,6 +172,7 @@ public class HomekitSettings {
         result = prime * result + (int) (temp ^ (temp >>> 32));
         temp = Double.doubleToLongBits(minimumTemperature);
         result = prime * result + (int) (temp ^ (temp >>> 32));
+        result = prime * result + notificationDelay;
         result = prime * result + ((pin == null) ? 0 : pin.hashCode());
         result = prime * result + port;
         result = prime * result + ((thermostatAutoMode == null) ? 0 : thermostatAutoMode.hashCode());
@@ -185,6 +201,9 @@ public class HomekitSettings {
         if (Double.doubleToLongBits(minimumTemperature) != Double.doubleToLongBits(other.minimumTemperature)) {
             return false;
         }
+        if (notificationDelay != other.notificationDelay) {
+            return false;
+        }
         if (pin == null) {
             if (other.pin != null) {
                 return false;
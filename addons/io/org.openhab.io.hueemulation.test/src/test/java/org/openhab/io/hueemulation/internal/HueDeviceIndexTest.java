@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.library.items.ColorItem;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link HueDeviceIndex}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class HueDeviceIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Item> items = new ArrayList<>();
+    private ItemRegistry itemRegistry;
+    private File itemFile;
+    private HueDeviceIndex index;
+
+    @Before
+    public void setUp() {
+        itemRegistry = mock(ItemRegistry.class);
+        when(itemRegistry.getItems()).thenReturn(items);
+        itemFile = new File(folder.getRoot(), "hueemulation/items.json");
+        index = new HueDeviceIndex(itemFile);
+    }
+
+    private static <T extends GenericItem> T tagged(T item, String... tags) {
+        item.addTags(tags);
+        item.setLabel("Label of " + item.getName());
+        return item;
+    }
+
+    @Test
+    public void testOnlyTaggedItemsAreDevices() {
+        SwitchItem light = tagged(new SwitchItem("light"), "Lighting");
+        SwitchItem untagged = tagged(new SwitchItem("untagged"));
+        ColorItem color = tagged(new ColorItem("color"), "Switchable");
+        items.addAll(Arrays.asList(light, untagged, color));
+
+        index.start(itemRegistry);
+
+        assertEquals(Arrays.asList(1, 2), new ArrayList<>(index.getIds()));
+        assertSame(light, index.getItem(1));
+        assertSame(color, index.getItem(2));
+        assertNull(index.getItem(3));
+        assertEquals("Label of color", index.getDevice(2).name);
+        assertNull(index.getDevice(3));
+        verify(itemRegistry).addRegistryChangeListener(index);
+    }
+
+    @Test
+    public void testIdsArePersisted() {
+        items.add(tagged(new SwitchItem("first"), "Lighting"));
+        items.add(tagged(new SwitchItem("second"), "Lighting"));
+        index.start(itemRegistry);
+        assertTrue(itemFile.exists());
+
+        // the ids are kept, although the registry lists the items in another order
+        Collections.reverse(items);
+        HueDeviceIndex restarted = new HueDeviceIndex(itemFile);
+        restarted.start(itemRegistry);
+
+        assertEquals("first", restarted.getItem(1).getName());
+        assertEquals("second", restarted.getItem(2).getName());
+    }
+
+    @Test
+    public void testItemsRemovedWhileStoppedAreDropped() {
+        SwitchItem first = tagged(new SwitchItem("first"), "Lighting");
+        items.add(first);
+        items.add(tagged(new SwitchItem("second"), "Lighting"));
+        index.start(itemRegistry);
+        index.stop();
+        verify(itemRegistry).removeRegistryChangeListener(index);
+
+        items.remove(first);
+        HueDeviceIndex restarted = new HueDeviceIndex(itemFile);
+        restarted.start(itemRegistry);
+
+        assertEquals(Collections.singletonList(2), new ArrayList<>(restarted.getIds()));
+    }
+
+    @Test
+    public void testRegistryChanges() {
+        index.start(itemRegistry);
+        assertTrue(index.getIds().isEmpty());
+
+        SwitchItem light = tagged(new SwitchItem("light"), "Lighting");
+        index.added(light);
+        index.added(tagged(new SwitchItem("untagged")));
+        assertEquals(Collections.singletonList(1), new ArrayList<>(index.getIds()));
+
+        // an updated item keeps its id
+        SwitchItem relabeled = tagged(new SwitchItem("light"), "Lighting");
+        relabeled.setLabel("Relabeled");
+        index.updated(light, relabeled);
+        assertEquals("Relabeled", index.getDevice(1).name);
+
+        // an item no longer tagged is removed
+        index.updated(relabeled, tagged(new SwitchItem("light")));
+        assertNull(index.getItem(1));
+
+        SwitchItem other = tagged(new SwitchItem("other"), "Switchable");
+        index.added(other);
+        assertEquals(1, index.getIds().size());
+        assertSame(other, index.getItem(index.getIds().iterator().next()));
+        index.removed(other);
+        assertTrue(index.getIds().isEmpty());
+    }
+
+    @Test
+    public void testListingIsCachedUntilStateChanges() {
+        SwitchItem light = tagged(new SwitchItem("light"), "Lighting");
+        items.add(light);
+        items.add(tagged(new SwitchItem("untagged")));
+        index.start(itemRegistry);
+
+        String json = index.getDevicesJson();
+        assertSame(json, index.getDevicesJson());
+        assertFalse(json.contains("\"bri\":255"));
+
+        // state changes of other items keep the listing
+        index.stateChanged("untagged");
+        assertSame(json, index.getDevicesJson());
+
+        light.setState(OnOffType.ON);
+        index.stateChanged("light");
+        String changed = index.getDevicesJson();
+        assertNotSame(json, changed);
+        assertTrue(changed.contains("\"bri\":255"));
+    }
+
+    @Test
+    public void testGroupItemState() {
+        GroupItem group = tagged(new GroupItem("group"), "Lighting");
+        ColorItem color = tagged(new ColorItem("color"), "Lighting");
+        items.add(group);
+        items.add(color);
+        index.start(itemRegistry);
+        String json = index.getDevicesJson();
+
+        group.setState(OnOffType.ON);
+        index.stateChanged("group");
+        assertTrue(index.getDevice(1).state.on);
+        assertNotSame(json, index.getDevicesJson());
+
+        color.setState(new HSBType("120,100,50"));
+        index.stateChanged("color");
+        assertEquals(120, index.getDevice(2).state.hue);
+        assertEquals((short) 127, index.getDevice(2).state.bri);
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Keeps the Hue devices of all items tagged for voice, updated by the changes of the item registry and the state
+ * changes of the items, instead of scanning the item registry on every request.
+ *
+ * Lookups do not lock. The JSON listing of all devices is cached until an item or a state changes.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class HueDeviceIndex implements ItemRegistryChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(HueDeviceIndex.class);
+    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting" };
+
+    private final Gson gson = new Gson();
+    private final File itemFile;
+    private ItemRegistry itemRegistry;
+
+    // maps a Hue numeric id to an item name, ordered by that id
+    private final NavigableMap<Integer, String> deviceMap = new ConcurrentSkipListMap<>();
+    // maps an item name to its Hue id
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // the tagged items currently in the item registry
+    private final Map<String, Item> items = new ConcurrentHashMap<>();
+
+    // incremented on every change, the JSON listing is valid for one version
+    private final AtomicLong version = new AtomicLong();
+    private volatile Listing listing;
+
+    private static class Listing {
+        final long version;
+        final String json;
+
+        Listing(long version, String json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    public HueDeviceIndex(File itemFile) {
+        this.itemFile = itemFile;
+    }
+
+    /**
+     * Loads the persisted Hue ids and starts to follow the item registry, or switches to another item registry
+     */
+    public synchronized void start(ItemRegistry itemRegistry) {
+        if (deviceMap.isEmpty() && itemFile.exists()) {
+            JsonReader reader = null;
+            try {
+                reader = new JsonReader(new FileReader(itemFile));
+                LinkedHashMap<Integer, String> tmpMap = gson.fromJson(reader, new TypeToken<Map<Integer, String>>() {
+                }.getType());
+                if (tmpMap != null) {
+                    for (Map.Entry<Integer, String> entry : tmpMap.entrySet()) {
+                        deviceMap.put(entry.getKey(), entry.getValue());
+                        ids.put(entry.getValue(), entry.getKey());
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Could not read item cache", e);
+            } finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+        if (this.itemRegistry != null) {
+            this.itemRegistry.removeRegistryChangeListener(this);
+        }
+        this.itemRegistry = itemRegistry;
+        itemRegistry.addRegistryChangeListener(this);
+        synchronize();
+    }
+
+    public synchronized void stop() {
+        if (itemRegistry != null) {
+            itemRegistry.removeRegistryChangeListener(this);
+            itemRegistry = null;
+        }
+        items.clear();
+        version.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        if (add(item)) {
+            persist();
+        }
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        if (remove(item.getName())) {
+            persist();
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldItem, Item item) {
+        // the id of the item is kept, if it stays tagged
+        boolean modified = isTagged(item) ? add(item) : remove(oldItem.getName());
+        if (modified) {
+            persist();
+        }
+    }
+
+    @Override
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        synchronize();
+    }
+
+    /**
+     * To be called on state changes of items, invalidates the listing if the item is a Hue device
+     */
+    public void stateChanged(String itemName) {
+        if (items.containsKey(itemName)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the Hue device with the given id
+     *
+     * @return the device or null, if there is no such device
+     */
+    public HueDevice getDevice(Integer id) {
+        String itemName = deviceMap.get(id);
+        Item item = itemName != null ? items.get(itemName) : null;
+        return item != null ? itemToDevice(item, id) : null;
+    }
+
+    /**
+     * Gets the item of the Hue device with the given id
+     *
+     * @return the item or null, if there is no such device
+     */
+    public Item getItem(Integer id) {
+        String itemName = deviceMap.get(id);
+        return itemName != null ? items.get(itemName) : null;
+    }
+
+    /**
+     * Gets the ids of all Hue devices in ascending order
+     */
+    public Set<Integer> getIds() {
+        return deviceMap.keySet();
+    }
+
+    /**
+     * Gets all Hue devices by their ids
+     */
+    public TreeMap<Integer, HueDevice> getDevices() {
+        TreeMap<Integer, HueDevice> devices = new TreeMap<>();
+        for (Map.Entry<Integer, String> entry : deviceMap.entrySet()) {
+            Item item = items.get(entry.getValue());
+            if (item != null) {
+                devices.put(entry.getKey(), itemToDevice(item, entry.getKey()));
+            }
+        }
+        return devices;
+    }
+
+    /**
+     * Gets the JSON listing of all Hue devices, which is only serialized again if something has changed
+     */
+    public String getDevicesJson() {
+        long current = version.get();
+        Listing cached = listing;
+        if (cached != null && cached.version == current) {
+            return cached.json;
+        }
+        // changes while serializing increment the version again, so the listing is serialized once more then
+        String json = gson.toJson(getDevices());
+        listing = new Listing(current, json);
+        return json;
+    }
+
+    /**
+     * Adds all tagged items of the registry and removes the ones no longer tagged
+     */
+    private void synchronize() {
+        boolean modified = false;
+        Set<String> taggedItems = new HashSet<>();
+        for (Item item : itemRegistry.getItems()) {
+            if (isTagged(item)) {
+                taggedItems.add(item.getName());
+                modified |= add(item);
+            }
+        }
+        // also cleans up entries of items removed while the service was not running
+        for (String itemName : new HashSet<>(ids.keySet())) {
+            if (!taggedItems.contains(itemName)) {
+                modified |= remove(itemName);
+            }
+        }
+        version.incrementAndGet();
+        if (modified) {
+            persist();
+        }
+    }
+
+    /**
+     * @return true if a Hue id has been assigned
+     */
+    private boolean add(Item item) {
+        if (!isTagged(item)) {
+            return false;
+        }
+        boolean modified = false;
+        if (!ids.containsKey(item.getName())) {
+            // hue devices are assigned a numeric number starting with 1, if a device is
+            // removed that number is not used again. Not sure how high this id can get
+            // not worrying about it here
+            Integer id = deviceMap.isEmpty() ? 1 : deviceMap.lastKey() + 1;
+            deviceMap.put(id, item.getName());
+            ids.put(item.getName(), id);
+            modified = true;
+        }
+        items.put(item.getName(), item);
+        version.incrementAndGet();
+        return modified;
+    }
+
+    /**
+     * @return true if a Hue id has been removed
+     */
+    private boolean remove(String itemName) {
+        Integer id = ids.remove(itemName);
+        if (id == null) {
+            return false;
+        }
+        items.remove(itemName);
+        deviceMap.remove(id);
+        version.incrementAndGet();
+        return true;
+    }
+
+    private boolean isTagged(Item item) {
+        for (String tag : SUPPORTED_TAGS) {
+            if (item.getTags().contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     */
+    private HueDevice itemToDevice(Item item, Integer key) {
+        State itemState = item.getState();
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        HueDevice d = new HueDevice(hueState, item.getLabel(), key);
+        return d;
+    }
+
+    /**
+     * Persists the Hue ids to disk
+     */
+    private void persist() {
+        JsonWriter writer = null;
+        try {
+            itemFile.getParentFile().mkdirs();
+            writer = new JsonWriter(new FileWriter(itemFile));
+            gson.toJson(new TreeMap<>(deviceMap), new TypeToken<Map<Integer, String>>() {
+            }.getType(), writer);
+        } catch (IOException e) {
+            logger.error("Could not persist item cache", e);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+}
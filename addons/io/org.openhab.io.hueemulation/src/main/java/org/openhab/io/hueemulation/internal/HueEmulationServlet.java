@@ -11,22 +11,18 @@ package org.openhab.io.hueemulation.internal;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Dictionary;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.UUID;
 
 import javax.servlet.ServletException;
@@ -35,21 +31,20 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.events.EventSubscriber;
 import org.eclipse.smarthome.core.items.Item;
-import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.events.GroupItemStateChangedEvent;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
-import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.items.events.ItemStateChangedEvent;
 import org.eclipse.smarthome.core.library.types.HSBType;
-import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.types.Command;
-import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
 import org.openhab.io.hueemulation.internal.api.HueCreateUser;
-import org.openhab.io.hueemulation.internal.api.HueDataStore;
 import org.openhab.io.hueemulation.internal.api.HueDevice;
 import org.openhab.io.hueemulation.internal.api.HueErrorResponse;
 import org.openhab.io.hueemulation.internal.api.HueGroup;
@@ -60,9 +55,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonWriter;
 
 /**
  * Emulates A Hue compatible HTTP API server
@@ -72,7 +64,7 @@ import com.google.gson.stream.JsonWriter;
  *
  */
 @SuppressWarnings("serial")
-public class HueEmulationServlet extends HttpServlet {
+public class HueEmulationServlet extends HttpServlet implements EventSubscriber {
     private Logger logger = LoggerFactory.getLogger(HueEmulationServlet.class);
     private static final String CONFIG_PAIRING_ENABLED = "pairingEnabled";
     private static final String CONFIG_DISCOVERY_IP = "discoveryIp";
@@ -91,7 +83,6 @@ public class HueEmulationServlet extends HttpServlet {
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "udn");
     private static final File ITEM_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "items");
-    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting" };
     private Gson gson = new Gson();
     private HttpService httpService;
     private ItemRegistry itemRegistry;
@@ -103,8 +94,8 @@ public class HueEmulationServlet extends HttpServlet {
     private boolean pairingEnabled = false;
     // list of valid Hue API user ids
     private List<String> userNames = new ArrayList<>();
-    // deviceMap maps a Hue numeric id to a Item Name, ordered by that id
-    private TreeMap<Integer, String> deviceMap = new TreeMap<>();
+    // Hue devices of the tagged items, maintained by item registry and state changes
+    private final HueDeviceIndex deviceIndex = new HueDeviceIndex(ITEM_FILE);
 
     protected void activate(Map<String, Object> config) {
         modified(config);
@@ -123,21 +114,8 @@ public class HueEmulationServlet extends HttpServlet {
                 }
             }
 
-            // load item list from disk
-            if (ITEM_FILE.exists()) {
-                JsonReader reader = null;
-                try {
-                    reader = new JsonReader(new FileReader(ITEM_FILE));
-                    LinkedHashMap<Integer, String> tmpMap = gson.fromJson(reader,
-                            new TypeToken<Map<Integer, String>>() {
-                            }.getType());
-                    if (tmpMap != null) {
-                        deviceMap.putAll(tmpMap);
-                    }
-                } finally {
-                    IOUtils.closeQuietly(reader);
-                }
-            }
+            // load item list from disk and follow the changes of the items
+            deviceIndex.start(itemRegistry);
             logger.info("Started Hue Emulation service at " + PATH);
         } catch (Exception e) {
             logger.error("Could not start Hue Emulation service: {}", e.getMessage(), e);
@@ -176,6 +154,7 @@ public class HueEmulationServlet extends HttpServlet {
     }
 
     protected void deactivate(ComponentContext componentContext) {
+        deviceIndex.stop();
         try {
             httpService.unregister(PATH);
         } catch (IllegalArgumentException ignored) {
@@ -186,11 +165,18 @@ public class HueEmulationServlet extends HttpServlet {
     }
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
+        boolean replaced = this.itemRegistry != null;
         this.itemRegistry = itemRegistry;
+        if (replaced) {
+            deviceIndex.start(itemRegistry);
+        }
     }
 
     protected void unsetItemRegistry(ItemRegistry itemRegistry) {
-        this.itemRegistry = null;
+        if (this.itemRegistry == itemRegistry) {
+            deviceIndex.stop();
+            this.itemRegistry = null;
+        }
     }
 
     protected void setEventPublisher(EventPublisher eventPublisher) {
@@ -201,6 +187,25 @@ public class HueEmulationServlet extends HttpServlet {
         this.eventPublisher = null;
     }
 
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        // the state of a group item changes with its members, which is only notified by a group item event
+        return new HashSet<>(Arrays.asList(ItemStateChangedEvent.TYPE, GroupItemStateChangedEvent.TYPE));
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        // a GroupItemStateChangedEvent is an ItemStateChangedEvent of the group item as well
+        if (event instanceof ItemStateChangedEvent) {
+            deviceIndex.stateChanged(((ItemStateChangedEvent) event).getItemName());
+        }
+    }
+
     protected void setHttpService(HttpService httpService) {
         this.httpService = httpService;
     }
@@ -318,46 +323,44 @@ public class HueEmulationServlet extends HttpServlet {
             apiServerError(req, out, HueErrorResponse.METHOD_NOT_AVAILABLE, "Only PUT allowed for this resource");
             return;
         }
-        try {
-            // will throw exception if not found
-            Item item = itemRegistry.getItem(deviceMap.get(new Integer(id)));
-            HueState state = gson.fromJson(req.getReader(), HueState.class);
-            HSBType hsb = state.toHSBType();
-            logger.debug("HuState {}", state);
-            logger.debug("HSBType {}", hsb);
-            Command command = null;
-            if (hsb.getBrightness().intValue() > 0) {
-                // if state is on then send HSB, Brightness or ON
-                if (item.getAcceptedCommandTypes().contains(HSBType.class)) {
-                    command = hsb;
-                } else {
-                    // try and set the brightness level first
-                    command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), hsb.getBrightness().toString());
-                    if (command == null) {
-                        // if the item does not accept a number or String type, try ON
-                        command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "ON");
-                    }
-                }
+        Item item = deviceIndex.getItem(new Integer(id));
+        if (item == null) {
+            logger.debug("Item not found: {}", id);
+            apiServerError(req, out, HueErrorResponse.NOT_AVAILABLE, "The Hue device could not be found");
+            return;
+        }
+        HueState state = gson.fromJson(req.getReader(), HueState.class);
+        HSBType hsb = state.toHSBType();
+        logger.debug("HuState {}", state);
+        logger.debug("HSBType {}", hsb);
+        Command command = null;
+        if (hsb.getBrightness().intValue() > 0) {
+            // if state is on then send HSB, Brightness or ON
+            if (item.getAcceptedCommandTypes().contains(HSBType.class)) {
+                command = hsb;
             } else {
-                // if state is off, then send 0 or 0FF
-                command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "0");
+                // try and set the brightness level first
+                command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), hsb.getBrightness().toString());
                 if (command == null) {
-                    command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "OFF");
+                    // if the item does not accept a number or String type, try ON
+                    command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "ON");
                 }
             }
-
-            if (command != null) {
-                logger.debug("sending {} to {}", command, item.getName());
-                eventPublisher.post(ItemEventFactory.createCommandEvent(item.getName(), command));
-                out.write(String.format(STATE_RESP, id, String.valueOf(state.on)));
-            } else {
-                logger.error("Item {} does not accept Decimal, ON/OFF or String types", item.getName());
-                apiServerError(req, out, HueErrorResponse.INTERNAL_ERROR,
-                        "The Hue device does not respond to that command");
+        } else {
+            // if state is off, then send 0 or 0FF
+            command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "0");
+            if (command == null) {
+                command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "OFF");
             }
-        } catch (ItemNotFoundException e) {
-            logger.debug("Item not found: {}", id);
-            apiServerError(req, out, HueErrorResponse.NOT_AVAILABLE, "The Hue device could not be found");
+        }
+
+        if (command != null) {
+            logger.debug("sending {} to {}", command, item.getName());
+            eventPublisher.post(ItemEventFactory.createCommandEvent(item.getName(), command));
+            out.write(String.format(STATE_RESP, id, String.valueOf(state.on)));
+        } else {
+            logger.error("Item {} does not accept Decimal, ON/OFF or String types", item.getName());
+            apiServerError(req, out, HueErrorResponse.INTERNAL_ERROR, "The Hue device does not respond to that command");
         }
     }
 
@@ -365,7 +368,7 @@ public class HueEmulationServlet extends HttpServlet {
      * Hue API call to get the state of a single light
      */
     private void apiLight(String id, HttpServletRequest req, PrintWriter out) throws IOException {
-        HueDevice device = getHueDevices().get(new Integer(id));
+        HueDevice device = deviceIndex.getDevice(new Integer(id));
 
         if (device == null) {
             logger.error("\"Could not find light for id {}. ", id);
@@ -380,7 +383,7 @@ public class HueEmulationServlet extends HttpServlet {
      * Hue API call to get a listing of all lights
      */
     public void apiLights(HttpServletRequest req, PrintWriter out) throws IOException {
-        out.write(gson.toJson(getHueDevices()));
+        out.write(deviceIndex.getDevicesJson());
     }
 
     /**
@@ -388,7 +391,7 @@ public class HueEmulationServlet extends HttpServlet {
      */
     public void apiGroupZero(HttpServletRequest req, PrintWriter out) throws IOException {
         List<String> lights = new LinkedList<String>();
-        for (Integer key : deviceMap.keySet()) {
+        for (Integer key : deviceIndex.getIds()) {
             lights.add(key.toString());
         }
         HueState action = new HueState();
@@ -400,9 +403,8 @@ public class HueEmulationServlet extends HttpServlet {
      */
     public void apiDataStore(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         PrintWriter out = resp.getWriter();
-        HueDataStore ds = new HueDataStore();
-        ds.lights = getHueDevices();
-        out.write(gson.toJson(ds));
+        // serialized like a HueDataStore, with the cached listing of the lights
+        out.write("{\"lights\":" + deviceIndex.getDevicesJson() + "}");
     }
 
     /**
@@ -465,96 +467,6 @@ public class HueEmulationServlet extends HttpServlet {
         }
     }
 
-    /**
-     * Converts an Item to a HueDevice
-     */
-    private HueDevice itemToDevice(Item item, Integer key) {
-        State itemState = item.getState();
-        HueState hueState;
-        if (itemState instanceof HSBType) {
-            HSBType color = (HSBType) itemState;
-            hueState = new HueState(color);
-        } else if (itemState instanceof DecimalType) {
-            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
-            hueState = new HueState(bri);
-        } else if (itemState instanceof OnOffType) {
-            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
-            hueState = new HueState(bri);
-        } else {
-            hueState = new HueState((short) 0);
-        }
-
-        HueDevice d = new HueDevice(hueState, item.getLabel(), key);
-        return d;
-    }
-
-    /**
-     * Gets and syncs all items tagged for voice.
-     */
-    private synchronized TreeMap<Integer, HueDevice> getHueDevices() {
-        TreeMap<Integer, HueDevice> returnMap = new TreeMap<Integer, HueDevice>();
-        HashMap<String, Item> taggedItems = new HashMap<String, Item>();
-
-        // if we modify our internal map, persist it to disk
-        boolean modified = false;
-
-        // get all tagged items
-        for (Item item : itemRegistry.getItems()) {
-            for (String tag : item.getTags()) {
-                if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
-                    taggedItems.put(item.getName(), item);
-                    if (!deviceMap.containsValue(item.getName())) {
-                        // hue devices are assigned a numeric number starting with 1, if a device is
-                        // removed that number is not used again. Not sure how high this id can get
-                        // not worrying about it here
-                        Integer next = deviceMap.size() == 0 ? 1 : new Integer(deviceMap.lastKey().intValue() + 1);
-                        deviceMap.put(next, item.getName());
-                        modified = true;
-                    }
-                    break;
-                }
-            }
-        }
-
-        Set<Integer> keysToRemove = new HashSet<>();
-
-        // clean up removed entries
-        for (Map.Entry<Integer, String> entry : deviceMap.entrySet()) {
-            String itemName = entry.getValue();
-            if (!taggedItems.containsKey(itemName)) {
-                keysToRemove.add(entry.getKey());
-                modified = true;
-            }
-        }
-
-        for (Integer key : keysToRemove) {
-            deviceMap.remove(key);
-        }
-
-        // for each entry, lookup the item and convert it to a hue device
-        for (Integer key : deviceMap.keySet()) {
-            try {
-                returnMap.put(key, itemToDevice(itemRegistry.getItem(deviceMap.get(key)), key));
-            } catch (ItemNotFoundException e) {
-                logger.warn("Could not find item", e);
-            }
-        }
-
-        if (modified) {
-            JsonWriter writer = null;
-            try {
-                writer = new JsonWriter(new FileWriter(ITEM_FILE));
-                gson.toJson(deviceMap, new TypeToken<Map<Integer, String>>() {
-                }.getType(), writer);
-            } catch (IOException e) {
-                logger.error("Could not persist item cache", e);
-            } finally {
-                IOUtils.closeQuietly(writer);
-            }
-        }
-        return returnMap;
-    }
-
     /**
      * Checks if the username exists in our user list
      */
@@ -15,19 +15,24 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
@@ -35,7 +40,9 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -79,6 +86,37 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * The response content of a request is collected in a buffer of this size while the Socket.IO transport is busy
+     * and sent as one binary frame. If the buffer is full, no more content of the request is read from openHAB until
+     * the transport has written the pending frames
+     */
+    private static final int RESPONSE_FRAME_SIZE = 64 * 1024;
+
+    /*
+     * This constant defines the maximum number of response bytes passed to the Socket.IO client until its transport
+     * has written them
+     */
+    private static final int RESPONSE_WINDOW_SIZE = 256 * 1024;
+
+    /*
+     * Item updates are collected for this number of milliseconds, only the latest state of each item is sent
+     */
+    private static final int ITEM_UPDATE_INTERVAL = 250;
+
+    /*
+     * The collected item updates are sent right away when updates of this number of items are pending
+     */
+    private static final int ITEM_UPDATE_BATCH_SIZE = 50;
+
+    /*
+     * This constant defines the maximum number of items, whose updates are kept while the connection to the
+     * openHAB Cloud is down. The updates of the items updated least recently are dropped first
+     */
+    private static final int ITEM_UPDATE_QUEUE_SIZE = 1000;
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -107,12 +145,56 @@ public class CloudClient {
     /*
      * This hashmap holds HTTP requests to local openHAB which are currently running
      */
-    private HashMap<Integer, Request> runningRequests;
+    private Map<Integer, Request> runningRequests;
+
+    /*
+     * This variable holds the current transport of the Socket.IO client, its drain events release the
+     * response content waiting to be sent
+     */
+    private volatile Transport transport;
+
+    /*
+     * This variable counts the response bytes passed to the Socket.IO client since the last drain of its transport
+     */
+    private final AtomicInteger unwrittenBytes = new AtomicInteger();
+
+    /*
+     * This set holds the responses which have content waiting for the transport to drain
+     */
+    private final Set<ResponseListener> waitingResponses = ConcurrentHashMap.newKeySet();
+
+    /*
+     * This map holds the latest states of the items, which have not been sent to the openHAB Cloud yet,
+     * the item updated least recently first
+     */
+    private final Map<String, String> pendingItemUpdates = new LinkedHashMap<String, String>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() > ITEM_UPDATE_QUEUE_SIZE) {
+                logger.debug("Dropping update '{}' for item '{}', too many updates are pending", eldest.getValue(),
+                        eldest.getKey());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /*
+     * This map holds the states of the items last sent to the openHAB Cloud, guarded by pendingItemUpdates
+     */
+    private final Map<String, String> sentItemStates = new HashMap<>();
+
+    /*
+     * This variable holds the job sending the pending item updates, guarded by pendingItemUpdates
+     */
+    private ScheduledFuture<?> itemUpdateJob;
 
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
      */
-    private boolean isConnected;
+    private volatile boolean isConnected;
 
     /*
      * This variable holds version of local openHAB
@@ -155,7 +237,7 @@ public class CloudClient {
         this.localBaseUrl = localBaseUrl;
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
-        runningRequests = new HashMap<Integer, Request>();
+        runningRequests = new ConcurrentHashMap<Integer, Request>();
         jettyClient = new HttpClient();
         jettyClient.setMaxConnectionsPerDestination(HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST);
         jettyClient.setConnectTimeout(HTTP_CLIENT_TIMEOUT);
@@ -180,6 +262,14 @@ public class CloudClient {
             public void call(Object... args) {
                 logger.trace("Manager.EVENT_TRANSPORT");
                 Transport transport = (Transport) args[0];
+                CloudClient.this.transport = transport;
+                unwrittenBytes.set(0);
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        onTransportDrain();
+                    }
+                });
                 transport.on(Transport.EVENT_REQUEST_HEADERS, new Emitter.Listener() {
                     @Override
                     public void call(Object... args) {
@@ -249,6 +339,12 @@ public class CloudClient {
                 logger.error("Could not start Jetty client: {}", e.getMessage());
             }
         }
+        // Send the item updates collected while disconnected
+        synchronized (pendingItemUpdates) {
+            if (!pendingItemUpdates.isEmpty() && itemUpdateJob == null) {
+                scheduleItemUpdates(0);
+            }
+        }
     }
 
     /**
@@ -273,6 +369,31 @@ public class CloudClient {
         }
     }
 
+    /**
+     * Callback method for the socket.io transport which is called when all packets passed to it have been written
+     */
+
+    private void onTransportDrain() {
+        unwrittenBytes.set(0);
+        if (!waitingResponses.isEmpty()) {
+            // the drain event is emitted on the Socket.IO event thread, which must not emit new packets here
+            ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).execute(() -> {
+                for (ResponseListener response : waitingResponses.toArray(new ResponseListener[0])) {
+                    waitingResponses.remove(response);
+                    response.sendContent();
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns true if response content can be passed to the Socket.IO client without piling up in its buffers
+     */
+    private boolean isTransportWritable() {
+        Transport current = transport;
+        return (current == null || current.writable) && unwrittenBytes.get() < RESPONSE_WINDOW_SIZE;
+    }
+
     /**
      * Callback method for socket.io client which is called when an error occurs
      */
@@ -312,29 +433,28 @@ public class CloudClient {
             // Get request method
             String requestMethod = data.getString("method");
             // Get request body
-            String requestBody = data.getString("body");
+            byte[] requestBody = getRequestBody(data);
             // Get JSONObject for request headers
             JSONObject requestHeadersJson = data.getJSONObject("headers");
             logger.debug("{}", requestHeadersJson.toString());
             // Get JSONObject for request query parameters
             JSONObject requestQueryJson = data.getJSONObject("query");
             // Create URI builder with base request URI of openHAB and path from request
-            String newPath = URIUtil.addPaths(localBaseUrl, requestPath);
+            StringBuilder newPath = new StringBuilder(URIUtil.addPaths(localBaseUrl, requestPath));
             @SuppressWarnings("unchecked")
             Iterator<String> queryIterator = requestQueryJson.keys();
             // Add query parameters to URI builder, if any
-            newPath += "?";
+            newPath.append('?');
             while (queryIterator.hasNext()) {
                 String queryName = queryIterator.next();
-                newPath += queryName;
-                newPath += "=";
-                newPath += URLEncoder.encode(requestQueryJson.getString(queryName), "UTF-8");
+                newPath.append(queryName).append('=');
+                newPath.append(URLEncoder.encode(requestQueryJson.getString(queryName), "UTF-8"));
                 if (queryIterator.hasNext()) {
-                    newPath += "&";
+                    newPath.append('&');
                 }
             }
             // Finally get the future request URI
-            URI requestUri = new URI(newPath);
+            URI requestUri = new URI(newPath.toString());
             // All preparations which are common for different methods are done
             // Now perform the request to openHAB
             // If method is GET
@@ -351,20 +471,21 @@ public class CloudClient {
                 request.method(HttpMethod.GET);
             } else if (requestMethod.equals("POST")) {
                 request.method(HttpMethod.POST);
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new BytesContentProvider(requestBody));
             } else if (requestMethod.equals("PUT")) {
                 request.method(HttpMethod.PUT);
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new BytesContentProvider(requestBody));
             } else {
                 // TODO: Reject unsupported methods
                 logger.error("Unsupported request method {}", requestMethod);
                 return;
             }
             ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
+            // Add the request to the list of currently running requests to be able to cancel it if needed,
+            // before it is submitted to the http client, which might complete it right away
             runningRequests.put(requestId, request);
+            request.onResponseHeaders(listener).onResponseContentAsync(listener).onRequestFailure(listener)
+                    .send(listener);
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
         } catch (IOException e) {
@@ -374,6 +495,21 @@ public class CloudClient {
         }
     }
 
+    /*
+     * The openHAB Cloud passes binary request bodies as Socket.IO binary attachments, which are used as they are.
+     * Text bodies are passed as strings.
+     */
+    private byte[] getRequestBody(JSONObject data) {
+        Object body = data.opt("body");
+        if (body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        if (body == null || JSONObject.NULL.equals(body)) {
+            return new byte[0];
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
     private void setRequestHeaders(Request request, JSONObject requestHeadersJson) {
         @SuppressWarnings("unchecked")
         Iterator<String> headersIterator = requestHeadersJson.keys();
@@ -499,25 +635,62 @@ public class CloudClient {
     }
 
     /**
-     * Send item update to openHAB Cloud
+     * Send item update to openHAB Cloud. The updates are collected and sent every ITEM_UPDATE_INTERVAL
+     * milliseconds, only the latest state of an item is sent and only if it differs from the state sent before.
+     * While there is no connection, the updates are kept until it is established again.
      *
      * @param itemName the name of the item
      * @param itemState updated item state
      *
      */
     public void sendItemUpdate(String itemName, String itemState) {
-        if (isConnected()) {
-            logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
-            JSONObject itemUpdateMessage = new JSONObject();
-            try {
-                itemUpdateMessage.put("itemName", itemName);
-                itemUpdateMessage.put("itemStatus", itemState);
-                socket.emit("itemupdate", itemUpdateMessage);
-            } catch (JSONException e) {
-                logger.error("{}", e.getMessage());
+        synchronized (pendingItemUpdates) {
+            if (itemState.equals(sentItemStates.get(itemName))) {
+                logger.trace("Item '{}' still has state '{}', update is not sent", itemName, itemState);
+                pendingItemUpdates.remove(itemName);
+                return;
             }
-        } else {
-            logger.debug("No connection, Item update is not sent");
+            // re-inserted, so the item becomes the one updated most recently
+            pendingItemUpdates.remove(itemName);
+            pendingItemUpdates.put(itemName, itemState);
+            if (!isConnected()) {
+                logger.debug("No connection, Item update is sent when connected");
+            } else if (pendingItemUpdates.size() >= ITEM_UPDATE_BATCH_SIZE) {
+                // a job which is already running cannot be cancelled, but sends this update as well
+                if (itemUpdateJob == null || itemUpdateJob.cancel(false)) {
+                    scheduleItemUpdates(0);
+                }
+            } else if (itemUpdateJob == null) {
+                scheduleItemUpdates(ITEM_UPDATE_INTERVAL);
+            }
+        }
+    }
+
+    private void scheduleItemUpdates(long delay) {
+        itemUpdateJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(this::sendItemUpdates,
+                delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void sendItemUpdates() {
+        synchronized (pendingItemUpdates) {
+            itemUpdateJob = null;
+            if (!isConnected() || pendingItemUpdates.isEmpty()) {
+                return;
+            }
+            logger.debug("Sending updates of {} items", pendingItemUpdates.size());
+            for (Map.Entry<String, String> update : pendingItemUpdates.entrySet()) {
+                logger.debug("Sending update '{}' for item '{}'", update.getValue(), update.getKey());
+                JSONObject itemUpdateMessage = new JSONObject();
+                try {
+                    itemUpdateMessage.put("itemName", update.getKey());
+                    itemUpdateMessage.put("itemStatus", update.getValue());
+                    socket.emit("itemupdate", itemUpdateMessage);
+                    sentItemStates.put(update.getKey(), update.getValue());
+                } catch (JSONException e) {
+                    logger.error("{}", e.getMessage());
+                }
+            }
+            pendingItemUpdates.clear();
         }
     }
 
@@ -533,6 +706,13 @@ public class CloudClient {
      */
     public void shutdown() {
         logger.info("Shutting down openHAB Cloud service connection");
+        synchronized (pendingItemUpdates) {
+            if (itemUpdateJob != null) {
+                itemUpdateJob.cancel(false);
+                itemUpdateJob = null;
+            }
+            pendingItemUpdates.clear();
+        }
         try {
             jettyClient.stop();
         } catch (Exception e) {
@@ -554,15 +734,24 @@ public class CloudClient {
     }
 
     /*
-     * An internal class which forwards response headers and data back to the openHAB Cloud
+     * An internal class which forwards response headers and data back to the openHAB Cloud.
+     * The response content is forwarded as binary frames, at most RESPONSE_FRAME_SIZE bytes of it are held per request.
+     * Jetty does not read further content until the content passed to onContent has been taken, so a slow
+     * connection to the openHAB Cloud slows down the request instead of buffering the whole response.
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
-        private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
         private int mRequestId;
         private boolean mHeadersSent = false;
 
+        // the content collected for the next frame, in fill mode, taken from the buffer pool of the http client
+        private ByteBuffer mFrame;
+        // the content passed by Jetty which is not yet copied to the frame, and its callback
+        private ByteBuffer mPendingContent;
+        private Callback mPendingCallback;
+        private boolean mCompleted = false;
+
         public ResponseListener(int requestId) {
             mRequestId = requestId;
         }
@@ -579,10 +768,107 @@ public class CloudClient {
             return headersJSON;
         }
 
+        /*
+         * Sends the collected content as long as the transport is writable and takes the pending content from Jetty.
+         * Otherwise waits for the transport to drain.
+         */
+        private void sendContent() {
+            Callback callback = null;
+            synchronized (this) {
+                if (mCompleted) {
+                    return;
+                }
+                while (true) {
+                    if (mPendingContent != null) {
+                        if (mFrame == null) {
+                            mFrame = getBufferPool().acquire(RESPONSE_FRAME_SIZE, false);
+                            BufferUtil.clearToFill(mFrame);
+                        }
+                        BufferUtil.put(mPendingContent, mFrame);
+                        if (!mPendingContent.hasRemaining()) {
+                            mPendingContent = null;
+                            callback = mPendingCallback;
+                            mPendingCallback = null;
+                        }
+                    }
+                    if (mFrame == null || mFrame.position() == 0) {
+                        break;
+                    }
+                    // registered before checking, so a drain in between is not missed
+                    waitingResponses.add(this);
+                    if (!isTransportWritable()) {
+                        break;
+                    }
+                    waitingResponses.remove(this);
+                    sendFrame();
+                    if (mPendingContent == null) {
+                        break;
+                    }
+                }
+            }
+            if (callback != null) {
+                callback.succeeded();
+            }
+        }
+
+        private void sendFrame() {
+            BufferUtil.flipToFlush(mFrame, 0);
+            byte[] body = BufferUtil.toArray(mFrame);
+            BufferUtil.clearToFill(mFrame);
+            JSONObject responseJson = new JSONObject();
+            try {
+                responseJson.put("id", mRequestId);
+                responseJson.put("body", body);
+            } catch (JSONException e) {
+                logger.error("{}", e.getMessage());
+                return;
+            }
+            // counted before emitting, as the transport may drain and reset the count before emit returns
+            unwrittenBytes.addAndGet(body.length);
+            try {
+                socket.emit("responseContentBinary", responseJson);
+            } catch (RuntimeException e) {
+                // not passed to the transport, a drain in between may have reset the count already
+                unwrittenBytes.updateAndGet(count -> Math.max(0, count - body.length));
+                throw e;
+            }
+            logger.debug("Sent content of size {} to request {}", body.length, mRequestId);
+        }
+
+        /*
+         * Sends the remaining content, if the response has been received completely, and returns the frame buffer
+         */
+        private void completeContent(Result result) {
+            Callback callback;
+            synchronized (this) {
+                mCompleted = true;
+                waitingResponses.remove(this);
+                callback = mPendingCallback;
+                mPendingContent = null;
+                mPendingCallback = null;
+                if (mFrame != null) {
+                    if (!result.isFailed() && mFrame.position() > 0) {
+                        sendFrame();
+                    }
+                    getBufferPool().release(mFrame);
+                    mFrame = null;
+                }
+            }
+            if (callback != null) {
+                Throwable failure = result.getFailure();
+                callback.failed(failure != null ? failure : new InterruptedException());
+            }
+        }
+
+        private ByteBufferPool getBufferPool() {
+            return jettyClient.getByteBufferPool();
+        }
+
         @Override
         public void onComplete(Result result) {
             // Remove this request from list of running requests
             runningRequests.remove(mRequestId);
+            completeContent(result);
             if ((result != null && result.isFailed())
                     && (result.getResponse() != null && result.getResponse().getStatus() != HttpStatus.OK_200)) {
                 if (result.getFailure() != null) {
@@ -627,17 +913,17 @@ public class CloudClient {
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
+        public void onContent(Response response, ByteBuffer content, Callback callback) {
             logger.debug("Jetty received response content of size {}", String.valueOf(content.remaining()));
-            JSONObject responseJson = new JSONObject();
-            try {
-                responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
-                socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
-            } catch (JSONException e) {
-                logger.error("{}", e.getMessage());
+            synchronized (this) {
+                if (mCompleted) {
+                    callback.succeeded();
+                    return;
+                }
+                mPendingContent = content;
+                mPendingCallback = callback;
             }
+            sendContent();
         }
 
         @Override
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.io.transport.modbus.internal.DeadlineOrderedGate;
+import org.openhab.io.transport.modbus.internal.pooling.AdaptiveInterTransactionDelay;
+
+/**
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class AdaptiveInterTransactionDelayTest {
+
+    @Test
+    public void testInitialDelayIsConfigured() {
+        AdaptiveInterTransactionDelay delay = new AdaptiveInterTransactionDelay(40);
+        assertThat(delay.getDelayMillis(), is(equalTo(40L)));
+    }
+
+    @Test
+    public void testShrinksDownToQuarterWhenSlaveKeepsUp() {
+        AdaptiveInterTransactionDelay delay = new AdaptiveInterTransactionDelay(40);
+        delay.onSuccess(20);
+        assertThat(delay.getDelayMillis(), is(equalTo(38L)));
+        for (int i = 0; i < 1000; i++) {
+            delay.onSuccess(20);
+        }
+        assertThat(delay.getDelayMillis(), is(equalTo(10L)));
+    }
+
+    @Test
+    public void testSlowResponseDoesNotShrink() {
+        AdaptiveInterTransactionDelay delay = new AdaptiveInterTransactionDelay(40);
+        delay.onSuccess(20);
+        long before = delay.getDelayMillis();
+        delay.onSuccess(500);
+        assertThat(delay.getDelayMillis(), is(equalTo(before)));
+    }
+
+    @Test
+    public void testBackOffOnFailure() {
+        AdaptiveInterTransactionDelay delay = new AdaptiveInterTransactionDelay(40);
+        delay.onFailure();
+        assertThat(delay.getDelayMillis(), is(equalTo(80L)));
+        for (int i = 0; i < 100; i++) {
+            delay.onFailure();
+        }
+        assertThat(delay.getDelayMillis(), is(equalTo(500L)));
+    }
+
+    @Test
+    public void testBackOffWithZeroDelay() {
+        AdaptiveInterTransactionDelay delay = new AdaptiveInterTransactionDelay(0);
+        delay.onFailure();
+        assertThat(delay.getDelayMillis(), is(equalTo(10L)));
+        for (int i = 0; i < 1000; i++) {
+            delay.onSuccess(1);
+        }
+        assertThat(delay.getDelayMillis(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testGateOrdersByDeadline() throws InterruptedException {
+        DeadlineOrderedGate gate = new DeadlineOrderedGate();
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+        gate.acquire(0);
+
+        long[] deadlines = new long[] { 300, 100, 200 };
+        CountDownLatch done = new CountDownLatch(deadlines.length);
+        for (long deadline : deadlines) {
+            Thread thread = new Thread(() -> {
+                try {
+                    gate.acquire(deadline);
+                    order.add(deadline);
+                    gate.release();
+                } catch (InterruptedException e) {
+                    // test fails below
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        long waitStart = System.currentTimeMillis();
+        while (gate.getQueueLength() < deadlines.length && System.currentTimeMillis() - waitStart < 5000) {
+            Thread.sleep(10);
+        }
+        assertThat(gate.getQueueLength(), is(equalTo(deadlines.length)));
+
+        gate.release();
+        assertThat(done.await(5, TimeUnit.SECONDS), is(equalTo(true)));
+        assertThat(order, is(equalTo(Arrays.asList(100L, 200L, 300L))));
+    }
+}
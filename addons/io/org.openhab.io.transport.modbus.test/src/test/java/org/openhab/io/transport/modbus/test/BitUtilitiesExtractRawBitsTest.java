@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.openhab.io.transport.modbus.ModbusBitUtilities;
+import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.internal.ModbusRegisterArraySlice;
+
+/**
+ * Verifies that the primitive decoding functions give the same results as
+ * {@link ModbusBitUtilities#extractStateFromRegisters}, regardless of the register data representation
+ */
+@RunWith(Parameterized.class)
+public class BitUtilitiesExtractRawBitsTest {
+
+    final ModbusRegisterArray registers;
+    final ValueType type;
+    final int index;
+    final Object expectedResult;
+
+    @Rule
+    public final ExpectedException shouldThrow = ExpectedException.none();
+
+    public BitUtilitiesExtractRawBitsTest(Object expectedResult, ValueType type, ModbusRegisterArray registers,
+            int index) {
+        this.registers = registers;
+        this.index = index;
+        this.type = type;
+        this.expectedResult = expectedResult; // Exception or DecimalType
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return BitUtilitiesExtractStateFromRegistersTest.data();
+    }
+
+    private byte[] registersToBytes() {
+        byte[] bytes = new byte[registers.size() * 2];
+        for (int i = 0; i < registers.size(); i++) {
+            bytes[2 * i] = registers.getRegister(i).getBytes()[0];
+            bytes[2 * i + 1] = registers.getRegister(i).getBytes()[1];
+        }
+        return bytes;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void expectExceptionIfNeeded() {
+        if (expectedResult instanceof Class && Exception.class.isAssignableFrom((Class) expectedResult)) {
+            shouldThrow.expect((Class) expectedResult);
+        }
+    }
+
+    private void assertDecodedValues(long rawBits) {
+        String description = String.format("registers=%s, index=%d, type=%s", registers, index, type);
+        DecimalType expected = (DecimalType) expectedResult;
+        assertThat(description, ModbusBitUtilities.rawBitsToState(rawBits, type), is(equalTo(expected)));
+        assertThat(description, ModbusBitUtilities.rawBitsToDouble(rawBits, type),
+                is(equalTo(expected.doubleValue())));
+        if (type != ValueType.FLOAT32 && type != ValueType.FLOAT32_SWAP) {
+            assertThat(description, ModbusBitUtilities.rawBitsToLong(rawBits, type),
+                    is(equalTo(expected.longValue())));
+        }
+    }
+
+    @Test
+    public void testExtractRawBitsFromRegisters() {
+        expectExceptionIfNeeded();
+        assertDecodedValues(ModbusBitUtilities.extractRawBitsFromRegisters(registers, index, type));
+    }
+
+    @Test
+    public void testExtractRawBitsFromRegisterSlice() {
+        expectExceptionIfNeeded();
+        ModbusRegisterArray slice = new ModbusRegisterArraySlice(registers, 0, registers.size());
+        assertDecodedValues(ModbusBitUtilities.extractRawBitsFromRegisters(slice, index, type));
+    }
+
+    @Test
+    public void testExtractRawBitsFromByteArray() {
+        expectExceptionIfNeeded();
+        assertDecodedValues(ModbusBitUtilities.extractRawBitsFromBytes(registersToBytes(), index, type));
+    }
+
+    @Test
+    public void testExtractRawBitsFromByteBuffer() {
+        expectExceptionIfNeeded();
+        // Register data preceded by some other data, e.g. header
+        byte[] registerBytes = registersToBytes();
+        ByteBuffer buffer = ByteBuffer.allocate(registerBytes.length + 3);
+        buffer.put(new byte[] { 1, 2, 3 });
+        buffer.put(registerBytes);
+        buffer.position(3);
+        long rawBits = ModbusBitUtilities.extractRawBitsFromBytes(buffer, index, type);
+        assertThat(buffer.position(), is(equalTo(3)));
+        assertDecodedValues(rawBits);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.openhab.io.transport.modbus.internal.ModbusEndpointMetricsImpl;
+import org.openhab.io.transport.modbus.internal.ModbusLatencyHistogramImpl;
+
+/**
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class ModbusLatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        ModbusLatencyHistogramImpl histogram = new ModbusLatencyHistogramImpl();
+        assertThat(histogram.getCount(), is(equalTo(0L)));
+        assertThat(histogram.getMeanMillis(), is(equalTo(0.0)));
+        assertThat(histogram.getPercentileMillis(99), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testBuckets() {
+        ModbusLatencyHistogramImpl histogram = new ModbusLatencyHistogramImpl(new long[] { 10, 100 });
+        histogram.record(-1);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(100);
+        histogram.record(250);
+
+        assertThat(histogram.getBucketCounts(), is(equalTo(new long[] { 2, 2, 1 })));
+        assertThat(histogram.getCount(), is(equalTo(5L)));
+        assertThat(histogram.getTotalMillis(), is(equalTo(371L)));
+        assertThat(histogram.getMaxMillis(), is(equalTo(250L)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        ModbusLatencyHistogramImpl histogram = new ModbusLatencyHistogramImpl(new long[] { 10, 100 });
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(50);
+        }
+        histogram.record(300);
+
+        assertThat(histogram.getPercentileMillis(50), is(equalTo(10L)));
+        assertThat(histogram.getPercentileMillis(95), is(equalTo(100L)));
+        // last bucket is open ended, max is used instead
+        assertThat(histogram.getPercentileMillis(100), is(equalTo(300L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnorderedBoundsRejected() {
+        new ModbusLatencyHistogramImpl(new long[] { 10, 5 });
+    }
+
+    @Test
+    public void testCallbackBacklog() {
+        ModbusEndpointMetricsImpl metrics = new ModbusEndpointMetricsImpl();
+        metrics.callbackQueued();
+        metrics.callbackQueued();
+        metrics.callbackDone();
+        assertThat(metrics.getCallbackBacklog(), is(equalTo(1)));
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.BasicPollTaskImpl;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.CoalescedPollTask;
+import org.openhab.io.transport.modbus.internal.ModbusReadRequestPlanner;
+
+/**
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class ModbusReadRequestPlannerTest {
+
+    private ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("localhost", 502);
+
+    private PollTask task(int slaveId, ModbusReadFunctionCode functionCode, int start, int length,
+            ModbusReadCallback callback) {
+        return new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(slaveId, functionCode, start, length, 1), callback);
+    }
+
+    private PollTask task(int start, int length) {
+        return task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, length, mock(ModbusReadCallback.class));
+    }
+
+    @Test
+    public void testAdjacentRangesAreMerged() {
+        List<PollTask> plan = new ModbusReadRequestPlanner(0).plan(endpoint,
+                Arrays.asList(task(10, 2), task(0, 5), task(5, 5)));
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0), is(instanceOf(CoalescedPollTask.class)));
+        assertThat(plan.get(0).getRequest().getReference(), is(equalTo(0)));
+        assertThat(plan.get(0).getRequest().getDataLength(), is(equalTo(12)));
+        assertThat(((CoalescedPollTask) plan.get(0)).getMembers().size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testGapTolerance() {
+        List<PollTask> tasks = Arrays.asList(task(0, 5), task(8, 2));
+        assertThat(new ModbusReadRequestPlanner(0).plan(endpoint, tasks).size(), is(equalTo(2)));
+        assertThat(new ModbusReadRequestPlanner(2).plan(endpoint, tasks).size(), is(equalTo(2)));
+        List<PollTask> plan = new ModbusReadRequestPlanner(3).plan(endpoint, tasks);
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0).getRequest().getDataLength(), is(equalTo(10)));
+    }
+
+    @Test
+    public void testSingleTaskIsNotWrapped() {
+        PollTask single = task(0, 5);
+        List<PollTask> plan = new ModbusReadRequestPlanner(10).plan(endpoint, Arrays.asList(single));
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0), is(sameInstance(single)));
+    }
+
+    @Test
+    public void testRegisterLimitRespected() {
+        List<PollTask> plan = new ModbusReadRequestPlanner(0).plan(endpoint,
+                Arrays.asList(task(0, 100), task(100, 25), task(125, 1)));
+        assertThat(plan.size(), is(equalTo(2)));
+        assertThat(plan.get(0).getRequest().getDataLength(), is(equalTo(125)));
+        assertThat(plan.get(1).getRequest().getReference(), is(equalTo(125)));
+    }
+
+    @Test
+    public void testDifferentSlaveAndFunctionCodeNotMerged() {
+        ModbusReadCallback callback = mock(ModbusReadCallback.class);
+        List<PollTask> plan = new ModbusReadRequestPlanner(0).plan(endpoint,
+                Arrays.asList(task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 5, callback),
+                        task(2, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 5, 5, callback),
+                        task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 5, 5, callback)));
+        assertThat(plan.size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testResponseIsSlicedToOriginalCallbacks() {
+        ModbusReadCallback callback1 = mock(ModbusReadCallback.class);
+        ModbusReadCallback callback2 = mock(ModbusReadCallback.class);
+        PollTask task1 = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, callback1);
+        PollTask task2 = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 3, 3, callback2);
+        List<PollTask> plan = new ModbusReadRequestPlanner(0).plan(endpoint, Arrays.asList(task1, task2));
+        assertThat(plan.size(), is(equalTo(1)));
+
+        PollTask coalesced = plan.get(0);
+        coalesced.getCallback().onRegisters(coalesced.getRequest(), new BasicModbusRegisterArray(20, 30, 40, 50));
+
+        ArgumentCaptor<ModbusRegisterArray> registers1 = ArgumentCaptor.forClass(ModbusRegisterArray.class);
+        verify(callback1).onRegisters(same(task1.getRequest()), registers1.capture());
+        assertThat(registers1.getValue().size(), is(equalTo(2)));
+        assertThat(registers1.getValue().getRegister(0).getValue(), is(equalTo(20)));
+        assertThat(registers1.getValue().getRegister(1).getValue(), is(equalTo(30)));
+
+        ArgumentCaptor<ModbusRegisterArray> registers2 = ArgumentCaptor.forClass(ModbusRegisterArray.class);
+        verify(callback2).onRegisters(same(task2.getRequest()), registers2.capture());
+        assertThat(registers2.getValue().size(), is(equalTo(3)));
+        assertThat(registers2.getValue().getRegister(0).getValue(), is(equalTo(30)));
+        assertThat(registers2.getValue().getRegister(2).getValue(), is(equalTo(50)));
+    }
+
+    @Test
+    public void testErrorIsPropagatedToOriginalCallbacks() {
+        ModbusReadCallback callback1 = mock(ModbusReadCallback.class);
+        ModbusReadCallback callback2 = mock(ModbusReadCallback.class);
+        PollTask task1 = task(1, ModbusReadFunctionCode.READ_COILS, 0, 8, callback1);
+        PollTask task2 = task(1, ModbusReadFunctionCode.READ_COILS, 8, 8, callback2);
+        List<PollTask> plan = new ModbusReadRequestPlanner(0).plan(endpoint, Arrays.asList(task1, task2));
+        assertThat(plan.size(), is(equalTo(1)));
+
+        Exception error = new Exception("test");
+        ModbusReadRequestBlueprint request = plan.get(0).getRequest();
+        plan.get(0).getCallback().onError(request, error);
+        verify(callback1).onError(same(task1.getRequest()), same(error));
+        verify(callback2).onError(same(task2.getRequest()), same(error));
+    }
+
+    @Test
+    public void testInactiveMembersAreSkipped() {
+        ModbusReadCallback callback1 = mock(ModbusReadCallback.class);
+        ModbusReadCallback callback2 = mock(ModbusReadCallback.class);
+        PollTask task1 = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, callback1);
+        PollTask task2 = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 4, 2, callback2);
+        Set<PollTask> active = new HashSet<>(Arrays.asList(task1, task2));
+        List<PollTask> plan = new ModbusReadRequestPlanner(0, active::contains).plan(endpoint,
+                Arrays.asList(task1, task2));
+        assertThat(plan.size(), is(equalTo(1)));
+
+        // unregistered while the coalesced transaction was executed
+        active.remove(task2);
+        PollTask coalesced = plan.get(0);
+        coalesced.getCallback().onRegisters(coalesced.getRequest(), new BasicModbusRegisterArray(20, 30, 40, 50));
+        coalesced.getCallback().onError(coalesced.getRequest(), new Exception("test"));
+
+        verify(callback1).onRegisters(same(task1.getRequest()), any(ModbusRegisterArray.class));
+        verify(callback1).onError(same(task1.getRequest()), any(Exception.class));
+        verifyNoMoreInteractions(callback2);
+    }
+
+}
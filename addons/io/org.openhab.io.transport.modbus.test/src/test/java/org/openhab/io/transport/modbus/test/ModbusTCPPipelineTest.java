@@ -0,0 +1,474 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.ModbusTCPPipeline;
+
+import net.wimpi.modbus.ModbusIOException;
+import net.wimpi.modbus.ModbusSlaveException;
+import net.wimpi.modbus.io.ModbusTransport;
+import net.wimpi.modbus.msg.ExceptionResponse;
+import net.wimpi.modbus.msg.ModbusMessage;
+import net.wimpi.modbus.msg.ModbusResponse;
+import net.wimpi.modbus.msg.ReadMultipleRegistersRequest;
+import net.wimpi.modbus.msg.ReadMultipleRegistersResponse;
+import net.wimpi.modbus.net.TCPMasterConnection;
+
+/**
+ *
+ * @author agent (agent@local) - Initial contribution
+ *
+ */
+public class ModbusTCPPipelineTest {
+
+    private ModbusTCPSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("localhost", 502);
+    private TCPMasterConnection connection;
+    private ModbusTransport transport;
+    private ModbusTCPPipeline.ConnectionProvider connectionProvider;
+    private ModbusMessage lastWritten;
+    private List<Integer> writtenTransactionIds = new ArrayList<>();
+    private int maxUnanswered;
+    private Set<Thread> writerThreads = ConcurrentHashMap.newKeySet();
+    private CountDownLatch borrowStarted = new CountDownLatch(1);
+    private CountDownLatch releaseBorrow = new CountDownLatch(1);
+    private ExecutorService callers = Executors.newCachedThreadPool();
+    private AtomicInteger socketTimeout = new AtomicInteger();
+
+    @Before
+    public void setUp() throws ModbusIOException {
+        connection = mock(TCPMasterConnection.class);
+        transport = mock(ModbusTransport.class);
+        when(connection.getModbusTransport()).thenReturn(transport);
+        doAnswer(invocation -> {
+            socketTimeout.set(invocation.getArgument(0));
+            return null;
+        }).when(connection).setTimeout(anyInt());
+        doAnswer(invocation -> {
+            lastWritten = invocation.getArgument(0);
+            synchronized (writtenTransactionIds) {
+                writtenTransactionIds.add(lastWritten.getTransactionID());
+                maxUnanswered = Math.max(maxUnanswered, writtenTransactionIds.size());
+            }
+            writerThreads.add(Thread.currentThread());
+            return null;
+        }).when(transport).writeMessage(any());
+        connectionProvider = mock(ModbusTCPPipeline.ConnectionProvider.class);
+        when(connectionProvider.borrow(endpoint)).thenReturn(Optional.of(connection));
+    }
+
+    @After
+    public void tearDown() {
+        releaseBorrow.countDown();
+        callers.shutdownNow();
+    }
+
+    /**
+     * Makes the first borrow of connection block until {@link #releaseBorrow} is released. This way the first caller
+     * becomes the IO owner, and other callers can queue their requests meanwhile.
+     */
+    private void blockFirstBorrow() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(connectionProvider.borrow(endpoint)).thenAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                borrowStarted.countDown();
+                releaseBorrow.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.of(connection);
+        });
+    }
+
+    /**
+     * Answer responses to written requests in reverse order, i.e. the latest request is responded first
+     */
+    private ModbusResponse respondLatestUnanswered() {
+        synchronized (writtenTransactionIds) {
+            int transactionId = writtenTransactionIds.remove(writtenTransactionIds.size() - 1);
+            return responseWithTransactionId(new ReadMultipleRegistersResponse(), transactionId);
+        }
+    }
+
+    private void awaitQueued(ModbusTCPPipeline pipeline, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getQueuedCount() < count) {
+            assertTrue("Requests were not queued in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private List<Future<ModbusResponse>> executeConcurrently(ModbusTCPPipeline pipeline,
+            List<ReadMultipleRegistersRequest> requests) throws InterruptedException {
+        blockFirstBorrow();
+        List<Future<ModbusResponse>> responses = new ArrayList<>();
+        responses.add(callers.submit(() -> pipeline.execute(requests.get(0))));
+        assertTrue(borrowStarted.await(5, TimeUnit.SECONDS));
+        for (ReadMultipleRegistersRequest request : requests.subList(1, requests.size())) {
+            responses.add(callers.submit(() -> pipeline.execute(request)));
+        }
+        awaitQueued(pipeline, requests.size() - 1);
+        releaseBorrow.countDown();
+        return responses;
+    }
+
+    private List<ReadMultipleRegistersRequest> createRequests(int count) {
+        List<ReadMultipleRegistersRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(new ReadMultipleRegistersRequest(i, 2));
+        }
+        return requests;
+    }
+
+    private ModbusResponse responseWithTransactionId(ModbusResponse response, int transactionId) {
+        response.setTransactionID(transactionId);
+        return response;
+    }
+
+    @Test
+    public void testResponseWithUnknownTransactionIdIsSkipped() throws Exception {
+        when(transport.readResponse())
+                .thenAnswer(invocation -> responseWithTransactionId(new ReadMultipleRegistersResponse(),
+                        lastWritten.getTransactionID() + 100))
+                .thenAnswer(invocation -> responseWithTransactionId(new ReadMultipleRegistersResponse(),
+                        lastWritten.getTransactionID()));
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+
+        ReadMultipleRegistersRequest request = new ReadMultipleRegistersRequest(0, 2);
+        ModbusResponse response = pipeline.execute(request);
+
+        assertThat(response.getTransactionID(), is(equalTo(request.getTransactionID())));
+        verify(transport, times(2)).readResponse();
+        verify(connectionProvider).giveBack(endpoint, Optional.of(connection));
+        verify(connectionProvider, never()).invalidate(any(), any());
+    }
+
+    @Test
+    public void testTransactionIdsAreUnique() throws Exception {
+        when(transport.readResponse()).thenAnswer(invocation -> responseWithTransactionId(
+                new ReadMultipleRegistersResponse(), lastWritten.getTransactionID()));
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+
+        ReadMultipleRegistersRequest request1 = new ReadMultipleRegistersRequest(0, 2);
+        ReadMultipleRegistersRequest request2 = new ReadMultipleRegistersRequest(0, 2);
+        pipeline.execute(request1);
+        pipeline.execute(request2);
+        assertThat(request1.getTransactionID(), is(not(equalTo(request2.getTransactionID()))));
+    }
+
+    @Test
+    public void testExceptionResponse() throws Exception {
+        when(transport.readResponse()).thenAnswer(invocation -> responseWithTransactionId(
+                new ExceptionResponse(3, 2), lastWritten.getTransactionID()));
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+        try {
+            pipeline.execute(new ReadMultipleRegistersRequest(0, 2));
+            fail("Expecting ModbusSlaveException");
+        } catch (ModbusSlaveException e) {
+            assertThat(e.getType(), is(equalTo(2)));
+        }
+        verify(connectionProvider).giveBack(endpoint, Optional.of(connection));
+    }
+
+    @Test
+    public void testIOErrorInvalidatesConnection() throws Exception {
+        when(transport.readResponse()).thenThrow(new ModbusIOException("read timeout"));
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+        try {
+            pipeline.execute(new ReadMultipleRegistersRequest(0, 2));
+            fail("Expecting ModbusIOException");
+        } catch (ModbusIOException e) {
+            // expected
+        }
+        verify(connectionProvider).invalidate(endpoint, Optional.of(connection));
+        verify(connectionProvider, never()).giveBack(any(), any());
+    }
+
+    @Test
+    public void testOutOfOrderResponsesWithSeveralRequestsInFlight() throws Exception {
+        when(transport.readResponse()).thenAnswer(invocation -> respondLatestUnanswered());
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+        List<ReadMultipleRegistersRequest> requests = createRequests(4);
+
+        List<Future<ModbusResponse>> responses = executeConcurrently(pipeline, requests);
+
+        for (int i = 0; i < requests.size(); i++) {
+            ModbusResponse response = responses.get(i).get(5, TimeUnit.SECONDS);
+            assertThat(response.getTransactionID(), is(equalTo(requests.get(i).getTransactionID())));
+        }
+        // all requests are queued by the time the connection is borrowed, and sent together
+        verify(connectionProvider, times(1)).borrow(endpoint);
+        verify(transport, times(4)).writeMessage(any());
+        assertThat(maxUnanswered, is(equalTo(4)));
+        verify(connectionProvider, times(1)).giveBack(endpoint, Optional.of(connection));
+    }
+
+    @Test
+    public void testIOOwnerExecutesRequestsOfOtherCallers() throws Exception {
+        when(transport.readResponse()).thenAnswer(invocation -> respondLatestUnanswered());
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 2, connectionProvider);
+        List<ReadMultipleRegistersRequest> requests = createRequests(5);
+
+        List<Future<ModbusResponse>> responses = executeConcurrently(pipeline, requests);
+
+        for (int i = 0; i < requests.size(); i++) {
+            ModbusResponse response = responses.get(i).get(5, TimeUnit.SECONDS);
+            assertThat(response.getTransactionID(), is(equalTo(requests.get(i).getTransactionID())));
+        }
+        // All IO is done by the first caller, and never more than maxInFlight requests are in flight. Queued requests
+        // are sent as soon as responses are received, using the same connection.
+        assertThat(writerThreads.size(), is(equalTo(1)));
+        assertThat(maxUnanswered, is(equalTo(2)));
+        verify(connectionProvider, times(1)).borrow(endpoint);
+        assertThat(pipeline.getQueuedCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testIOErrorFailsOnlyTransactionsInFlight() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        when(transport.readResponse()).thenAnswer(invocation -> {
+            // One response, then error with two requests in flight. The last request is sent with a new connection.
+            if (reads.incrementAndGet() != 2) {
+                return respondLatestUnanswered();
+            }
+            throw new ModbusIOException("connection reset");
+        });
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 2, connectionProvider);
+        List<ReadMultipleRegistersRequest> requests = createRequests(4);
+
+        List<Future<ModbusResponse>> responses = executeConcurrently(pipeline, requests);
+
+        // Order of the queued requests depends on thread scheduling
+        int succeeded = 0;
+        int failed = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                ModbusResponse response = responses.get(i).get(5, TimeUnit.SECONDS);
+                assertThat(response.getTransactionID(), is(equalTo(requests.get(i).getTransactionID())));
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(ModbusIOException.class)));
+                failed++;
+            }
+        }
+        assertThat(succeeded, is(equalTo(2)));
+        assertThat(failed, is(equalTo(2)));
+        verify(transport, times(4)).writeMessage(any());
+        verify(connectionProvider, times(2)).borrow(endpoint);
+        verify(connectionProvider).invalidate(endpoint, Optional.of(connection));
+        verify(connectionProvider).giveBack(endpoint, Optional.of(connection));
+        assertThat(pipeline.toString(), containsString("inFlight=0"));
+    }
+
+    /**
+     * Read of a slave that answers all requests except the given one. When no answer is available, the read blocks
+     * for the socket timeout of the connection, and fails.
+     */
+    private ModbusResponse respondAllExcept(AtomicReference<Integer> lostTransactionId) throws Exception {
+        synchronized (writtenTransactionIds) {
+            // the response to the first request is never received
+            lostTransactionId.compareAndSet(null, writtenTransactionIds.get(0));
+            for (int i = writtenTransactionIds.size() - 1; i >= 0; i--) {
+                int transactionId = writtenTransactionIds.get(i);
+                if (transactionId != lostTransactionId.get()) {
+                    writtenTransactionIds.remove(i);
+                    return responseWithTransactionId(new ReadMultipleRegistersResponse(), transactionId);
+                }
+            }
+        }
+        Thread.sleep(socketTimeout.get());
+        throw new ModbusIOException("read timeout");
+    }
+
+    @Test
+    public void testLostResponseFailsOnlyThatTransaction() throws Exception {
+        when(connection.getTimeout()).thenReturn(150);
+        AtomicReference<Integer> lostTransactionId = new AtomicReference<>();
+        when(transport.readResponse()).thenAnswer(invocation -> respondAllExcept(lostTransactionId));
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 2, connectionProvider);
+        List<ReadMultipleRegistersRequest> requests = createRequests(5);
+
+        List<Future<ModbusResponse>> responses = executeConcurrently(pipeline, requests);
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i).getTransactionID() == lostTransactionId.get()) {
+                try {
+                    responses.get(i).get(5, TimeUnit.SECONDS);
+                    fail("Expecting ModbusIOException");
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), is(instanceOf(ModbusIOException.class)));
+                }
+            } else {
+                ModbusResponse response = responses.get(i).get(5, TimeUnit.SECONDS);
+                assertThat(response.getTransactionID(), is(equalTo(requests.get(i).getTransactionID())));
+            }
+        }
+        // the other transactions are answered before the deadline of the lost one, with the same connection
+        verify(connectionProvider, times(1)).borrow(endpoint);
+        // the late response may be read partially, the connection is not reused
+        verify(connectionProvider).invalidate(endpoint, Optional.of(connection));
+        verify(connectionProvider, never()).giveBack(any(), any());
+        assertThat(pipeline.toString(), containsString("inFlight=0"));
+        // configured timeout is restored
+        verify(connection).setTimeout(150);
+        assertThat(socketTimeout.get(), is(equalTo(150)));
+    }
+
+    @Test
+    public void testSilentSlaveFailsTransactionAtItsDeadline() throws Exception {
+        when(connection.getTimeout()).thenReturn(200);
+        when(transport.readResponse()).thenAnswer(invocation -> {
+            Thread.sleep(socketTimeout.get());
+            throw new ModbusIOException("read timeout");
+        });
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 2, connectionProvider);
+
+        long start = System.currentTimeMillis();
+        try {
+            pipeline.execute(new ReadMultipleRegistersRequest(0, 2));
+            fail("Expecting ModbusIOException");
+        } catch (ModbusIOException e) {
+            // expected
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertThat(elapsed >= 190 && elapsed < 1000, is(true));
+        // the late response may be read partially, the connection is not reused
+        verify(connectionProvider).invalidate(endpoint, Optional.of(connection));
+        verify(connectionProvider, never()).giveBack(any(), any());
+    }
+
+    @Test
+    public void testReadTimeoutFailsAllTransactionsInFlight() throws Exception {
+        when(connection.getTimeout()).thenReturn(150);
+        AtomicInteger reads = new AtomicInteger();
+        when(transport.readResponse()).thenAnswer(invocation -> {
+            // The second request is answered late, then the slave stays silent. The first request expires while the
+            // third one is still within its deadline.
+            if (reads.incrementAndGet() == 1) {
+                Thread.sleep(100);
+                return respondLatestUnanswered();
+            }
+            Thread.sleep(socketTimeout.get());
+            throw new ModbusIOException("read timeout");
+        });
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 2, connectionProvider);
+        List<ReadMultipleRegistersRequest> requests = createRequests(3);
+
+        List<Future<ModbusResponse>> responses = executeConcurrently(pipeline, requests);
+
+        // Order of the queued requests depends on thread scheduling
+        int succeeded = 0;
+        int failed = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                ModbusResponse response = responses.get(i).get(5, TimeUnit.SECONDS);
+                assertThat(response.getTransactionID(), is(equalTo(requests.get(i).getTransactionID())));
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(ModbusIOException.class)));
+                failed++;
+            }
+        }
+        assertThat(succeeded, is(equalTo(1)));
+        assertThat(failed, is(equalTo(2)));
+        // the transaction within its deadline is not read from the same connection anymore, and not sent again
+        verify(transport, times(3)).writeMessage(any());
+        verify(transport, times(2)).readResponse();
+        verify(connectionProvider, times(1)).borrow(endpoint);
+        verify(connectionProvider).invalidate(endpoint, Optional.of(connection));
+        verify(connectionProvider, never()).giveBack(any(), any());
+        assertThat(pipeline.toString(), containsString("inFlight=0"));
+    }
+
+    @Test
+    public void testWaitingCallerTakesOverWithoutDelay() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        when(transport.readResponse()).thenAnswer(invocation -> respondLatestUnanswered());
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 1, connectionProvider);
+        // Many sequential short executions from two callers, each caller alternating as the IO owner. Stalls while
+        // handing over the IO would add up.
+        long start = System.currentTimeMillis();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int caller = 0; caller < 2; caller++) {
+            futures.add(callers.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    pipeline.execute(new ReadMultipleRegistersRequest(i, 2));
+                    executed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(executed.get(), is(equalTo(100)));
+        assertThat(System.currentTimeMillis() - start < 2000, is(true));
+    }
+
+    @Test
+    public void testInterruptedCallerRemovesQueuedRequest() throws Exception {
+        when(transport.readResponse()).thenAnswer(invocation -> respondLatestUnanswered());
+        blockFirstBorrow();
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+        Future<ModbusResponse> first = callers.submit(() -> pipeline.execute(new ReadMultipleRegistersRequest(0, 2)));
+        assertTrue(borrowStarted.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Thread interrupted = new Thread(() -> {
+            try {
+                pipeline.execute(new ReadMultipleRegistersRequest(1, 2));
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+        interrupted.start();
+        awaitQueued(pipeline, 1);
+        interrupted.interrupt();
+        interrupted.join(5000);
+
+        assertThat(error.get(), is(instanceOf(ModbusIOException.class)));
+        assertThat(pipeline.getQueuedCount(), is(equalTo(0)));
+
+        releaseBorrow.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        // request of the interrupted caller is never sent
+        verify(transport, times(1)).writeMessage(any());
+        verify(connectionProvider, times(1)).borrow(endpoint);
+    }
+
+    @Test(expected = ModbusTCPPipeline.PipelineConnectionException.class)
+    public void testConnectionError() throws Exception {
+        when(connectionProvider.borrow(endpoint)).thenReturn(Optional.empty());
+        ModbusTCPPipeline pipeline = new ModbusTCPPipeline(endpoint, 4, connectionProvider);
+        pipeline.execute(new ReadMultipleRegistersRequest(0, 2));
+    }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicPollTaskImpl;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.endpoint.EndpointPoolConfiguration;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.test.IntegrationTestSupport.NonOSGIModbusManager;
+
+/**
+ * Tests pipelined transactions together with adaptive inter-transaction delay, using a minimal Modbus TCP slave that
+ * keeps track of the requests it has received but not yet responded
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class PipelinedAdaptiveDelayTest {
+
+    private static final int REQUESTS = 4;
+    private static final long RESPONSE_DELAY_MILLIS = 200;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private AtomicInteger outstanding = new AtomicInteger();
+    private AtomicInteger maxOutstanding = new AtomicInteger();
+    private NonOSGIModbusManager modbusManager;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+        acceptThread = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    new Thread(() -> serve(socket)).start();
+                }
+            } catch (IOException e) {
+                // server closed
+            }
+        }, "PipelinedAdaptiveDelayTestServer");
+        acceptThread.start();
+        modbusManager = new NonOSGIModbusManager();
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        modbusManager.close();
+        serverSocket.close();
+        acceptThread.join(5000);
+    }
+
+    /**
+     * Serve Read Multiple Registers requests of single connection. Requests are read as soon as they arrive, while
+     * the responses are written with a delay, in the order of the requests.
+     */
+    private void serve(Socket socket) {
+        BlockingQueue<byte[]> requests = new LinkedBlockingQueue<>();
+        Thread responder = new Thread(() -> {
+            try (OutputStream out = socket.getOutputStream()) {
+                while (true) {
+                    byte[] request = requests.take();
+                    Thread.sleep(RESPONSE_DELAY_MILLIS);
+                    int count = ((request[10] & 0xff) << 8) | (request[11] & 0xff);
+                    byte[] response = new byte[9 + 2 * count];
+                    // transaction id, protocol id, length, unit id
+                    response[0] = request[0];
+                    response[1] = request[1];
+                    response[5] = (byte) (3 + 2 * count);
+                    response[6] = request[6];
+                    response[7] = request[7];
+                    response[8] = (byte) (2 * count);
+                    out.write(response);
+                    out.flush();
+                    outstanding.decrementAndGet();
+                }
+            } catch (IOException | InterruptedException e) {
+                // connection closed
+            }
+        });
+        responder.start();
+        try (DataInputStream in = new DataInputStream(socket.getInputStream())) {
+            while (true) {
+                byte[] request = new byte[12];
+                in.readFully(request);
+                maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                requests.add(request);
+            }
+        } catch (SocketException e) {
+            // connection closed
+        } catch (IOException e) {
+            // connection closed by the client
+        } finally {
+            responder.interrupt();
+        }
+    }
+
+    @Test
+    public void testPipelinedWithAdaptiveDelayKeepsSeveralTransactionsInFlight() throws InterruptedException {
+        ModbusTCPSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("127.0.0.1", serverSocket.getLocalPort());
+        EndpointPoolConfiguration config = new EndpointPoolConfiguration();
+        config.setConnectMaxTries(1);
+        config.setInterTransactionDelayMillis(10);
+        config.setReconnectAfterMillis(-1);
+        config.setMaxInFlightTransactions(REQUESTS);
+        config.setAdaptiveInterTransactionDelay(true);
+        modbusManager.setEndpointPoolConfiguration(endpoint, config);
+
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        AtomicInteger responses = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        ModbusReadCallback callback = new ModbusReadCallback() {
+
+            @Override
+            public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                responses.incrementAndGet();
+                done.countDown();
+            }
+
+            @Override
+            public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                unexpected.incrementAndGet();
+                done.countDown();
+            }
+
+            @Override
+            public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                unexpected.incrementAndGet();
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < REQUESTS; i++) {
+            modbusManager.submitOneTimePoll(new BasicPollTaskImpl(endpoint, new BasicModbusReadRequestBlueprint(1,
+                    ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, i, 2, 1), callback));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(unexpected.get(), is(equalTo(0)));
+        assertThat(responses.get(), is(equalTo(REQUESTS)));
+        // requests were sent while earlier ones were still waiting for the response
+        assertThat(maxOutstanding.get() > 1, is(true));
+    }
+}
@@ -11,6 +11,8 @@ package org.openhab.io.transport.modbus.test;
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -43,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.ImmutableSet;
 
 import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ReadMultipleRegistersRequest;
 import net.wimpi.modbus.msg.WriteCoilRequest;
 import net.wimpi.modbus.msg.WriteMultipleCoilsRequest;
 import net.wimpi.modbus.procimg.SimpleDigitalIn;
@@ -828,6 +831,121 @@ public class SmokeTest extends IntegrationTestSupport {
         assertTrue(String.valueOf(averagePollPeriodMillis), averagePollPeriodMillis < 400);
     }
 
+    private BasicPollTaskImpl holdingPollTask(ModbusSlaveEndpoint endpoint, int start, int length,
+            AtomicInteger received, AtomicInteger unexpectedCount) {
+        return new BasicPollTaskImpl(endpoint, new BasicModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, length, 1), new ModbusReadCallback() {
+
+                    @Override
+                    public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                        try {
+                            assertThat(registers.size(), is(equalTo(length)));
+                            testHoldingValues(registers, start);
+                            received.incrementAndGet();
+                        } catch (AssertionError e) {
+                            unexpectedCount.incrementAndGet();
+                        }
+                    }
+
+                    @Override
+                    public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                        unexpectedCount.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                        unexpectedCount.incrementAndGet();
+                    }
+                });
+    }
+
+    private List<ReadMultipleRegistersRequest> capturedRequestsSince(int index) {
+        List<ReadMultipleRegistersRequest> requests = new ArrayList<>();
+        List<ModbusRequest> captured = modbustRequestCaptor.getAllReturnValues();
+        synchronized (captured) {
+            for (ModbusRequest request : captured.subList(index, captured.size())) {
+                requests.add((ReadMultipleRegistersRequest) request);
+            }
+        }
+        return requests;
+    }
+
+    private int capturedRequestCount() {
+        List<ModbusRequest> captured = modbustRequestCaptor.getAllReturnValues();
+        synchronized (captured) {
+            return captured.size();
+        }
+    }
+
+    /**
+     * Regular polls of adjacent ranges are read with single transaction, and re-planned when polls are unregistered
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testCoalescedRegularPollsRegisterAndUnregister() throws InterruptedException {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        EndpointPoolConfiguration config = new EndpointPoolConfiguration();
+        config.setInterTransactionDelayMillis(10);
+        config.setConnectMaxTries(1);
+        config.setReadCoalescingMaxGap(0);
+        modbusManager.setEndpointPoolConfiguration(endpoint, config);
+
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        AtomicInteger received1 = new AtomicInteger();
+        AtomicInteger received2 = new AtomicInteger();
+        AtomicInteger received3 = new AtomicInteger();
+        BasicPollTaskImpl task1 = holdingPollTask(endpoint, 1, 5, received1, unexpectedCount);
+        BasicPollTaskImpl task2 = holdingPollTask(endpoint, 6, 5, received2, unexpectedCount);
+        BasicPollTaskImpl task3 = holdingPollTask(endpoint, 11, 5, received3, unexpectedCount);
+
+        modbusManager.registerRegularPoll(task1, 100, 0);
+        modbusManager.registerRegularPoll(task2, 100, 0);
+        modbusManager.registerRegularPoll(task3, 100, 0);
+        assertThat(modbusManager.getRegisteredRegularPolls(), is(equalTo(ImmutableSet.of(task1, task2, task3))));
+
+        // all three polls are eventually read with one transaction
+        waitForAssert(() -> {
+            assertTrue(received3.get() > 1);
+            List<ReadMultipleRegistersRequest> requests = capturedRequestsSince(0);
+            ReadMultipleRegistersRequest last = requests.get(requests.size() - 1);
+            assertThat(last.getReference(), is(equalTo(1)));
+            assertThat(last.getWordCount(), is(equalTo(15)));
+        }, 5000, 10);
+        assertTrue(received1.get() > 1);
+        assertTrue(received2.get() > 1);
+
+        // unregistered poll is not read anymore, once the poll in progress (if any) has finished
+        modbusManager.unregisterRegularPoll(task3);
+        Thread.sleep(150);
+        int receivedAfterUnregister = received3.get();
+        int requestsAfterUnregister = capturedRequestCount();
+        waitForAssert(() -> assertTrue(capturedRequestCount() > requestsAfterUnregister + 1), 5000, 10);
+        for (ReadMultipleRegistersRequest request : capturedRequestsSince(requestsAfterUnregister)) {
+            assertThat(request.getReference(), is(equalTo(1)));
+            assertThat(request.getWordCount(), is(equalTo(10)));
+        }
+        assertThat(received3.get(), is(equalTo(receivedAfterUnregister)));
+
+        // newly registered poll joins the group
+        AtomicInteger received4 = new AtomicInteger();
+        BasicPollTaskImpl task4 = holdingPollTask(endpoint, 11, 10, received4, unexpectedCount);
+        modbusManager.registerRegularPoll(task4, 100, 0);
+        waitForAssert(() -> assertTrue(received4.get() > 1), 5000, 10);
+
+        // nothing is read after all polls are unregistered
+        modbusManager.unregisterRegularPoll(task1);
+        modbusManager.unregisterRegularPoll(task2);
+        modbusManager.unregisterRegularPoll(task4);
+        assertThat(modbusManager.getRegisteredRegularPolls().isEmpty(), is(true));
+        Thread.sleep(150);
+        int requestsAfterUnregisterAll = capturedRequestCount();
+        Thread.sleep(300);
+        assertThat(capturedRequestCount(), is(equalTo(requestsAfterUnregisterAll)));
+        assertThat(unexpectedCount.get(), is(equalTo(0)));
+    }
+
     @SuppressWarnings("null")
     @Test
     public void testPoolConfigurationWithoutListener() {
@@ -10,7 +10,6 @@ package org.openhab.io.transport.modbus;
 
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Optional;
 
@@ -82,67 +81,205 @@ public class ModbusBitUtilities {
      */
     public static DecimalType extractStateFromRegisters(ModbusRegisterArray registers, int index,
             ModbusConstants.ValueType type) {
+        return rawBitsToState(extractRawBitsFromRegisters(registers, index, type), type);
+    }
+
+    /**
+     * Read raw bits of a value from registers, without allocating any objects
+     *
+     * The bits of the value are returned in the least significant bits of the <code>long</code>, with the upper bits
+     * cleared. The returned value can be decoded using {@link #rawBitsToLong(long, ModbusConstants.ValueType)},
+     * {@link #rawBitsToDouble(long, ModbusConstants.ValueType)} or
+     * {@link #rawBitsToState(long, ModbusConstants.ValueType)}. Comparing the raw bits is a cheap way to detect
+     * whether the value has changed.
+     *
+     * Interpretation of <tt>index</tt> is the same as with
+     * {@link #extractStateFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}
+     *
+     * @param registers list of registers, each register represent 16bit of data
+     * @param index zero based item index
+     * @param type item type
+     * @return raw bits of the value
+     * @throws IllegalArgumentException when <tt>index</tt> is out of bounds of registers
+     */
+    public static long extractRawBitsFromRegisters(ModbusRegisterArray registers, int index,
+            ModbusConstants.ValueType type) {
+        checkBounds(registers.size(), index, type);
+        int registerIndex = registerIndex(index, type);
+        int first = registers.getRegisterAsUnsignedShort(registerIndex);
+        int second = type.getBits() == 32 ? registers.getRegisterAsUnsignedShort(registerIndex + 1) : 0;
+        return combineRawBits(first, second, index, type);
+    }
+
+    /**
+     * Read raw bits of a value from bytes, without allocating any objects
+     *
+     * Same as {@link #extractRawBitsFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)} but reads the
+     * register data directly from a buffer, for example a shared view of the response PDU. The register data is read
+     * starting from the current position of the buffer, each register being two bytes, high byte first. The position
+     * and byte order of the buffer are not used nor modified.
+     *
+     * @param bytes register data, two bytes per register
+     * @param index zero based item index
+     * @param type item type
+     * @return raw bits of the value
+     * @throws IllegalArgumentException when <tt>index</tt> is out of bounds of registers
+     */
+    public static long extractRawBitsFromBytes(ByteBuffer bytes, int index, ModbusConstants.ValueType type) {
+        checkBounds(bytes.remaining() / 2, index, type);
+        int registerIndex = registerIndex(index, type);
+        int first = unsignedShortAt(bytes, registerIndex);
+        int second = type.getBits() == 32 ? unsignedShortAt(bytes, registerIndex + 1) : 0;
+        return combineRawBits(first, second, index, type);
+    }
+
+    /**
+     * Read raw bits of a value from byte array, without allocating any objects
+     *
+     * @param bytes register data, two bytes per register, high byte first
+     * @param index zero based item index
+     * @param type item type
+     * @return raw bits of the value
+     * @throws IllegalArgumentException when <tt>index</tt> is out of bounds of registers
+     * @see #extractRawBitsFromBytes(ByteBuffer, int, ModbusConstants.ValueType)
+     */
+    public static long extractRawBitsFromBytes(byte[] bytes, int index, ModbusConstants.ValueType type) {
+        checkBounds(bytes.length / 2, index, type);
+        int registerIndex = registerIndex(index, type);
+        int first = ((bytes[2 * registerIndex] & 0xff) << 8) | (bytes[2 * registerIndex + 1] & 0xff);
+        int second = 0;
+        if (type.getBits() == 32) {
+            second = ((bytes[2 * registerIndex + 2] & 0xff) << 8) | (bytes[2 * registerIndex + 3] & 0xff);
+        }
+        return combineRawBits(first, second, index, type);
+    }
+
+    /**
+     * Decode raw bits to integer
+     *
+     * Signed types are sign extended. Floating point values are truncated towards zero.
+     *
+     * @param rawBits raw bits as returned by e.g.
+     *            {@link #extractRawBitsFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}
+     * @param type item type
+     * @return integer value
+     */
+    public static long rawBitsToLong(long rawBits, ModbusConstants.ValueType type) {
+        switch (type) {
+            case BIT:
+            case UINT8:
+            case UINT16:
+            case UINT32:
+            case UINT32_SWAP:
+                return rawBits;
+            case INT8:
+                return (byte) rawBits;
+            case INT16:
+                return (short) rawBits;
+            case INT32:
+            case INT32_SWAP:
+                return (int) rawBits;
+            case FLOAT32:
+            case FLOAT32_SWAP:
+                return (long) Float.intBitsToFloat((int) rawBits);
+            default:
+                throw new IllegalArgumentException(type.getConfigValue());
+        }
+    }
+
+    /**
+     * Decode raw bits to floating point number
+     *
+     * All the value types are represented exactly as <code>double</code>.
+     *
+     * @param rawBits raw bits as returned by e.g.
+     *            {@link #extractRawBitsFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}
+     * @param type item type
+     * @return floating point value
+     */
+    public static double rawBitsToDouble(long rawBits, ModbusConstants.ValueType type) {
+        switch (type) {
+            case FLOAT32:
+            case FLOAT32_SWAP:
+                return Float.intBitsToFloat((int) rawBits);
+            default:
+                return rawBitsToLong(rawBits, type);
+        }
+    }
+
+    /**
+     * Decode raw bits to DecimalType
+     *
+     * @param rawBits raw bits as returned by e.g.
+     *            {@link #extractRawBitsFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}
+     * @param type item type
+     * @return number representation of the value
+     */
+    public static DecimalType rawBitsToState(long rawBits, ModbusConstants.ValueType type) {
+        switch (type) {
+            case FLOAT32:
+            case FLOAT32_SWAP:
+                return new DecimalType(Float.intBitsToFloat((int) rawBits));
+            default:
+                return new DecimalType(rawBitsToLong(rawBits, type));
+        }
+    }
+
+    private static void checkBounds(int registerCount, int index, ModbusConstants.ValueType type) {
         int endBitIndex = (type.getBits() >= 16 ? 16 * index : type.getBits() * index) + type.getBits() - 1;
         // each register has 16 bits
-        int lastValidIndex = registers.size() * 16 - 1;
+        int lastValidIndex = registerCount * 16 - 1;
         if (endBitIndex > lastValidIndex || index < 0) {
             throw new IllegalArgumentException(
                     String.format("Index=%d with type=%s is out-of-bounds given registers of size %d", index, type,
-                            registers.size()));
+                            registerCount));
+        }
+    }
+
+    /**
+     * Index of the (first) register containing the item
+     */
+    private static int registerIndex(int index, ModbusConstants.ValueType type) {
+        if (type.getBits() >= 16) {
+            return index;
+        } else {
+            return index / (16 / type.getBits());
         }
+    }
+
+    private static int unsignedShortAt(ByteBuffer bytes, int registerIndex) {
+        int position = bytes.position() + 2 * registerIndex;
+        return ((bytes.get(position) & 0xff) << 8) | (bytes.get(position + 1) & 0xff);
+    }
+
+    /**
+     * Combine raw bits of the item from register values
+     *
+     * @param first unsigned value of the (first) register containing the item
+     * @param second unsigned value of the register following the first register. Used only with 32 bit types
+     * @param index zero based item index
+     * @param type item type
+     * @return raw bits of the item
+     */
+    private static long combineRawBits(int first, int second, int index, ModbusConstants.ValueType type) {
         switch (type) {
             case BIT:
-                return new DecimalType((registers.getRegister(index / 16).toUnsignedShort() >> (index % 16)) & 1);
+                return (first >> (index % 16)) & 1;
             case INT8:
-                return new DecimalType(registers.getRegister(index / 2).getBytes()[1 - (index % 2)]);
             case UINT8:
-                return new DecimalType(
-                        (registers.getRegister(index / 2).toUnsignedShort() >> (8 * (index % 2))) & 0xff);
-            case INT16: {
-                ByteBuffer buff = ByteBuffer.allocate(2);
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getShort(0));
-            }
+                // index 0 refers to the low byte of the first register
+                return (first >> (8 * (index % 2))) & 0xff;
+            case INT16:
             case UINT16:
-                return new DecimalType(registers.getRegister(index).toUnsignedShort());
-            case INT32: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0));
-            }
-            case UINT32: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.position(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0));
-            }
-            case FLOAT32: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0));
-            }
-            case INT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0));
-            }
-            case UINT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.position(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0));
-            }
-            case FLOAT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0));
-            }
+                return first;
+            case INT32:
+            case UINT32:
+            case FLOAT32:
+                return ((long) first << 16) | second;
+            case INT32_SWAP:
+            case UINT32_SWAP:
+            case FLOAT32_SWAP:
+                return ((long) second << 16) | first;
             default:
                 throw new IllegalArgumentException(type.getConfigValue());
         }
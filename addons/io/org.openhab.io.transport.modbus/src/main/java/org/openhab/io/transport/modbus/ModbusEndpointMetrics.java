@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Runtime metrics of a single Modbus slave endpoint
+ *
+ * The values reflect the current state and are updated as transactions are executed.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public interface ModbusEndpointMetrics {
+
+    /**
+     * Duration of successful transactions, from sending the request until the response has been received
+     */
+    ModbusLatencyHistogram getTransactionLatency();
+
+    /**
+     * Time spent waiting for a connection from the connection pool. Includes time spent connecting, and the
+     * inter-transaction delay.
+     */
+    ModbusLatencyHistogram getConnectionWait();
+
+    /**
+     * Inter-transaction delays actually applied before transactions, that is, the time slept to ensure the
+     * configured delay between transactions
+     */
+    ModbusLatencyHistogram getInterTransactionDelay();
+
+    /**
+     * Number of transaction retries, i.e. tries after the first try of each operation
+     */
+    long getRetryCount();
+
+    /**
+     * Number of transactions failed with I/O error
+     */
+    long getIOErrorCount();
+
+    /**
+     * Number of transactions where slave responded with exception response
+     */
+    long getSlaveErrorCount();
+
+    /**
+     * Number of transactions where the response transaction ID did not match the request
+     */
+    long getTransactionIdErrorCount();
+
+    /**
+     * Number of operations aborted since connection could not be established
+     */
+    long getConnectionErrorCount();
+
+    /**
+     * Number of transactions failed with some other error
+     */
+    long getOtherErrorCount();
+
+    /**
+     * Number of callbacks of this endpoint queued or executing in the callback thread pool
+     */
+    int getCallbackBacklog();
+}
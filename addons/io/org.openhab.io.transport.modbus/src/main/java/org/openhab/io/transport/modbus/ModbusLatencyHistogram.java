@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Histogram of durations, in milliseconds, with fixed buckets
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public interface ModbusLatencyHistogram {
+
+    /**
+     * Get upper bounds (inclusive) of the buckets, in ascending order
+     *
+     * @return upper bounds of the buckets in milliseconds
+     */
+    long[] getBucketUpperBoundsMillis();
+
+    /**
+     * Get number of recorded durations in each bucket
+     *
+     * The returned array has one element more than {@link #getBucketUpperBoundsMillis()}, the last element counting
+     * the durations exceeding the largest upper bound.
+     *
+     * @return counts of the buckets
+     */
+    long[] getBucketCounts();
+
+    /**
+     * Get number of recorded durations
+     */
+    long getCount();
+
+    /**
+     * Get sum of recorded durations, in milliseconds
+     */
+    long getTotalMillis();
+
+    /**
+     * Get largest recorded duration, in milliseconds
+     */
+    long getMaxMillis();
+
+    /**
+     * Get mean of recorded durations, in milliseconds
+     *
+     * @return mean duration, or 0 if nothing has been recorded
+     */
+    default double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalMillis() / count;
+    }
+
+    /**
+     * Estimate percentile of recorded durations
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket containing the percentile, or the largest recorded duration with the last
+     *         bucket. Zero is returned if nothing has been recorded
+     */
+    default long getPercentileMillis(double percentile) {
+        long[] counts = getBucketCounts();
+        long[] bounds = getBucketUpperBoundsMillis();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(bounds[i], getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+}
@@ -37,7 +37,15 @@ public interface ModbusManager {
      * Register regularly polled task. The method returns immediately, and the execution of the poll task will happen in
      * the background.
      *
+     * When read coalescing is enabled for the endpoint of the task (see
+     * {@link EndpointPoolConfiguration#getReadCoalescingMaxGap()}), the task is polled together with the other
+     * registered tasks of the same endpoint and poll period. The initial delay is then used only when the task is the
+     * first one of its group; a task joining an existing group is polled with the next poll of the group, regardless
+     * of its initial delay.
+     *
      * @param task
+     * @param pollPeriodMillis poll period in milliseconds
+     * @param initialDelayMillis delay before the first poll in milliseconds
      * @return
      */
     public void registerRegularPoll(PollTask task, long pollPeriodMillis, long initialDelayMillis);
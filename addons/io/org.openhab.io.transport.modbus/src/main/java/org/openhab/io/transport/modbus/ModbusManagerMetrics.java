@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+
+/**
+ * Runtime metrics of the {@link ModbusManager}
+ *
+ * Metrics can be used to find out which slaves saturate the communication, and to tune the
+ * {@link org.openhab.io.transport.modbus.endpoint.EndpointPoolConfiguration} of the endpoints.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public interface ModbusManagerMetrics {
+
+    /**
+     * Get metrics of all the endpoints that have been communicated with
+     *
+     * @return metrics by endpoint
+     */
+    Map<ModbusSlaveEndpoint, ModbusEndpointMetrics> getEndpointMetrics();
+
+    /**
+     * Get number of tasks queued in the callback thread pool, shared by all the endpoints
+     *
+     * @return queue size, or -1 if not available
+     */
+    int getCallbackQueueSize();
+
+    /**
+     * Reset metrics of all endpoints
+     */
+    void resetMetrics();
+}
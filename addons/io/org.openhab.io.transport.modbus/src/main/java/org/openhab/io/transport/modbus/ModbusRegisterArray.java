@@ -38,6 +38,19 @@ public interface ModbusRegisterArray extends Iterable<ModbusRegister> {
      */
     int size();
 
+    /**
+     * Return value of the register at the given index as unsigned 16 bit integer
+     *
+     * Implementations are encouraged to override this to avoid creating {@link ModbusRegister} instances.
+     *
+     * @param index the index of the register
+     * @return the register content as unsigned integer
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    default int getRegisterAsUnsignedShort(int index) {
+        return getRegister(index).toUnsignedShort();
+    }
+
     /**
      * Iterator over all the registers
      */
@@ -57,6 +57,27 @@ public class EndpointPoolConfiguration {
      */
     private int connectTimeoutMillis;
 
+    /**
+     * Maximum number of unrequested registers (or coils/discrete inputs) allowed between two regularly polled ranges
+     * when merging them into single read transaction. Only polls with equal poll period are merged. Negative value
+     * (default) disables the merging, zero merges only adjacent and overlapping ranges.
+     */
+    private int readCoalescingMaxGap = -1;
+
+    /**
+     * How many transactions can be in flight at the same time with single connection. Only applicable with TCP
+     * endpoints. Values above one enable pipelining of the requests, with responses matched to requests using the
+     * transaction id. Default of one means that next request is sent only after the previous response has been received.
+     */
+    private int maxInFlightTransactions = 1;
+
+    /**
+     * Whether the inter-transaction delay should be adapted to the slave. When enabled, the delay is shrunk while the
+     * slave keeps up, and backed off on I/O errors and timeouts. Queued transactions are executed in order of their
+     * deadline instead of the order of arrival.
+     */
+    private boolean adaptiveInterTransactionDelay;
+
     private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
 
     static {
@@ -103,10 +124,36 @@ public class EndpointPoolConfiguration {
         this.connectTimeoutMillis = connectTimeoutMillis;
     }
 
+    public int getReadCoalescingMaxGap() {
+        return readCoalescingMaxGap;
+    }
+
+    public void setReadCoalescingMaxGap(int readCoalescingMaxGap) {
+        this.readCoalescingMaxGap = readCoalescingMaxGap;
+    }
+
+    public int getMaxInFlightTransactions() {
+        return maxInFlightTransactions;
+    }
+
+    public void setMaxInFlightTransactions(int maxInFlightTransactions) {
+        this.maxInFlightTransactions = maxInFlightTransactions;
+    }
+
+    public boolean isAdaptiveInterTransactionDelay() {
+        return adaptiveInterTransactionDelay;
+    }
+
+    public void setAdaptiveInterTransactionDelay(boolean adaptiveInterTransactionDelay) {
+        this.adaptiveInterTransactionDelay = adaptiveInterTransactionDelay;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder(2149, 3117).append(interTransactionDelayMillis).append(interConnectDelayMillis)
-                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis).toHashCode();
+                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis)
+                .append(readCoalescingMaxGap).append(maxInFlightTransactions).append(adaptiveInterTransactionDelay)
+                .toHashCode();
     }
 
     @Override
@@ -115,7 +162,10 @@ public class EndpointPoolConfiguration {
                 .append("interTransactionDelayMillis", interTransactionDelayMillis)
                 .append("interConnectDelayMillis", interConnectDelayMillis).append("connectMaxTries", connectMaxTries)
                 .append("reconnectAfterMillis", reconnectAfterMillis)
-                .append("connectTimeoutMillis", connectTimeoutMillis).toString();
+                .append("connectTimeoutMillis", connectTimeoutMillis)
+                .append("readCoalescingMaxGap", readCoalescingMaxGap)
+                .append("maxInFlightTransactions", maxInFlightTransactions)
+                .append("adaptiveInterTransactionDelay", adaptiveInterTransactionDelay).toString();
     }
 
     @Override
@@ -133,7 +183,10 @@ public class EndpointPoolConfiguration {
         return new EqualsBuilder().append(interTransactionDelayMillis, rhs.interTransactionDelayMillis)
                 .append(interConnectDelayMillis, rhs.interConnectDelayMillis)
                 .append(connectMaxTries, rhs.connectMaxTries).append(reconnectAfterMillis, rhs.reconnectAfterMillis)
-                .append(connectTimeoutMillis, rhs.connectTimeoutMillis).isEquals();
+                .append(connectTimeoutMillis, rhs.connectTimeoutMillis)
+                .append(readCoalescingMaxGap, rhs.readCoalescingMaxGap)
+                .append(maxInFlightTransactions, rhs.maxInFlightTransactions)
+                .append(adaptiveInterTransactionDelay, rhs.adaptiveInterTransactionDelay).isEquals();
     }
 
 }
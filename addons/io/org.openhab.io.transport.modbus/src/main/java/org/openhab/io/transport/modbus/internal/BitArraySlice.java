@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.BitArray;
+
+/**
+ * Implementation of {@link BitArray} representing a contiguous part of another bit array
+ *
+ * No data is copied, bits are read from the wrapped array on demand.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class BitArraySlice implements BitArray {
+
+    private BitArray wrapped;
+    private int offset;
+    private int length;
+
+    /**
+     * Construct slice of bit array
+     *
+     * @param wrapped bit array to wrap
+     * @param offset index of the first bit of the slice in the wrapped array
+     * @param length number of bits in the slice
+     * @throws IndexOutOfBoundsException when the slice does not fit into the wrapped array
+     */
+    public BitArraySlice(BitArray wrapped, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > wrapped.size()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Slice (offset=%d, length=%d) out of bounds with array of size %d", offset, length, wrapped.size()));
+        }
+        this.wrapped = wrapped;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public boolean getBit(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds (size %d)", index, length));
+        }
+        return wrapped.getBit(offset + index);
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("BitArraySlice(").append(toBinaryString()).append(')').toString();
+    }
+
+}
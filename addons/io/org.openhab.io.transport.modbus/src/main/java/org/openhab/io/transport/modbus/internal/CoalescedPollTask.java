@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang.builder.StandardToStringStyle;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Poll task reading a single range that covers the ranges of several other poll tasks
+ *
+ * The response is sliced back to the original requests, and the callbacks of the original poll tasks are called
+ * with their own request and the data corresponding to their request. Errors are propagated to all original
+ * callbacks. Members that are no longer active, e.g. unregistered while the transaction was executed, are skipped.
+ *
+ * Instances are created by {@link ModbusReadRequestPlanner}. Equality is identity based.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class CoalescedPollTask implements PollTask {
+
+    private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
+    static {
+        toStringStyle.setUseShortClassName(true);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(CoalescedPollTask.class);
+
+    private ModbusSlaveEndpoint endpoint;
+    private BasicModbusReadRequestBlueprint request;
+    private List<PollTask> members;
+    private Predicate<PollTask> isMemberActive;
+    private ModbusReadCallback callback = new ModbusReadCallback() {
+
+        @Override
+        public void onRegisters(ModbusReadRequestBlueprint coalescedRequest, ModbusRegisterArray registers) {
+            for (PollTask member : members) {
+                ModbusReadCallback memberCallback = member.getCallback();
+                if (memberCallback == null || !isMemberActive.test(member)) {
+                    continue;
+                }
+                ModbusReadRequestBlueprint memberRequest = member.getRequest();
+                int offset = memberRequest.getReference() - request.getReference();
+                try {
+                    memberCallback.onRegisters(memberRequest,
+                            new ModbusRegisterArraySlice(registers, offset, memberRequest.getDataLength()));
+                } catch (RuntimeException e) {
+                    logger.error(
+                            "Unexpected error when calling callback of poll task {} with coalesced response: {} {}",
+                            member, e.getClass().getName(), e.getMessage(), e);
+                }
+            }
+        }
+
+        @Override
+        public void onBits(ModbusReadRequestBlueprint coalescedRequest, BitArray bits) {
+            for (PollTask member : members) {
+                ModbusReadCallback memberCallback = member.getCallback();
+                if (memberCallback == null || !isMemberActive.test(member)) {
+                    continue;
+                }
+                ModbusReadRequestBlueprint memberRequest = member.getRequest();
+                int offset = memberRequest.getReference() - request.getReference();
+                // jamod might return less bits than requested, see ModbusLibraryWrapper.invokeCallbackWithResponse
+                int length = Math.max(0, Math.min(memberRequest.getDataLength(), bits.size() - offset));
+                try {
+                    memberCallback.onBits(memberRequest,
+                            new BitArraySlice(bits, Math.min(offset, bits.size()), length));
+                } catch (RuntimeException e) {
+                    logger.error(
+                            "Unexpected error when calling callback of poll task {} with coalesced response: {} {}",
+                            member, e.getClass().getName(), e.getMessage(), e);
+                }
+            }
+        }
+
+        @Override
+        public void onError(ModbusReadRequestBlueprint coalescedRequest, Exception error) {
+            for (PollTask member : members) {
+                ModbusReadCallback memberCallback = member.getCallback();
+                if (memberCallback == null || !isMemberActive.test(member)) {
+                    continue;
+                }
+                try {
+                    memberCallback.onError(member.getRequest(), error);
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error when calling error callback of poll task {}: {} {}", member,
+                            e.getClass().getName(), e.getMessage(), e);
+                }
+            }
+        }
+    };
+
+    /**
+     *
+     * @param endpoint endpoint shared by all the members
+     * @param request request covering the ranges of all members
+     * @param members original poll tasks
+     */
+    public CoalescedPollTask(ModbusSlaveEndpoint endpoint, BasicModbusReadRequestBlueprint request,
+            List<PollTask> members) {
+        this(endpoint, request, members, member -> true);
+    }
+
+    /**
+     *
+     * @param endpoint endpoint shared by all the members
+     * @param request request covering the ranges of all members
+     * @param members original poll tasks
+     * @param isMemberActive tells whether the callback of a member should still be called
+     */
+    public CoalescedPollTask(ModbusSlaveEndpoint endpoint, BasicModbusReadRequestBlueprint request,
+            List<PollTask> members, Predicate<PollTask> isMemberActive) {
+        this.endpoint = endpoint;
+        this.request = request;
+        this.members = Collections.unmodifiableList(members);
+        this.isMemberActive = isMemberActive;
+    }
+
+    @Override
+    public ModbusReadRequestBlueprint getRequest() {
+        return request;
+    }
+
+    @Override
+    public ModbusSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public @Nullable ModbusReadCallback getCallback() {
+        return callback;
+    }
+
+    /**
+     * Get the original poll tasks covered by this task
+     *
+     * @return unmodifiable list of poll tasks
+     */
+    public List<PollTask> getMembers() {
+        return members;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, toStringStyle).append("request", request).append("endpoint", endpoint)
+                .append("members", members.size()).toString();
+    }
+
+}
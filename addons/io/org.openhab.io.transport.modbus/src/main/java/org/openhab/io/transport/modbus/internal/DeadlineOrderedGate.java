@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Mutual exclusion gate letting waiting threads in by the order of their deadline
+ *
+ * Threads with equal deadline are let in the order of arrival.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class DeadlineOrderedGate {
+
+    private static class Waiter {
+        private final long deadline;
+        private final long sequence;
+
+        public Waiter(long deadline, long sequence) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+    }
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.<Waiter> comparingLong(waiter -> waiter.deadline).thenComparingLong(waiter -> waiter.sequence));
+    private boolean held;
+    private long sequence;
+
+    /**
+     * Wait until the gate is free and no thread with earlier deadline is waiting
+     *
+     * @param deadline deadline of the caller, e.g. time in milliseconds when the operation should be finished
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public synchronized void acquire(long deadline) throws InterruptedException {
+        Waiter waiter = new Waiter(deadline, sequence++);
+        waiters.add(waiter);
+        try {
+            while (held || waiters.peek() != waiter) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            waiters.remove(waiter);
+            // Next waiter might be eligible now
+            notifyAll();
+            throw e;
+        }
+        waiters.poll();
+        held = true;
+    }
+
+    /**
+     * Release the gate, letting the waiter with the earliest deadline in
+     */
+    public synchronized void release() {
+        held = false;
+        notifyAll();
+    }
+
+    /**
+     * Get number of threads waiting for the gate
+     */
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
+import org.openhab.io.transport.modbus.ModbusLatencyHistogram;
+
+/**
+ * Thread safe {@link ModbusEndpointMetrics} implementation, updated by the {@link ModbusManagerImpl}
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusEndpointMetricsImpl implements ModbusEndpointMetrics {
+
+    private final ModbusLatencyHistogramImpl transactionLatency = new ModbusLatencyHistogramImpl();
+    private final ModbusLatencyHistogramImpl connectionWait = new ModbusLatencyHistogramImpl();
+    private final ModbusLatencyHistogramImpl interTransactionDelay = new ModbusLatencyHistogramImpl();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong ioErrors = new AtomicLong();
+    private final AtomicLong slaveErrors = new AtomicLong();
+    private final AtomicLong transactionIdErrors = new AtomicLong();
+    private final AtomicLong connectionErrors = new AtomicLong();
+    private final AtomicLong otherErrors = new AtomicLong();
+    private final AtomicInteger callbackBacklog = new AtomicInteger();
+
+    public void recordTransaction(long millis) {
+        transactionLatency.record(millis);
+    }
+
+    public void recordConnectionWait(long millis) {
+        connectionWait.record(millis);
+    }
+
+    public void recordInterTransactionDelay(long millis) {
+        interTransactionDelay.record(millis);
+    }
+
+    public void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    public void recordIOError() {
+        ioErrors.incrementAndGet();
+    }
+
+    public void recordSlaveError() {
+        slaveErrors.incrementAndGet();
+    }
+
+    public void recordTransactionIdError() {
+        transactionIdErrors.incrementAndGet();
+    }
+
+    public void recordConnectionError() {
+        connectionErrors.incrementAndGet();
+    }
+
+    public void recordOtherError() {
+        otherErrors.incrementAndGet();
+    }
+
+    public void callbackQueued() {
+        callbackBacklog.incrementAndGet();
+    }
+
+    public void callbackDone() {
+        callbackBacklog.decrementAndGet();
+    }
+
+    @Override
+    public ModbusLatencyHistogram getTransactionLatency() {
+        return transactionLatency;
+    }
+
+    @Override
+    public ModbusLatencyHistogram getConnectionWait() {
+        return connectionWait;
+    }
+
+    @Override
+    public ModbusLatencyHistogram getInterTransactionDelay() {
+        return interTransactionDelay;
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    @Override
+    public long getIOErrorCount() {
+        return ioErrors.get();
+    }
+
+    @Override
+    public long getSlaveErrorCount() {
+        return slaveErrors.get();
+    }
+
+    @Override
+    public long getTransactionIdErrorCount() {
+        return transactionIdErrors.get();
+    }
+
+    @Override
+    public long getConnectionErrorCount() {
+        return connectionErrors.get();
+    }
+
+    @Override
+    public long getOtherErrorCount() {
+        return otherErrors.get();
+    }
+
+    @Override
+    public int getCallbackBacklog() {
+        return callbackBacklog.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ModbusEndpointMetricsImpl(transactionLatency=[%s], connectionWait=[%s], interTransactionDelay=[%s], retries=%d, ioErrors=%d, slaveErrors=%d, transactionIdErrors=%d, connectionErrors=%d, otherErrors=%d, callbackBacklog=%d)",
+                transactionLatency, connectionWait, interTransactionDelay, getRetryCount(), getIOErrorCount(),
+                getSlaveErrorCount(), getTransactionIdErrorCount(), getConnectionErrorCount(), getOtherErrorCount(),
+                getCallbackBacklog());
+    }
+}
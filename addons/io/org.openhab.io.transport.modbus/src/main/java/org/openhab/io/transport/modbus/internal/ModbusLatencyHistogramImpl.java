@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.ModbusLatencyHistogram;
+
+/**
+ * Thread safe {@link ModbusLatencyHistogram} implementation
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusLatencyHistogramImpl implements ModbusLatencyHistogram {
+
+    /**
+     * Default bucket upper bounds, covering typical serial and TCP transactions, as well as timeouts
+     */
+    public static final long[] DEFAULT_BUCKET_UPPER_BOUNDS_MILLIS = new long[] { 1, 2, 5, 10, 20, 50, 100, 200, 500,
+            1000, 2000, 5000 };
+
+    private final long[] bucketUpperBounds;
+    private final AtomicLongArray bucketCounts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    public ModbusLatencyHistogramImpl() {
+        this(DEFAULT_BUCKET_UPPER_BOUNDS_MILLIS);
+    }
+
+    /**
+     *
+     * @param bucketUpperBounds upper bounds (inclusive) of the buckets in ascending order
+     */
+    public ModbusLatencyHistogramImpl(long[] bucketUpperBounds) {
+        for (int i = 1; i < bucketUpperBounds.length; i++) {
+            if (bucketUpperBounds[i] <= bucketUpperBounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket upper bounds should be in ascending order");
+            }
+        }
+        this.bucketUpperBounds = bucketUpperBounds.clone();
+        this.bucketCounts = new AtomicLongArray(bucketUpperBounds.length + 1);
+    }
+
+    /**
+     * Record a duration
+     *
+     * @param millis duration in milliseconds. Negative values are recorded as zero
+     */
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        int bucket = 0;
+        while (bucket < bucketUpperBounds.length && value > bucketUpperBounds[bucket]) {
+            bucket++;
+        }
+        bucketCounts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMillis.addAndGet(value);
+        maxMillis.accumulateAndGet(value, Math::max);
+    }
+
+    @Override
+    public long[] getBucketUpperBoundsMillis() {
+        return bucketUpperBounds.clone();
+    }
+
+    @Override
+    public long[] getBucketCounts() {
+        long[] counts = new long[bucketCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public long getTotalMillis() {
+        return totalMillis.get();
+    }
+
+    @Override
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1fms, p50=%dms, p95=%dms, p99=%dms, max=%dms", getCount(),
+                getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95), getPercentileMillis(99),
+                getMaxMillis());
+    }
+}
@@ -9,7 +9,11 @@
 package org.openhab.io.transport.modbus.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -20,11 +24,14 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.imageio.IIOException;
 
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.SwallowedExceptionListener;
 import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
@@ -35,8 +42,10 @@ import org.eclipse.smarthome.core.common.QueueingThreadPoolExecutor;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.io.transport.modbus.ModbusCallback;
 import org.openhab.io.transport.modbus.ModbusConnectionException;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
 import org.openhab.io.transport.modbus.ModbusManager;
 import org.openhab.io.transport.modbus.ModbusManagerListener;
+import org.openhab.io.transport.modbus.ModbusManagerMetrics;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusRequestBlueprint;
@@ -77,9 +86,10 @@ import net.wimpi.modbus.net.ModbusSlaveConnection;
  *
  * @author Sami Salonen - Initial contribution
  */
-@Component(service = ModbusManager.class, immediate = true, configurationPid = "transport.modbus")
+@Component(service = { ModbusManager.class,
+        ModbusManagerMetrics.class }, immediate = true, configurationPid = "transport.modbus")
 @NonNullByDefault
-public class ModbusManagerImpl implements ModbusManager {
+public class ModbusManagerImpl implements ModbusManager, ModbusManagerMetrics {
 
     private static class PollTaskUnregistered extends Exception {
         public PollTaskUnregistered(String msg) {
@@ -89,8 +99,25 @@ public class ModbusManagerImpl implements ModbusManager {
         private static final long serialVersionUID = 6939730579178506885L;
     }
 
+    /**
+     * Executes single Modbus transaction
+     *
+     * @author agent (agent@local) - Initial contribution
+     *
+     */
+    @FunctionalInterface
+    private interface TransactionExecutor {
+
+        /**
+         * Send the request and return the response
+         *
+         * @throws ModbusException on IO errors and slave exception responses
+         */
+        public ModbusResponse execute(ModbusRequest request) throws ModbusException;
+    }
+
     @FunctionalInterface
-    private interface ModbusOperation<T> {
+    private interface ModbusOperation<T extends TaskWithEndpoint<?, ?>> {
 
         /**
          * Execute the operation.
@@ -98,13 +125,126 @@ public class ModbusManagerImpl implements ModbusManager {
          * All errors should be raised. There should not be any retry mechanism implemented at this level
          *
          * @param task task to execute
-         * @param connection connection to use
+         * @param executor executor for the transaction
          * @throws Exception on IO errors, slave exception responses, and when transaction IDs of the request and
          *             response do not match
          */
-        public void accept(String operationId, T task, ModbusSlaveConnection connection)
+        public void accept(String operationId, T task, TransactionExecutor executor)
                 throws ModbusException, IIOException, ModbusUnexpectedTransactionIdException;
 
+        /**
+         * Execute the operation using single transaction with the given connection
+         *
+         * @param task task to execute
+         * @param connection connection to use
+         * @throws Exception on IO errors, slave exception responses, and when transaction IDs of the request and
+         *             response do not match
+         */
+        public default void accept(String operationId, T task, ModbusSlaveConnection connection)
+                throws ModbusException, IIOException, ModbusUnexpectedTransactionIdException {
+            accept(operationId, task, libRequest -> {
+                Optional<ModbusSlaveConnection> optionalConnection = Optional.of(connection);
+                ModbusTransaction transaction = ModbusLibraryWrapper.createTransactionForEndpoint(task.getEndpoint(),
+                        optionalConnection);
+                transaction.setRequest(libRequest);
+                // Might throw ModbusIOException (I/O error) or ModbusSlaveException (explicit exception response
+                // from slave)
+                transaction.execute();
+                return transaction.getResponse();
+            });
+        }
+
+    }
+
+    /**
+     * Key for regular polls that are executed together, allowing their requests to be coalesced
+     *
+     * @author agent (agent@local) - Initial contribution
+     *
+     */
+    private static class CoalescedPollGroupKey {
+        private final ModbusSlaveEndpoint endpoint;
+        private final long pollPeriodMillis;
+
+        public CoalescedPollGroupKey(ModbusSlaveEndpoint endpoint, long pollPeriodMillis) {
+            this.endpoint = endpoint;
+            this.pollPeriodMillis = pollPeriodMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(31, 7).append(endpoint).append(pollPeriodMillis).toHashCode();
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (obj == this) {
+                return true;
+            }
+            if (obj.getClass() != getClass()) {
+                return false;
+            }
+            CoalescedPollGroupKey rhs = (CoalescedPollGroupKey) obj;
+            return new EqualsBuilder().append(endpoint, rhs.endpoint).append(pollPeriodMillis, rhs.pollPeriodMillis)
+                    .isEquals();
+        }
+    }
+
+    /**
+     * Regular polls with the same endpoint and poll period, executed together by single scheduled job
+     *
+     * The transactions are planned using {@link ModbusReadRequestPlanner}, and re-planned whenever the group members
+     * or endpoint configuration change.
+     *
+     * @author agent (agent@local) - Initial contribution
+     *
+     */
+    private class CoalescedPollGroup {
+        private final ModbusSlaveEndpoint endpoint;
+        private final Set<PollTask> tasks = new CopyOnWriteArraySet<>();
+        /**
+         * Current plan, or null when it needs to be re-planned. Built and invalidated while holding the lock of the
+         * group, such that a plan built from outdated group members is never published after the invalidation.
+         */
+        private @Nullable List<PollTask> plan;
+        private volatile @Nullable ScheduledFuture<?> future;
+
+        public CoalescedPollGroup(ModbusSlaveEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public synchronized void invalidatePlan() {
+            plan = null;
+        }
+
+        private synchronized List<PollTask> getPlan() {
+            List<PollTask> plan = this.plan;
+            if (plan == null) {
+                int maxGap = Optional.ofNullable(connectionFactory).map(f -> f.getEndpointPoolConfiguration(endpoint))
+                        .map(cfg -> cfg.getReadCoalescingMaxGap()).orElse(-1);
+                if (maxGap < 0) {
+                    plan = new ArrayList<>(tasks);
+                } else {
+                    // tasks unregistered while the coalesced transaction is executed do not get its response
+                    plan = new ModbusReadRequestPlanner(maxGap, task -> scheduledPollTasks.containsKey(task))
+                            .plan(endpoint, tasks);
+                }
+                this.plan = plan;
+            }
+            return plan;
+        }
+
+        public void execute(long deadlineMillis) {
+            for (PollTask task : getPlan()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                executeOperation(task, false, pollOperation, deadlineMillis);
+            }
+        }
     }
 
     /**
@@ -139,29 +279,26 @@ public class ModbusManagerImpl implements ModbusManager {
      */
     private class PollOperation implements ModbusOperation<PollTask> {
         @Override
-        public void accept(String operationId, PollTask task, ModbusSlaveConnection connection)
+        public void accept(String operationId, PollTask task, TransactionExecutor executor)
                 throws ModbusException, ModbusUnexpectedTransactionIdException {
-            ModbusSlaveEndpoint endpoint = task.getEndpoint();
             ModbusReadRequestBlueprint request = task.getRequest();
             ModbusReadCallback callback = task.getCallback();
 
-            Optional<ModbusSlaveConnection> optionalConnection = Optional.of(connection);
-            ModbusTransaction transaction = ModbusLibraryWrapper.createTransactionForEndpoint(endpoint,
-                    optionalConnection);
             ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(request);
-            transaction.setRequest(libRequest);
 
             logger.trace("Going execute transaction with request request (FC={}): {} [operation ID {}]",
                     request.getFunctionCode(), libRequest.getHexMessage(), operationId);
             // Might throw ModbusIOException (I/O error) or ModbusSlaveException (explicit exception response from
             // slave)
-            transaction.execute();
-            ModbusResponse response = transaction.getResponse();
+            long transactionStart = System.currentTimeMillis();
+            ModbusResponse response = executor.execute(libRequest);
+            onTransactionCompleted(task.getEndpoint(), System.currentTimeMillis() - transactionStart);
             logger.trace("Response for read request (FC={}, transaction ID={}): {} [operation ID {}]",
                     response.getFunctionCode(), response.getTransactionID(), response.getHexMessage(), operationId);
             checkTransactionId(response, libRequest, task, operationId);
+            ExecutorService callbackThreadPool = ModbusManagerImpl.this.callbackThreadPool;
             if (callback != null && callbackThreadPool != null) {
-                callbackThreadPool.execute(() -> {
+                executeCallback(callbackThreadPool, task.getEndpoint(), () -> {
                     ModbusLibraryWrapper.invokeCallbackWithResponse(request, callback, response);
                 });
             }
@@ -176,31 +313,28 @@ public class ModbusManagerImpl implements ModbusManager {
      */
     private class WriteOperation implements ModbusOperation<WriteTask> {
         @Override
-        public void accept(String operationId, WriteTask task, ModbusSlaveConnection connection)
+        public void accept(String operationId, WriteTask task, TransactionExecutor executor)
                 throws ModbusException, ModbusUnexpectedTransactionIdException {
-            ModbusSlaveEndpoint endpoint = task.getEndpoint();
             ModbusWriteRequestBlueprint request = task.getRequest();
             ModbusWriteCallback callback = task.getCallback();
 
-            Optional<ModbusSlaveConnection> optionalConnection = Optional.of(connection);
-            ModbusTransaction transaction = ModbusLibraryWrapper.createTransactionForEndpoint(endpoint,
-                    optionalConnection);
             ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(request);
-            transaction.setRequest(libRequest);
 
             logger.trace("Going execute transaction with read request (FC={}): {} [operation ID {}]",
                     request.getFunctionCode(), libRequest.getHexMessage(), operationId);
 
             // Might throw ModbusIOException (I/O error) or ModbusSlaveException (explicit exception response from
             // slave)
-            transaction.execute();
-            ModbusResponse response = transaction.getResponse();
+            long transactionStart = System.currentTimeMillis();
+            ModbusResponse response = executor.execute(libRequest);
+            onTransactionCompleted(task.getEndpoint(), System.currentTimeMillis() - transactionStart);
             logger.trace("Response for write request (FC={}, transaction ID={}): {} [operation ID {}]",
                     response.getFunctionCode(), response.getTransactionID(), response.getHexMessage(), operationId);
 
             checkTransactionId(response, libRequest, task, operationId);
+            ExecutorService callbackThreadPool = ModbusManagerImpl.this.callbackThreadPool;
             if (callback != null && callbackThreadPool != null) {
-                callbackThreadPool.execute(() -> {
+                executeCallback(callbackThreadPool, task.getEndpoint(), () -> {
                     invokeCallbackWithResponse(request, callback, new ModbusResponseImpl(response));
                 });
             }
@@ -269,6 +403,39 @@ public class ModbusManagerImpl implements ModbusManager {
     @Nullable
     private volatile ModbusSlaveConnectionFactoryImpl connectionFactory;
     private volatile Map<PollTask, ScheduledFuture<?>> scheduledPollTasks = new ConcurrentHashMap<>();
+    /**
+     * Regular polls with read coalescing enabled, grouped by endpoint and poll period
+     */
+    private volatile Map<CoalescedPollGroupKey, CoalescedPollGroup> coalescedPollGroups = new ConcurrentHashMap<>();
+    /**
+     * Pipelines of TCP endpoints configured with more than one transaction in flight
+     */
+    private volatile Map<ModbusSlaveEndpoint, ModbusTCPPipeline> pipelines = new ConcurrentHashMap<>();
+    /**
+     * Runtime metrics by endpoint
+     */
+    private final Map<ModbusSlaveEndpoint, ModbusEndpointMetricsImpl> endpointMetrics = new ConcurrentHashMap<>();
+    /**
+     * Gates ordering the operations by deadline, for endpoints with adaptive inter-transaction delay
+     */
+    private final Map<ModbusSlaveEndpoint, DeadlineOrderedGate> deadlineGates = new ConcurrentHashMap<>();
+    private final ModbusTCPPipeline.ConnectionProvider pipelineConnectionProvider = new ModbusTCPPipeline.ConnectionProvider() {
+
+        @Override
+        public Optional<ModbusSlaveConnection> borrow(ModbusTCPSlaveEndpoint endpoint) {
+            return borrowConnection(endpoint);
+        }
+
+        @Override
+        public void giveBack(ModbusTCPSlaveEndpoint endpoint, Optional<ModbusSlaveConnection> connection) {
+            returnConnection(endpoint, connection);
+        }
+
+        @Override
+        public void invalidate(ModbusTCPSlaveEndpoint endpoint, Optional<ModbusSlaveConnection> connection) {
+            ModbusManagerImpl.this.invalidate(endpoint, connection);
+        }
+    };
     /**
      * Executor for requests
      */
@@ -316,6 +483,9 @@ public class ModbusManagerImpl implements ModbusManager {
             });
         });
 
+        connectionFactory.setInterTransactionDelayListener(
+                (endpoint, waited) -> getMetrics(endpoint).recordInterTransactionDelay(waited));
+
         GenericKeyedObjectPool<ModbusSlaveEndpoint, ModbusSlaveConnection> genericKeyedObjectPool = new ModbusConnectionPool(
                 connectionFactory);
         genericKeyedObjectPool.setSwallowedExceptionListener(new SwallowedExceptionListener() {
@@ -354,8 +524,9 @@ public class ModbusManagerImpl implements ModbusManager {
                 connection = Optional.empty();
             }
         }
-        logger.trace("borrowing connection (got {}) for endpoint {} took {} ms", connection, endpoint,
-                System.currentTimeMillis() - start);
+        long borrowMillis = System.currentTimeMillis() - start;
+        getMetrics(endpoint).recordConnectionWait(borrowMillis);
+        logger.trace("borrowing connection (got {}) for endpoint {} took {} ms", connection, endpoint, borrowMillis);
         return connection;
     }
 
@@ -429,8 +600,9 @@ public class ModbusManagerImpl implements ModbusManager {
         if (!connection.isPresent()) {
             logger.warn("Could not connect to endpoint {} -- aborting request {} [operation ID {}]", endpoint, request,
                     operationId);
+            getMetrics(endpoint).recordConnectionError();
             if (callback != null) {
-                callbackPool.execute(() -> {
+                executeCallback(callbackPool, endpoint, () -> {
                     invokeCallbackWithError(request, callback, new ModbusConnectionException(endpoint));
                 });
             }
@@ -438,6 +610,60 @@ public class ModbusManagerImpl implements ModbusManager {
         return connection;
     }
 
+    private void onTransactionCompleted(ModbusSlaveEndpoint endpoint, long transactionMillis) {
+        getMetrics(endpoint).recordTransaction(transactionMillis);
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        if (connectionFactory != null) {
+            connectionFactory.reportTransactionSuccess(endpoint, transactionMillis);
+        }
+    }
+
+    private void onTransactionFailed(ModbusSlaveEndpoint endpoint) {
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        if (connectionFactory != null) {
+            connectionFactory.reportTransactionFailure(endpoint);
+        }
+    }
+
+    /**
+     * Get the gate ordering operations by deadline, if the endpoint is configured with adaptive inter-transaction
+     * delay
+     *
+     * @param endpoint endpoint to query
+     * @return gate, or null when operations should be executed in order of arrival
+     */
+    private @Nullable DeadlineOrderedGate getDeadlineGate(ModbusSlaveEndpoint endpoint) {
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        if (connectionFactory == null) {
+            return null;
+        }
+        boolean adaptive = Optional.ofNullable(connectionFactory.getEndpointPoolConfiguration(endpoint))
+                .map(cfg -> cfg.isAdaptiveInterTransactionDelay()).orElse(false);
+        if (!adaptive) {
+            return null;
+        }
+        return deadlineGates.computeIfAbsent(endpoint, ep -> new DeadlineOrderedGate());
+    }
+
+    private ModbusEndpointMetricsImpl getMetrics(ModbusSlaveEndpoint endpoint) {
+        return endpointMetrics.computeIfAbsent(endpoint, ep -> new ModbusEndpointMetricsImpl());
+    }
+
+    /**
+     * Execute callback in the callback thread pool, keeping track of the callback backlog of the endpoint
+     */
+    private void executeCallback(ExecutorService callbackThreadPool, ModbusSlaveEndpoint endpoint, Runnable callback) {
+        ModbusEndpointMetricsImpl metrics = getMetrics(endpoint);
+        metrics.callbackQueued();
+        callbackThreadPool.execute(() -> {
+            try {
+                callback.run();
+            } finally {
+                metrics.callbackDone();
+            }
+        });
+    }
+
     private <R> void invokeCallbackWithError(ModbusRequestBlueprint request, ModbusCallback callback, Exception error) {
         try {
             logger.trace("Calling write response callback {} for request {}. Error was {} {}", callback, request,
@@ -469,6 +695,17 @@ public class ModbusManagerImpl implements ModbusManager {
     }
 
     private void verifyTaskIsRegistered(PollTask task) throws PollTaskUnregistered {
+        if (task instanceof CoalescedPollTask) {
+            // Coalesced task is alive as long as any of the original tasks is registered
+            for (PollTask member : ((CoalescedPollTask) task).getMembers()) {
+                if (this.scheduledPollTasks.containsKey(member)) {
+                    return;
+                }
+            }
+            String msg = String.format("All poll tasks of coalesced poll task %s are unregistered", task);
+            logger.debug(msg);
+            throw new PollTaskUnregistered(msg);
+        }
         if (!this.scheduledPollTasks.containsKey(task)) {
             String msg = String.format("Poll task %s is unregistered", task);
             logger.debug(msg);
@@ -476,6 +713,181 @@ public class ModbusManagerImpl implements ModbusManager {
         }
     }
 
+    /**
+     * Get the pipeline for the endpoint, if the endpoint is configured for pipelined transactions
+     *
+     * @param endpoint endpoint to query
+     * @return pipeline, or empty when transactions should not be pipelined with the endpoint
+     */
+    private Optional<ModbusTCPPipeline> getPipeline(ModbusSlaveEndpoint endpoint) {
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        if (connectionFactory == null || !(endpoint instanceof ModbusTCPSlaveEndpoint)) {
+            return Optional.empty();
+        }
+        int maxInFlight = Optional.ofNullable(connectionFactory.getEndpointPoolConfiguration(endpoint))
+                .map(cfg -> cfg.getMaxInFlightTransactions()).orElse(1);
+        if (maxInFlight <= 1) {
+            return Optional.empty();
+        }
+        return Optional.of(pipelines.computeIfAbsent(endpoint, ep -> new ModbusTCPPipeline(
+                (ModbusTCPSlaveEndpoint) ep, maxInFlight, pipelineConnectionProvider)));
+    }
+
+    /**
+     * Submit the request to the pipeline in the order of the deadline, and wait for the response
+     *
+     * The gate is held only while submitting, the response is waited without holding it.
+     *
+     * @throws ModbusIOException on I/O errors, or when interrupted. The interrupted status of the thread is preserved.
+     */
+    private ModbusResponse executeInDeadlineOrder(ModbusRequest libRequest, ModbusTCPPipeline pipeline,
+            DeadlineOrderedGate gate, long deadlineMillis, String operationId) throws ModbusException {
+        logger.trace("Waiting for operations with earlier deadline to be submitted (deadline {}) [operation ID {}]",
+                deadlineMillis, operationId);
+        try {
+            gate.acquire(deadlineMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusIOException("Interrupted while waiting for operations with earlier deadline");
+        }
+        ModbusTCPPipeline.PendingTransaction pending;
+        try {
+            pending = pipeline.submit(libRequest);
+        } finally {
+            gate.release();
+        }
+        return pipeline.await(pending);
+    }
+
+    /**
+     * Execute operation via pipeline, using a retry mechanism
+     *
+     * Connection handling is delegated to the pipeline. Errors are handled similar to
+     * {@link #executeOperation(TaskWithEndpoint, boolean, ModbusOperation, long)}.
+     *
+     * With adaptive inter-transaction delay, the requests are submitted to the pipeline in the order of their deadline.
+     * The deadline gate is held only while submitting, so that up to maxInFlightTransactions requests are still in
+     * flight at the same time.
+     *
+     * @param task
+     * @param oneOffTask
+     * @param operation
+     * @param pipeline
+     * @param connectionFactory
+     * @param deadlineMillis time by which the operation should be executed
+     */
+    private <R extends ModbusRequestBlueprint, C extends ModbusCallback, T extends TaskWithEndpoint<R, C>> void executePipelinedOperation(
+            @NonNull T task, boolean oneOffTask, ModbusOperation<T> operation, ModbusTCPPipeline pipeline,
+            ModbusSlaveConnectionFactoryImpl connectionFactory, long deadlineMillis) {
+        R request = task.getRequest();
+        ModbusSlaveEndpoint endpoint = task.getEndpoint();
+        @Nullable
+        C callback = task.getCallback();
+        int maxTries = task.getMaxTries();
+        @Nullable
+        Exception lastError = null;
+        long retryDelay = connectionFactory.getInterTransactionDelayMillis(endpoint);
+
+        if (maxTries <= 0) {
+            throw new IllegalArgumentException("maxTries should be positive");
+        }
+
+        String operationId = UUID.randomUUID().toString();
+        ModbusEndpointMetricsImpl metrics = getMetrics(endpoint);
+        DeadlineOrderedGate gate = getDeadlineGate(endpoint);
+        TransactionExecutor executor = pipeline::execute;
+        if (gate != null) {
+            DeadlineOrderedGate submitGate = gate;
+            executor = libRequest -> executeInDeadlineOrder(libRequest, pipeline, submitGate, deadlineMillis,
+                    operationId);
+        }
+        try {
+            logger.trace("Starting new pipelined operation with task {} using {} [operation ID {}]", task, pipeline,
+                    operationId);
+            // retries are spaced like with non-pipelined operations, the first try is sent right away
+            @Nullable
+            Long lastTryMillis = null;
+            for (int tryIndex = 1; tryIndex <= maxTries; tryIndex++) {
+                if (Thread.interrupted()) {
+                    logger.warn("Thread interrupted. Aborting operation [operation ID {}]", operationId);
+                    return;
+                }
+                if (!oneOffTask && task instanceof PollTask) {
+                    verifyTaskIsRegistered((PollTask) task);
+                }
+                long slept = ModbusSlaveConnectionFactoryImpl.waitAtleast(lastTryMillis, retryDelay);
+                if (lastTryMillis != null) {
+                    metrics.recordInterTransactionDelay(slept);
+                }
+                boolean willRetry = tryIndex < maxTries;
+                if (tryIndex > 1) {
+                    metrics.recordRetry();
+                }
+                try {
+                    operation.accept(operationId, task, executor);
+                    lastError = null;
+                    break;
+                } catch (ModbusTCPPipeline.PipelineConnectionException e) {
+                    // Error logged already by the pipeline. Connection errors are not retried, similar to
+                    // non-pipelined operations
+                    metrics.recordConnectionError();
+                    lastError = new ModbusConnectionException(endpoint);
+                    break;
+                } catch (ModbusIOException e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        // interrupted while waiting, not an error of the slave
+                        logger.warn("Thread interrupted. Aborting operation [operation ID {}]", operationId);
+                        return;
+                    }
+                    metrics.recordIOError();
+                    onTransactionFailed(endpoint);
+                    lastError = new ModbusSlaveIOExceptionImpl(e);
+                } catch (IIOException e) {
+                    metrics.recordIOError();
+                    onTransactionFailed(endpoint);
+                    lastError = new ModbusSlaveIOExceptionImpl(e);
+                } catch (ModbusSlaveException e) {
+                    metrics.recordSlaveError();
+                    lastError = new ModbusSlaveErrorResponseExceptionImpl(e);
+                } catch (ModbusUnexpectedTransactionIdException e) {
+                    metrics.recordTransactionIdError();
+                    onTransactionFailed(endpoint);
+                    lastError = e;
+                } catch (ModbusException e) {
+                    metrics.recordOtherError();
+                    lastError = e;
+                } finally {
+                    lastTryMillis = System.currentTimeMillis();
+                }
+                if (willRetry) {
+                    logger.warn(
+                            "Try {} out of {} failed when executing pipelined request ({}). Will try again soon. Error details: {} {} [operation ID {}]",
+                            tryIndex, maxTries, request, lastError.getClass().getName(), lastError.getMessage(),
+                            operationId);
+                } else {
+                    logger.error(
+                            "Last try {} failed when executing pipelined request ({}). Aborting. Error details: {} {} [operation ID {}]",
+                            tryIndex, request, lastError.getClass().getName(), lastError.getMessage(), operationId);
+                }
+            }
+        } catch (PollTaskUnregistered e) {
+            logger.warn("Poll task was unregistered -- not executing/proceeding with the poll: {} [operation ID {}]",
+                    e.getMessage(), operationId);
+            return;
+        } catch (InterruptedException e) {
+            logger.warn("Poll task was canceled -- not executing/proceeding with the poll: {} [operation ID {}]",
+                    e.getMessage(), operationId);
+            return;
+        }
+        Exception exception = lastError;
+        ExecutorService callbackThreadPool = this.callbackThreadPool;
+        if (exception != null && callback != null && callbackThreadPool != null) {
+            executeCallback(callbackThreadPool, endpoint, () -> {
+                invokeCallbackWithError(request, callback, exception);
+            });
+        }
+    }
+
     /**
      * Execute operation using a retry mechanism.
      *
@@ -486,12 +898,16 @@ public class ModbusManagerImpl implements ModbusManager {
      *
      * With some other connection types, the operation is retried without reseting the connection type.
      *
+     * With adaptive inter-transaction delay, operations waiting for the same endpoint are executed in the order of
+     * their deadline.
+     *
      * @param task
      * @param oneOffTask
      * @param operation
+     * @param deadlineMillis time by which the operation should be executed
      */
     private <R extends ModbusRequestBlueprint, C extends ModbusCallback, T extends TaskWithEndpoint<R, C>> void executeOperation(
-            @NonNull T task, boolean oneOffTask, ModbusOperation<T> operation) {
+            @NonNull T task, boolean oneOffTask, ModbusOperation<T> operation, long deadlineMillis) {
         ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
         if (connectionFactory == null) {
             // deactivated manager
@@ -499,22 +915,35 @@ public class ModbusManagerImpl implements ModbusManager {
             return;
         }
         logTaskQueueInfo();
+        Optional<ModbusTCPPipeline> pipeline = getPipeline(task.getEndpoint());
+        if (pipeline.isPresent()) {
+            executePipelinedOperation(task, oneOffTask, operation, pipeline.get(), connectionFactory, deadlineMillis);
+            return;
+        }
         R request = task.getRequest();
         ModbusSlaveEndpoint endpoint = task.getEndpoint();
         @Nullable
         C callback = task.getCallback();
         int maxTries = task.getMaxTries();
         AtomicReference<@Nullable Exception> lastError = new AtomicReference<>();
-        long retryDelay = Optional.ofNullable(connectionFactory.getEndpointPoolConfiguration(endpoint))
-                .map(cfg -> cfg.getInterTransactionDelayMillis()).orElse(0L);
+        long retryDelay = connectionFactory.getInterTransactionDelayMillis(endpoint);
 
         if (maxTries <= 0) {
             throw new IllegalArgumentException("maxTries should be positive");
         }
 
         String operationId = UUID.randomUUID().toString();
+        ModbusEndpointMetricsImpl metrics = getMetrics(endpoint);
         Optional<ModbusSlaveConnection> connection = Optional.empty();
+        DeadlineOrderedGate gate = getDeadlineGate(endpoint);
+        boolean gateAcquired = false;
         try {
+            if (gate != null) {
+                logger.trace("Waiting for operations with earlier deadline to finish (deadline {}) [operation ID {}]",
+                        deadlineMillis, operationId);
+                gate.acquire(deadlineMillis);
+                gateAcquired = true;
+            }
             logger.trace("Starting new operation with task {}. Trying to get connection [operation ID {}]", task,
                     operationId);
             connection = getConnection(operationId, oneOffTask, task);
@@ -565,15 +994,23 @@ public class ModbusManagerImpl implements ModbusManager {
                         operationId);
                 long slept = ModbusSlaveConnectionFactoryImpl.waitAtleast(lastTryMillis, retryDelay);
                 logger.trace("Sleep ended, slept {} [operation ID {}]", slept, operationId);
+                if (lastTryMillis != null) {
+                    metrics.recordInterTransactionDelay(slept);
+                }
 
                 boolean willRetry = false;
                 try {
                     tryIndex++;
                     willRetry = tryIndex < maxTries;
+                    if (tryIndex > 1) {
+                        metrics.recordRetry();
+                    }
                     operation.accept(operationId, task, connection.get());
                     lastError.set(null);
                     break;
                 } catch (IOException e) {
+                    metrics.recordIOError();
+                    onTransactionFailed(endpoint);
                     lastError.set(new ModbusSlaveIOExceptionImpl(e));
                     // IO exception occurred, we re-establish new connection hoping it would fix the issue (e.g.
                     // broken pipe on write)
@@ -591,6 +1028,8 @@ public class ModbusManagerImpl implements ModbusManager {
                     connection = Optional.empty();
                     continue;
                 } catch (ModbusIOException e) {
+                    metrics.recordIOError();
+                    onTransactionFailed(endpoint);
                     lastError.set(new ModbusSlaveIOExceptionImpl(e));
                     // IO exception occurred, we re-establish new connection hoping it would fix the issue (e.g.
                     // broken pipe on write)
@@ -608,6 +1047,7 @@ public class ModbusManagerImpl implements ModbusManager {
                     connection = Optional.empty();
                     continue;
                 } catch (ModbusSlaveException e) {
+                    metrics.recordSlaveError();
                     lastError.set(new ModbusSlaveErrorResponseExceptionImpl(e));
                     // Slave returned explicit error response, no reason to re-establish new connection
                     if (willRetry) {
@@ -621,6 +1061,8 @@ public class ModbusManagerImpl implements ModbusManager {
                     }
                     continue;
                 } catch (ModbusUnexpectedTransactionIdException e) {
+                    metrics.recordTransactionIdError();
+                    onTransactionFailed(endpoint);
                     lastError.set(e);
                     // transaction error details already logged
                     if (willRetry) {
@@ -637,6 +1079,7 @@ public class ModbusManagerImpl implements ModbusManager {
                     connection = Optional.empty();
                     continue;
                 } catch (ModbusException e) {
+                    metrics.recordOtherError();
                     lastError.set(e);
                     // Some other (unexpected) exception occurred
                     if (willRetry) {
@@ -665,7 +1108,7 @@ public class ModbusManagerImpl implements ModbusManager {
             if (exception != null) {
                 // All retries failed with some error
                 if (callback != null) {
-                    callbackThreadPool.execute(() -> {
+                    executeCallback(callbackThreadPool, endpoint, () -> {
                         invokeCallbackWithError(request, callback, exception);
                     });
                 }
@@ -683,6 +1126,9 @@ public class ModbusManagerImpl implements ModbusManager {
         } finally {
             returnConnection(endpoint, connection);
             logger.trace("Connection was returned to the pool, ending operation [operation ID {}]", operationId);
+            if (gate != null && gateAcquired) {
+                gate.release();
+            }
         }
     }
 
@@ -696,7 +1142,7 @@ public class ModbusManagerImpl implements ModbusManager {
             long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
             logger.debug("Will now execute one-off poll task {}, waited in thread pool for {}", task,
                     millisInThreadPoolWaiting);
-            executeOperation(task, true, pollOperation);
+            executeOperation(task, true, pollOperation, scheduleTime);
         }, 0L, TimeUnit.MILLISECONDS);
         return future;
     }
@@ -712,11 +1158,16 @@ public class ModbusManagerImpl implements ModbusManager {
                 logger.trace("Unregistering previous poll task (possibly with different period)");
                 unregisterRegularPoll(task);
             }
+            EndpointPoolConfiguration config = getEndpointPoolConfiguration(task.getEndpoint());
+            if (config != null && config.getReadCoalescingMaxGap() >= 0) {
+                registerCoalescedPoll(executor, task, pollPeriodMillis, initialDelayMillis);
+                return;
+            }
             ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
                 long started = System.currentTimeMillis();
                 logger.debug("Executing scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis, task,
                         started);
-                executeOperation(task, false, pollOperation);
+                executeOperation(task, false, pollOperation, started + pollPeriodMillis);
                 long finished = System.currentTimeMillis();
                 logger.debug(
                         "Execution of scheduled ({}ms) poll task {} finished at {}. Was started at millis: {} (=duration of {} millis)",
@@ -729,6 +1180,61 @@ public class ModbusManagerImpl implements ModbusManager {
         }
     }
 
+    /**
+     * Register poll task to be executed together with other polls sharing the endpoint and poll period
+     *
+     * Initial delay is respected only with the first task of the group, later tasks are polled along with the
+     * existing ones, see {@link ModbusManager#registerRegularPoll(PollTask, long, long)}.
+     */
+    private void registerCoalescedPoll(ScheduledExecutorService executor, PollTask task, long pollPeriodMillis,
+            long initialDelayMillis) {
+        CoalescedPollGroupKey key = new CoalescedPollGroupKey(task.getEndpoint(), pollPeriodMillis);
+        CoalescedPollGroup group = coalescedPollGroups.get(key);
+        if (group == null) {
+            CoalescedPollGroup newGroup = new CoalescedPollGroup(task.getEndpoint());
+            newGroup.future = executor.scheduleWithFixedDelay(() -> {
+                long started = System.currentTimeMillis();
+                logger.debug("Executing scheduled ({}ms) coalesced poll tasks of endpoint {}. Current millis: {}",
+                        pollPeriodMillis, key.endpoint, started);
+                newGroup.execute(started + pollPeriodMillis);
+                long finished = System.currentTimeMillis();
+                logger.debug(
+                        "Execution of scheduled ({}ms) coalesced poll tasks of endpoint {} finished at {}. Was started at millis: {} (=duration of {} millis)",
+                        pollPeriodMillis, key.endpoint, finished, started, finished - started);
+            }, initialDelayMillis, pollPeriodMillis, TimeUnit.MILLISECONDS);
+            coalescedPollGroups.put(key, newGroup);
+            group = newGroup;
+        }
+        group.tasks.add(task);
+        group.invalidatePlan();
+        ScheduledFuture<?> future = group.future;
+        Objects.requireNonNull(future);
+        scheduledPollTasks.put(task, future);
+        logger.trace("Registered poll task {} with period {} to coalesced poll group of {} tasks", task,
+                pollPeriodMillis, group.tasks.size());
+    }
+
+    /**
+     * Remove task from its coalesced poll group, if any
+     *
+     * @return whether the scheduled job of the group should be canceled, i.e. the task was not part of any group, or
+     *         was the last task in its group
+     */
+    private boolean removeFromCoalescedPollGroup(PollTask task) {
+        for (Map.Entry<CoalescedPollGroupKey, CoalescedPollGroup> entry : coalescedPollGroups.entrySet()) {
+            CoalescedPollGroup group = entry.getValue();
+            if (group.tasks.remove(task)) {
+                group.invalidatePlan();
+                if (group.tasks.isEmpty()) {
+                    coalescedPollGroups.remove(entry.getKey());
+                    return true;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
     @SuppressWarnings({ "null", "unused" })
     @Override
     public boolean unregisterRegularPoll(PollTask task) {
@@ -752,9 +1258,12 @@ public class ModbusManagerImpl implements ModbusManager {
             // is usually pretty soon as transactions should be relatively short-lived)
             factory.disconnectOnReturn(task.getEndpoint(), System.currentTimeMillis());
 
-            future.cancel(true);
-
-            logger.info("Poll task {} canceled", task);
+            if (removeFromCoalescedPollGroup(task)) {
+                future.cancel(true);
+                logger.info("Poll task {} canceled", task);
+            } else {
+                logger.info("Poll task {} removed from coalesced poll group", task);
+            }
 
             try {
                 // Close all idle connections as well (they will be reconnected if necessary on borrow)
@@ -781,7 +1290,7 @@ public class ModbusManagerImpl implements ModbusManager {
             long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
             logger.debug("Will now execute one-off write task {}, waited in thread pool for {}", task,
                     millisInThreadPoolWaiting);
-            executeOperation(task, true, writeOperation);
+            executeOperation(task, true, writeOperation, scheduleTime);
         }, 0L, TimeUnit.MILLISECONDS);
         return future;
     }
@@ -791,6 +1300,13 @@ public class ModbusManagerImpl implements ModbusManager {
             @Nullable EndpointPoolConfiguration configuration) {
         Objects.requireNonNull(connectionFactory, "Not activated!");
         connectionFactory.setEndpointPoolConfiguration(endpoint, configuration);
+        coalescedPollGroups.forEach((key, group) -> {
+            if (key.endpoint.equals(endpoint)) {
+                group.invalidatePlan();
+            }
+        });
+        // Pipeline is re-created with new configuration on next operation
+        Optional.ofNullable(pipelines.remove(endpoint)).ifPresent(ModbusTCPPipeline::close);
         for (ModbusManagerListener listener : listeners) {
             listener.onEndpointPoolConfigurationSet(endpoint, configuration);
         }
@@ -817,6 +1333,25 @@ public class ModbusManagerImpl implements ModbusManager {
         return this.scheduledPollTasks.keySet();
     }
 
+    @Override
+    public Map<ModbusSlaveEndpoint, ModbusEndpointMetrics> getEndpointMetrics() {
+        return Collections.unmodifiableMap(new HashMap<>(endpointMetrics));
+    }
+
+    @Override
+    public int getCallbackQueueSize() {
+        ExecutorService callbackThreadPool = this.callbackThreadPool;
+        if (callbackThreadPool instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) callbackThreadPool).getQueue().size();
+        }
+        return -1;
+    }
+
+    @Override
+    public void resetMetrics() {
+        endpointMetrics.clear();
+    }
+
     @Activate
     protected void activate(Map<String, Object> configProperties) {
         synchronized (this) {
@@ -861,6 +1396,9 @@ public class ModbusManagerImpl implements ModbusManager {
                 monitorFuture.cancel(true);
                 monitorFuture = null;
             }
+            pipelines.values().forEach(ModbusTCPPipeline::close);
+            pipelines.clear();
+            deadlineGates.clear();
             // Note that it is not allowed to shutdown the executor, since they will be reused when
             // when pool is received from ThreadPoolManager is called
             scheduledThreadPoolExecutor = null;
@@ -903,6 +1441,16 @@ public class ModbusManagerImpl implements ModbusManager {
                 }
             }
 
+            endpointMetrics.forEach((endpoint, metrics) -> {
+                pollMonitorLogger.trace("POLL MONITOR: endpoint {} metrics: {}", endpoint, metrics);
+            });
+            deadlineGates.forEach((endpoint, gate) -> {
+                pollMonitorLogger.trace(
+                        "POLL MONITOR: endpoint {} has {} operations waiting, current inter-transaction delay {} ms",
+                        endpoint, gate.getQueueLength(), Optional.ofNullable(connectionFactory)
+                                .map(f -> f.getInterTransactionDelayMillis(endpoint)).orElse(0L));
+            });
+
             pollMonitorLogger.trace("</POLL MONITOR>");
         }
     }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.Modbus;
+
+/**
+ * Planner coalescing read requests of several poll tasks into as few Modbus transactions as possible
+ *
+ * Poll tasks are merged when they
+ * <ul>
+ * <li>share the endpoint, unit id, protocol id and function code</li>
+ * <li>have overlapping ranges, or the gap between the ranges is at most the configured gap tolerance</li>
+ * <li>fit into single Modbus request (125 registers, or 2000 coils/discrete inputs)</li>
+ * </ul>
+ *
+ * Poll tasks that cannot be merged with any other task are returned as-is.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusReadRequestPlanner {
+
+    /**
+     * Maximum number of registers read in single request, as defined by the Modbus protocol
+     */
+    public static final int MAX_REGISTERS_PER_READ = 125;
+
+    /**
+     * Maximum number of coils or discrete inputs read in single request, as defined by the Modbus protocol
+     */
+    public static final int MAX_BITS_PER_READ = 2000;
+
+    private static final Comparator<PollTask> TASK_ORDER = Comparator
+            .<PollTask> comparingInt(task -> task.getRequest().getUnitID())
+            .thenComparingInt(task -> task.getRequest().getProtocolID())
+            .thenComparing(task -> task.getRequest().getFunctionCode())
+            .thenComparingInt(task -> task.getRequest().getReference())
+            .thenComparingInt(task -> task.getRequest().getDataLength());
+
+    private final Logger logger = LoggerFactory.getLogger(ModbusReadRequestPlanner.class);
+
+    private final int maxGap;
+    private final Predicate<PollTask> isTaskActive;
+
+    /**
+     *
+     * @param maxGap maximum number of unrequested registers (or bits) allowed between two merged ranges. Zero means
+     *            that only adjacent or overlapping ranges are merged.
+     */
+    public ModbusReadRequestPlanner(int maxGap) {
+        this(maxGap, task -> true);
+    }
+
+    /**
+     *
+     * @param maxGap maximum number of unrequested registers (or bits) allowed between two merged ranges. Zero means
+     *            that only adjacent or overlapping ranges are merged.
+     * @param isTaskActive tells whether the callback of a merged task should still be called, checked when the
+     *            response of the merged transaction is dispatched
+     */
+    public ModbusReadRequestPlanner(int maxGap, Predicate<PollTask> isTaskActive) {
+        if (maxGap < 0) {
+            throw new IllegalArgumentException("maxGap should be non-negative");
+        }
+        this.maxGap = maxGap;
+        this.isTaskActive = isTaskActive;
+    }
+
+    /**
+     * Plan the transactions for given poll tasks
+     *
+     * @param endpoint endpoint shared by all the tasks
+     * @param tasks poll tasks to plan. All tasks must have the given endpoint
+     * @return poll tasks to execute. Original tasks that were merged are represented by a {@link CoalescedPollTask}
+     */
+    public List<PollTask> plan(ModbusSlaveEndpoint endpoint, Collection<PollTask> tasks) {
+        List<PollTask> sorted = new ArrayList<>(tasks);
+        sorted.sort(TASK_ORDER);
+
+        List<PollTask> planned = new ArrayList<>();
+        List<PollTask> group = new ArrayList<>();
+        int groupStart = 0;
+        int groupEnd = 0;
+        for (PollTask task : sorted) {
+            if (!task.getEndpoint().equals(endpoint)) {
+                throw new IllegalArgumentException(
+                        String.format("Task %s has different endpoint than expected (%s)", task, endpoint));
+            }
+            ModbusReadRequestBlueprint request = task.getRequest();
+            int start = request.getReference();
+            int end = start + request.getDataLength();
+            if (!group.isEmpty() && canMerge(group.get(0).getRequest(), groupStart, groupEnd, request)) {
+                group.add(task);
+                groupEnd = Math.max(groupEnd, end);
+                continue;
+            }
+            flush(endpoint, group, groupStart, groupEnd, planned);
+            group.add(task);
+            groupStart = start;
+            groupEnd = end;
+        }
+        flush(endpoint, group, groupStart, groupEnd, planned);
+        logger.trace("Planned {} poll tasks into {} transactions with endpoint {}", tasks.size(), planned.size(),
+                endpoint);
+        return planned;
+    }
+
+    private boolean canMerge(ModbusReadRequestBlueprint first, int groupStart, int groupEnd,
+            ModbusReadRequestBlueprint request) {
+        if (first.getUnitID() != request.getUnitID() || first.getProtocolID() != request.getProtocolID()
+                || first.getFunctionCode() != request.getFunctionCode()) {
+            return false;
+        }
+        if (request.getProtocolID() != Modbus.DEFAULT_PROTOCOL_ID) {
+            // BasicModbusReadRequestBlueprint cannot represent custom protocol ids
+            return false;
+        }
+        int start = request.getReference();
+        int end = start + request.getDataLength();
+        if (start - groupEnd > maxGap) {
+            return false;
+        }
+        return Math.max(groupEnd, end) - groupStart <= maxReadLength(request.getFunctionCode());
+    }
+
+    private void flush(ModbusSlaveEndpoint endpoint, List<PollTask> group, int groupStart, int groupEnd,
+            List<PollTask> planned) {
+        if (group.isEmpty()) {
+            return;
+        } else if (group.size() == 1) {
+            planned.add(group.get(0));
+        } else {
+            ModbusReadRequestBlueprint first = group.get(0).getRequest();
+            int maxTries = group.stream().mapToInt(task -> task.getRequest().getMaxTries()).max().getAsInt();
+            BasicModbusReadRequestBlueprint request = new BasicModbusReadRequestBlueprint(first.getUnitID(),
+                    first.getFunctionCode(), groupStart, groupEnd - groupStart, maxTries);
+            planned.add(new CoalescedPollTask(endpoint, request, new ArrayList<>(group), isTaskActive));
+        }
+        group.clear();
+    }
+
+    private static int maxReadLength(ModbusReadFunctionCode functionCode) {
+        switch (functionCode) {
+            case READ_COILS:
+            case READ_INPUT_DISCRETES:
+                return MAX_BITS_PER_READ;
+            default:
+                return MAX_REGISTERS_PER_READ;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.ModbusRegister;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+
+/**
+ * Implementation of {@link ModbusRegisterArray} representing a contiguous part of another register array
+ *
+ * No data is copied, registers are read from the wrapped array on demand.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusRegisterArraySlice implements ModbusRegisterArray {
+
+    private ModbusRegisterArray wrapped;
+    private int offset;
+    private int length;
+
+    /**
+     * Construct slice of register array
+     *
+     * @param wrapped register array to wrap
+     * @param offset index of the first register of the slice in the wrapped array
+     * @param length number of registers in the slice
+     * @throws IndexOutOfBoundsException when the slice does not fit into the wrapped array
+     */
+    public ModbusRegisterArraySlice(ModbusRegisterArray wrapped, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > wrapped.size()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Slice (offset=%d, length=%d) out of bounds with array of size %d", offset, length, wrapped.size()));
+        }
+        this.wrapped = wrapped;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public ModbusRegister getRegister(int index) {
+        checkIndex(index);
+        return wrapped.getRegister(offset + index);
+    }
+
+    @Override
+    public int getRegisterAsUnsignedShort(int index) {
+        checkIndex(index);
+        return wrapped.getRegisterAsUnsignedShort(offset + index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds (size %d)", index, length));
+        }
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        if (length == 0) {
+            return "ModbusRegisterArraySlice(<empty>)";
+        }
+        StringBuffer buffer = new StringBuffer(length * 2).append("ModbusRegisterArraySlice(");
+        return appendHexString(buffer).append(')').toString();
+    }
+
+}
@@ -0,0 +1,442 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.ModbusException;
+import net.wimpi.modbus.ModbusIOException;
+import net.wimpi.modbus.ModbusSlaveException;
+import net.wimpi.modbus.io.ModbusTransport;
+import net.wimpi.modbus.msg.ExceptionResponse;
+import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ModbusResponse;
+import net.wimpi.modbus.net.ModbusSlaveConnection;
+import net.wimpi.modbus.net.TCPMasterConnection;
+
+/**
+ * Executes Modbus TCP transactions with several requests in flight on a single connection
+ *
+ * Requests from concurrent callers are queued. One of the callers at a time acts as the IO owner: it borrows the
+ * connection and keeps up to <code>maxInFlight</code> queued requests in flight, sending the next request whenever a
+ * response is received. The responses are matched to the requests using the MBAP transaction ID via a concurrent
+ * correlation table, and the waiting callers are released. Responses with unknown transaction ID are discarded. When
+ * the IO owner is done, the waiting callers are signalled and one of them takes over.
+ *
+ * Each request has its own deadline, the timeout of the connection counted from the moment the request was sent. A
+ * caller whose deadline passes fails its own transaction, and the IO owner limits each read to the earliest deadline
+ * in flight. When the read times out, part of a late response may remain in the stream: the expired transactions
+ * fail, and the connection is treated as broken. On I/O errors the transactions in flight fail and the connection is
+ * invalidated. Requests still queued are sent with the next connection.
+ *
+ * Only some Modbus TCP slaves (typically gateways) support multiple outstanding transactions.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusTCPPipeline {
+
+    /**
+     * Access to pooled connections of the endpoint
+     */
+    public interface ConnectionProvider {
+        Optional<ModbusSlaveConnection> borrow(ModbusTCPSlaveEndpoint endpoint);
+
+        void giveBack(ModbusTCPSlaveEndpoint endpoint, Optional<ModbusSlaveConnection> connection);
+
+        void invalidate(ModbusTCPSlaveEndpoint endpoint, Optional<ModbusSlaveConnection> connection);
+    }
+
+    /**
+     * Raised when the connection to the endpoint could not be established
+     */
+    public static class PipelineConnectionException extends ModbusIOException {
+        private static final long serialVersionUID = 3620936372525315469L;
+
+        public PipelineConnectionException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Request submitted to the pipeline, see {@link ModbusTCPPipeline#submit(ModbusRequest)}
+     */
+    public static class PendingTransaction {
+        private final ModbusRequest request;
+        private volatile boolean done;
+        private volatile @Nullable ModbusResponse response;
+        private volatile @Nullable Exception error;
+        /**
+         * Time in milliseconds by which the response should be received, or 0 when not sent or without timeout.
+         * Guarded by the lock of the pipeline.
+         */
+        private long deadlineMillis;
+
+        private PendingTransaction(ModbusRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * MBAP transaction ids are 16-bit unsigned integers
+     */
+    private static final int MAX_TRANSACTION_ID = 0xFFFF;
+
+    private final Logger logger = LoggerFactory.getLogger(ModbusTCPPipeline.class);
+
+    private final ModbusTCPSlaveEndpoint endpoint;
+    private final int maxInFlight;
+    private final ConnectionProvider connectionProvider;
+
+    private final Queue<PendingTransaction> queue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<Integer, PendingTransaction> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger transactionIdCounter = new AtomicInteger();
+    /**
+     * Guards the IO ownership and the completion of the transactions
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled when a transaction completes, or when the IO owner is done
+     */
+    private final Condition changed = lock.newCondition();
+    private boolean ioActive;
+
+    /**
+     *
+     * @param endpoint endpoint of the pipeline
+     * @param maxInFlight maximum number of transactions in flight at the same time
+     * @param connectionProvider access to connection pool
+     */
+    public ModbusTCPPipeline(ModbusTCPSlaveEndpoint endpoint, int maxInFlight, ConnectionProvider connectionProvider) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight should be positive");
+        }
+        this.endpoint = endpoint;
+        this.maxInFlight = maxInFlight;
+        this.connectionProvider = connectionProvider;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return number of requests waiting to be sent
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Execute the request, blocking until response is received
+     *
+     * @param request request to execute. Transaction ID of the request is overwritten
+     * @return response with transaction ID matching the request
+     * @throws PipelineConnectionException when connection cannot be established
+     * @throws ModbusIOException on I/O errors, when no response is received within the timeout of the connection, or
+     *             when interrupted while waiting for the response. The interrupted status of the thread is preserved.
+     * @throws ModbusSlaveException when slave responds with exception response
+     */
+    public ModbusResponse execute(ModbusRequest request) throws ModbusException {
+        return await(submit(request));
+    }
+
+    /**
+     * Queue the request for sending without waiting for the response. Requests are sent in the order of submission.
+     *
+     * @param request request to execute. Transaction ID of the request is overwritten
+     * @return transaction to pass to {@link #await(PendingTransaction)}
+     */
+    public PendingTransaction submit(ModbusRequest request) {
+        request.setTransactionID(nextTransactionId());
+        PendingTransaction pending = new PendingTransaction(request);
+        queue.add(pending);
+        return pending;
+    }
+
+    /**
+     * Wait for the response of submitted request, taking over the IO when no other caller is doing it
+     *
+     * @param pending transaction returned by {@link #submit(ModbusRequest)}
+     * @return response with transaction ID matching the request
+     * @throws PipelineConnectionException when connection cannot be established
+     * @throws ModbusIOException on I/O errors, when no response is received within the timeout of the connection, or
+     *             when interrupted while waiting for the response. The interrupted status of the thread is preserved.
+     * @throws ModbusSlaveException when slave responds with exception response
+     */
+    public ModbusResponse await(PendingTransaction pending) throws ModbusException {
+        while (!pending.done) {
+            lock.lock();
+            try {
+                while (!pending.done && ioActive) {
+                    long deadlineMillis = pending.deadlineMillis;
+                    if (deadlineMillis <= 0) {
+                        changed.await();
+                        continue;
+                    }
+                    long remainingMillis = deadlineMillis - System.currentTimeMillis();
+                    if (remainingMillis <= 0) {
+                        expire(pending);
+                    } else {
+                        changed.await(remainingMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+                if (pending.done) {
+                    break;
+                }
+                ioActive = true;
+            } catch (InterruptedException e) {
+                // Request is not sent anymore if it is still queued. Requests already in flight are completed
+                // by the IO owner, and the response is discarded.
+                queue.remove(pending);
+                Thread.currentThread().interrupt();
+                throw new ModbusIOException("Interrupted while waiting for the response");
+            } finally {
+                lock.unlock();
+            }
+            try {
+                processQueue();
+            } finally {
+                lock.lock();
+                try {
+                    ioActive = false;
+                    // hand over to one of the waiting callers, if any
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        Exception error = pending.error;
+        if (error instanceof ModbusException) {
+            throw (ModbusException) error;
+        } else if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        ModbusResponse response = pending.response;
+        if (response instanceof ExceptionResponse) {
+            throw new ModbusSlaveException(((ExceptionResponse) response).getExceptionCode());
+        } else if (response == null) {
+            throw new IllegalStateException("Transaction completed without response or error");
+        }
+        return response;
+    }
+
+    private int nextTransactionId() {
+        // Transaction id 0 is avoided since some slaves use it with headless responses
+        return transactionIdCounter.updateAndGet(id -> id >= MAX_TRANSACTION_ID ? 1 : id + 1);
+    }
+
+    private void complete(PendingTransaction pending, @Nullable ModbusResponse response, @Nullable Exception error) {
+        lock.lock();
+        try {
+            pending.response = response;
+            pending.error = error;
+            pending.done = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fail the transaction in flight whose deadline has passed. A late response of such transaction is treated as
+     * response with unknown transaction ID.
+     */
+    private void expire(PendingTransaction pending) {
+        if (inFlight.remove(pending.request.getTransactionID(), pending)) {
+            logger.warn("No response to pipelined request with transaction ID {} from endpoint {} in time",
+                    pending.request.getTransactionID(), endpoint);
+            complete(pending, null, new ModbusIOException(
+                    String.format("No response to transaction ID %d in time", pending.request.getTransactionID())));
+        }
+    }
+
+    /**
+     * Process queued requests until the queue is empty
+     *
+     * Must be called only by the IO owner.
+     */
+    private void processQueue() {
+        while (!queue.isEmpty()) {
+            Optional<ModbusSlaveConnection> connection = connectionProvider.borrow(endpoint);
+            if (!connection.isPresent()) {
+                List<PendingTransaction> failed = new ArrayList<>(maxInFlight);
+                PendingTransaction next;
+                while (failed.size() < maxInFlight && (next = queue.poll()) != null) {
+                    failed.add(next);
+                }
+                logger.warn("Could not connect to endpoint {} -- failing {} pipelined requests", endpoint,
+                        failed.size());
+                PipelineConnectionException error = new PipelineConnectionException(
+                        String.format("Error connecting to endpoint %s", endpoint));
+                failed.forEach(pending -> complete(pending, null, error));
+                continue;
+            }
+            TCPMasterConnection tcpConnection = (TCPMasterConnection) connection.get();
+            int timeoutMillis = tcpConnection.getTimeout();
+            boolean reusable = transfer(tcpConnection, timeoutMillis);
+            // reads are limited by the deadlines in flight, restore the configured timeout
+            tcpConnection.setTimeout(timeoutMillis);
+            if (reusable) {
+                connectionProvider.giveBack(endpoint, connection);
+            } else {
+                connectionProvider.invalidate(endpoint, connection);
+            }
+        }
+    }
+
+    /**
+     * Send the queued requests and read the responses, keeping up to maxInFlight requests in flight. The next queued
+     * request is sent as soon as a response is received.
+     *
+     * Each read waits at most until the earliest deadline of the transactions in flight. When it times out, the
+     * expired transactions fail for not being answered in time. A late response may have been read partially, so the
+     * read timeout is handled as I/O error. On I/O errors only the transactions in flight fail, the requests still
+     * queued are sent with the next connection.
+     *
+     * @param connection connection to use
+     * @param timeoutMillis timeout for the response of each request, or non-positive for no timeout
+     * @return true if the connection can be reused, false on I/O error
+     */
+    private boolean transfer(TCPMasterConnection connection, int timeoutMillis) {
+        ModbusTransport transport = connection.getModbusTransport();
+        try {
+            while (true) {
+                PendingTransaction next;
+                while (inFlight.size() < maxInFlight && (next = queue.poll()) != null) {
+                    lock.lock();
+                    try {
+                        next.deadlineMillis = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
+                        // the caller starts waiting for the deadline
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                    inFlight.put(next.request.getTransactionID(), next);
+                    logger.trace("Sending pipelined request with transaction ID {}: {}",
+                            next.request.getTransactionID(), next.request.getHexMessage());
+                    transport.writeMessage(next.request);
+                }
+                if (inFlight.isEmpty()) {
+                    return true;
+                }
+
+                long readDeadlineMillis = expireAndGetEarliestDeadline();
+                if (inFlight.isEmpty()) {
+                    continue;
+                }
+                if (readDeadlineMillis > 0) {
+                    connection.setTimeout((int) Math.max(1, readDeadlineMillis - System.currentTimeMillis()));
+                }
+                ModbusResponse response;
+                try {
+                    response = transport.readResponse();
+                } catch (ModbusIOException e) {
+                    if (readDeadlineMillis > 0 && System.currentTimeMillis() >= readDeadlineMillis) {
+                        // Read timed out waiting for the earliest deadline. The expired transactions fail as not
+                        // answered in time. Bytes of their late responses may remain in the stream, so the other
+                        // transactions in flight fail with the I/O error, and the connection is not reused.
+                        expireAndGetEarliestDeadline();
+                    }
+                    throw e;
+                }
+                PendingTransaction pending = inFlight.remove(response.getTransactionID());
+                if (pending == null) {
+                    logger.warn(
+                            "Received response with unknown transaction ID {} from endpoint {}. Ignoring response.",
+                            response.getTransactionID(), endpoint);
+                } else {
+                    logger.trace("Received pipelined response with transaction ID {}", response.getTransactionID());
+                    complete(pending, response, null);
+                }
+            }
+        } catch (ModbusIOException e) {
+            logger.warn("I/O error with pipelined requests to endpoint {}: {}. Reseting the connection.", endpoint,
+                    e.getMessage());
+            failInFlight(e);
+            return false;
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error with pipelined requests to endpoint {}: {} {}", endpoint,
+                    e.getClass().getName(), e.getMessage(), e);
+            failInFlight(new ModbusIOException(e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Fail the transactions in flight whose deadline has passed
+     *
+     * @return earliest deadline of the remaining transactions in flight, or 0 if none of them has a deadline
+     */
+    private long expireAndGetEarliestDeadline() {
+        long now = System.currentTimeMillis();
+        long earliest = 0;
+        lock.lock();
+        try {
+            for (PendingTransaction pending : inFlight.values()) {
+                long deadlineMillis = pending.deadlineMillis;
+                if (deadlineMillis <= 0) {
+                    continue;
+                }
+                if (deadlineMillis <= now) {
+                    expire(pending);
+                } else if (earliest == 0 || deadlineMillis < earliest) {
+                    earliest = deadlineMillis;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return earliest;
+    }
+
+    private void failInFlight(ModbusIOException error) {
+        for (PendingTransaction pending : inFlight.values()) {
+            if (inFlight.remove(pending.request.getTransactionID(), pending)) {
+                complete(pending, null, error);
+            }
+        }
+    }
+
+    /**
+     * Fail all queued requests, for example when the pipeline is discarded
+     */
+    public void close() {
+        PendingTransaction pending;
+        PipelineConnectionException error = new PipelineConnectionException(
+                String.format("Pipeline of endpoint %s closed", endpoint));
+        while ((pending = queue.poll()) != null) {
+            complete(pending, null, error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ModbusTCPPipeline(endpoint=%s, maxInFlight=%d, queued=%d, inFlight=%d)", endpoint,
+                maxInFlight, queue.size(), inFlight.size());
+    }
+}
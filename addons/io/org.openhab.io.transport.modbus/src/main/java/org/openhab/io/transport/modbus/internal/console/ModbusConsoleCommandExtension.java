@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal.console;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.io.console.Console;
+import org.eclipse.smarthome.io.console.extensions.AbstractConsoleCommandExtension;
+import org.eclipse.smarthome.io.console.extensions.ConsoleCommandExtension;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
+import org.openhab.io.transport.modbus.ModbusLatencyHistogram;
+import org.openhab.io.transport.modbus.ModbusManagerMetrics;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * Console commands for inspecting the runtime metrics of Modbus endpoints
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@Component(service = ConsoleCommandExtension.class, immediate = true)
+@NonNullByDefault
+public class ModbusConsoleCommandExtension extends AbstractConsoleCommandExtension {
+
+    private static final String SUBCMD_METRICS = "metrics";
+    private static final String SUBCMD_RESET_METRICS = "resetMetrics";
+
+    private @Nullable ModbusManagerMetrics managerMetrics;
+
+    public ModbusConsoleCommandExtension() {
+        super("modbus", "Inspect Modbus transport.");
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        ModbusManagerMetrics managerMetrics = this.managerMetrics;
+        if (managerMetrics == null) {
+            console.println("Modbus manager not available");
+            return;
+        }
+        if (args.length > 0) {
+            String subCommand = args[0];
+            switch (subCommand) {
+                case SUBCMD_METRICS:
+                    printMetrics(managerMetrics, console);
+                    break;
+
+                case SUBCMD_RESET_METRICS:
+                    managerMetrics.resetMetrics();
+                    console.println("Modbus metrics reset");
+                    break;
+
+                default:
+                    console.println("Unknown command '" + subCommand + "'");
+                    printUsage(console);
+                    break;
+            }
+        } else {
+            printUsage(console);
+        }
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return Arrays.asList(new String[] { buildCommandUsage(SUBCMD_METRICS, "lists runtime metrics by endpoint"),
+                buildCommandUsage(SUBCMD_RESET_METRICS, "clears all collected metrics") });
+    }
+
+    @Reference
+    public void setModbusManagerMetrics(ModbusManagerMetrics managerMetrics) {
+        this.managerMetrics = managerMetrics;
+    }
+
+    public void unsetModbusManagerMetrics(ModbusManagerMetrics managerMetrics) {
+        this.managerMetrics = null;
+    }
+
+    private void printMetrics(ModbusManagerMetrics managerMetrics, Console console) {
+        Map<ModbusSlaveEndpoint, ModbusEndpointMetrics> endpointMetrics = managerMetrics.getEndpointMetrics();
+        console.println(String.format("Callback queue size: %d", managerMetrics.getCallbackQueueSize()));
+        if (endpointMetrics.isEmpty()) {
+            console.println("No metrics collected");
+            return;
+        }
+        endpointMetrics.forEach((endpoint, metrics) -> {
+            console.println(endpoint.toString());
+            console.println("  transaction latency:       " + formatHistogram(metrics.getTransactionLatency()));
+            console.println("  connection wait:           " + formatHistogram(metrics.getConnectionWait()));
+            console.println("  inter-transaction delay:   " + formatHistogram(metrics.getInterTransactionDelay()));
+            console.println(String.format(
+                    "  retries: %d, IO errors: %d, slave errors: %d, transaction ID errors: %d, "
+                            + "connection errors: %d, other errors: %d",
+                    metrics.getRetryCount(), metrics.getIOErrorCount(), metrics.getSlaveErrorCount(),
+                    metrics.getTransactionIdErrorCount(), metrics.getConnectionErrorCount(),
+                    metrics.getOtherErrorCount()));
+            console.println(String.format("  callback backlog: %d", metrics.getCallbackBacklog()));
+        });
+    }
+
+    private static String formatHistogram(ModbusLatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "n/a";
+        }
+        return String.format("count=%d, mean=%.1f ms, p50=%d ms, p95=%d ms, p99=%d ms, max=%d ms",
+                histogram.getCount(), histogram.getMeanMillis(), histogram.getPercentileMillis(50),
+                histogram.getPercentileMillis(95), histogram.getPercentileMillis(99), histogram.getMaxMillis());
+    }
+}
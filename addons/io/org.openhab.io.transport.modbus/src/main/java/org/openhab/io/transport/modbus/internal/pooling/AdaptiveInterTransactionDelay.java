@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.modbus.internal.pooling;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Inter-transaction delay of a single endpoint, adapted to the observed behaviour of the slave
+ *
+ * The delay starts from the configured value. Every transaction that completes in reasonable time (at most
+ * {@value #SLOW_RESPONSE_FACTOR} times the average response time) shrinks the delay slightly, down to
+ * {@value #MIN_DELAY_DIVISOR}th of the configured delay. Failing transactions (I/O errors, timeouts) double the
+ * delay, up to {@value #MAX_DELAY_MULTIPLIER} times the configured delay (at least {@value #MIN_MAX_DELAY_MILLIS}
+ * ms).
+ *
+ * The class is thread safe.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+@NonNullByDefault
+public class AdaptiveInterTransactionDelay {
+
+    /**
+     * Delay is multiplied by this factor after each successful transaction
+     */
+    private static final double SHRINK_FACTOR = 0.95;
+
+    /**
+     * Minimum increase of the delay on failure, in milliseconds. Ensures that back-off works with zero delays, too
+     */
+    private static final long MIN_BACKOFF_STEP_MILLIS = 10;
+
+    private static final int MIN_DELAY_DIVISOR = 4;
+    private static final int MAX_DELAY_MULTIPLIER = 8;
+    private static final long MIN_MAX_DELAY_MILLIS = 500;
+
+    /**
+     * Responses slower than this factor times the average response time do not shrink the delay
+     */
+    private static final int SLOW_RESPONSE_FACTOR = 2;
+
+    /**
+     * Weight of the latest sample in the exponential moving average of response times
+     */
+    private static final double RESPONSE_TIME_WEIGHT = 0.2;
+
+    private final long configuredDelayMillis;
+    private final double minDelayMillis;
+    private final double maxDelayMillis;
+
+    private double delayMillis;
+    private double averageResponseMillis = -1;
+
+    /**
+     *
+     * @param configuredDelayMillis configured inter-transaction delay, used as the initial value
+     */
+    public AdaptiveInterTransactionDelay(long configuredDelayMillis) {
+        this.configuredDelayMillis = Math.max(0, configuredDelayMillis);
+        this.minDelayMillis = (double) this.configuredDelayMillis / MIN_DELAY_DIVISOR;
+        this.maxDelayMillis = Math.max(this.configuredDelayMillis * MAX_DELAY_MULTIPLIER, MIN_MAX_DELAY_MILLIS);
+        this.delayMillis = this.configuredDelayMillis;
+    }
+
+    /**
+     * Record successful transaction
+     *
+     * @param responseMillis time from sending the request to receiving the response, in milliseconds
+     */
+    public synchronized void onSuccess(long responseMillis) {
+        long response = Math.max(0, responseMillis);
+        boolean slow = averageResponseMillis >= 0 && response > SLOW_RESPONSE_FACTOR * averageResponseMillis
+                && response > MIN_BACKOFF_STEP_MILLIS;
+        averageResponseMillis = averageResponseMillis < 0 ? response
+                : (1 - RESPONSE_TIME_WEIGHT) * averageResponseMillis + RESPONSE_TIME_WEIGHT * response;
+        if (!slow) {
+            delayMillis = Math.max(minDelayMillis, delayMillis * SHRINK_FACTOR);
+        }
+    }
+
+    /**
+     * Record failed transaction, i.e. a transaction ending in I/O error or timeout
+     */
+    public synchronized void onFailure() {
+        delayMillis = Math.min(maxDelayMillis, Math.max(delayMillis * 2, delayMillis + MIN_BACKOFF_STEP_MILLIS));
+    }
+
+    /**
+     * Get current inter-transaction delay
+     *
+     * @return delay in milliseconds
+     */
+    public synchronized long getDelayMillis() {
+        return Math.round(delayMillis);
+    }
+
+    public long getConfiguredDelayMillis() {
+        return configuredDelayMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AdaptiveInterTransactionDelay(configured=%dms, current=%dms, averageResponse=%.1fms)",
+                configuredDelayMillis, getDelayMillis(), averageResponseMillis);
+    }
+}
@@ -12,6 +12,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
@@ -79,7 +80,10 @@ public class ModbusSlaveConnectionFactoryImpl
     private volatile Map<ModbusSlaveEndpoint, Long> lastPassivateMillis = new ConcurrentHashMap<>();
     private volatile Map<ModbusSlaveEndpoint, Long> lastConnectMillis = new ConcurrentHashMap<>();
     private volatile Map<ModbusSlaveEndpoint, Long> disconnectIfConnectedBefore = new ConcurrentHashMap<>();
+    private volatile Map<ModbusSlaveEndpoint, AdaptiveInterTransactionDelay> adaptiveDelays = new ConcurrentHashMap<>();
     private volatile Function<ModbusSlaveEndpoint, @Nullable EndpointPoolConfiguration> defaultPoolConfigurationFactory = endpoint -> null;
+    private volatile BiConsumer<ModbusSlaveEndpoint, Long> interTransactionDelayListener = (endpoint, waited) -> {
+    };
 
     private @Nullable InetAddress getInetAddress(ModbusIPSlaveEndpoint key) {
         try {
@@ -166,10 +170,15 @@ public class ModbusSlaveConnectionFactoryImpl
             }
 
             if (config != null) {
-                long waited = waitAtleast(lastPassivateMillis.get(endpoint), config.getInterTransactionDelayMillis());
+                Long lastPassivate = lastPassivateMillis.get(endpoint);
+                long interTransactionDelayMillis = getInterTransactionDelayMillis(endpoint, config);
+                long waited = waitAtleast(lastPassivate, interTransactionDelayMillis);
+                if (lastPassivate != null) {
+                    interTransactionDelayListener.accept(endpoint, waited);
+                }
                 logger.trace(
                         "Waited {}ms (interTransactionDelayMillis {}ms) before giving returning connection {} for endpoint {}, to ensure delay between transactions.",
-                        waited, config.getInterTransactionDelayMillis(), obj.getObject(), endpoint);
+                        waited, interTransactionDelayMillis, obj.getObject(), endpoint);
             }
         } catch (InterruptedException e) {
             // Someone wants to cancel us, reset the connection and abort
@@ -236,6 +245,8 @@ public class ModbusSlaveConnectionFactoryImpl
         } else {
             endpointPoolConfigs.put(endpoint, config);
         }
+        // Start adapting from the configured delay again
+        adaptiveDelays.remove(endpoint);
     }
 
     /**
@@ -254,6 +265,64 @@ public class ModbusSlaveConnectionFactoryImpl
         return config;
     }
 
+    /**
+     * Get the inter-transaction delay currently applied with the endpoint
+     *
+     * With adaptive inter-transaction delay, the value is adjusted according to the reported transaction outcomes.
+     * Otherwise, the configured delay is returned.
+     *
+     * @param endpoint endpoint to query
+     * @return delay in milliseconds
+     */
+    public long getInterTransactionDelayMillis(ModbusSlaveEndpoint endpoint) {
+        EndpointPoolConfiguration config = getEndpointPoolConfiguration(endpoint);
+        return config == null ? 0 : getInterTransactionDelayMillis(endpoint, config);
+    }
+
+    private long getInterTransactionDelayMillis(ModbusSlaveEndpoint endpoint, EndpointPoolConfiguration config) {
+        if (!config.isAdaptiveInterTransactionDelay()) {
+            return config.getInterTransactionDelayMillis();
+        }
+        return getAdaptiveDelay(endpoint, config).getDelayMillis();
+    }
+
+    private AdaptiveInterTransactionDelay getAdaptiveDelay(ModbusSlaveEndpoint endpoint,
+            EndpointPoolConfiguration config) {
+        return adaptiveDelays.computeIfAbsent(endpoint,
+                ep -> new AdaptiveInterTransactionDelay(config.getInterTransactionDelayMillis()));
+    }
+
+    /**
+     * Report successful transaction with the endpoint, shrinking adaptive inter-transaction delay
+     *
+     * Has no effect unless the endpoint is configured with adaptive inter-transaction delay.
+     *
+     * @param endpoint endpoint of the transaction
+     * @param responseMillis time it took to receive the response, in milliseconds
+     */
+    public void reportTransactionSuccess(ModbusSlaveEndpoint endpoint, long responseMillis) {
+        EndpointPoolConfiguration config = getEndpointPoolConfiguration(endpoint);
+        if (config != null && config.isAdaptiveInterTransactionDelay()) {
+            getAdaptiveDelay(endpoint, config).onSuccess(responseMillis);
+        }
+    }
+
+    /**
+     * Report failed transaction (I/O error or timeout) with the endpoint, backing off adaptive inter-transaction delay
+     *
+     * Has no effect unless the endpoint is configured with adaptive inter-transaction delay.
+     *
+     * @param endpoint endpoint of the transaction
+     */
+    public void reportTransactionFailure(ModbusSlaveEndpoint endpoint) {
+        EndpointPoolConfiguration config = getEndpointPoolConfiguration(endpoint);
+        if (config != null && config.isAdaptiveInterTransactionDelay()) {
+            AdaptiveInterTransactionDelay delay = getAdaptiveDelay(endpoint, config);
+            delay.onFailure();
+            logger.debug("Transaction with endpoint {} failed, backing off: {}", endpoint, delay);
+        }
+    }
+
     /**
      * Set default factory for {@link EndpointPoolConfiguration}
      *
@@ -264,6 +333,16 @@ public class ModbusSlaveConnectionFactoryImpl
         this.defaultPoolConfigurationFactory = defaultPoolConfigurationFactory;
     }
 
+    /**
+     * Set listener for inter-transaction delays applied before giving out connections
+     *
+     * @param interTransactionDelayListener listener receiving the endpoint and the milliseconds waited
+     */
+    public void setInterTransactionDelayListener(
+            BiConsumer<ModbusSlaveEndpoint, Long> interTransactionDelayListener) {
+        this.interTransactionDelayListener = interTransactionDelayListener;
+    }
+
     private void tryConnect(ModbusSlaveEndpoint endpoint, PooledObject<ModbusSlaveConnection> obj,
             ModbusSlaveConnection connection, @Nullable EndpointPoolConfiguration config) throws Exception {
         if (connection.isConnected()) {
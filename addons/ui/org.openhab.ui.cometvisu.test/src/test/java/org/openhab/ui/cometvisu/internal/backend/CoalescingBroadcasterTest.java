@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.State;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
+
+/**
+ * Tests for {@link CoalescingBroadcaster} with fast clients and clients, which do not take their events
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class CoalescingBroadcasterTest {
+
+    private static final long EVENT_TIMEOUT = 5000;
+    private static final long WRITE_TIMEOUT = 1000;
+
+    private CoalescingBroadcaster broadcaster;
+    private final List<TestClient> clients = new ArrayList<>();
+
+    /**
+     * A client recording the received events. A slow client does not return from writing an event until it is
+     * released. Like with a real servlet container, closing the output does not release a running write.
+     */
+    private static class TestClient {
+        private final EventOutput output = mock(EventOutput.class);
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final Semaphore released = new Semaphore(0);
+        private final boolean slow;
+        private volatile boolean closed;
+
+        TestClient(boolean slow) throws IOException {
+            this.slow = slow;
+            doAnswer(invocation -> {
+                events.add((String) invocation.<OutboundEvent> getArgument(0).getData());
+                if (this.slow && !closed) {
+                    released.acquire();
+                }
+                return null;
+            }).when(output).write(any(OutboundEvent.class));
+            doAnswer(invocation -> {
+                closed = true;
+                return null;
+            }).when(output).close();
+        }
+
+        void release() {
+            released.release();
+        }
+
+        String nextEvent() throws InterruptedException {
+            String event = events.poll(EVENT_TIMEOUT, TimeUnit.MILLISECONDS);
+            assertNotNull("No event received", event);
+            return event;
+        }
+
+        String poll(long timeout) throws InterruptedException {
+            return events.poll(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        void awaitEventContaining(String state) throws InterruptedException {
+            while (!nextEvent().contains(state)) {
+                // skip the events sent before
+            }
+        }
+
+        void assertNoEvent() throws InterruptedException {
+            assertNull(events.poll(3 * Config.COMETVISU_EVENT_COALESCING, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        // slow clients are only disconnected by the tests for stalled clients
+        broadcaster = new CoalescingBroadcaster(10 * EVENT_TIMEOUT, 100);
+    }
+
+    private void disconnectStalledClientsEarly() {
+        broadcaster.shutdown();
+        broadcaster = new CoalescingBroadcaster(WRITE_TIMEOUT, 100);
+    }
+
+    @After
+    public void tearDown() {
+        // the writes of stalled clients would fail by the write timeout of the servlet container
+        for (TestClient client : clients) {
+            client.release();
+        }
+        broadcaster.shutdown();
+    }
+
+    private TestClient connect(boolean slow, String... itemNames) throws IOException {
+        TestClient client = new TestClient(slow);
+        clients.add(client);
+        Map<String, Map<String, Class<? extends State>>> items = new HashMap<>();
+        for (String itemName : itemNames) {
+            items.put(itemName, Collections.singletonMap(itemName, StringType.class));
+        }
+        broadcaster.add(client.output, items, Collections.emptyList());
+        return client;
+    }
+
+    private void broadcast(String name, Object state) {
+        StateBean bean = new StateBean();
+        bean.name = name;
+        bean.state = String.valueOf(state);
+        broadcaster.broadcast(bean);
+    }
+
+    @Test
+    public void testUpdatesAreCoalescedPerItem() throws Exception {
+        TestClient client = connect(true, "a", "b");
+
+        broadcast("a", 1);
+        assertEquals("{\"d\":{\"a\":\"1\"}}", client.nextEvent());
+
+        // the client is still writing the first event, so these updates have to wait
+        broadcast("a", 2);
+        broadcast("a", 3);
+        broadcast("b", 1);
+        client.release();
+
+        assertEquals("{\"d\":{\"a\":\"3\",\"b\":\"1\"}}", client.nextEvent());
+        client.release();
+        client.assertNoEvent();
+    }
+
+    @Test
+    public void testClientsOnlyGetRequestedItems() throws Exception {
+        TestClient clientA = connect(false, "a");
+        TestClient clientB = connect(false, "b");
+
+        broadcast("c", 1);
+        broadcast("a", 1);
+        broadcast("b", 2);
+
+        assertEquals("{\"d\":{\"a\":\"1\"}}", clientA.nextEvent());
+        assertEquals("{\"d\":{\"b\":\"2\"}}", clientB.nextEvent());
+        clientA.assertNoEvent();
+        clientB.assertNoEvent();
+
+        assertTrue(broadcaster.isRequested("a"));
+        assertFalse(broadcaster.isRequested("c"));
+        assertEquals(Collections.singleton("b"), broadcaster.getRequestedItems("b").keySet());
+    }
+
+    @Test
+    public void testSlowClientKeepsOnlyLatestStates() throws Exception {
+        TestClient slowClient = connect(true, "a", "b");
+        TestClient fastClient = connect(false, "a", "b");
+
+        broadcast("a", 0);
+        assertEquals("{\"d\":{\"a\":\"0\"}}", slowClient.nextEvent());
+
+        for (int i = 1; i <= 1000; i++) {
+            broadcast("a", i);
+            broadcast("b", i);
+        }
+
+        // the fast client is not held up by the slow one
+        fastClient.awaitEventContaining("\"b\":\"1000\"");
+
+        // all updates meanwhile are replaced by the latest state of each item
+        slowClient.release();
+        assertEquals("{\"d\":{\"a\":\"1000\",\"b\":\"1000\"}}", slowClient.nextEvent());
+        slowClient.release();
+        slowClient.assertNoEvent();
+        verify(slowClient.output, never()).close();
+    }
+
+    @Test
+    public void testStalledClientIsDisconnected() throws Exception {
+        disconnectStalledClientsEarly();
+        TestClient stalledClient = connect(true, "a");
+        TestClient fastClient = connect(false, "a", "b");
+
+        broadcast("a", 1);
+        assertEquals("{\"d\":{\"a\":\"1\"}}", stalledClient.nextEvent());
+
+        // no further update is offered to the stalled client, it is disconnected anyway
+        verify(stalledClient.output, timeout(WRITE_TIMEOUT + EVENT_TIMEOUT)).close();
+        verify(fastClient.output, never()).close();
+
+        broadcast("b", 1);
+        fastClient.awaitEventContaining("\"b\":\"1\"");
+    }
+
+    @Test
+    public void testStalledClientsDoNotBlockOtherClients() throws Exception {
+        disconnectStalledClientsEarly();
+        TestClient stalledClient1 = connect(true, "a");
+        TestClient stalledClient2 = connect(true, "a");
+        TestClient fastClient = connect(false, "b");
+
+        // the writes of the stalled clients do not return
+        broadcast("a", 1);
+        stalledClient1.nextEvent();
+        stalledClient2.nextEvent();
+
+        // while they are blocked, the other clients get their events without delay
+        broadcast("b", 1);
+        assertEquals("{\"d\":{\"b\":\"1\"}}", fastClient.poll(WRITE_TIMEOUT / 2));
+        verify(stalledClient1.output, timeout(EVENT_TIMEOUT)).close();
+        verify(stalledClient2.output, timeout(EVENT_TIMEOUT)).close();
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.library.items.StringItem;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.glassfish.jersey.media.sse.SseFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.ui.cometvisu.internal.Config;
+
+/**
+ * Tests for the SSE connections of {@link ReadResource} with a client reading its events and a client, which does
+ * not read anymore, served by an embedded Jetty server
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class ReadResourceTest {
+
+    private static final long EVENT_TIMEOUT = 5000;
+    private static final long WRITE_TIMEOUT = 1000;
+    // idle timeout of the server, the stalled client has to be disconnected by the write timeout before
+    private static final int IDLE_TIMEOUT = 60000;
+    // larger than the socket buffers together, so that writing to a client which does not read blocks
+    private static final int LARGE_STATE_SIZE = 1024 * 1024;
+    private static final int LARGE_STATE_UPDATES = 32;
+
+    private Server server;
+    private ReadResource readResource;
+    private final StringItem fastItem = new StringItem("Fast");
+    private final StringItem slowItem = new StringItem("Slow");
+
+    /**
+     * A raw SSE connection, which records the data of the received events when it is read
+     */
+    private class SseConnection {
+        private final Socket socket = new Socket();
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        SseConnection(String itemName, boolean read) throws IOException {
+            // a small receive buffer lets the writes of the server block early when the client does not read
+            socket.setReceiveBufferSize(4096);
+            int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+            socket.connect(new InetSocketAddress("127.0.0.1", port));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /" + Config.COMETVISU_BACKEND_ALIAS + "/" + Config.COMETVISU_BACKEND_READ_ALIAS + "?a="
+                    + itemName + " HTTP/1.1\r\nHost: localhost\r\nAccept: " + SseFeature.SERVER_SENT_EVENTS
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            if (read) {
+                Thread reader = new Thread(this::read, "SSE test client");
+                reader.setDaemon(true);
+                reader.start();
+            }
+        }
+
+        private void read() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        events.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                // connection closed
+            }
+        }
+
+        void awaitEventContaining(String state) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + EVENT_TIMEOUT;
+            String event;
+            do {
+                event = events.poll(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                assertNotNull("No event containing " + state + " received", event);
+            } while (!event.contains(state));
+        }
+
+        /**
+         * Reads everything the server has sent so far
+         *
+         * @return true if the server has closed the connection, false if it is still open
+         */
+        boolean drainUntilClosed() throws IOException {
+            socket.setSoTimeout((int) EVENT_TIMEOUT);
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[64 * 1024];
+            try {
+                while (in.read(buffer) >= 0) {
+                    // skip the events sent before
+                }
+                return true;
+            } catch (SocketTimeoutException e) {
+                return false;
+            } catch (SocketException e) {
+                // reset by the server
+                return true;
+            }
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        ItemRegistry itemRegistry = mock(ItemRegistry.class);
+        when(itemRegistry.getItem("Fast")).thenReturn(fastItem);
+        when(itemRegistry.getItem("Slow")).thenReturn(slowItem);
+        fastItem.setState(new StringType("0"));
+        slowItem.setState(new StringType("0"));
+
+        readResource = new ReadResource(new CoalescingBroadcaster(WRITE_TIMEOUT, 100));
+        readResource.setItemRegistry(itemRegistry);
+
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        connector.setIdleTimeout(IDLE_TIMEOUT);
+        server.addConnector(connector);
+        ServletHandler handler = new ServletHandler();
+        handler.addServletWithMapping(new ServletHolder(
+                new ServletContainer(new ResourceConfig().register(SseFeature.class).register(readResource))), "/*");
+        server.setHandler(handler);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        readResource.deactivate();
+        server.stop();
+    }
+
+    private static String largeState(int index) {
+        char[] padding = new char[LARGE_STATE_SIZE];
+        Arrays.fill(padding, 'x');
+        return index + ":" + new String(padding);
+    }
+
+    @Test
+    public void testStalledClientDoesNotDelayOtherClientAndIsDisconnected() throws Exception {
+        SseConnection fastClient = new SseConnection("Fast", true);
+        SseConnection slowClient = new SseConnection("Slow", false);
+        try {
+            fastClient.awaitEventContaining("\"Fast\":\"0\"");
+
+            // the slow client does not read, so the write of its events blocks once the socket buffers are full
+            for (int i = 1; i <= LARGE_STATE_UPDATES; i++) {
+                slowItem.setState(new StringType(largeState(i)));
+                Thread.sleep(2 * Config.COMETVISU_EVENT_COALESCING);
+            }
+
+            // the other client gets its events meanwhile
+            fastItem.setState(new StringType("1"));
+            fastClient.awaitEventContaining("\"Fast\":\"1\"");
+
+            // the blocked write fails by the write timeout, long before the idle timeout of the server
+            long deadline = System.currentTimeMillis() + EVENT_TIMEOUT;
+            while (!readResource.getClientItems(slowItem).isEmpty()) {
+                assertTrue("Stalled client was not removed", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            // the idle timeout of the connection is checked with the write timeout as interval
+            Thread.sleep(2 * WRITE_TIMEOUT);
+            assertTrue("Connection of the stalled client was not closed", slowClient.drainUntilClosed());
+
+            // the other client is still served
+            fastItem.setState(new StringType("2"));
+            fastClient.awaitEventContaining("\"Fast\":\"2\"");
+            assertFalse(readResource.getClientItems(fastItem).isEmpty());
+        } finally {
+            fastClient.close();
+            slowClient.close();
+        }
+    }
+
+    @Test
+    public void testQuietClientIsNotDisconnected() throws Exception {
+        SseConnection client = new SseConnection("Fast", true);
+        try {
+            client.awaitEventContaining("\"Fast\":\"0\"");
+
+            // without events nothing is written, so the write timeout does not expire
+            Thread.sleep(3 * WRITE_TIMEOUT);
+
+            fastItem.setState(new StringType("1"));
+            client.awaitEventContaining("\"Fast\":\"1\"");
+            assertFalse(readResource.getClientItems(fastItem).isEmpty());
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.rrd4j.ConsolFun;
+
+/**
+ * Tests for {@link SeriesDownsampler} with the consolidation functions and with LTTB
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class SeriesDownsamplerTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Two buckets of 50 ms: values 5, 1 and 3 at 10, 20 and 30 ms, values 2 and 8 at 60 and 70 ms
+     */
+    private static SeriesDownsampler twoBuckets(ConsolFun consolidationFunction, boolean reversed) {
+        long[] times = { 10, 20, 30, 60, 70 };
+        double[] values = { 5, 1, 3, 2, 8 };
+        SeriesDownsampler series = SeriesDownsampler.create(0, 100, 50, consolidationFunction);
+        for (int i = 0; i < times.length; i++) {
+            int point = reversed ? times.length - 1 - i : i;
+            series.add(times[point], values[point]);
+        }
+        series.finish();
+        return series;
+    }
+
+    private static void assertSeries(SeriesDownsampler series, long[] expectedTimes, double[] expectedValues) {
+        assertEquals(expectedTimes.length, series.size());
+        for (int i = 0; i < expectedTimes.length; i++) {
+            assertEquals("time of point " + i, expectedTimes[i], series.getTime(i));
+            assertEquals("value of point " + i, expectedValues[i], series.getValue(i), DELTA);
+        }
+    }
+
+    @Test
+    public void testEmptySeries() {
+        for (ConsolFun consolidationFunction : new ConsolFun[] { ConsolFun.AVERAGE, null }) {
+            SeriesDownsampler series = SeriesDownsampler.create(0, 1000, 10, consolidationFunction);
+            series.finish();
+            assertEquals(0, series.size());
+        }
+    }
+
+    @Test
+    public void testSinglePoint() {
+        for (ConsolFun consolidationFunction : new ConsolFun[] { ConsolFun.AVERAGE, ConsolFun.TOTAL, null }) {
+            SeriesDownsampler series = SeriesDownsampler.create(0, 1000, 10, consolidationFunction);
+            series.add(123, 4.5);
+            series.finish();
+            assertSeries(series, new long[] { 123 }, new double[] { 4.5 });
+        }
+    }
+
+    @Test
+    public void testNaNIsSkipped() {
+        for (ConsolFun consolidationFunction : new ConsolFun[] { ConsolFun.MAX, null }) {
+            SeriesDownsampler series = SeriesDownsampler.create(0, 1000, 10, consolidationFunction);
+            series.add(100, Double.NaN);
+            series.add(200, 1);
+            series.finish();
+            assertSeries(series, new long[] { 200 }, new double[] { 1 });
+        }
+    }
+
+    @Test
+    public void testMin() {
+        assertSeries(twoBuckets(ConsolFun.MIN, false), new long[] { 20, 60 }, new double[] { 1, 2 });
+    }
+
+    @Test
+    public void testMax() {
+        assertSeries(twoBuckets(ConsolFun.MAX, false), new long[] { 10, 70 }, new double[] { 5, 8 });
+    }
+
+    @Test
+    public void testFirst() {
+        assertSeries(twoBuckets(ConsolFun.FIRST, false), new long[] { 10, 60 }, new double[] { 5, 2 });
+    }
+
+    @Test
+    public void testLast() {
+        assertSeries(twoBuckets(ConsolFun.LAST, false), new long[] { 30, 70 }, new double[] { 3, 8 });
+    }
+
+    @Test
+    public void testAverage() {
+        assertSeries(twoBuckets(ConsolFun.AVERAGE, false), new long[] { 20, 65 }, new double[] { 3, 5 });
+    }
+
+    @Test
+    public void testTotal() {
+        assertSeries(twoBuckets(ConsolFun.TOTAL, false), new long[] { 20, 65 }, new double[] { 9, 10 });
+    }
+
+    @Test
+    public void testUnsortedInput() {
+        for (ConsolFun consolidationFunction : new ConsolFun[] { ConsolFun.MIN, ConsolFun.MAX, ConsolFun.FIRST,
+                ConsolFun.LAST, ConsolFun.AVERAGE, ConsolFun.TOTAL, null }) {
+            SeriesDownsampler sorted = twoBuckets(consolidationFunction, false);
+            SeriesDownsampler unsorted = twoBuckets(consolidationFunction, true);
+            assertEquals(sorted.size(), unsorted.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                assertEquals(consolidationFunction + " time of point " + i, sorted.getTime(i), unsorted.getTime(i));
+                assertEquals(consolidationFunction + " value of point " + i, sorted.getValue(i), unsorted.getValue(i),
+                        DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testLttbOfTwoBuckets() {
+        // first point, the point of the first bucket forming the largest triangle, the rest of the second bucket
+        assertSeries(twoBuckets(null, false), new long[] { 10, 20, 60, 70 }, new double[] { 5, 1, 2, 8 });
+    }
+
+    @Test
+    public void testBucketsAreCapped() {
+        // 100000 points of 10 ms, at the maximum resolution
+        long end = 1000000;
+        for (ConsolFun consolidationFunction : new ConsolFun[] { ConsolFun.AVERAGE, null }) {
+            SeriesDownsampler series = SeriesDownsampler.create(0, end, 0, consolidationFunction);
+            for (long time = 0; time < end; time += 10) {
+                series.add(time, time % 7);
+            }
+            series.finish();
+            // LTTB adds the first and the last point on top of the buckets
+            int maxSize = consolidationFunction == null ? SeriesDownsampler.MAX_BUCKETS + 2
+                    : SeriesDownsampler.MAX_BUCKETS;
+            assertTrue("size " + series.size(), series.size() <= maxSize);
+            assertTrue("size " + series.size(), series.size() >= SeriesDownsampler.MAX_BUCKETS);
+            for (int i = 1; i < series.size(); i++) {
+                assertTrue(series.getTime(i - 1) < series.getTime(i));
+            }
+        }
+    }
+
+    @Test
+    public void testLttbKeepsFirstLastAndPeak() {
+        SeriesDownsampler series = SeriesDownsampler.create(0, 1000, 100, null);
+        for (long time = 0; time < 1000; time++) {
+            series.add(time, time == 505 ? 100 : 0);
+        }
+        series.finish();
+
+        assertTrue("size " + series.size(), series.size() <= 12);
+        assertEquals(0, series.getTime(0));
+        assertEquals(999, series.getTime(series.size() - 1));
+        boolean peak = false;
+        for (int i = 0; i < series.size(); i++) {
+            if (series.getTime(i) == 505) {
+                assertEquals(100, series.getValue(i), DELTA);
+                peak = true;
+            }
+        }
+        assertTrue("peak is kept", peak);
+    }
+
+    @Test
+    public void testLttbSelectsFromMinimumAndMaximum() {
+        // a dip and a larger peak inside the first bucket, the other buckets are flat
+        SeriesDownsampler series = SeriesDownsampler.create(0, 300, 100, null);
+        for (long time = 0; time < 300; time++) {
+            series.add(time, time == 50 ? -5 : time == 60 ? 10 : 0);
+        }
+        series.finish();
+
+        assertEquals(5, series.size());
+        assertEquals(0, series.getTime(0));
+        assertEquals(60, series.getTime(1));
+        assertEquals(10, series.getValue(1), DELTA);
+        assertEquals(299, series.getTime(4));
+    }
+}
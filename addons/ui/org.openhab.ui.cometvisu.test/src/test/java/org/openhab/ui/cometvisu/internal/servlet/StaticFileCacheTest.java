@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.servlet;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openhab.ui.cometvisu.internal.servlet.StaticFileCache.StaticFile;
+
+/**
+ * Tests for {@link StaticFileCache} with files in a temporary folder, which are changed by the tests
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+public class StaticFileCacheTest {
+
+    // the watch service of some platforms polls the folders every few seconds
+    private static final long WATCH_TIMEOUT = 30000;
+    private static final String CONTENT = "var content = 'compressible';\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File watchedFolder;
+    private StaticFileCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        watchedFolder = folder.newFolder("watched");
+        cache = new StaticFileCache(watchedFolder);
+    }
+
+    @After
+    public void tearDown() {
+        cache.stop();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String repeat(String content, int count) {
+        StringBuilder builder = new StringBuilder(content.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(content);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void awaitTrue(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WATCH_TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertTrue(message, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testFileIsCached() throws IOException {
+        File file = new File(watchedFolder, "app.js");
+        write(file, CONTENT);
+        cache.start();
+
+        StaticFile staticFile = cache.get(file);
+        assertTrue(staticFile.exists());
+        assertFalse(staticFile.isDirectory());
+        assertEquals(CONTENT.length(), staticFile.getLength());
+        assertSame(staticFile, cache.get(file));
+    }
+
+    @Test
+    public void testFileOutsideFoldersIsNotCached() throws IOException {
+        File file = folder.newFile("outside.js");
+        write(file, CONTENT);
+        cache.start();
+
+        assertEquals(CONTENT.length(), cache.get(file).getLength());
+        assertNotSame(cache.get(file), cache.get(file));
+    }
+
+    @Test
+    public void testChangedFileIsInvalidated() throws IOException, InterruptedException {
+        File file = new File(watchedFolder, "app.js");
+        write(file, CONTENT);
+        cache.start();
+        assertEquals(CONTENT.length(), cache.get(file).getLength());
+
+        write(file, CONTENT + CONTENT);
+        awaitTrue("Changed file was not invalidated", () -> cache.get(file).getLength() == 2 * CONTENT.length());
+    }
+
+    @Test
+    public void testCreatedAndDeletedFileIsInvalidated() throws IOException, InterruptedException {
+        File file = new File(watchedFolder, "app.js");
+        cache.start();
+        assertFalse(cache.get(file).exists());
+
+        write(file, CONTENT);
+        awaitTrue("Created file was not invalidated", () -> cache.get(file).exists());
+
+        Files.delete(file.toPath());
+        awaitTrue("Deleted file was not invalidated", () -> !cache.get(file).exists());
+    }
+
+    @Test
+    public void testFileInCreatedFolderIsInvalidated() throws IOException, InterruptedException {
+        cache.start();
+        File subFolder = new File(watchedFolder, "sub");
+        long generation = cache.getGeneration();
+        assertTrue(subFolder.mkdir());
+        // the created folder is watched right after its creation has been seen
+        awaitTrue("Created folder was not seen", () -> cache.getGeneration() != generation);
+        Thread.sleep(100);
+
+        File file = new File(subFolder, "app.js");
+        write(file, CONTENT);
+        awaitTrue("Created file was not invalidated", () -> cache.get(file).getLength() == CONTENT.length());
+
+        write(file, CONTENT + CONTENT);
+        awaitTrue("Changed file was not invalidated", () -> cache.get(file).getLength() == 2 * CONTENT.length());
+    }
+
+    @Test
+    public void testRequestedFileIsInvalidated() throws IOException, InterruptedException {
+        File file = new File(watchedFolder, "app.js");
+        cache.start();
+        cache.putRequestedFile("/app.js", file, cache.getGeneration());
+        assertEquals(file, cache.getRequestedFile("/app.js"));
+
+        write(file, CONTENT);
+        awaitTrue("Requested file was not invalidated", () -> cache.getRequestedFile("/app.js") == null);
+    }
+
+    @Test
+    public void testRequestedFileResolvedDuringChangeIsNotCached() throws IOException, InterruptedException {
+        File file = new File(watchedFolder, "app.js");
+        cache.start();
+        long generation = cache.getGeneration();
+
+        write(file, CONTENT);
+        awaitTrue("Created file was not invalidated", () -> cache.getGeneration() != generation);
+
+        cache.putRequestedFile("/app.js", file, generation);
+        assertNull(cache.getRequestedFile("/app.js"));
+    }
+
+    @Test
+    public void testFileChangedWhileReadIsNotCached() throws IOException, InterruptedException {
+        File file = new File(watchedFolder, "app.js");
+        write(file, CONTENT);
+        AtomicBoolean changeWhileRead = new AtomicBoolean();
+        cache.stop();
+        cache = new StaticFileCache(watchedFolder) {
+            @Override
+            StaticFile read(File readFile, long generation) {
+                StaticFile staticFile = super.read(readFile, generation);
+                if (changeWhileRead.getAndSet(false)) {
+                    // the invalidation is done before the entry with the old metadata is added
+                    try {
+                        write(file, CONTENT + CONTENT);
+                        awaitTrue("Changed file was not seen", () -> getGeneration() != generation);
+                        // all events of the change are handled
+                        Thread.sleep(200);
+                    } catch (IOException | InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return staticFile;
+            }
+        };
+        cache.start();
+
+        // the metadata read during the change is dropped and read again
+        changeWhileRead.set(true);
+        assertEquals(2 * CONTENT.length(), cache.get(file).getLength());
+        assertEquals(2 * CONTENT.length(), cache.get(file).getLength());
+    }
+
+    @Test
+    public void testGzipContentIsBuiltOnce() throws IOException {
+        String content = repeat(CONTENT, 100);
+        File file = new File(watchedFolder, "app.js");
+        write(file, content);
+        cache.start();
+
+        StaticFile staticFile = cache.get(file);
+        byte[] compressed = staticFile.getGzipContent();
+        assertNotNull(compressed);
+        assertTrue(compressed.length < content.length());
+        assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), gunzip(compressed));
+        assertSame(compressed, cache.get(file).getGzipContent());
+    }
+
+    @Test
+    public void testLargeFileIsNotCompressed() throws IOException {
+        File file = new File(watchedFolder, "large.js");
+        byte[] content = new byte[2 * 1024 * 1024];
+        Arrays.fill(content, (byte) 'x');
+        Files.write(file.toPath(), content);
+        cache.start();
+
+        assertNull(cache.get(file).getGzipContent());
+    }
+
+    @Test
+    public void testPrecompressedSiblingsAreUsed() throws IOException {
+        File file = new File(watchedFolder, "app.js");
+        write(file, CONTENT);
+        File brotliFile = new File(watchedFolder, "app.js.br");
+        File gzipFile = new File(watchedFolder, "app.js.gz");
+        write(brotliFile, "brotli");
+        write(gzipFile, "gzip");
+        assertTrue(brotliFile.setLastModified(file.lastModified() + 1000));
+        assertTrue(gzipFile.setLastModified(file.lastModified() + 1000));
+        cache.start();
+
+        StaticFile staticFile = cache.get(file);
+        assertEquals(brotliFile, staticFile.getBrotliFile());
+        assertEquals(gzipFile, staticFile.getGzipFile());
+    }
+
+    @Test
+    public void testOutdatedPrecompressedSiblingIsIgnored() throws IOException {
+        File file = new File(watchedFolder, "app.js");
+        write(file, CONTENT);
+        File gzipFile = new File(watchedFolder, "app.js.gz");
+        write(gzipFile, "gzip");
+        assertTrue(gzipFile.setLastModified(file.lastModified() - 1000));
+        cache.start();
+
+        StaticFile staticFile = cache.get(file);
+        assertNull(staticFile.getGzipFile());
+        assertNull(staticFile.getBrotliFile());
+    }
+
+    @Test
+    public void testCreatedPrecompressedSiblingInvalidatesFile() throws IOException, InterruptedException {
+        File file = new File(watchedFolder, "app.js");
+        write(file, CONTENT);
+        assertTrue(file.setLastModified(file.lastModified() - 1000));
+        cache.start();
+        assertNull(cache.get(file).getGzipFile());
+
+        File gzipFile = new File(watchedFolder, "app.js.gz");
+        write(gzipFile, "gzip");
+        awaitTrue("Created sibling was not seen", () -> gzipFile.equals(cache.get(file).getGzipFile()));
+    }
+}
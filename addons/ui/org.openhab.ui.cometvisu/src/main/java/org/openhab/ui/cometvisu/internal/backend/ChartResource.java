@@ -21,7 +21,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -67,6 +70,12 @@ public class ChartResource implements RESTResource {
     // pattern RRDTool uses to format doubles in XML files
     static final String PATTERN = "0.0000000000E00";
 
+    // selects the Largest-Triangle-Three-Buckets downsampling instead of a consolidation function
+    static final String LTTB = "LTTB";
+
+    // time a series is cached, so that a chart opened by several clients at once is only queried once
+    private static final long SERIES_CACHE_TIME = 10000;
+
     static final DecimalFormat df;
 
     protected static final String RRD_FOLDER = org.eclipse.smarthome.config.core.ConfigConstants.getUserDataFolder()
@@ -82,6 +91,8 @@ public class ChartResource implements RESTResource {
 
     private ItemRegistry itemRegistry;
 
+    private final Map<String, CachedSeries> seriesCache = new ConcurrentHashMap<>();
+
     @Context
     private UriInfo uriInfo;
 
@@ -117,8 +128,10 @@ public class ChartResource implements RESTResource {
         }
         String responseType = MediaType.APPLICATION_JSON;
 
-        // RRD specific: no equivalent in PersistenceService known
-        ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
+        // RRD specific: other persistence services consolidate the values to the resolution in the same way,
+        // LTTB is used by the other persistence services only, rrd4j returns averages then
+        boolean lttb = LTTB.equalsIgnoreCase(consFunction);
+        ConsolFun consilidationFunction = lttb ? ConsolFun.AVERAGE : ConsolFun.valueOf(consFunction);
 
         // read the start/end time as they are provided in the RRD-way, we use
         // the RRD4j to read them
@@ -160,12 +173,18 @@ public class ChartResource implements RESTResource {
             } else {
                 logger.debug("using {} persistence for item {}", persistenceService.getId(), itemName);
             }
-            Object data = null;
-            if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
-            } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
-            }
+            QueryablePersistenceService queryService = persistenceService;
+            ConsolFun seriesFunction = lttb ? null : consilidationFunction;
+            String cacheKey = persistenceService.getId() + ":" + itemName + ":" + consFunction + ":" + start + ":"
+                    + end + ":" + resolution;
+            Object data = getCachedSeries(cacheKey, () -> {
+                if (queryService.getId().equals("rrd4j")) {
+                    return getRrdSeries(queryService, item, consilidationFunction, seriesFunction, startTime,
+                            endTime, resolution);
+                } else {
+                    return getPersistenceSeries(queryService, item, seriesFunction, startTime, endTime, resolution);
+                }
+            });
             return Response.ok(data, responseType).build();
         } catch (ItemNotFoundException e1) {
             logger.error("Item '{}' not found error while requesting series data.", itemName);
@@ -174,9 +193,38 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    /**
+     * returns the cached series for the key or loads it, if it is not cached or the cache time has elapsed. Concurrent
+     * requests of the same series wait for the series to be loaded once.
+     *
+     * @param key
+     * @param loader
+     * @return
+     */
+    private Object getCachedSeries(String key, Supplier<Object> loader) {
+        long now = System.currentTimeMillis();
+        seriesCache.values().removeIf(cached -> cached.isExpired(now));
+        CachedSeries series = seriesCache.compute(key,
+                (k, cached) -> cached != null && !cached.isExpired(now) ? cached : new CachedSeries(now));
+        return series.getData(loader);
+    }
+
+    /**
+     * returns a series of a persistence service, an array of [[timestamp,data]]. The values are downsampled to the
+     * resolution while iterating the query result.
+     *
+     * @param persistenceService
+     * @param item
+     * @param consilidationFunction function consolidating the values of a resolution step, null for LTTB
+     * @param timeBegin
+     * @param timeEnd
+     * @param resolution in seconds
+     * @return
+     */
+    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
+        SeriesDownsampler series = SeriesDownsampler.create(timeBegin.getTime(), timeEnd.getTime(),
+                resolution * 1000, consilidationFunction);
 
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
@@ -196,14 +244,21 @@ public class ChartResource implements RESTResource {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                series.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
         }
-        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
-                filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        series.finish();
+        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results, '{}' after downsampling",
+                persistenceService.getId(), filter.getItemName(), filter.getBeginDate(), filter.getEndDate(),
+                dataCounter, series.size());
+
+        ArrayList<Object> rrd = new ArrayList<Object>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            ArrayList<String> vals = new ArrayList<String>(1);
+            vals.add(formatDouble(series.getValue(i), "null", true));
+            rrd.add(new Object[] { series.getTime(i), vals });
+        }
+        return rrd;
     }
 
     /**
@@ -212,14 +267,16 @@ public class ChartResource implements RESTResource {
      * @param persistenceService
      * @param item
      * @param consilidationFunction
+     * @param fallbackFunction function used if the generic persistence service is used, null for LTTB
      * @param timeBegin
      * @param timeEnd
      * @param resolution
      * @return
      */
     public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+            ConsolFun consilidationFunction, ConsolFun fallbackFunction, Date timeBegin, Date timeEnd,
+            long resolution) {
+        SortedMap<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -238,23 +295,18 @@ public class ChartResource implements RESTResource {
         } catch (FileNotFoundException e) {
             // rrd file does not exist, fallback to generic persistance service
             logger.debug("no rrd file found '{}'", (RRD_FOLDER + File.separator + item.getName() + ".rrd"));
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, fallbackFunction, timeBegin, timeEnd, resolution);
         } catch (Exception e) {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, fallbackFunction, timeBegin, timeEnd, resolution);
         }
         return convertToRrd(data);
     }
 
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
+    private ArrayList<Object> convertToRrd(SortedMap<Long, ArrayList<String>> data) {
+        ArrayList<Object> rrd = new ArrayList<Object>(data.size());
+        for (Entry<Long, ArrayList<String>> entry : data.entrySet()) {
+            rrd.add(new Object[] { entry.getKey(), entry.getValue() });
         }
         return rrd;
     }
@@ -290,6 +342,29 @@ public class ChartResource implements RESTResource {
         return data;
     }
 
+    /**
+     * A series in the cache, which is loaded by the first request
+     */
+    private static class CachedSeries {
+        private final long created;
+        private Object data;
+
+        CachedSeries(long created) {
+            this.created = created;
+        }
+
+        boolean isExpired(long now) {
+            return now - created > SERIES_CACHE_TIME;
+        }
+
+        synchronized Object getData(Supplier<Object> loader) {
+            if (data == null) {
+                data = loader.get();
+            }
+            return data;
+        }
+    }
+
     static String formatDouble(double x, String nanString, boolean forceExponents) {
         if (Double.isNaN(x)) {
             return nanString;
@@ -0,0 +1,292 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.types.State;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
+import org.openhab.ui.cometvisu.internal.util.SseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends state updates to the connected SSE clients. Each client only gets the updates of the items it has requested.
+ *
+ * The updates of a client are collected for the coalescing window ({@link Config#COMETVISU_EVENT_COALESCING}) and sent
+ * as one event, in which only the latest state of each item is contained. A client gets the next event not before the
+ * previous one is written, the updates received meanwhile replace the pending ones. So the pending updates of a slow
+ * client never exceed one state per requested item.
+ *
+ * Writing an event blocks until the client has taken it, and closing the {@link EventOutput} does not release a blocked
+ * write. So the connection of each client must have a write timeout ({@link #WRITE_TIMEOUT}), after which the servlet
+ * container fails the write, see {@link SseUtil#setWriteTimeout}. A stalled client occupies a writer thread until then,
+ * but never delays the events of other clients: each write has its own thread, and threads are only kept while
+ * writing. Clients, whose write has not completed within the write timeout, are removed in any case, so no further
+ * events are offered to them.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+class CoalescingBroadcaster {
+    private final Logger logger = LoggerFactory.getLogger(CoalescingBroadcaster.class);
+
+    static final long WRITE_TIMEOUT = 10000;
+    private static final long STALLED_CLIENT_CHECK_INTERVAL = 5000;
+
+    private final long writeTimeout;
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(daemonThreadFactory("CometVisu event scheduler"));
+
+    // writing an event blocks as long as the client does not take it, up to the write timeout; each client has at
+    // most one write running, so the number of writer threads is bounded by the number of clients
+    private final ExecutorService writers = Executors
+            .newCachedThreadPool(daemonThreadFactory("CometVisu event writer"));
+
+    // closing might block as well while an event is written, so it is not done by the scheduler
+    private final ExecutorService closer = Executors
+            .newSingleThreadExecutor(daemonThreadFactory("CometVisu client closer"));
+
+    CoalescingBroadcaster() {
+        this(WRITE_TIMEOUT, STALLED_CLIENT_CHECK_INTERVAL);
+    }
+
+    CoalescingBroadcaster(long writeTimeout, long stalledClientCheckInterval) {
+        this.writeTimeout = writeTimeout;
+        scheduler.scheduleWithFixedDelay(this::disconnectStalledClients, stalledClientCheckInterval,
+                stalledClientCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return time in milliseconds, after which a write to a client which does not take the event should fail
+     */
+    long getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A connected client with its requested items and the pending updates
+     */
+    private class Client {
+        private final EventOutput output;
+        // requested item names and their types by the openHAB item name
+        private final Map<String, Map<String, Class<? extends State>>> items;
+        private final Set<String> names = new HashSet<>();
+
+        private final Map<String, String> pending = new LinkedHashMap<>();
+        private boolean flushScheduled;
+        private long writingSince;
+        private boolean closed;
+
+        Client(EventOutput output, Map<String, Map<String, Class<? extends State>>> items) {
+            this.output = output;
+            this.items = items;
+            for (Map<String, Class<? extends State>> itemNames : items.values()) {
+                names.addAll(itemNames.keySet());
+            }
+        }
+
+        synchronized void offer(List<StateBean> states, long delay) {
+            if (closed) {
+                return;
+            }
+            for (StateBean state : states) {
+                pending.put(state.name, state.state);
+            }
+            // while writing, the pending updates are scheduled when the running write has finished
+            if (writingSince == 0 && !flushScheduled) {
+                flushScheduled = true;
+                schedule(delay);
+            }
+        }
+
+        synchronized boolean isStalled(long now) {
+            return !closed && writingSince != 0 && now - writingSince > writeTimeout;
+        }
+
+        private void schedule(long delay) {
+            try {
+                scheduler.schedule(() -> writers.execute(this::write), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // broadcaster has been shut down
+            }
+        }
+
+        private void write() {
+            List<StateBean> states = new ArrayList<>();
+            synchronized (this) {
+                flushScheduled = false;
+                if (closed || pending.isEmpty()) {
+                    return;
+                }
+                for (Map.Entry<String, String> entry : pending.entrySet()) {
+                    StateBean state = new StateBean();
+                    state.name = entry.getKey();
+                    state.state = entry.getValue();
+                    states.add(state);
+                }
+                pending.clear();
+                writingSince = System.currentTimeMillis();
+            }
+
+            try {
+                output.write(SseUtil.buildEvent(states));
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Client disconnected: {}", e.getMessage());
+                close();
+            }
+
+            synchronized (this) {
+                writingSince = 0;
+                if (!closed && !pending.isEmpty() && !flushScheduled) {
+                    flushScheduled = true;
+                    schedule(Config.COMETVISU_EVENT_COALESCING);
+                }
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            clients.remove(this);
+            try {
+                output.close();
+            } catch (IOException e) {
+                logger.debug("Error closing client connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void disconnectStalledClients() {
+        long now = System.currentTimeMillis();
+        for (Client client : clients) {
+            if (client.isStalled(now)) {
+                logger.debug("Disconnecting stalled client, it did not take an event for {} ms", writeTimeout);
+                clients.remove(client);
+                try {
+                    closer.execute(client::close);
+                } catch (RejectedExecutionException e) {
+                    // broadcaster has been shut down
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a client and sends the initial states to it
+     *
+     * @param output
+     *            - the event output of the client
+     * @param items
+     *            - the item names requested by the client with their state types, by the openHAB item name
+     * @param states
+     *            - the initial states
+     */
+    public void add(EventOutput output, Map<String, Map<String, Class<? extends State>>> items,
+            List<StateBean> states) {
+        Client client = new Client(output, items);
+        clients.add(client);
+        client.offer(states, 0);
+    }
+
+    /**
+     * Sends a state update to all clients, which have requested the item
+     *
+     * @param state
+     *            - the new state
+     */
+    public void broadcast(StateBean state) {
+        List<StateBean> states = null;
+        for (Client client : clients) {
+            if (client.output.isClosed()) {
+                client.close();
+            } else if (client.names.contains(state.name)) {
+                if (states == null) {
+                    states = new ArrayList<>(1);
+                    states.add(state);
+                }
+                client.offer(states, Config.COMETVISU_EVENT_COALESCING);
+            }
+        }
+    }
+
+    /**
+     * Lists the item names and their state types, which have been requested by any client for an openHAB item
+     *
+     * @param itemName
+     *            - the openHAB item name
+     * @return the requested item names and their state types, empty if the item has not been requested
+     */
+    public Map<String, Class<? extends State>> getRequestedItems(String itemName) {
+        Map<String, Class<? extends State>> requested = new HashMap<>();
+        for (Client client : clients) {
+            Map<String, Class<? extends State>> clientItems = client.items.get(itemName);
+            if (clientItems != null) {
+                requested.putAll(clientItems);
+            }
+        }
+        return requested;
+    }
+
+    /**
+     * Checks if any client has requested an openHAB item
+     *
+     * @param itemName
+     *            - the openHAB item name
+     * @return true if the item has been requested
+     */
+    public boolean isRequested(String itemName) {
+        for (Client client : clients) {
+            if (client.items.containsKey(itemName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Disconnects all clients and stops sending updates
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Client client : clients) {
+            client.close();
+        }
+        writers.shutdownNow();
+        closer.shutdownNow();
+    }
+}
@@ -15,8 +15,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,7 +33,6 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
@@ -54,17 +51,12 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
-
-    private final ExecutorService executorService;
+    private final CoalescingBroadcaster broadcaster;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
-
     @Context
     private UriInfo uriInfo;
 
@@ -77,7 +69,11 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(new CoalescingBroadcaster());
+    }
+
+    ReadResource(CoalescingBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
@@ -98,6 +94,10 @@ public class ReadResource implements EventBroadcaster, RESTResource {
         itemFactories.remove(itemFactory);
     }
 
+    protected void deactivate() {
+        broadcaster.shutdown();
+    }
+
     /**
      * Subscribes the connecting client to the stream of events filtered by the
      * given eventFilter.
@@ -113,16 +113,18 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     public Object getStates(@QueryParam("a") List<String> itemNames, @QueryParam("i") long index,
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
-
-        this.itemNames = itemNames;
-
-        broadcaster.add(eventOutput);
+        // a client, which does not take its events, must not block the writing thread for longer
+        if (!SseUtil.setWriteTimeout(request, broadcaster.getWriteTimeout())) {
+            logger.debug("Write timeout is not supported by the servlet container, stalled clients block until the "
+                    + "connection times out");
+        }
 
         // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
+        Map<String, Map<String, Class<? extends State>>> clientItems = new HashMap<>();
+        List<Item> items = new ArrayList<Item>();
+        List<StateBean> states = new ArrayList<StateBean>();
         // send the current states of all items to the client
         if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
             for (String cvItemName : itemNames) {
                 try {
                     String[] parts = cvItemName.split(":");
@@ -140,10 +142,11 @@ public class ReadResource implements EventBroadcaster, RESTResource {
                         ohItemName = parts[1];
                     }
                     Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
+                    if (!clientItems.containsKey(item.getName())) {
+                        clientItems.put(item.getName(), new HashMap<String, Class<? extends State>>());
+                        items.add(item);
                     }
-                    items.get(item).put(cvItemName, stateClass);
+                    clientItems.get(item.getName()).put(cvItemName, stateClass);
                     StateBean itemState = new StateBean();
                     itemState.name = cvItemName;
 
@@ -159,10 +162,15 @@ public class ReadResource implements EventBroadcaster, RESTResource {
                 }
             }
             logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
         }
+        broadcaster.add(eventOutput, clientItems, states);
+
         // listen to state changes of the requested items
-        registerItems();
+        for (Item item : items) {
+            if (item instanceof GenericItem) {
+                ((GenericItem) item).addStateChangeListener(stateEventListener);
+            }
+        }
 
         return eventOutput;
     }
@@ -172,10 +180,11 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
-            }
+        if (this.itemRegistry == null) {
+            return;
+        }
+        for (Item item : this.itemRegistry.getItems()) {
+            registerItem(item);
         }
     }
 
@@ -188,7 +197,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+        if (item == null || !broadcaster.isRequested(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -205,18 +214,15 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
-            return;
-        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
     /**
      * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * listening clients, which have requested the item. The events are coalesced
+     * by the {@link CoalescingBroadcaster}.
      *
      * @param item
      *            - the item which has changed
@@ -225,13 +231,13 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void broadcastEvent(final Object eventObject) {
-        executorService.execute(() -> {
-            broadcaster.broadcast(SseUtil.buildEvent(eventObject));
-        });
+        if (eventObject instanceof StateBean) {
+            broadcaster.broadcast((StateBean) eventObject);
+        }
     }
 
     @Override
     public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+        return broadcaster.getRequestedItems(item.getName());
     }
 }
@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import org.rrd4j.ConsolFun;
+
+/**
+ * Reduces a series of persisted values to the resolution of a chart, while the values are added one by one.
+ *
+ * The time range is divided into buckets of the requested resolution, at most {@link #MAX_BUCKETS}. Either the values
+ * of each bucket are consolidated like rrd4j does it (min, max, average, ...), or the points are selected by the
+ * Largest-Triangle-Three-Buckets algorithm, which keeps the visual shape of the series. All data is kept in primitive
+ * arrays, with memory per bucket only: the consolidated value, or the candidate points of LTTB.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+abstract class SeriesDownsampler {
+
+    /**
+     * Maximum number of points of a series, more can not be displayed by a chart anyway
+     */
+    static final int MAX_BUCKETS = 10000;
+
+    protected final long begin;
+    protected final long bucketWidth;
+    protected final int bucketCount;
+
+    protected long[] times = new long[0];
+    protected double[] values = new double[0];
+    protected int size;
+
+    private SeriesDownsampler(long begin, long end, long resolution) {
+        this.begin = begin;
+        long range = Math.max(end - begin, 1);
+        this.bucketWidth = Math.max(resolution, (range + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        this.bucketCount = (int) Math.min((range + bucketWidth - 1) / bucketWidth, MAX_BUCKETS);
+    }
+
+    /**
+     * Creates a downsampler for the given time range.
+     *
+     * @param begin begin of the time range in milliseconds
+     * @param end end of the time range in milliseconds
+     * @param resolution requested resolution in milliseconds, 0 for the maximum resolution
+     * @param consolidationFunction function consolidating the values of a bucket, null for LTTB
+     * @return the downsampler
+     */
+    static SeriesDownsampler create(long begin, long end, long resolution, ConsolFun consolidationFunction) {
+        if (consolidationFunction == null) {
+            return new Lttb(begin, end, resolution);
+        }
+        return new Consolidation(begin, end, resolution, consolidationFunction);
+    }
+
+    /**
+     * Adds a value to the series.
+     *
+     * @param time timestamp of the value in milliseconds
+     * @param value the value
+     */
+    abstract void add(long time, double value);
+
+    /**
+     * Computes the downsampled series, which is available by {@link #size()}, {@link #getTime(int)} and
+     * {@link #getValue(int)} afterwards.
+     */
+    abstract void finish();
+
+    int size() {
+        return size;
+    }
+
+    long getTime(int index) {
+        return times[index];
+    }
+
+    double getValue(int index) {
+        return values[index];
+    }
+
+    protected int bucketOf(long time) {
+        return (int) Math.max(0, Math.min((time - begin) / bucketWidth, bucketCount - 1));
+    }
+
+    /**
+     * Consolidates the values of each bucket. Buckets are addressed by index, so the values do not have to be ordered.
+     */
+    private static class Consolidation extends SeriesDownsampler {
+        private final ConsolFun consolidationFunction;
+        private final int[] counts;
+        // the consolidated value and its timestamp (relative to begin), summed up for AVERAGE and TOTAL
+        private final double[] bucketValues;
+        private final double[] bucketTimes;
+
+        Consolidation(long begin, long end, long resolution, ConsolFun consolidationFunction) {
+            super(begin, end, resolution);
+            this.consolidationFunction = consolidationFunction;
+            counts = new int[bucketCount];
+            bucketValues = new double[bucketCount];
+            bucketTimes = new double[bucketCount];
+        }
+
+        @Override
+        void add(long time, double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            int bucket = bucketOf(time);
+            double relativeTime = time - begin;
+            int count = counts[bucket]++;
+            if (count == 0) {
+                bucketValues[bucket] = value;
+                bucketTimes[bucket] = relativeTime;
+                return;
+            }
+            switch (consolidationFunction) {
+                case MIN:
+                    if (value < bucketValues[bucket]) {
+                        bucketValues[bucket] = value;
+                        bucketTimes[bucket] = relativeTime;
+                    }
+                    break;
+                case MAX:
+                    if (value > bucketValues[bucket]) {
+                        bucketValues[bucket] = value;
+                        bucketTimes[bucket] = relativeTime;
+                    }
+                    break;
+                case FIRST:
+                    if (relativeTime < bucketTimes[bucket]) {
+                        bucketValues[bucket] = value;
+                        bucketTimes[bucket] = relativeTime;
+                    }
+                    break;
+                case LAST:
+                    if (relativeTime >= bucketTimes[bucket]) {
+                        bucketValues[bucket] = value;
+                        bucketTimes[bucket] = relativeTime;
+                    }
+                    break;
+                default:
+                    // AVERAGE and TOTAL
+                    bucketValues[bucket] += value;
+                    bucketTimes[bucket] += relativeTime;
+                    break;
+            }
+        }
+
+        @Override
+        void finish() {
+            int filled = 0;
+            for (int count : counts) {
+                if (count > 0) {
+                    filled++;
+                }
+            }
+            times = new long[filled];
+            values = new double[filled];
+            size = 0;
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                int count = counts[bucket];
+                if (count == 0) {
+                    continue;
+                }
+                double value = bucketValues[bucket];
+                double relativeTime = bucketTimes[bucket];
+                if (consolidationFunction == ConsolFun.AVERAGE || consolidationFunction == ConsolFun.TOTAL) {
+                    relativeTime /= count;
+                    if (consolidationFunction == ConsolFun.AVERAGE) {
+                        value /= count;
+                    }
+                }
+                times[size] = begin + Math.round(relativeTime);
+                values[size] = value;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Selects the points by the Largest-Triangle-Three-Buckets algorithm: from each bucket the point forming the
+     * largest triangle with the point selected from the previous bucket and the average of the next bucket. The
+     * selection needs the following bucket, so the raw points are not selected while they are added. Instead only the
+     * candidates of each bucket are kept, the first, the last, the minimum and the maximum point, along with the sums
+     * for the average. The first and the last point of the series are points of their own.
+     */
+    private static class Lttb extends SeriesDownsampler {
+        private static final int CANDIDATES = 4;
+
+        private final int[] counts;
+        // sums of the times (relative to begin) and values for the average of each bucket
+        private final double[] timeSums;
+        private final double[] valueSums;
+        private final long[] firstTimes;
+        private final double[] firstValues;
+        private final long[] lastTimes;
+        private final double[] lastValues;
+        private final long[] minTimes;
+        private final double[] minValues;
+        private final long[] maxTimes;
+        private final double[] maxValues;
+
+        Lttb(long begin, long end, long resolution) {
+            super(begin, end, resolution);
+            counts = new int[bucketCount];
+            timeSums = new double[bucketCount];
+            valueSums = new double[bucketCount];
+            firstTimes = new long[bucketCount];
+            firstValues = new double[bucketCount];
+            lastTimes = new long[bucketCount];
+            lastValues = new double[bucketCount];
+            minTimes = new long[bucketCount];
+            minValues = new double[bucketCount];
+            maxTimes = new long[bucketCount];
+            maxValues = new double[bucketCount];
+        }
+
+        @Override
+        void add(long time, double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            int bucket = bucketOf(time);
+            timeSums[bucket] += time - begin;
+            valueSums[bucket] += value;
+            if (counts[bucket]++ == 0) {
+                firstTimes[bucket] = lastTimes[bucket] = minTimes[bucket] = maxTimes[bucket] = time;
+                firstValues[bucket] = lastValues[bucket] = minValues[bucket] = maxValues[bucket] = value;
+                return;
+            }
+            // the points do not have to be ordered
+            if (time < firstTimes[bucket]) {
+                firstTimes[bucket] = time;
+                firstValues[bucket] = value;
+            }
+            if (time >= lastTimes[bucket]) {
+                lastTimes[bucket] = time;
+                lastValues[bucket] = value;
+            }
+            if (value < minValues[bucket]) {
+                minTimes[bucket] = time;
+                minValues[bucket] = value;
+            }
+            if (value > maxValues[bucket]) {
+                maxTimes[bucket] = time;
+                maxValues[bucket] = value;
+            }
+        }
+
+        @Override
+        void finish() {
+            int firstBucket = -1;
+            int lastBucket = -1;
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                if (counts[bucket] > 0) {
+                    if (firstBucket < 0) {
+                        firstBucket = bucket;
+                    }
+                    lastBucket = bucket;
+                }
+            }
+            size = 0;
+            if (firstBucket < 0) {
+                times = new long[0];
+                values = new double[0];
+                return;
+            }
+            long firstTime = firstTimes[firstBucket];
+            double firstValue = firstValues[firstBucket];
+            long lastTime = lastTimes[lastBucket];
+            double lastValue = lastValues[lastBucket];
+            // the last point is not part of its bucket, so it is not part of the average
+            counts[lastBucket]--;
+            timeSums[lastBucket] -= lastTime - begin;
+            valueSums[lastBucket] -= lastValue;
+
+            times = new long[bucketCount + 2];
+            values = new double[bucketCount + 2];
+            append(firstTime, firstValue);
+            if (firstBucket == lastBucket && counts[lastBucket] == 0) {
+                // a single point
+                return;
+            }
+
+            long[][] bucketCandidateTimes = { firstTimes, minTimes, maxTimes, lastTimes };
+            double[][] bucketCandidateValues = { firstValues, minValues, maxValues, lastValues };
+            long[] candidateTimes = new long[CANDIDATES];
+            double[] candidateValues = new double[CANDIDATES];
+            long selectedTime = firstTime;
+            double selectedValue = firstValue;
+            int nextBucket = firstBucket;
+            for (int bucket = firstBucket; bucket <= lastBucket; bucket = nextBucket) {
+                // the next bucket with points (without the last point)
+                nextBucket = bucket + 1;
+                while (nextBucket <= lastBucket && counts[nextBucket] == 0) {
+                    nextBucket++;
+                }
+                if (counts[bucket] == 0) {
+                    continue;
+                }
+                // candidates of the bucket in the order of their time, without the first and the last point
+                int candidates = 0;
+                for (int kind = 0; kind < CANDIDATES; kind++) {
+                    long time = bucketCandidateTimes[kind][bucket];
+                    double value = bucketCandidateValues[kind][bucket];
+                    if ((bucket == firstBucket && time == firstTime && value == firstValue)
+                            || (bucket == lastBucket && time == lastTime && value == lastValue)) {
+                        continue;
+                    }
+                    candidates = insertCandidate(candidateTimes, candidateValues, candidates, time, value);
+                }
+                if (candidates == 0) {
+                    continue;
+                }
+
+                // average of the next bucket with points, or the last point
+                double nextTime = lastTime - begin;
+                double nextValue = lastValue;
+                if (nextBucket <= lastBucket) {
+                    nextTime = timeSums[nextBucket] / counts[nextBucket];
+                    nextValue = valueSums[nextBucket] / counts[nextBucket];
+                }
+
+                double relativeSelectedTime = selectedTime - begin;
+                double maxArea = -1;
+                int maxCandidate = 0;
+                for (int i = 0; i < candidates; i++) {
+                    double area = Math.abs((relativeSelectedTime - nextTime) * (candidateValues[i] - selectedValue)
+                            - (relativeSelectedTime - (candidateTimes[i] - begin)) * (nextValue - selectedValue));
+                    if (area > maxArea) {
+                        maxArea = area;
+                        maxCandidate = i;
+                    }
+                }
+                selectedTime = candidateTimes[maxCandidate];
+                selectedValue = candidateValues[maxCandidate];
+                append(selectedTime, selectedValue);
+            }
+            append(lastTime, lastValue);
+        }
+
+        /**
+         * Inserts a candidate ordered by time
+         *
+         * @return the number of candidates
+         */
+        private static int insertCandidate(long[] candidateTimes, double[] candidateValues, int candidates, long time,
+                double value) {
+            int i = candidates;
+            while (i > 0 && candidateTimes[i - 1] > time) {
+                candidateTimes[i] = candidateTimes[i - 1];
+                candidateValues[i] = candidateValues[i - 1];
+                i--;
+            }
+            candidateTimes[i] = time;
+            candidateValues[i] = value;
+            return candidates + 1;
+        }
+
+        private void append(long time, double value) {
+            times[size] = time;
+            values[size] = value;
+            size++;
+        }
+    }
+}
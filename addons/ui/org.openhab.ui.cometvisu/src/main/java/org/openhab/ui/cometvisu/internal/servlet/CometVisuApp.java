@@ -207,6 +207,17 @@ public class CometVisuApp {
                 }
                 Config.COMETVISU_AUTO_DOWNLOAD = newValue;
             }
+            if (properties.get(Config.COMETVISU_EVENT_COALESCING_PROPERTY) != null) {
+                // Value might be a string or a number
+                Object propertyValue = properties.get(Config.COMETVISU_EVENT_COALESCING_PROPERTY);
+                try {
+                    long newValue = propertyValue instanceof Number ? ((Number) propertyValue).longValue()
+                            : Long.parseLong(propertyValue.toString().trim());
+                    Config.COMETVISU_EVENT_COALESCING = Math.max(0, newValue);
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value '{}' for {}", propertyValue, Config.COMETVISU_EVENT_COALESCING_PROPERTY);
+                }
+            }
             for (String key : properties.keySet()) {
                 String[] parts = key.split(">");
                 String propKey = parts.length > 1 ? parts[1] : parts[0];
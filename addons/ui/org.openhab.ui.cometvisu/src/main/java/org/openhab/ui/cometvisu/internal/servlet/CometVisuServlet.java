@@ -15,9 +15,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -72,6 +75,7 @@ import org.openhab.ui.cometvisu.internal.config.VisuConfig;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.DataBean;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.ItemBean;
 import org.openhab.ui.cometvisu.internal.rss.beans.Feed;
+import org.openhab.ui.cometvisu.internal.servlet.StaticFileCache.StaticFile;
 import org.openhab.ui.cometvisu.internal.util.ClientInstaller;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.slf4j.Logger;
@@ -117,6 +121,8 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private final StaticFileCache fileCache;
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -124,6 +130,7 @@ public class CometVisuServlet extends HttpServlet {
                 + Config.COMETVISU_WEBAPP_USERFILE_FOLDER);
         defaultUserDir = System.getProperty("user.dir");
         this.cometVisuApp = cometVisuApp;
+        fileCache = new StaticFileCache(userFileFolder, rootFolder);
 
         PHProvider prov = cometVisuApp.getPHProvider();
         if (prov != null) {
@@ -177,6 +184,14 @@ public class CometVisuServlet extends HttpServlet {
             this.engine.init(rootFolder.getAbsolutePath(), defaultUserDir, _servletContext);
             phpEnabled = true;
         }
+
+        fileCache.start();
+    }
+
+    @Override
+    public void destroy() {
+        fileCache.stop();
+        super.destroy();
     }
 
     /**
@@ -274,6 +289,19 @@ public class CometVisuServlet extends HttpServlet {
 
     protected File getRequestedFile(HttpServletRequest req) throws UnsupportedEncodingException {
         String requestedFile = req.getPathInfo();
+        File cachedFile = requestedFile != null ? fileCache.getRequestedFile(requestedFile) : null;
+        if (cachedFile != null) {
+            return cachedFile;
+        }
+        long generation = fileCache.getGeneration();
+        File file = resolveRequestedFile(requestedFile);
+        if (requestedFile != null) {
+            fileCache.putRequestedFile(requestedFile, file, generation);
+        }
+        return file;
+    }
+
+    private File resolveRequestedFile(String requestedFile) throws UnsupportedEncodingException {
         if (requestedFile.endsWith("/")) {
             requestedFile = requestedFile.substring(0, requestedFile.length() - 1);
         }
@@ -541,12 +569,14 @@ public class CometVisuServlet extends HttpServlet {
             // file object.
             file = new File(rootFolder, URLDecoder.decode(requestedFile, "UTF-8"));
         }
-        if (file.equals(rootFolder) || (file.exists() && file.isDirectory())) {
+        StaticFile staticFile = fileCache.get(file);
+        if (file.equals(rootFolder) || staticFile.isDirectory()) {
             file = new File(file, "index.html");
+            staticFile = fileCache.get(file);
         }
 
         // Check if file actually exists in filesystem.
-        if (!file.exists()) {
+        if (!staticFile.exists()) {
             // show installation hints if the CometVisu-Clients main index.html is requested but cannot be found
             if (file.getParentFile().equals(rootFolder)
                     && (file.getName().equalsIgnoreCase("index.html") || file.getName().length() == 0)) {
@@ -572,11 +602,38 @@ public class CometVisuServlet extends HttpServlet {
 
         // Prepare some variables. The ETag is an unique identifier of the file.
         String fileName = file.getName();
-        long length = file.length();
-        long lastModified = file.lastModified();
-        String eTag = fileName + "_" + length + "_" + lastModified;
+        long length = staticFile.getLength();
+        long lastModified = staticFile.getLastModified();
         long expires = System.currentTimeMillis() + DEFAULT_EXPIRE_TIME;
 
+        // Get content type by file name. If content type is unknown, then set the default value.
+        // For all content types, see:
+        // http://www.w3schools.com/media/media_mimeref.asp
+        // To add new content types, add new mime-mapping entry in web.xml.
+        String contentType = getServletContext().getMimeType(fileName);
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+
+        // Complete files of compressible types are sent compressed, if the browser supports it.
+        // Each encoding is a variant of the file with its own ETag.
+        boolean compressible = isCompressible(contentType);
+        String contentEncoding = null;
+        if (compressible && request.getHeader("Range") == null) {
+            String acceptEncoding = request.getHeader("Accept-Encoding");
+            if (acceptEncoding != null) {
+                if (staticFile.getBrotliFile() != null && accepts(acceptEncoding, StaticFileCache.BROTLI)) {
+                    contentEncoding = StaticFileCache.BROTLI;
+                } else if (accepts(acceptEncoding, StaticFileCache.GZIP)) {
+                    contentEncoding = StaticFileCache.GZIP;
+                }
+            }
+        }
+        String eTag = contentEncoding == null ? staticFile.getETag() : staticFile.getETag() + "-" + contentEncoding;
+        if (compressible) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
         // Validate request headers for caching
         // ---------------------------------------------------
 
@@ -697,27 +754,12 @@ public class CometVisuServlet extends HttpServlet {
         // Prepare and initialize response
         // --------------------------------------------------------
 
-        // Get content type by file name and set default GZIP support and
-        // content disposition.
-        String contentType = getServletContext().getMimeType(fileName);
-        boolean acceptsGzip = false;
+        // Set content disposition.
         String disposition = "inline";
 
-        // If content type is unknown, then set the default value.
-        // For all content types, see:
-        // http://www.w3schools.com/media/media_mimeref.asp
-        // To add new content types, add new mime-mapping entry in web.xml.
-        if (contentType == null) {
-            contentType = "application/octet-stream";
-        }
-
-        // If content type is text, then determine whether GZIP content encoding
-        // is supported by
-        // the browser and expand content type with the one and right character
+        // If content type is text, then expand content type with the one and right character
         // encoding.
         if (contentType.startsWith("text")) {
-            String acceptEncoding = request.getHeader("Accept-Encoding");
-            acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
             contentType += ";charset=UTF-8";
         }
 
@@ -741,12 +783,11 @@ public class CometVisuServlet extends HttpServlet {
         // ------------------------------------------------
 
         // Prepare streams.
-        RandomAccessFile input = null;
+        FileChannel input = null;
         OutputStream output = null;
 
         try {
             // Open streams.
-            input = new RandomAccessFile(file, "r");
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
@@ -757,20 +798,39 @@ public class CometVisuServlet extends HttpServlet {
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
                 if (content) {
-                    if (acceptsGzip) {
-                        // The browser accepts GZIP, so GZIP the content.
-                        response.setHeader("Content-Encoding", "gzip");
-                        output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                    if (contentEncoding != null) {
+                        response.setHeader("Content-Encoding", contentEncoding);
+                    }
+                    byte[] gzipContent = null;
+                    File variant = file;
+                    if (StaticFileCache.BROTLI.equals(contentEncoding)) {
+                        variant = staticFile.getBrotliFile();
+                    } else if (StaticFileCache.GZIP.equals(contentEncoding)) {
+                        variant = staticFile.getGzipFile();
+                        if (variant == null) {
+                            gzipContent = staticFile.getGzipContent();
+                        }
+                    }
+
+                    if (gzipContent != null) {
+                        // Send the content compressed once before
+                        response.setHeader("Content-Length", String.valueOf(gzipContent.length));
+                        output.write(gzipContent);
+                    } else if (variant != null) {
+                        // Send the file or its precompressed variant
+                        input = FileChannel.open(variant.toPath(), StandardOpenOption.READ);
+                        long variantLength = variant == file ? r.length : input.size();
+                        response.setHeader("Content-Length", String.valueOf(variantLength));
+                        copy(input, output, 0, variantLength);
                     } else {
                         // Content length is not directly predictable in case of
                         // GZIP.
                         // So only add it if there is no means of GZIP, else
                         // browser will hang.
-                        response.setHeader("Content-Length", String.valueOf(r.length));
+                        input = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                        output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                        copy(input, output, r.start, r.length);
                     }
-
-                    // Copy full range.
-                    copy(input, output, r.start, r.length);
                 }
 
             } else if (ranges.size() == 1) {
@@ -784,6 +844,7 @@ public class CometVisuServlet extends HttpServlet {
 
                 if (content) {
                     // Copy single part range.
+                    input = FileChannel.open(file.toPath(), StandardOpenOption.READ);
                     copy(input, output, r.start, r.length);
                 }
 
@@ -797,6 +858,7 @@ public class CometVisuServlet extends HttpServlet {
                     // Cast back to ServletOutputStream to get the easy println
                     // methods.
                     ServletOutputStream sos = (ServletOutputStream) output;
+                    input = FileChannel.open(file.toPath(), StandardOpenOption.READ);
 
                     // Copy multi part range.
                     for (Range r : ranges) {
@@ -1088,6 +1150,18 @@ public class CometVisuServlet extends HttpServlet {
                 || Arrays.binarySearch(acceptValues, "*/*") > -1;
     }
 
+    /**
+     * Returns true if content of the given type benefits from compression.
+     *
+     * @param contentType
+     *            The content type.
+     * @return True if the content type is text based.
+     */
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text") || contentType.contains("javascript") || contentType.contains("json")
+                || contentType.contains("xml") || contentType.contains("svg");
+    }
+
     /**
      * Returns true if the given match header matches the given value.
      *
@@ -1136,28 +1210,18 @@ public class CometVisuServlet extends HttpServlet {
      * @throws IOException
      *             If something fails at I/O level.
      */
-    private static void copy(RandomAccessFile input, OutputStream output, long start, long length) throws IOException {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-        int read;
-
-        if (input.length() == length) {
-            // Write full range.
-            while ((read = input.read(buffer)) > 0) {
-                output.write(buffer, 0, read);
-            }
-        } else {
-            // Write partial range.
-            input.seek(start);
-            long toRead = length;
-
-            while ((read = input.read(buffer)) > 0) {
-                if ((toRead -= read) > 0) {
-                    output.write(buffer, 0, read);
-                } else {
-                    output.write(buffer, 0, (int) toRead + read);
-                    break;
-                }
+    private static void copy(FileChannel input, OutputStream output, long start, long length) throws IOException {
+        // the file content is transferred by the channel, without copying it through a buffer of the servlet,
+        // the wrapper channel is not closed as it would close the output
+        WritableByteChannel target = Channels.newChannel(output);
+        long position = start;
+        long end = start + length;
+        while (position < end) {
+            long transferred = input.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                break;
             }
+            position += transferred;
         }
     }
 
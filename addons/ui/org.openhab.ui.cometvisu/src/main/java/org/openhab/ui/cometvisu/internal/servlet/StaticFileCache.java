@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.servlet;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for the static files served by the {@link CometVisuServlet}.
+ *
+ * The metadata of the files (existence, length, last modification and ETag) and the resolution of request paths to
+ * files are kept in memory, so a request for a cached file does not touch the file system until the file is sent.
+ * Compressible files are gzipped once and the compressed content is kept in memory, within a size limit. Precompressed
+ * siblings (<code>file.br</code>, <code>file.gz</code>) are used if they exist.
+ *
+ * All cached data is invalidated by a {@link WatchService} on the served folders. Files outside the watched folders
+ * are never cached.
+ *
+ * @author agent (agent@local) - Initial contribution
+ */
+class StaticFileCache {
+    private final Logger logger = LoggerFactory.getLogger(StaticFileCache.class);
+
+    static final String GZIP = "gzip";
+    static final String BROTLI = "br";
+
+    private static final int MAX_COMPRESSED_FILE_SIZE = 1024 * 1024;
+    private static final long MAX_COMPRESSED_CACHE_SIZE = 32 * 1024 * 1024;
+    private static final int MAX_REQUEST_PATHS = 10000;
+    private static final long WATCH_RETRY_INTERVAL = 10000;
+
+    private final List<Path> folders = new ArrayList<>();
+    private final List<Path> watchedFolders = new CopyOnWriteArrayList<>();
+    private final Map<Path, StaticFile> files = new ConcurrentHashMap<>();
+    private final Map<String, File> requestedFiles = new ConcurrentHashMap<>();
+    private final AtomicLong compressedCacheSize = new AtomicLong();
+    // incremented by every invalidation, before the cached entries are removed
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile WatchService watchService;
+    private Thread watchThread;
+    private volatile long lastWatchAttempt;
+
+    /**
+     * Metadata and compressed variants of a single file.
+     */
+    class StaticFile {
+        private final File file;
+        private final boolean exists;
+        private final boolean directory;
+        private final long length;
+        private final long lastModified;
+        private final String eTag;
+        private final File brotliFile;
+        private final File gzipFile;
+        private final long generation;
+        private byte[] gzipContent;
+        private boolean gzipBuilt;
+
+        StaticFile(File file, long generation) {
+            this.file = file;
+            this.generation = generation;
+            exists = file.exists();
+            directory = exists && file.isDirectory();
+            length = file.length();
+            lastModified = file.lastModified();
+            eTag = file.getName() + "_" + length + "_" + lastModified;
+            brotliFile = sibling(BROTLI);
+            gzipFile = sibling("gz");
+        }
+
+        private File sibling(String extension) {
+            if (!exists || directory) {
+                return null;
+            }
+            File sibling = new File(file.getPath() + "." + extension);
+            return sibling.isFile() && sibling.lastModified() >= lastModified ? sibling : null;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        boolean exists() {
+            return exists;
+        }
+
+        boolean isDirectory() {
+            return directory;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return precompressed brotli file or null if there is none
+         */
+        File getBrotliFile() {
+            return brotliFile;
+        }
+
+        /**
+         * @return precompressed gzip file or null if there is none
+         */
+        File getGzipFile() {
+            return gzipFile;
+        }
+
+        /**
+         * Returns the gzipped content, which is built on first use.
+         *
+         * @return gzipped content or null if the file is too large or the cache is full
+         */
+        synchronized byte[] getGzipContent() {
+            if (!gzipBuilt) {
+                gzipBuilt = true;
+                if (length <= MAX_COMPRESSED_FILE_SIZE && compressedCacheSize.get() < MAX_COMPRESSED_CACHE_SIZE) {
+                    try {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) length / 4 + 64);
+                        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                            Files.copy(file.toPath(), gzip);
+                        }
+                        gzipContent = bytes.toByteArray();
+                        if (isCached(this)) {
+                            compressedCacheSize.addAndGet(gzipContent.length);
+                        }
+                    } catch (IOException e) {
+                        logger.debug("Error compressing file '{}': {}", file, e.getMessage());
+                    }
+                }
+            }
+            return gzipContent;
+        }
+
+        private synchronized long getCompressedSize() {
+            return gzipContent != null ? gzipContent.length : 0;
+        }
+    }
+
+    StaticFileCache(File... folders) {
+        for (File folder : folders) {
+            this.folders.add(folder.toPath().toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * Returns the cached metadata of a file or reads it, if it is not cached.
+     *
+     * @param file the requested file
+     * @return the metadata of the file
+     */
+    StaticFile get(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (!isWatched(path)) {
+            return new StaticFile(file, generation.get());
+        }
+        // read before the metadata, so an invalidation while the metadata is read is detected
+        long readGeneration = generation.get();
+        StaticFile staticFile = files.computeIfAbsent(path, p -> read(file, readGeneration));
+        if (staticFile.generation == readGeneration && generation.get() != readGeneration) {
+            // the file has changed while it was read, the entry might have been added after the invalidation has
+            // removed the entries of the file, so it might never be removed
+            if (files.remove(path, staticFile)) {
+                compressedCacheSize.addAndGet(-staticFile.getCompressedSize());
+            }
+            return new StaticFile(file, generation.get());
+        }
+        return staticFile;
+    }
+
+    /**
+     * Reads the metadata of a file, overridden by tests.
+     *
+     * @param file the requested file
+     * @param generation the generation of the cached data before the metadata is read
+     * @return the metadata of the file
+     */
+    StaticFile read(File file, long generation) {
+        return new StaticFile(file, generation);
+    }
+
+    /**
+     * Returns the file a request path has been resolved to before.
+     *
+     * @param requestPath the path info of the request
+     * @return the resolved file or null if the path has not been resolved yet
+     */
+    File getRequestedFile(String requestPath) {
+        return requestedFiles.get(requestPath);
+    }
+
+    /**
+     * @return the generation of the cached data, which has to be read before a request path is resolved
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Remembers the file a request path has been resolved to, unless the files have changed while it was resolved.
+     *
+     * @param requestPath the path info of the request
+     * @param file the resolved file
+     * @param resolvedGeneration the generation read before the path was resolved
+     */
+    void putRequestedFile(String requestPath, File file, long resolvedGeneration) {
+        if (isWatched(file.toPath().toAbsolutePath().normalize()) && generation.get() == resolvedGeneration) {
+            if (requestedFiles.size() >= MAX_REQUEST_PATHS) {
+                requestedFiles.clear();
+            }
+            requestedFiles.put(requestPath, file);
+            if (generation.get() != resolvedGeneration) {
+                // invalidated meanwhile, possibly before the path was added
+                requestedFiles.remove(requestPath, file);
+            }
+        }
+    }
+
+    private boolean isCached(StaticFile staticFile) {
+        return files.get(staticFile.getFile().toPath().toAbsolutePath().normalize()) == staticFile;
+    }
+
+    private boolean isWatched(Path path) {
+        if (watchService == null) {
+            return false;
+        }
+        if (watchedFolders.size() < folders.size()
+                && System.currentTimeMillis() - lastWatchAttempt > WATCH_RETRY_INTERVAL) {
+            // folders created after the start, e.g. by the client installer
+            synchronized (this) {
+                if (watchService != null) {
+                    watchFolders();
+                }
+            }
+        }
+        for (Path folder : watchedFolders) {
+            if (path.startsWith(folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            logger.debug("Static files are not cached, no watch service available: {}", e.getMessage());
+            return;
+        }
+        watchFolders();
+
+        watchThread = new Thread(this::watch, "CometVisu file watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignore) {
+            }
+            watchService = null;
+        }
+        watchedFolders.clear();
+        invalidateAll();
+    }
+
+    private void watchFolders() {
+        lastWatchAttempt = System.currentTimeMillis();
+        for (Path folder : folders) {
+            if (!watchedFolders.contains(folder) && Files.isDirectory(folder)) {
+                try {
+                    register(folder);
+                    watchedFolders.add(folder);
+                    // files and paths might have been resolved to other folders before
+                    invalidateAll();
+                } catch (IOException e) {
+                    logger.debug("Static files in '{}' are not cached, folder cannot be watched: {}", folder,
+                            e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void register(Path folder) throws IOException {
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        invalidateAll();
+                        continue;
+                    }
+                    Path changed = dir.resolve((Path) event.context());
+                    invalidate(changed);
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                        synchronized (this) {
+                            if (watchService == service) {
+                                register(changed);
+                            }
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching static files");
+        } catch (IOException e) {
+            logger.debug("Error watching static files, caching is disabled: {}", e.getMessage());
+            stop();
+        }
+    }
+
+    private void invalidate(Path changed) {
+        logger.trace("Static file '{}' changed", changed);
+        generation.incrementAndGet();
+        // a created or deleted file changes the resolution of request paths and of index files
+        requestedFiles.clear();
+        files.entrySet().removeIf(entry -> {
+            // the entry of a file, of its precompressed siblings and of its parent folders
+            Path path = entry.getKey();
+            if (path.startsWith(changed) || changed.startsWith(path)
+                    || changed.toString().startsWith(path.toString() + ".")) {
+                compressedCacheSize.addAndGet(-entry.getValue().getCompressedSize());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        requestedFiles.clear();
+        files.clear();
+        compressedCacheSize.set(0);
+    }
+}
@@ -8,8 +8,10 @@
  */
 package org.openhab.ui.cometvisu.internal.util;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.MediaType;
 
+import org.eclipse.jetty.server.Request;
 import org.glassfish.jersey.media.sse.OutboundEvent;
 import org.openhab.ui.cometvisu.internal.StateBeanMessageBodyWriter;
 import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
@@ -47,6 +49,26 @@ public class SseUtil {
         return event;
     }
 
+    /**
+     * Limits the time, for which writing to the SSE connection of the request may block. A write to a client, which
+     * does not take the event, fails after this time and the connection is closed. The timeout is the idle timeout of
+     * the Jetty connection, which only expires while reading or writing, so a connection without events is kept open.
+     *
+     * @param request
+     *            - the request of the SSE connection
+     * @param timeout
+     *            - the write timeout in milliseconds
+     * @return true if the timeout is set, false if the servlet container is not supported
+     */
+    public static boolean setWriteTimeout(HttpServletRequest request, long timeout) {
+        Request baseRequest = Request.getBaseRequest(request);
+        if (baseRequest == null || baseRequest.getHttpChannel() == null) {
+            return false;
+        }
+        baseRequest.getHttpChannel().setIdleTimeout(timeout);
+        return true;
+    }
+
     /**
      * Used to mark our current thread(request processing) that SSE blocking
      * should be enabled.